@@ -0,0 +1,94 @@
+package com.grzechuhehe.SportsBettingManagerApp.service.bulk.benchmark;
+
+import com.grzechuhehe.SportsBettingManagerApp.dto.BetImportResult;
+import com.grzechuhehe.SportsBettingManagerApp.model.User;
+import com.grzechuhehe.SportsBettingManagerApp.service.bulk.BetBulkImportService;
+import com.grzechuhehe.SportsBettingManagerApp.service.export.BetExportFormat;
+import com.grzechuhehe.SportsBettingManagerApp.service.stats.UserAnalyticsCache;
+import com.grzechuhehe.SportsBettingManagerApp.service.stats.UserStatsService;
+import jakarta.validation.Validation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+
+/**
+ * Przepustowość importu CSV przez BetBulkImportService (batche JDBC) na H2 w pamięci — wynik w zakładach na
+ * sekundę. Liczby z MySQL (rewriteBatchedStatements) będą inne; benchmark służy do porównań przed/po zmianie.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class BetBulkImportBenchmark {
+
+    private static final int ROWS = 20_000;
+    private static final String HEADER = "id,parent_bet_id,bet_type,status,stake,currency,odds,final_profit,"
+            + "sport,event_name,event_date,market_type,selection,bookmaker,placed_at,notes\r\n";
+
+    private JdbcTemplate jdbcTemplate;
+    private BetBulkImportService service;
+    private User user;
+    private byte[] csv;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource("jdbc:h2:mem:bet_import_benchmark;DB_CLOSE_DELAY=-1"));
+        jdbcTemplate.execute("DROP TABLE IF EXISTS bet");
+        jdbcTemplate.execute("""
+                CREATE TABLE bet (
+                    id BIGINT AUTO_INCREMENT PRIMARY KEY, parent_bet_id BIGINT, user_id BIGINT NOT NULL,
+                    bet_type VARCHAR(20), status VARCHAR(20), stake DECIMAL(10, 2), units DECIMAL(10, 2),
+                    currency VARCHAR(3), odds DECIMAL(10, 2), odds_type VARCHAR(20),
+                    potential_winnings DECIMAL(10, 2), final_profit DECIMAL(10, 2), sport VARCHAR(255),
+                    event_name VARCHAR(255), event_date TIMESTAMP, market_type VARCHAR(50), selection VARCHAR(1000),
+                    line VARCHAR(255), bookmaker VARCHAR(255), external_bet_id VARCHAR(255),
+                    external_api_name VARCHAR(255), is_ai_extracted BOOLEAN NOT NULL,
+                    retroactive_at_import BOOLEAN NOT NULL, is_pre_match BOOLEAN NOT NULL,
+                    placed_at TIMESTAMP NOT NULL, settled_at TIMESTAMP, updated_at TIMESTAMP(6), notes CLOB)
+                """);
+        service = new BetBulkImportService(jdbcTemplate, Validation.buildDefaultValidatorFactory().getValidator(),
+                mock(UserStatsService.class), mock(UserAnalyticsCache.class));
+        user = new User();
+        user.setId(7L);
+        user.setUsername("john");
+
+        StringBuilder content = new StringBuilder(HEADER);
+        for (int i = 1; i <= ROWS; i++) {
+            content.append(i).append(",,SINGLE,WON,10.00,PLN,1.95,9.50,Football,Team ").append(i)
+                    .append(" vs Team X,2026-10-01T18:00,MONEYLINE_1X2,Team ").append(i)
+                    .append(",Bet365,2026-10-01T12:00,\r\n");
+        }
+        csv = content.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Setup(Level.Invocation)
+    public void clearTable() {
+        jdbcTemplate.execute("TRUNCATE TABLE bet");
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public BetImportResult importCsv() throws IOException {
+        return service.importBets(user, BetExportFormat.CSV, new ByteArrayInputStream(csv));
+    }
+}
@@ -0,0 +1,77 @@
+package com.grzechuhehe.SportsBettingManagerApp.service.resolution.benchmark;
+
+import com.grzechuhehe.SportsBettingManagerApp.integration.apify.dto.SofaScoreEventDto;
+import com.grzechuhehe.SportsBettingManagerApp.model.Bet;
+import com.grzechuhehe.SportsBettingManagerApp.service.resolution.BetMatcher;
+import com.grzechuhehe.SportsBettingManagerApp.service.resolution.EventPoolIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Dopasowanie zakładu do puli meczów cyklu — jeden zakład na wywołanie, zakłady po kolei z puli,
+ * więc memoizacja tokenów w {@link BetMatcher} działa jak w prawdziwym cyklu.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BetMatcherBenchmark {
+
+    private static final int DATE_WINDOW_DAYS = 4;
+
+    @Param({"300", "3000"})
+    int poolSize;
+
+    private BetMatcher matcher;
+    private List<SofaScoreEventDto> events;
+    private EventPoolIndex index;
+    private List<Bet> bets;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        List<ResolutionBenchmarkFixtures.Fixture> fixtures =
+                ResolutionBenchmarkFixtures.fixtures(poolSize, ResolutionBenchmarkFixtures.SEED);
+        matcher = ResolutionBenchmarkFixtures.betMatcher();
+        events = ResolutionBenchmarkFixtures.events(fixtures);
+        index = matcher.index(events);
+        bets = fixtures.stream().map(ResolutionBenchmarkFixtures.Fixture::bet).toList();
+    }
+
+    @Benchmark
+    public Optional<BetMatcher.MatchCandidate> findBestMatch() {
+        return matcher.findBestMatch(nextBet(), index, DATE_WINDOW_DAYS);
+    }
+
+    /** Ścieżka bez indeksu budowanego raz na cykl (pojedyncze zakłady spoza cyklu). */
+    @Benchmark
+    public Optional<BetMatcher.MatchCandidate> findBestMatchInList() {
+        return matcher.findBestMatch(nextBet(), events, DATE_WINDOW_DAYS);
+    }
+
+    @Benchmark
+    public EventPoolIndex indexEventPool() {
+        return matcher.index(events);
+    }
+
+    private Bet nextBet() {
+        Bet bet = bets.get(next);
+        next = next + 1 == bets.size() ? 0 : next + 1;
+        return bet;
+    }
+}
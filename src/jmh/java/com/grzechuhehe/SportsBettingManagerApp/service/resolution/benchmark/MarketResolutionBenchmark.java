@@ -0,0 +1,74 @@
+package com.grzechuhehe.SportsBettingManagerApp.service.resolution.benchmark;
+
+import com.grzechuhehe.SportsBettingManagerApp.model.enum_model.BetStatus;
+import com.grzechuhehe.SportsBettingManagerApp.service.resolution.market.AtomicCondition;
+import com.grzechuhehe.SportsBettingManagerApp.service.resolution.market.CompositeSelectionParser;
+import com.grzechuhehe.SportsBettingManagerApp.service.resolution.market.MarketResolverRegistry;
+import com.grzechuhehe.SportsBettingManagerApp.service.resolution.market.StatisticsMarketResolver;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/** Rozstrzyganie rynków: parser bet buildera, rejestr resolverów i statystyki z zagnieżdżonej mapy. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MarketResolutionBenchmark {
+
+    private static final int FIXTURES = 2_000;
+
+    private CompositeSelectionParser parser;
+    private MarketResolverRegistry registry;
+    private StatisticsMarketResolver statistics;
+    private List<String> selections;
+    private List<ResolutionBenchmarkFixtures.Fixture> marketFixtures;
+    private List<ResolutionBenchmarkFixtures.Fixture> statisticsFixtures;
+    private int nextSelection;
+    private int nextMarket;
+    private int nextStatistics;
+
+    @Setup
+    public void setUp() {
+        parser = new CompositeSelectionParser();
+        registry = ResolutionBenchmarkFixtures.marketResolverRegistry();
+        statistics = ResolutionBenchmarkFixtures.statisticsMarketResolver();
+        selections = ResolutionBenchmarkFixtures.builderSelections(FIXTURES, ResolutionBenchmarkFixtures.SEED);
+        marketFixtures = ResolutionBenchmarkFixtures.marketFixtures(FIXTURES, ResolutionBenchmarkFixtures.SEED);
+        statisticsFixtures = ResolutionBenchmarkFixtures.statisticsFixtures(FIXTURES, ResolutionBenchmarkFixtures.SEED);
+    }
+
+    @Benchmark
+    public Optional<List<AtomicCondition>> parseComplete() {
+        String selection = selections.get(nextSelection);
+        nextSelection = nextSelection + 1 == selections.size() ? 0 : nextSelection + 1;
+        return parser.parseComplete(selection);
+    }
+
+    @Benchmark
+    public Optional<BetStatus> resolve() {
+        ResolutionBenchmarkFixtures.Fixture fixture = marketFixtures.get(nextMarket);
+        nextMarket = nextMarket + 1 == marketFixtures.size() ? 0 : nextMarket + 1;
+        return registry.resolve(fixture.bet(), fixture.event());
+    }
+
+    @Benchmark
+    public Optional<BetStatus> resolveStatistics() {
+        ResolutionBenchmarkFixtures.Fixture fixture = statisticsFixtures.get(nextStatistics);
+        nextStatistics = nextStatistics + 1 == statisticsFixtures.size() ? 0 : nextStatistics + 1;
+        return statistics.resolve(fixture.bet(), fixture.event());
+    }
+}
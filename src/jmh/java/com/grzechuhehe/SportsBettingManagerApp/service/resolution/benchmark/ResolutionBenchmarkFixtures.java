@@ -0,0 +1,301 @@
+package com.grzechuhehe.SportsBettingManagerApp.service.resolution.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.grzechuhehe.SportsBettingManagerApp.integration.apify.dto.SofaScoreEventDto;
+import com.grzechuhehe.SportsBettingManagerApp.model.Bet;
+import com.grzechuhehe.SportsBettingManagerApp.model.enum_model.MarketType;
+import com.grzechuhehe.SportsBettingManagerApp.service.resolution.BetMatcher;
+import com.grzechuhehe.SportsBettingManagerApp.service.resolution.ResolutionNameTranslator;
+import com.grzechuhehe.SportsBettingManagerApp.service.resolution.market.BetBuilderMarketResolver;
+import com.grzechuhehe.SportsBettingManagerApp.service.resolution.market.CompositeSelectionParser;
+import com.grzechuhehe.SportsBettingManagerApp.service.resolution.market.HandicapMarketResolver;
+import com.grzechuhehe.SportsBettingManagerApp.service.resolution.market.MarketResolverRegistry;
+import com.grzechuhehe.SportsBettingManagerApp.service.resolution.market.StandardMarketResolver;
+import com.grzechuhehe.SportsBettingManagerApp.service.resolution.market.StatisticsMarketResolver;
+import com.grzechuhehe.SportsBettingManagerApp.service.resolution.matching.DoublesNameNormalizer;
+import com.grzechuhehe.SportsBettingManagerApp.service.resolution.matching.MatchReRanker;
+import com.grzechuhehe.SportsBettingManagerApp.service.resolution.matching.TennisNameNormalizer;
+
+import java.text.Normalizer;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Syntetyczne, ale realistyczne dane do benchmarków: zakłady z nazwami jak u polskich bukmacherów
+ * (polskie nazwy reprezentacji, „Nazwisko, Imię” i „Nazwisko I.” w tenisie, debel ze „/”) oraz mecze
+ * SofaScore po angielsku z zagnieżdżoną mapą statistics. Stałe ziarno — każdy przebieg widzi te same dane.
+ */
+final class ResolutionBenchmarkFixtures {
+
+    static final long SEED = 20_260_501L;
+    static final LocalDateTime BASE = LocalDateTime.of(2026, 5, 1, 12, 0);
+
+    /** Reprezentacje: nazwa u bukmachera → nazwa w SofaScore. */
+    private static final String[][] NATIONS = {
+            {"Chorwacja", "Croatia"}, {"Słowenia", "Slovenia"}, {"Niemcy", "Germany"}, {"Hiszpania", "Spain"},
+            {"Włochy", "Italy"}, {"Maroko", "Morocco"}, {"Norwegia", "Norway"}, {"Nowa Zelandia", "New Zealand"},
+            {"Belgia", "Belgium"}, {"Francja", "France"}, {"Anglia", "England"}, {"Portugalia", "Portugal"},
+            {"Holandia", "Netherlands"}, {"Szwecja", "Sweden"}, {"Dania", "Denmark"}, {"Czechy", "Czechia"},
+            {"Szwajcaria", "Switzerland"}, {"Japonia", "Japan"}, {"Korea Płd.", "South Korea"}, {"Polska", "Poland"},
+            {"Węgry", "Hungary"}, {"Grecja", "Greece"}, {"Turcja", "Türkiye"}, {"Austria", "Austria"}
+    };
+
+    private static final String[] CLUBS = {
+            "Legia Warszawa", "Lech Poznań", "Raków Częstochowa", "Wisła Kraków", "Jagiellonia Białystok",
+            "Pogoń Szczecin", "Górnik Zabrze", "Śląsk Wrocław", "Cracovia", "Widzew Łódź", "Real Madrid",
+            "FC Barcelona", "Atlético Madrid", "Manchester United", "Manchester City", "Arsenal", "Chelsea",
+            "Liverpool", "Tottenham Hotspur", "Bayern München", "Borussia Dortmund", "Inter", "AC Milan",
+            "Juventus", "Napoli", "Paris Saint-Germain", "Olympique Marseille", "Benfica", "FC Porto", "Ajax"
+    };
+
+    /** Tenisiści: imię, nazwisko. */
+    private static final String[][] PLAYERS = {
+            {"Iga", "Świątek"}, {"Aryna", "Sabalenka"}, {"Magda", "Linette"}, {"Hubert", "Hurkacz"},
+            {"Novak", "Djokovic"}, {"Carlos", "Alcaraz"}, {"Jannik", "Sinner"}, {"Alexander", "Zverev"},
+            {"Flavio", "Cobolli"}, {"Shintaro", "Mochizuki"}, {"Jan", "Zieliński"}, {"Hugo", "Nys"},
+            {"Kevin", "Krawietz"}, {"Tim", "Pütz"}, {"Casper", "Ruud"}, {"Holger", "Rune"},
+            {"Daniil", "Medvedev"}, {"Andrey", "Rublev"}, {"Coco", "Gauff"}, {"Jessica", "Pegula"}
+    };
+
+    private static final String[] FOOTBALLERS = {
+            "Robert Lewandowski", "Piotr Zieliński", "Kylian Mbappé", "Erling Haaland", "Harry Kane",
+            "Lautaro Martínez", "Vinícius Júnior", "Bukayo Saka", "Jamal Musiala", "Florian Wirtz"
+    };
+
+    private static final String[] SEPARATORS = {" - ", " vs ", " – "};
+
+    private ResolutionBenchmarkFixtures() {}
+
+    static ResolutionNameTranslator nameTranslator() {
+        return new ResolutionNameTranslator(new DoublesNameNormalizer(), new TennisNameNormalizer());
+    }
+
+    static BetMatcher betMatcher() {
+        return new BetMatcher(nameTranslator(), new MatchReRanker());
+    }
+
+    static StatisticsMarketResolver statisticsMarketResolver() {
+        return new StatisticsMarketResolver(nameTranslator());
+    }
+
+    static MarketResolverRegistry marketResolverRegistry() {
+        ResolutionNameTranslator translator = nameTranslator();
+        StandardMarketResolver standard = new StandardMarketResolver(translator);
+        HandicapMarketResolver handicap = new HandicapMarketResolver(translator);
+        StatisticsMarketResolver statistics = new StatisticsMarketResolver(translator);
+        BetBuilderMarketResolver betBuilder = new BetBuilderMarketResolver(
+                new CompositeSelectionParser(), standard, handicap, statistics, new ObjectMapper());
+        return new MarketResolverRegistry(betBuilder, handicap, standard);
+    }
+
+    /** Para zakład–mecz: ten sam mecz zapisany po stronie bukmachera i po stronie SofaScore. */
+    record Fixture(Bet bet, SofaScoreEventDto event) {}
+
+    /**
+     * {@code count} par zakład–mecz; mniej więcej połowa to piłka (kluby i reprezentacje, także
+     * kobiece „(K)”), reszta to tenis — singiel i debel.
+     */
+    static List<Fixture> fixtures(int count, long seed) {
+        Random random = new Random(seed);
+        List<Fixture> fixtures = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int kind = random.nextInt(10);
+            if (kind < 3) {
+                fixtures.add(clubMatch(random));
+            } else if (kind < 5) {
+                fixtures.add(nationMatch(random));
+            } else if (kind < 8) {
+                fixtures.add(tennisSingles(random));
+            } else {
+                fixtures.add(tennisDoubles(random));
+            }
+        }
+        return fixtures;
+    }
+
+    static List<SofaScoreEventDto> events(List<Fixture> fixtures) {
+        return fixtures.stream().map(Fixture::event).toList();
+    }
+
+    /** Selekcje bet buildera — rozpoznawalne w całości i z fragmentem, którego parser nie zna. */
+    static List<String> builderSelections(int count, long seed) {
+        Random random = new Random(seed);
+        List<String> selections = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String team = pick(random, NATIONS)[0];
+            String line = String.valueOf(random.nextInt(4) + 0.5);
+            selections.add(switch (random.nextInt(4)) {
+                case 0 -> "BetBuilder: Suma: powyżej " + line + ", Handicap 0:1: " + team + " (0:1)";
+                case 1 -> "Bet Builder: Suma: poniżej " + line + ", Handicap -1.5: " + team + " (-1.5)";
+                case 2 -> "BetBuilder: Over " + line + ", Handicap 1:0: " + team + " (1:0), Under 5.5";
+                default -> "BetBuilder: Suma: powyżej " + line + ", 1X2: " + team;
+            });
+        }
+        return selections;
+    }
+
+    /** Zakłady do rozstrzygnięcia rynkiem: 1X2, podwójna szansa, suma, handicap, bet builder. */
+    static List<Fixture> marketFixtures(int count, long seed) {
+        Random random = new Random(seed);
+        List<Fixture> fixtures = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String[] home = pick(random, NATIONS);
+            String[] away = pick(random, NATIONS);
+            SofaScoreEventDto event = finishedEvent(random, "football", home[1], away[1], "World Cup");
+            Bet.BetBuilder bet = Bet.builder().eventName(home[0] + " - " + away[0]).placedAt(BASE);
+            switch (random.nextInt(5)) {
+                case 0 -> bet.marketType(MarketType.MONEYLINE_1X2).selection(home[0]);
+                case 1 -> bet.marketType(MarketType.DOUBLE_CHANCE).selection(away[0] + " lub remis");
+                case 2 -> bet.marketType(MarketType.TOTALS_OVER_UNDER)
+                        .selection("Powyżej " + (random.nextInt(4) + 0.5));
+                case 3 -> bet.marketType(MarketType.HANDICAP).selection(home[0] + " (0:1)");
+                default -> bet.marketType(MarketType.TOTALS_OVER_UNDER)
+                        .selection("BetBuilder: Suma: powyżej 1.5, Handicap 0:2: " + away[0] + " (0:2)");
+            }
+            fixtures.add(new Fixture(bet.build(), event));
+        }
+        return fixtures;
+    }
+
+    /** Zakłady na statystyki meczu i zawodników — czytane z zagnieżdżonej mapy statistics. */
+    static List<Fixture> statisticsFixtures(int count, long seed) {
+        Random random = new Random(seed);
+        List<Fixture> fixtures = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String home = pick(random, CLUBS);
+            String away = pick(random, CLUBS);
+            SofaScoreEventDto event = finishedEvent(random, "football", home, away, "Champions League");
+            Bet.BetBuilder bet = Bet.builder().eventName(home + " - " + away).placedAt(BASE);
+            switch (random.nextInt(4)) {
+                case 0 -> bet.marketType(MarketType.TEAM_TOTAL_SHOTS).selection(home + " Over 9.5");
+                case 1 -> bet.marketType(MarketType.TOTAL_CARDS_OVER_UNDER).selection("Under 4.5");
+                case 2 -> bet.marketType(MarketType.CORNER_1X2).selection(away);
+                default -> bet.marketType(MarketType.PLAYER_SHOTS)
+                        .selection(pick(random, FOOTBALLERS) + " 2+ strzały");
+            }
+            fixtures.add(new Fixture(bet.build(), event));
+        }
+        return fixtures;
+    }
+
+    private static Fixture clubMatch(Random random) {
+        String home = pick(random, CLUBS);
+        String away = pick(random, CLUBS);
+        SofaScoreEventDto event = finishedEvent(random, "football", stripDiacritics(home), away, "Ekstraklasa");
+        return new Fixture(bet(random, home + pick(random, SEPARATORS) + away), event);
+    }
+
+    private static Fixture nationMatch(Random random) {
+        String[] home = pick(random, NATIONS);
+        String[] away = pick(random, NATIONS);
+        boolean women = random.nextInt(4) == 0;
+        String betName = women
+                ? home[0] + " (K) - " + away[0] + " (K)"
+                : home[0] + pick(random, SEPARATORS) + away[0];
+        SofaScoreEventDto event = finishedEvent(random, "football",
+                women ? home[1] + " Women" : home[1],
+                women ? away[1] + " Women" : away[1],
+                women ? "Women's Nations League" : "UEFA Nations League");
+        return new Fixture(bet(random, betName), event);
+    }
+
+    private static Fixture tennisSingles(Random random) {
+        String[] home = pick(random, PLAYERS);
+        String[] away = pick(random, PLAYERS);
+        String betName = random.nextBoolean()
+                ? home[1] + ", " + home[0] + " - " + away[1] + ", " + away[0]
+                : home[1] + " " + home[0].charAt(0) + ". - " + away[1] + " " + away[0].charAt(0) + ".";
+        SofaScoreEventDto event = finishedEvent(random, "tennis",
+                home[0] + " " + home[1], away[0] + " " + away[1], "ATP Madrid");
+        return new Fixture(bet(random, betName), event);
+    }
+
+    private static Fixture tennisDoubles(Random random) {
+        String[][] team = {pick(random, PLAYERS), pick(random, PLAYERS), pick(random, PLAYERS), pick(random, PLAYERS)};
+        String betName = initialed(team[0]) + "/" + initialed(team[1]) + " - " + initialed(team[2]) + "/" + initialed(team[3]);
+        SofaScoreEventDto event = finishedEvent(random, "tennis",
+                team[0][1] + " / " + team[1][1], team[2][1] + " / " + team[3][1], "ATP Madrid, Doubles");
+        return new Fixture(bet(random, betName), event);
+    }
+
+    private static Bet bet(Random random, String eventName) {
+        return Bet.builder()
+                .eventName(eventName)
+                .placedAt(BASE.plusMinutes(random.nextInt(60 * 24 * 7)))
+                .build();
+    }
+
+    private static SofaScoreEventDto finishedEvent(
+            Random random, String sport, String home, String away, String tournament) {
+        SofaScoreEventDto event = new SofaScoreEventDto();
+        event.setType("match");
+        event.setSport(sport);
+        event.setHomeTeam(home);
+        event.setAwayTeam(away);
+        event.setName(home + " - " + away);
+        event.setTournament(tournament);
+        event.setStatusType("finished");
+        int homeScore = random.nextInt(4);
+        int awayScore = random.nextInt(4);
+        event.setHomeScore(homeScore);
+        event.setAwayScore(awayScore);
+        event.setWinnerCode(homeScore > awayScore ? 1 : awayScore > homeScore ? 2 : 3);
+        event.setStartTimestamp(BASE.plusMinutes(random.nextInt(60 * 24 * 10)).toEpochSecond(ZoneOffset.UTC));
+        event.setEventId(String.valueOf(10_000_000 + random.nextInt(9_000_000)));
+        if ("football".equals(sport)) {
+            event.setStatistics(statistics(random));
+        }
+        return event;
+    }
+
+    /** Kształt jak z Apify: statystyki drużyn pod home/away, zawodnicy zagnieżdżeni pod players. */
+    private static Map<String, Object> statistics(Random random) {
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put("home", teamStatistics(random));
+        statistics.put("away", teamStatistics(random));
+        Map<String, Object> players = new LinkedHashMap<>();
+        for (String player : FOOTBALLERS) {
+            Map<String, Object> playerStatistics = new LinkedHashMap<>();
+            playerStatistics.put("minutesPlayed", 45 + random.nextInt(46));
+            playerStatistics.put("totalShots", random.nextInt(6));
+            playerStatistics.put("shotsOnTarget", random.nextInt(3));
+            playerStatistics.put("foulsCommitted", random.nextInt(4));
+            playerStatistics.put("foulsSuffered", random.nextInt(4));
+            players.put(player, playerStatistics);
+        }
+        statistics.put("players", players);
+        return statistics;
+    }
+
+    private static Map<String, Object> teamStatistics(Random random) {
+        Map<String, Object> team = new LinkedHashMap<>();
+        team.put("ballPossession", String.valueOf(30 + random.nextInt(41)));
+        team.put("totalShots", 4 + random.nextInt(16));
+        team.put("shotsOnTarget", random.nextInt(9));
+        team.put("cornerKicks", random.nextInt(11));
+        team.put("fouls", 6 + random.nextInt(12));
+        team.put("yellowCards", random.nextInt(5));
+        team.put("redCards", random.nextInt(10) == 0 ? 1 : 0);
+        return team;
+    }
+
+    private static String initialed(String[] player) {
+        return player[1] + " " + player[0].charAt(0) + ".";
+    }
+
+    private static String stripDiacritics(String name) {
+        return Normalizer.normalize(name, Normalizer.Form.NFD)
+                .replaceAll("\\p{M}", "")
+                .replace("ł", "l")
+                .replace("Ł", "L");
+    }
+
+    private static <T> T pick(Random random, T[] values) {
+        return values[random.nextInt(values.length)];
+    }
+}
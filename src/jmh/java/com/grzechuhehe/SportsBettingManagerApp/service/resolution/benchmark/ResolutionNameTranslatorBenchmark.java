@@ -0,0 +1,48 @@
+package com.grzechuhehe.SportsBettingManagerApp.service.resolution.benchmark;
+
+import com.grzechuhehe.SportsBettingManagerApp.service.resolution.ResolutionNameTranslator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/** Fraza do Apify z nazwy zdarzenia u bukmachera: tłumaczenie PL→EN, tenis, debel. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResolutionNameTranslatorBenchmark {
+
+    private static final int NAMES = 5_000;
+
+    private ResolutionNameTranslator translator;
+    private List<String> eventNames;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        translator = ResolutionBenchmarkFixtures.nameTranslator();
+        eventNames = ResolutionBenchmarkFixtures.fixtures(NAMES, ResolutionBenchmarkFixtures.SEED).stream()
+                .map(fixture -> fixture.bet().getEventName())
+                .toList();
+    }
+
+    @Benchmark
+    public Optional<String> resolveQueryForApify() {
+        String eventName = eventNames.get(next);
+        next = next + 1 == eventNames.size() ? 0 : next + 1;
+        return translator.resolveQueryForApify(eventName);
+    }
+}
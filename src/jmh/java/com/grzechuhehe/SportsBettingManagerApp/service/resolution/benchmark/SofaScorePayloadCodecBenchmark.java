@@ -0,0 +1,107 @@
+package com.grzechuhehe.SportsBettingManagerApp.service.resolution.benchmark;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.grzechuhehe.SportsBettingManagerApp.integration.apify.dto.SofaScoreEventDto;
+import com.grzechuhehe.SportsBettingManagerApp.service.resolution.SofaScorePayloadCodec;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Payload wiersza sofascore_query_cache: JSON (payload_json) kontra SofaScorePayloadCodec. Jeden payload to mecze
+ * zwrócone na jedno zapytanie; rozmiary w bajtach raportują liczniki pomocnicze (kolumny jsonBytes / binaryBytes).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SofaScorePayloadCodecBenchmark {
+
+    private static final TypeReference<List<SofaScoreEventDto>> EVENT_LIST_TYPE = new TypeReference<>() {};
+    private static final int PAYLOADS = 500;
+    private static final int EVENTS_PER_QUERY = 4;
+
+    private ObjectMapper objectMapper;
+    private SofaScorePayloadCodec codec;
+    private List<List<SofaScoreEventDto>> payloads;
+    private List<String> jsonPayloads;
+    private List<byte[]> binaryPayloads;
+    private int next;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class PayloadBytes {
+        public long jsonBytes;
+        public long binaryBytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            jsonBytes = 0;
+            binaryBytes = 0;
+        }
+    }
+
+    @Setup
+    public void setUp() throws Exception {
+        objectMapper = new ObjectMapper();
+        codec = new SofaScorePayloadCodec();
+        List<SofaScoreEventDto> events = ResolutionBenchmarkFixtures.events(
+                ResolutionBenchmarkFixtures.fixtures(PAYLOADS * EVENTS_PER_QUERY, ResolutionBenchmarkFixtures.SEED));
+        payloads = new ArrayList<>(PAYLOADS);
+        jsonPayloads = new ArrayList<>(PAYLOADS);
+        binaryPayloads = new ArrayList<>(PAYLOADS);
+        for (int i = 0; i < PAYLOADS; i++) {
+            List<SofaScoreEventDto> payload = events.subList(i * EVENTS_PER_QUERY, (i + 1) * EVENTS_PER_QUERY);
+            payloads.add(payload);
+            jsonPayloads.add(objectMapper.writeValueAsString(payload));
+            binaryPayloads.add(codec.encode(payload));
+        }
+    }
+
+    @Benchmark
+    public String encodeJson(PayloadBytes bytes) throws Exception {
+        String json = objectMapper.writeValueAsString(payloads.get(advance()));
+        bytes.jsonBytes += json.getBytes(StandardCharsets.UTF_8).length;
+        return json;
+    }
+
+    @Benchmark
+    public byte[] encodeBinary(PayloadBytes bytes) {
+        byte[] binary = codec.encode(payloads.get(advance()));
+        bytes.binaryBytes += binary.length;
+        return binary;
+    }
+
+    @Benchmark
+    public List<SofaScoreEventDto> decodeJson() throws Exception {
+        return objectMapper.readValue(jsonPayloads.get(advance()), EVENT_LIST_TYPE);
+    }
+
+    @Benchmark
+    public List<SofaScoreEventDto> decodeBinary() throws Exception {
+        return codec.decode(binaryPayloads.get(advance()));
+    }
+
+    private int advance() {
+        int current = next;
+        next = next + 1 == PAYLOADS ? 0 : next + 1;
+        return current;
+    }
+}
@@ -9,11 +9,15 @@ import org.springframework.stereotype.Component;
 
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 
 /**
  * Idempotentnie podnosi typ kolumny sofascore_query_cache.payload_json do MEDIUMTEXT.
  * Hibernate (ddl-auto=update) tworzy kolumnę z @Lob jako zbyt mały typ i nie zmienia
  * typu istniejącej kolumny, więc payload większych batchy powodował "Data too long".
+ * Zdejmuje też NOT NULL z payload_json — wiersze z payloadem binarnym mają tam NULL.
+ * Zakłada też unikalny indeks uk_query_hash, na którym opiera się upsert SofaScoreCacheWriter
+ * (ddl-auto nie dodaje go do istniejącej tabeli); duplikaty hasha usuwa, zostawiając najnowszy wiersz.
  */
 @Component
 @RequiredArgsConstructor
@@ -24,29 +28,92 @@ public class SofaScoreCacheSchemaRunner implements ApplicationRunner {
 
     @Override
     public void run(ApplicationArguments args) {
-        List<String> dataType = jdbcTemplate.queryForList("""
-                SELECT DATA_TYPE
-                FROM information_schema.COLUMNS
-                WHERE TABLE_SCHEMA = DATABASE()
-                  AND TABLE_NAME = 'sofascore_query_cache'
-                  AND COLUMN_NAME = 'payload_json'
-                """, String.class);
+        widenPayloadJson();
+        allowNullPayloadJson();
+        ensureUniqueQueryHash();
+    }
 
-        if (dataType.isEmpty()) {
+    private void widenPayloadJson() {
+        List<Map<String, Object>> column = payloadJsonColumn();
+        if (column.isEmpty()) {
             return;
         }
 
-        String current = dataType.get(0) == null ? "" : dataType.get(0).toLowerCase(Locale.ROOT);
+        Object dataType = column.get(0).get("DATA_TYPE");
+        String current = dataType == null ? "" : dataType.toString().toLowerCase(Locale.ROOT);
         if (current.equals("mediumtext") || current.equals("longtext")) {
             return;
         }
 
         try {
-            jdbcTemplate.execute(
-                    "ALTER TABLE sofascore_query_cache MODIFY payload_json MEDIUMTEXT NOT NULL");
-            log.info("SofaScore cache: payload_json zmieniono z {} na MEDIUMTEXT", current);
+            jdbcTemplate.execute("ALTER TABLE sofascore_query_cache MODIFY payload_json MEDIUMTEXT NULL");
+            log.info("SofaScore cache: payload_json zmieniono z {} na MEDIUMTEXT NULL", current);
         } catch (Exception e) {
             log.error("Could not widen SofaScore cache payload_json column (continuing startup): {}", e.getMessage());
         }
     }
+
+    /**
+     * Wiersze z payloadem binarnym (bet.resolution.cache-binary-payload, domyślnie włączone w
+     * application.properties) i wiersze magazynu meczów mają payload_json = NULL. ddl-auto nie zdejmuje
+     * NOT NULL z istniejącej kolumny, więc bez tego każdy zapis cache i przekodowanie w tle kończyłyby się
+     * "payload_json cannot be null".
+     */
+    private void allowNullPayloadJson() {
+        List<Map<String, Object>> column = payloadJsonColumn();
+        if (column.isEmpty() || "YES".equalsIgnoreCase(String.valueOf(column.get(0).get("IS_NULLABLE")))) {
+            return;
+        }
+
+        Object dataType = column.get(0).get("DATA_TYPE");
+        String type = "longtext".equalsIgnoreCase(String.valueOf(dataType)) ? "LONGTEXT" : "MEDIUMTEXT";
+        try {
+            jdbcTemplate.execute("ALTER TABLE sofascore_query_cache MODIFY payload_json " + type + " NULL");
+            log.info("SofaScore cache: payload_json dopuszcza NULL (payload binarny)");
+        } catch (Exception e) {
+            log.error("Could not make SofaScore cache payload_json nullable (continuing startup): {}", e.getMessage());
+        }
+    }
+
+    private List<Map<String, Object>> payloadJsonColumn() {
+        return jdbcTemplate.queryForList("""
+                SELECT DATA_TYPE, IS_NULLABLE
+                FROM information_schema.COLUMNS
+                WHERE TABLE_SCHEMA = DATABASE()
+                  AND TABLE_NAME = 'sofascore_query_cache'
+                  AND COLUMN_NAME = 'payload_json'
+                """);
+    }
+
+    private void ensureUniqueQueryHash() {
+        Integer uniqueIndexes = jdbcTemplate.queryForObject("""
+                SELECT COUNT(*)
+                FROM information_schema.STATISTICS
+                WHERE TABLE_SCHEMA = DATABASE()
+                  AND TABLE_NAME = 'sofascore_query_cache'
+                  AND COLUMN_NAME = 'query_hash'
+                  AND NON_UNIQUE = 0
+                """, Integer.class);
+        Integer tables = jdbcTemplate.queryForObject("""
+                SELECT COUNT(*)
+                FROM information_schema.TABLES
+                WHERE TABLE_SCHEMA = DATABASE()
+                  AND TABLE_NAME = 'sofascore_query_cache'
+                """, Integer.class);
+        if (tables == null || tables == 0 || (uniqueIndexes != null && uniqueIndexes > 0)) {
+            return;
+        }
+
+        try {
+            int duplicates = jdbcTemplate.update("""
+                    DELETE older FROM sofascore_query_cache older
+                    JOIN sofascore_query_cache newer
+                      ON newer.query_hash = older.query_hash AND newer.id > older.id
+                    """);
+            jdbcTemplate.execute("ALTER TABLE sofascore_query_cache ADD UNIQUE KEY uk_query_hash (query_hash)");
+            log.info("SofaScore cache: dodano unikalny indeks uk_query_hash (usunięto {} duplikatów)", duplicates);
+        } catch (Exception e) {
+            log.error("Could not add unique index on SofaScore cache query_hash (continuing startup): {}", e.getMessage());
+        }
+    }
 }
@@ -0,0 +1,61 @@
+package com.grzechuhehe.SportsBettingManagerApp.config;
+
+import com.grzechuhehe.SportsBettingManagerApp.repository.UserRepository;
+import com.grzechuhehe.SportsBettingManagerApp.service.stats.UserStatsService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Jednorazowe wypełnienie user_stats / user_daily_pnl dla użytkowników, którzy nie mają jeszcze
+ * agregatu (statsRebuiltAt IS NULL) — zamiast budować go leniwie przy pierwszym wejściu na dashboard.
+ * Paczki użytkowników po ID, każdy użytkownik w osobnej transakcji; przerwany job można wznowić.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class UserStatsBackfillRunner implements ApplicationRunner {
+
+    private final UserRepository userRepository;
+    private final UserStatsService userStatsService;
+
+    @Value("${bet.stats.backfill-on-startup:false}")
+    private boolean enabled;
+
+    @Value("${bet.stats.backfill-chunk-size:200}")
+    private int chunkSize = 200;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            return;
+        }
+        long afterId = 0L;
+        int built = 0;
+        int failed = 0;
+        List<Long> userIds;
+        do {
+            userIds = userRepository.findIdsWithoutStatsAfter(afterId, PageRequest.of(0, chunkSize));
+            for (Long userId : userIds) {
+                try {
+                    userStatsService.rebuild(userId);
+                    built++;
+                } catch (Exception e) {
+                    failed++;
+                    log.error("User stats backfill: użytkownik {} nieudany: {}", userId, e.getMessage());
+                }
+                afterId = userId;
+            }
+            if (!userIds.isEmpty()) {
+                log.info("User stats backfill: {} użytkowników gotowych (do ID {})", built, afterId);
+            }
+        } while (userIds.size() == chunkSize);
+        log.info("User stats backfill: zbudowano agregat {} użytkowników, błędy: {}", built, failed);
+    }
+}
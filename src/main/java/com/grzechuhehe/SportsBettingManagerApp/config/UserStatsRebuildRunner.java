@@ -0,0 +1,60 @@
+package com.grzechuhehe.SportsBettingManagerApp.config;
+
+import com.grzechuhehe.SportsBettingManagerApp.repository.UserRepository;
+import com.grzechuhehe.SportsBettingManagerApp.service.stats.UserStatsService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Weryfikacja i przebudowa agregatów user_stats / user_daily_pnl od zera. Dla każdego
+ * użytkownika loguje rozbieżności między zapisanym agregatem a tabelą bet, po czym
+ * przebudowuje agregat (każdy użytkownik w osobnej transakcji).
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class UserStatsRebuildRunner implements ApplicationRunner {
+
+    private static final int BATCH_SIZE = 200;
+
+    private final UserRepository userRepository;
+    private final UserStatsService userStatsService;
+
+    @Value("${bet.stats.rebuild-on-startup:false}")
+    private boolean enabled;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            return;
+        }
+        int page = 0;
+        int rebuilt = 0;
+        int drifted = 0;
+        List<Long> userIds;
+        do {
+            userIds = userRepository.findAllIds(PageRequest.of(page++, BATCH_SIZE));
+            for (Long userId : userIds) {
+                try {
+                    List<String> drift = userStatsService.verify(userId);
+                    if (!drift.isEmpty()) {
+                        drifted++;
+                        log.warn("User stats: rozbieżność agregatu użytkownika {}: {}", userId, drift);
+                    }
+                    userStatsService.rebuild(userId);
+                    rebuilt++;
+                } catch (Exception e) {
+                    log.error("User stats: przebudowa użytkownika {} nieudana: {}", userId, e.getMessage());
+                }
+            }
+        } while (userIds.size() == BATCH_SIZE);
+        log.info("User stats rebuild: przebudowano {} użytkowników, rozbieżności u {}", rebuilt, drifted);
+    }
+}
@@ -1,6 +1,8 @@
 package com.grzechuhehe.SportsBettingManagerApp.controller;
 
 import com.grzechuhehe.SportsBettingManagerApp.dto.BasicStatsDTO;
+import com.grzechuhehe.SportsBettingManagerApp.dto.BetChangesResponse;
+import com.grzechuhehe.SportsBettingManagerApp.dto.BetCursorPage;
 import com.grzechuhehe.SportsBettingManagerApp.dto.BetResponse;
 import com.grzechuhehe.SportsBettingManagerApp.dto.BetStatistics;
 import com.grzechuhehe.SportsBettingManagerApp.dto.CreateBetRequest;
@@ -14,16 +16,24 @@ import com.grzechuhehe.SportsBettingManagerApp.service.BettingService;
 import com.grzechuhehe.SportsBettingManagerApp.service.resolution.BetResolutionService;
 import com.grzechuhehe.SportsBettingManagerApp.service.resolution.AutoResolutionGuard;
 import com.grzechuhehe.SportsBettingManagerApp.service.resolution.ResolutionCycleMetricsHolder;
+import com.grzechuhehe.SportsBettingManagerApp.service.resolution.SofaScoreQueryL1Cache;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import com.grzechuhehe.SportsBettingManagerApp.service.ImageStorageService;
+import com.grzechuhehe.SportsBettingManagerApp.service.export.BetExportFormat;
+import com.grzechuhehe.SportsBettingManagerApp.service.export.BetExportService;
+import com.grzechuhehe.SportsBettingManagerApp.service.stats.UserAnalyticsCache;
 import com.grzechuhehe.SportsBettingManagerApp.dto.DashboardStatsDTO;
 import com.grzechuhehe.SportsBettingManagerApp.dto.HeatmapResponse;
 import com.grzechuhehe.SportsBettingManagerApp.dto.BetRequest;
@@ -31,10 +41,13 @@ import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/api/bets")
@@ -48,6 +61,9 @@ public class BetController {
     private final UserRepository userRepository;
     private final BetRepository betRepository;
     private final ImageStorageService imageStorageService;
+    private final BetExportService betExportService;
+    private final UserAnalyticsCache analyticsCache;
+    private final SofaScoreQueryL1Cache sofaScoreL1Cache;
 
     @Value("${bet.resolution.debug-endpoints:false}")
     private boolean debugEndpoints;
@@ -121,14 +137,73 @@ public class BetController {
         return ResponseEntity.ok(betResponses);
     }
 
+    @GetMapping("/page")
+    @Operation(summary = "Get bets page", description = "Keyset-paginated root bets (newest first) with parlay legs. "
+            + "Pass nextCursor from the previous page as cursor; notes are not included in list rows.")
+    public ResponseEntity<BetCursorPage> getBetsPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int size) {
+        String username = SecurityContextHolder.getContext().getAuthentication().getName();
+        User currentUser = userRepository.findByUsername(username)
+                .orElseThrow(() -> new IllegalArgumentException("User not found"));
+        return ResponseEntity.ok(bettingService.getUserBetsPage(currentUser, cursor, size));
+    }
+
+    @GetMapping("/changes")
+    @Operation(summary = "Get bet changes since version", description = "Returns bets inserted or updated and ids of "
+            + "bets deleted since the given version. Call without since to obtain a starting version before the full "
+            + "load; resync=true means the client must reload the whole list.")
+    public ResponseEntity<BetChangesResponse> getChanges(@RequestParam(required = false) Long since) {
+        String username = SecurityContextHolder.getContext().getAuthentication().getName();
+        User currentUser = userRepository.findByUsername(username)
+                .orElseThrow(() -> new IllegalArgumentException("User not found"));
+        return ResponseEntity.ok(bettingService.getChangesSince(currentUser, since));
+    }
+
+    @GetMapping("/export")
+    @Operation(summary = "Export bet history", description = "Streams the full bet history as CSV or NDJSON "
+            + "(legs flattened with parent_bet_id). Gzip-compressed when the client sends Accept-Encoding: gzip.")
+    public ResponseEntity<StreamingResponseBody> exportBets(
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        String username = SecurityContextHolder.getContext().getAuthentication().getName();
+        User currentUser = userRepository.findByUsername(username)
+                .orElseThrow(() -> new IllegalArgumentException("User not found"));
+        BetExportFormat exportFormat = BetExportFormat.parse(format);
+        boolean gzip = acceptEncoding != null && acceptEncoding.toLowerCase(Locale.ROOT).contains("gzip");
+        Long userId = currentUser.getId();
+
+        StreamingResponseBody body = out -> {
+            if (gzip) {
+                GZIPOutputStream compressed = new GZIPOutputStream(out, 64 * 1024);
+                betExportService.export(userId, exportFormat, compressed);
+                compressed.finish();
+            } else {
+                betExportService.export(userId, exportFormat, out);
+            }
+        };
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(exportFormat.mediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("bets." + exportFormat.extension()).build().toString())
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
+    }
+
 
     @GetMapping("/dashboard-stats")
-    @Operation(summary = "Get dashboard statistics", description = "Retrieves comprehensive statistics for the user's dashboard, including profit/loss, ROI, yield, and equity curve")
-    public ResponseEntity<DashboardStatsDTO> getDashboardStats() {
+    @Operation(summary = "Get dashboard statistics", description = "Retrieves comprehensive statistics for the user's dashboard, including profit/loss, ROI, yield, and equity curve. Optional from/to (ISO dates, inclusive) limit the equity curve; totals always cover the full history.")
+    public ResponseEntity<DashboardStatsDTO> getDashboardStats(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
         String username = SecurityContextHolder.getContext().getAuthentication().getName();
         User currentUser = userRepository.findByUsername(username)
                 .orElseThrow(() -> new IllegalArgumentException("User not found"));
-        return ResponseEntity.ok(bettingService.getDashboardStats(currentUser));
+        return ResponseEntity.ok(bettingService.getDashboardStats(currentUser, from, to));
     }
 
     @GetMapping("/stats")
@@ -169,12 +244,14 @@ public class BetController {
     }
 
     @GetMapping("/heatmap")
-    @Operation(summary = "Get heatmap data", description = "Retrieves daily profit/loss data for generating a betting heatmap")
-    public ResponseEntity<HeatmapResponse> getHeatmapData() {
+    @Operation(summary = "Get heatmap data", description = "Retrieves daily profit/loss data for generating a betting heatmap. Optional from/to (ISO dates, inclusive) limit the range.")
+    public ResponseEntity<HeatmapResponse> getHeatmapData(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
         String username = SecurityContextHolder.getContext().getAuthentication().getName();
         User currentUser = userRepository.findByUsername(username)
                 .orElseThrow(() -> new IllegalArgumentException("User not found"));
-        return ResponseEntity.ok(bettingService.getHeatmapData(currentUser));
+        return ResponseEntity.ok(bettingService.getHeatmapData(currentUser, from, to));
     }
 
 
@@ -199,6 +276,24 @@ public class BetController {
         return ResponseEntity.ok(resolutionAttemptRepository.findTop10ByBetIdOrderByAttemptedAtDesc(id));
     }
 
+    @GetMapping("/stats/cache-metrics")
+    @Operation(summary = "Statistics cache counters (debug, when bet.resolution.debug-endpoints=true)")
+    public ResponseEntity<?> getStatsCacheMetrics() {
+        if (!debugEndpoints) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(analyticsCache.metrics());
+    }
+
+    @GetMapping("/resolution/cache-metrics")
+    @Operation(summary = "SofaScore query cache counters per tier (debug, when bet.resolution.debug-endpoints=true)")
+    public ResponseEntity<?> getResolutionCacheMetrics() {
+        if (!debugEndpoints) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(sofaScoreL1Cache.metrics());
+    }
+
     @GetMapping("/resolution/metrics/last-cycle")
     @Operation(summary = "Last resolution cycle metrics (debug, when bet.resolution.debug-endpoints=true)")
     public ResponseEntity<?> getLastResolutionCycleMetrics() {
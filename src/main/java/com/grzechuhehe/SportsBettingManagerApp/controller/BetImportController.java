@@ -1,11 +1,14 @@
 package com.grzechuhehe.SportsBettingManagerApp.controller;
 
+import com.grzechuhehe.SportsBettingManagerApp.dto.BetImportResult;
 import com.grzechuhehe.SportsBettingManagerApp.dto.ImportedBetResponse;
 import com.grzechuhehe.SportsBettingManagerApp.model.Bet;
 import com.grzechuhehe.SportsBettingManagerApp.model.User;
 import com.grzechuhehe.SportsBettingManagerApp.repository.UserRepository;
 import com.grzechuhehe.SportsBettingManagerApp.service.ImageStorageService;
 import com.grzechuhehe.SportsBettingManagerApp.service.ProfileAnalysisOrchestrator;
+import com.grzechuhehe.SportsBettingManagerApp.service.bulk.BetBulkImportService;
+import com.grzechuhehe.SportsBettingManagerApp.service.export.BetExportFormat;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
@@ -15,6 +18,8 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -22,12 +27,13 @@ import java.util.Optional;
 @RestController
 @RequestMapping("/api/bets")
 @RequiredArgsConstructor
-@Tag(name = "Bet Import", description = "Import a bet by uploading a screenshot/photo analyzed by Gemini Vision")
+@Tag(name = "Bet Import", description = "Import bets from a screenshot/photo analyzed by Gemini Vision or from a bookmaker history file")
 public class BetImportController {
 
     private final UserRepository userRepository;
     private final ImageStorageService imageStorageService;
     private final ProfileAnalysisOrchestrator orchestrator;
+    private final BetBulkImportService betBulkImportService;
 
     @PostMapping(value = "/import-from-image", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     @Operation(summary = "Import bet from image",
@@ -58,4 +64,39 @@ public class BetImportController {
         }
         return ResponseEntity.ok(ImportedBetResponse.from(bet.get()));
     }
+
+    @PostMapping(value = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @Operation(summary = "Bulk import bet history",
+            description = "Imports bets from a CSV or NDJSON file in the /api/bets/export format. "
+                    + "Legs reference their parlay through parent_bet_id (ids from the file). "
+                    + "Invalid rows are skipped and reported; valid rows are saved in JDBC batches.")
+    public ResponseEntity<?> importHistory(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(value = "format", required = false) String format) throws IOException {
+
+        String username = SecurityContextHolder.getContext().getAuthentication().getName();
+        User user = userRepository.findByUsername(username)
+                .orElseThrow(() -> new IllegalArgumentException("User not found"));
+
+        try (InputStream in = file.getInputStream()) {
+            BetImportResult result = betBulkImportService.importBets(user, resolveFormat(format, file), in);
+            return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                    "status", "invalid_file",
+                    "message", e.getMessage()));
+        }
+    }
+
+    // Bez ?format= decyduje rozszerzenie pliku (.ndjson/.jsonl), domyślnie CSV
+    private static BetExportFormat resolveFormat(String format, MultipartFile file) {
+        if (format != null && !format.isBlank()) {
+            return BetExportFormat.parse(format);
+        }
+        String name = file.getOriginalFilename();
+        if (name != null && (name.endsWith(".ndjson") || name.endsWith(".jsonl"))) {
+            return BetExportFormat.NDJSON;
+        }
+        return BetExportFormat.CSV;
+    }
 }
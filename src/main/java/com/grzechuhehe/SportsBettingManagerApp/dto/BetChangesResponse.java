@@ -0,0 +1,15 @@
+package com.grzechuhehe.SportsBettingManagerApp.dto;
+
+import java.util.List;
+
+/**
+ * Zmiany listy zakładów od znacznika klienta. {@code upserts} to całe kupony (z nogami) do podmiany,
+ * {@code deletedIds} — usunięte zakłady, {@code version} — znacznik do następnego {@code ?since=}.
+ * Przy {@code resync=true} listy są puste i klient pobiera portfel od nowa.
+ */
+public record BetChangesResponse(
+        List<BetResponse> upserts,
+        List<Long> deletedIds,
+        long version,
+        boolean resync
+) {}
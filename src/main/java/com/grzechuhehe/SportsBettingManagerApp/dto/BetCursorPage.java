@@ -0,0 +1,13 @@
+package com.grzechuhehe.SportsBettingManagerApp.dto;
+
+import java.util.List;
+
+/**
+ * Strona listy zakładów stronicowanej kluczem. {@code nextCursor} przekazuje się jako
+ * {@code ?cursor=} w kolejnym żądaniu; null oznacza ostatnią stronę.
+ */
+public record BetCursorPage(
+        List<BetResponse> content,
+        String nextCursor,
+        boolean last
+) {}
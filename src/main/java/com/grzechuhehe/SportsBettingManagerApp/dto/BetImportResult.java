@@ -0,0 +1,13 @@
+package com.grzechuhehe.SportsBettingManagerApp.dto;
+
+import java.util.List;
+
+/**
+ * Wynik importu historii zakładów. {@code imported} liczy wszystkie zapisane wiersze (kupony i nogi),
+ * {@code rejected} — pominięte wiersze; {@code errors} zawiera opisy pierwszych z nich (z numerem wiersza).
+ */
+public record BetImportResult(
+        long imported,
+        long rejected,
+        List<String> errors
+) {}
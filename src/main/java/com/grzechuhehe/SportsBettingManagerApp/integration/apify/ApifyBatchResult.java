@@ -6,14 +6,19 @@ import java.util.List;
 
 /**
  * Wynik batch search — odróżnia błąd HTTP/timeout (successful=false) od pustej odpowiedzi actora.
+ * {@code timedOut} — porażka przez limit czasu (run-timeout-exceeded, 408, read timeout), sygnał za dużego batcha.
  */
-public record ApifyBatchResult(List<SofaScoreEventDto> matches, boolean successful) {
+public record ApifyBatchResult(List<SofaScoreEventDto> matches, boolean successful, boolean timedOut) {
 
     public static ApifyBatchResult success(List<SofaScoreEventDto> matches) {
-        return new ApifyBatchResult(matches == null ? List.of() : matches, true);
+        return new ApifyBatchResult(matches == null ? List.of() : matches, true, false);
     }
 
     public static ApifyBatchResult failure() {
-        return new ApifyBatchResult(List.of(), false);
+        return new ApifyBatchResult(List.of(), false, false);
+    }
+
+    public static ApifyBatchResult timeout() {
+        return new ApifyBatchResult(List.of(), false, true);
     }
 }
@@ -9,6 +9,7 @@ import org.springframework.http.client.SimpleClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestClient;
 
+import java.net.SocketTimeoutException;
 import java.time.Duration;
 import java.time.LocalDate;
 import java.util.ArrayList;
@@ -162,7 +163,20 @@ public class ApifySofaScoreClient {
             }
         }
         logger.error("Błąd Apify SofaScore ({}): {}", label, lastError != null ? lastError.getMessage() : "unknown");
-        return ApifyBatchResult.failure();
+        return lastError != null && isTimeout(lastError) ? ApifyBatchResult.timeout() : ApifyBatchResult.failure();
+    }
+
+    private static boolean isTimeout(Exception e) {
+        String msg = e.getMessage() == null ? "" : e.getMessage();
+        if (msg.contains("run-timeout-exceeded") || msg.contains("408")) {
+            return true;
+        }
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SocketTimeoutException) {
+                return true;
+            }
+        }
+        return false;
     }
 
     private static boolean isRetryable(Exception e) {
@@ -97,6 +97,8 @@ public class Bet {
     @Column(nullable = false, updatable = false)
     private LocalDateTime placedAt = LocalDateTime.now(); // Data postawienia zakładu
     private LocalDateTime settledAt; // Data rozliczenia zakładu
+    @Column(columnDefinition = "DATETIME(6)")
+    private LocalDateTime updatedAt; // Ostatni zapis — znacznik dla GET /api/bets/changes
 
     // Auto-rozliczanie (audyt)
     private String resolutionSource;   // np. "APIFY_SOFASCORE"
@@ -124,9 +126,14 @@ public class Bet {
     @OneToMany(mappedBy = "parentBet", cascade = CascadeType.ALL, orphanRemoval = true)
     private Set<Bet> childBets; // Lista "nóg" w zakładzie PARLAY
 
-    // Metoda pomocnicza do obliczania potencjalnej wygranej
     @PrePersist
     @PreUpdate
+    void onSave() {
+        calculatePotentialWinnings();
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    // Metoda pomocnicza do obliczania potencjalnej wygranej
     public void calculatePotentialWinnings() {
         if (stake != null && odds != null) {
             this.potentialWinnings = stake.multiply(odds);
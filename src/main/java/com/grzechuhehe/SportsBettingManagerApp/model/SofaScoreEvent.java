@@ -0,0 +1,71 @@
+package com.grzechuhehe.SportsBettingManagerApp.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Mecz SofaScore zapisany raz, niezależnie od liczby zapytań, które go zwróciły (sofascore_query_event).
+ * Klucz: id meczu SofaScore, a gdy go brak — URL. Statystyki (wzbogacenie) jako payload SofaScorePayloadCodec.
+ */
+@Entity
+@Table(name = "sofascore_event",
+        uniqueConstraints = @UniqueConstraint(name = "uk_sofascore_event_key", columnNames = "event_key"),
+        indexes = @Index(name = "idx_sofascore_event_start_time", columnList = "start_time"))
+@Getter
+@Setter
+public class SofaScoreEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "event_key", nullable = false, length = 255)
+    private String eventKey;
+
+    @Column(length = 64)
+    private String eventId;
+
+    @Column(length = 1024)
+    private String url;
+
+    @Column(length = 32)
+    private String type;
+
+    @Column(length = 64)
+    private String sport;
+
+    @Column(length = 512)
+    private String name;
+
+    private String homeTeam;
+
+    private String awayTeam;
+
+    private Integer homeScore;
+
+    private Integer awayScore;
+
+    @Column(length = 32)
+    private String statusType;
+
+    private Integer winnerCode;
+
+    private Long startTimestamp;
+
+    @Column(name = "start_time")
+    private LocalDateTime startTime;
+
+    private String tournament;
+
+    @Column(name = "statistics", columnDefinition = "MEDIUMBLOB")
+    private byte[] statistics;
+
+    /** Ważność statystyk w cache wzbogacenia; null = mecz zakończony, statystyki się już nie zmienią. */
+    @Column(name = "statistics_expires_at")
+    private LocalDateTime statisticsExpiresAt;
+
+    private LocalDateTime updatedAt;
+}
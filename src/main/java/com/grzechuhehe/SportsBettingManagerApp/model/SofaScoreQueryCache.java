@@ -7,7 +7,8 @@ import lombok.Setter;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "sofascore_query_cache")
+@Table(name = "sofascore_query_cache",
+        uniqueConstraints = @UniqueConstraint(name = "uk_query_hash", columnNames = "query_hash"))
 @Getter
 @Setter
 public class SofaScoreQueryCache {
@@ -22,9 +23,14 @@ public class SofaScoreQueryCache {
     @Column(name = "query_text", nullable = false, length = 512)
     private String queryText;
 
-    @Column(name = "payload_json", nullable = false, columnDefinition = "MEDIUMTEXT")
+    /** Wiersze sprzed kodeka binarnego; po przekodowaniu null. */
+    @Column(name = "payload_json", columnDefinition = "MEDIUMTEXT")
     private String payloadJson;
 
+    /** Bajt formatu + zakodowane mecze (SofaScorePayloadCodec); null dla wierszy jeszcze w JSON. */
+    @Column(name = "payload", columnDefinition = "MEDIUMBLOB")
+    private byte[] payload;
+
     private int eventCount;
 
     private LocalDateTime fetchedAt;
@@ -32,4 +38,7 @@ public class SofaScoreQueryCache {
     private LocalDateTime expiresAt;
 
     private String source = "APIFY";
+
+    /** Ile razy z rzędu zapytanie nie dało zakończonych meczów (wpis negatywny); 0 dla wpisów z danymi. */
+    private int missCount;
 }
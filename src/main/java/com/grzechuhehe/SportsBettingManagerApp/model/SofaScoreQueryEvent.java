@@ -0,0 +1,27 @@
+package com.grzechuhehe.SportsBettingManagerApp.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+/** Zapytanie (sha256 jak w sofascore_query_cache) → mecze z sofascore_event w kolejności zwróconej przez Apify. */
+@Entity
+@Table(name = "sofascore_query_event",
+        uniqueConstraints = @UniqueConstraint(name = "uk_sofascore_query_event", columnNames = {"query_hash", "event_key"}),
+        indexes = @Index(name = "idx_sofascore_query_event_key", columnList = "event_key"))
+@Getter
+@Setter
+public class SofaScoreQueryEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "query_hash", nullable = false, length = 64)
+    private String queryHash;
+
+    @Column(name = "event_key", nullable = false, length = 255)
+    private String eventKey;
+
+    private int eventIndex;
+}
@@ -66,6 +66,9 @@ public class User implements UserDetails {
 
     private String lastScrapedTweetId;
 
+    /** Kiedy ostatnio przebudowano agregat user_stats; null = agregat jeszcze nie istnieje. */
+    private LocalDateTime statsRebuiltAt;
+
     @ElementCollection(fetch = FetchType.EAGER)
     private List<String> roles = new ArrayList<>();
 
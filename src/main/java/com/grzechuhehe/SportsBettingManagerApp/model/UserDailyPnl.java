@@ -0,0 +1,41 @@
+package com.grzechuhehe.SportsBettingManagerApp.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Dzienny wynik rozliczonych zakładów głównych użytkownika w danej walucie
+ * (dzień = settledAt.toLocalDate()). Źródło heatmapy i krzywej kapitału.
+ */
+@Entity
+@Table(name = "user_daily_pnl", uniqueConstraints = @UniqueConstraint(
+        name = "uk_user_daily_pnl", columnNames = {"user_id", "day", "currency"}))
+@Getter
+@Setter
+public class UserDailyPnl {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(nullable = false)
+    private LocalDate day;
+
+    @Column(nullable = false, length = 3)
+    private String currency;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal profit = BigDecimal.ZERO;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal staked = BigDecimal.ZERO;
+
+    private long bets;
+}
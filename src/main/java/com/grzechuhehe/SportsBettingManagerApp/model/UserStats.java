@@ -0,0 +1,50 @@
+package com.grzechuhehe.SportsBettingManagerApp.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Zagregowane statystyki zakładów głównych (bez nóg kuponów) użytkownika w jednym kubełku
+ * (waluta, sport). Utrzymywane przyrostowo przez UserStatsService przy każdej zmianie zakładu.
+ */
+@Entity
+@Table(name = "user_stats", uniqueConstraints = @UniqueConstraint(
+        name = "uk_user_stats_bucket", columnNames = {"user_id", "currency", "sport"}))
+@Getter
+@Setter
+public class UserStats {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(nullable = false, length = 3)
+    private String currency;
+
+    /** Pusty string, gdy zakład nie ma sportu (NULL łamałby unikalność kubełka w MySQL). */
+    @Column(nullable = false)
+    private String sport;
+
+    private long totalBets;
+    private long pendingBets;
+    private long wonBets;
+    private long lostBets;
+    private long voidBets;
+    private long otherBets; // CASHED_OUT, HALF_WON, HALF_LOST
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal staked = BigDecimal.ZERO;
+
+    /** Suma finalProfit zakładów rozliczonych (status != PENDING). */
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal profit = BigDecimal.ZERO;
+
+    private LocalDateTime updatedAt;
+}
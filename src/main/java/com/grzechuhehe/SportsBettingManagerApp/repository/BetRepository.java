@@ -3,16 +3,26 @@ package com.grzechuhehe.SportsBettingManagerApp.repository;
 import com.grzechuhehe.SportsBettingManagerApp.model.Bet;
 import com.grzechuhehe.SportsBettingManagerApp.model.User;
 import com.grzechuhehe.SportsBettingManagerApp.model.enum_model.BetStatus; // Nowy import
+import com.grzechuhehe.SportsBettingManagerApp.model.enum_model.BetType;
+import com.grzechuhehe.SportsBettingManagerApp.repository.projection.AdvancedStatsRow;
+import com.grzechuhehe.SportsBettingManagerApp.repository.projection.BetBucketTotals;
+import com.grzechuhehe.SportsBettingManagerApp.repository.projection.BetSummaryRow;
+import com.grzechuhehe.SportsBettingManagerApp.repository.projection.DailyPnlTotals;
+import com.grzechuhehe.SportsBettingManagerApp.repository.projection.LegTally;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface BetRepository extends JpaRepository<Bet, Long>{
@@ -23,6 +33,8 @@ public interface BetRepository extends JpaRepository<Bet, Long>{
     List<Bet> findRootBetsWithLegsByUser(@Param("user") User user);
 
     List<Bet> findByUserId(Long userId);
+
+    List<Bet> findTop5ByUserAndParentBetIsNullOrderByPlacedAtDesc(User user);
     Long countByUserAndStatus(User user, BetStatus status);
     @Query("SELECT COUNT(b) FROM Bet b WHERE b.user = :user AND b.status = :status AND b.isPreMatch = true AND b.parentBet IS NULL")
     Long countPreMatchByUserAndStatus(@Param("user") User user, @Param("status") BetStatus status);
@@ -97,4 +109,107 @@ public interface BetRepository extends JpaRepository<Bet, Long>{
             WHERE b.user = :user AND b.parentBet IS NULL AND b.stake IS NOT NULL
             """)
     java.math.BigDecimal sumRootStakeByUser(@Param("user") User user);
+
+    // Agregacja po stronie bazy — bez hydratacji encji Bet (notes @Lob, proxy user/childBets).
+    @Query("""
+            SELECT new com.grzechuhehe.SportsBettingManagerApp.repository.projection.BetBucketTotals(
+                b.currency, b.sport, b.status, COUNT(b), SUM(b.stake), SUM(b.finalProfit))
+            FROM Bet b
+            WHERE b.user.id = :userId AND b.parentBet IS NULL
+            GROUP BY b.currency, b.sport, b.status
+            """)
+    List<BetBucketTotals> sumRootBucketsByUserId(@Param("userId") Long userId);
+
+    @Query("""
+            SELECT new com.grzechuhehe.SportsBettingManagerApp.repository.projection.DailyPnlTotals(
+                CAST(b.settledAt AS LocalDate), b.currency, COUNT(b), SUM(b.stake), SUM(b.finalProfit))
+            FROM Bet b
+            WHERE b.user.id = :userId AND b.parentBet IS NULL
+              AND b.status <> :pending AND b.settledAt IS NOT NULL
+            GROUP BY CAST(b.settledAt AS LocalDate), b.currency
+            """)
+    List<DailyPnlTotals> sumRootDailyPnlByUserId(@Param("userId") Long userId, @Param("pending") BetStatus pending);
+
+    // Kursor (useCursorFetch=true w URL) — wiersze w kolejności rozliczenia dla analizy serii.
+    // Wymaga otwartej transakcji i zamknięcia strumienia po stronie wywołującego.
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("""
+            SELECT new com.grzechuhehe.SportsBettingManagerApp.repository.projection.AdvancedStatsRow(
+                b.id, b.betType, b.status, b.stake, b.finalProfit, b.currency, b.placedAt, b.settledAt, SIZE(b.childBets))
+            FROM Bet b
+            WHERE b.user = :user AND b.parentBet IS NULL
+            ORDER BY b.settledAt ASC, b.placedAt ASC, b.id ASC
+            """)
+    Stream<AdvancedStatsRow> streamAdvancedStatsRows(@Param("user") User user);
+
+    @Query("""
+            SELECT new com.grzechuhehe.SportsBettingManagerApp.repository.projection.LegTally(
+                COUNT(c), SUM(CASE WHEN c.status = :won THEN 1 ELSE 0 END))
+            FROM Bet c
+            WHERE c.parentBet.user = :user AND c.parentBet.parentBet IS NULL
+              AND c.parentBet.betType = :parlay AND c.status <> :pending
+            """)
+    LegTally tallySettledParlayLegs(
+            @Param("user") User user,
+            @Param("parlay") BetType parlay,
+            @Param("pending") BetStatus pending,
+            @Param("won") BetStatus won);
+
+    // Lista zakładów stronicowana kluczem (placedAt, id) malejąco — koszt strony nie zależy od jej numeru.
+    // Limit przez Pageable bez COUNT; nogi dociągane osobno jednym IN (findLegSummariesByParentIds).
+    @Query("""
+            SELECT new com.grzechuhehe.SportsBettingManagerApp.repository.projection.BetSummaryRow(
+                b.id, b.user.id, b.parentBet.id, b.betType, b.status, b.stake, b.currency, b.odds, b.oddsType,
+                b.potentialWinnings, b.finalProfit, b.sport, b.eventName, b.eventDate, b.marketType, b.selection,
+                b.line, b.bookmaker, b.externalBetId, b.externalApiName, b.placedAt, b.settledAt, b.imageProofPath)
+            FROM Bet b
+            WHERE b.user = :user AND b.parentBet IS NULL
+            ORDER BY b.placedAt DESC, b.id DESC
+            """)
+    List<BetSummaryRow> findRootSummariesByUser(@Param("user") User user, Pageable pageable);
+
+    @Query("""
+            SELECT new com.grzechuhehe.SportsBettingManagerApp.repository.projection.BetSummaryRow(
+                b.id, b.user.id, b.parentBet.id, b.betType, b.status, b.stake, b.currency, b.odds, b.oddsType,
+                b.potentialWinnings, b.finalProfit, b.sport, b.eventName, b.eventDate, b.marketType, b.selection,
+                b.line, b.bookmaker, b.externalBetId, b.externalApiName, b.placedAt, b.settledAt, b.imageProofPath)
+            FROM Bet b
+            WHERE b.user = :user AND b.parentBet IS NULL
+              AND (b.placedAt < :placedAt OR (b.placedAt = :placedAt AND b.id < :id))
+            ORDER BY b.placedAt DESC, b.id DESC
+            """)
+    List<BetSummaryRow> findRootSummariesByUserBefore(
+            @Param("user") User user,
+            @Param("placedAt") LocalDateTime placedAt,
+            @Param("id") Long id,
+            Pageable pageable);
+
+    @Query("""
+            SELECT new com.grzechuhehe.SportsBettingManagerApp.repository.projection.BetSummaryRow(
+                b.id, b.user.id, b.parentBet.id, b.betType, b.status, b.stake, b.currency, b.odds, b.oddsType,
+                b.potentialWinnings, b.finalProfit, b.sport, b.eventName, b.eventDate, b.marketType, b.selection,
+                b.line, b.bookmaker, b.externalBetId, b.externalApiName, b.placedAt, b.settledAt, b.imageProofPath)
+            FROM Bet b
+            WHERE b.parentBet.id IN :parentIds
+            ORDER BY b.id ASC
+            """)
+    List<BetSummaryRow> findLegSummariesByParentIds(@Param("parentIds") Collection<Long> parentIds);
+
+    // Synchronizacja przyrostowa: zmiana nogi odsyła cały kupon, więc zwracamy ID korzenia.
+    @Query("""
+            SELECT DISTINCT COALESCE(b.parentBet.id, b.id) FROM Bet b
+            WHERE b.user = :user AND b.updatedAt > :since
+            """)
+    List<Long> findChangedRootIds(@Param("user") User user, @Param("since") LocalDateTime since, Pageable pageable);
+
+    @Query("""
+            SELECT new com.grzechuhehe.SportsBettingManagerApp.repository.projection.BetSummaryRow(
+                b.id, b.user.id, b.parentBet.id, b.betType, b.status, b.stake, b.currency, b.odds, b.oddsType,
+                b.potentialWinnings, b.finalProfit, b.sport, b.eventName, b.eventDate, b.marketType, b.selection,
+                b.line, b.bookmaker, b.externalBetId, b.externalApiName, b.placedAt, b.settledAt, b.imageProofPath)
+            FROM Bet b
+            WHERE b.id IN :ids
+            ORDER BY b.placedAt DESC, b.id DESC
+            """)
+    List<BetSummaryRow> findSummariesByIds(@Param("ids") Collection<Long> ids);
 }
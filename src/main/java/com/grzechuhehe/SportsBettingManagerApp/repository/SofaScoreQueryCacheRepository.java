@@ -14,8 +14,13 @@ public interface SofaScoreQueryCacheRepository extends JpaRepository<SofaScoreQu
 
     Optional<SofaScoreQueryCache> findByQueryHash(String queryHash);
 
+    List<SofaScoreQueryCache> findByQueryHashIn(Collection<String> queryHashes);
+
     List<SofaScoreQueryCache> findByQueryHashInAndExpiresAtAfter(
             Collection<String> queryHashes, LocalDateTime expiresAtAfter);
 
     void deleteByExpiresAtBefore(LocalDateTime expiresAtBefore);
+
+    List<SofaScoreQueryCache> findTop200ByPayloadIsNullAndPayloadJsonIsNotNullAndExpiresAtAfterOrderByIdAsc(
+            LocalDateTime expiresAtAfter);
 }
@@ -0,0 +1,53 @@
+package com.grzechuhehe.SportsBettingManagerApp.repository;
+
+import com.grzechuhehe.SportsBettingManagerApp.model.UserDailyPnl;
+import com.grzechuhehe.SportsBettingManagerApp.repository.projection.CurrencyAmount;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface UserDailyPnlRepository extends JpaRepository<UserDailyPnl, Long> {
+
+    List<UserDailyPnl> findByUserIdOrderByDayAsc(Long userId);
+
+    List<UserDailyPnl> findByUserIdAndDayBetweenOrderByDayAsc(Long userId, LocalDate from, LocalDate to);
+
+    // Zysk sprzed zakresu — punkt startowy krzywej kapitału zawężonej parametrem from
+    @Query("""
+            SELECT new com.grzechuhehe.SportsBettingManagerApp.repository.projection.CurrencyAmount(
+                d.currency, SUM(d.profit))
+            FROM UserDailyPnl d
+            WHERE d.userId = :userId AND d.day < :before
+            GROUP BY d.currency
+            """)
+    List<CurrencyAmount> sumProfitBefore(@Param("userId") Long userId, @Param("before") LocalDate before);
+
+    @Modifying
+    @Query("DELETE FROM UserDailyPnl d WHERE d.userId = :userId")
+    int deleteByUserId(@Param("userId") Long userId);
+
+    // Atomowy przyrost dnia albo wstawienie nowego — bez wyścigu o uk_user_daily_pnl (jak UserStatsRepository)
+    @Modifying
+    @Query(value = """
+            INSERT INTO user_daily_pnl (user_id, day, currency, profit, staked, bets)
+            VALUES (:userId, :day, :currency, :profit, :staked, :bets)
+            ON DUPLICATE KEY UPDATE
+                profit = profit + VALUES(profit),
+                staked = staked + VALUES(staked),
+                bets = bets + VALUES(bets)
+            """, nativeQuery = true)
+    int upsertDelta(
+            @Param("userId") Long userId,
+            @Param("day") LocalDate day,
+            @Param("currency") String currency,
+            @Param("profit") BigDecimal profit,
+            @Param("staked") BigDecimal staked,
+            @Param("bets") long bets);
+}
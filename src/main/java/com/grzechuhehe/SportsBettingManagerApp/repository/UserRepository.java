@@ -1,7 +1,10 @@
 package com.grzechuhehe.SportsBettingManagerApp.repository;
 
 import com.grzechuhehe.SportsBettingManagerApp.model.User;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -26,4 +29,28 @@ public interface UserRepository extends JpaRepository<User, Long> {
     
     @Query("SELECT u FROM User u WHERE LOWER(u.xUsername) = LOWER(:xUsername) OR (u.xUsername IS NULL AND LOWER(u.username) = LOWER(:xUsername))")
     Optional<User> findByXUsernameIgnoreCase(@Param("xUsername") String xUsername);
+
+    @Modifying
+    @Query("UPDATE User u SET u.statsRebuiltAt = :rebuiltAt WHERE u.id = :id")
+    int markStatsRebuilt(@Param("id") Long id, @Param("rebuiltAt") LocalDateTime rebuiltAt);
+
+    // SELECT … FOR UPDATE: szereguje równoległe przebudowy agregatu tego samego użytkownika
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT u FROM User u WHERE u.id = :id")
+    Optional<User> lockById(@Param("id") Long id);
+
+    /**
+     * 1, gdy agregat statystyk użytkownika jest zbudowany, 0 gdy nie — odczyt blokujący ten sam wiersz co
+     * {@link #lockById}, więc widzi zatwierdzony stan przebudowy i czeka na trwającą.
+     */
+    @Query(value = "SELECT CASE WHEN stats_rebuilt_at IS NULL THEN 0 ELSE 1 END FROM user WHERE id = :id FOR UPDATE",
+            nativeQuery = true)
+    Long lockStatsRebuilt(@Param("id") Long id);
+
+    @Query("SELECT u.id FROM User u ORDER BY u.id ASC")
+    List<Long> findAllIds(org.springframework.data.domain.Pageable pageable);
+
+    // Keyset po ID: przebudowa zmienia statsRebuiltAt, więc OFFSET przeskakiwałby użytkowników
+    @Query("SELECT u.id FROM User u WHERE u.statsRebuiltAt IS NULL AND u.id > :afterId ORDER BY u.id ASC")
+    List<Long> findIdsWithoutStatsAfter(@Param("afterId") Long afterId, org.springframework.data.domain.Pageable pageable);
 }
@@ -0,0 +1,58 @@
+package com.grzechuhehe.SportsBettingManagerApp.repository;
+
+import com.grzechuhehe.SportsBettingManagerApp.model.UserStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface UserStatsRepository extends JpaRepository<UserStats, Long> {
+
+    List<UserStats> findByUserId(Long userId);
+
+    @Modifying
+    @Query("DELETE FROM UserStats s WHERE s.userId = :userId")
+    int deleteByUserId(@Param("userId") Long userId);
+
+    /**
+     * Atomowy przyrost kubełka; brakujący kubełek wstawia w tym samym zapytaniu. Osobne UPDATE + INSERT
+     * przegrywało wyścig: dwa równoległe rozliczenia tworzące ten sam kubełek łamały uk_user_stats_bucket
+     * i wycofywały całą zmianę zakładu.
+     */
+    @Modifying
+    @Query(value = """
+            INSERT INTO user_stats (user_id, currency, sport, total_bets, pending_bets, won_bets, lost_bets,
+                                    void_bets, other_bets, staked, profit, updated_at)
+            VALUES (:userId, :currency, :sport, :totalBets, :pendingBets, :wonBets, :lostBets,
+                    :voidBets, :otherBets, :staked, :profit, :now)
+            ON DUPLICATE KEY UPDATE
+                total_bets = total_bets + VALUES(total_bets),
+                pending_bets = pending_bets + VALUES(pending_bets),
+                won_bets = won_bets + VALUES(won_bets),
+                lost_bets = lost_bets + VALUES(lost_bets),
+                void_bets = void_bets + VALUES(void_bets),
+                other_bets = other_bets + VALUES(other_bets),
+                staked = staked + VALUES(staked),
+                profit = profit + VALUES(profit),
+                updated_at = VALUES(updated_at)
+            """, nativeQuery = true)
+    int upsertDelta(
+            @Param("userId") Long userId,
+            @Param("currency") String currency,
+            @Param("sport") String sport,
+            @Param("totalBets") long totalBets,
+            @Param("pendingBets") long pendingBets,
+            @Param("wonBets") long wonBets,
+            @Param("lostBets") long lostBets,
+            @Param("voidBets") long voidBets,
+            @Param("otherBets") long otherBets,
+            @Param("staked") BigDecimal staked,
+            @Param("profit") BigDecimal profit,
+            @Param("now") LocalDateTime now);
+}
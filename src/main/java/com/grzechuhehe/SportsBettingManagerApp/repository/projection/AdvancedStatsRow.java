@@ -0,0 +1,24 @@
+package com.grzechuhehe.SportsBettingManagerApp.repository.projection;
+
+import com.grzechuhehe.SportsBettingManagerApp.model.enum_model.BetStatus;
+import com.grzechuhehe.SportsBettingManagerApp.model.enum_model.BetType;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Kolumny zakładu głównego potrzebne do statystyk zaawansowanych — strumieniowane kursorem
+ * zamiast encji Bet, więc kontekst persystencji nie rośnie z historią użytkownika.
+ *
+ * @param legCount liczba nóg kuponu (SIZE(childBets))
+ */
+public record AdvancedStatsRow(
+        Long id,
+        BetType betType,
+        BetStatus status,
+        BigDecimal stake,
+        BigDecimal finalProfit,
+        String currency,
+        LocalDateTime placedAt,
+        LocalDateTime settledAt,
+        Integer legCount) {}
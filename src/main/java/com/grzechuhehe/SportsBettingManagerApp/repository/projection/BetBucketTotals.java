@@ -0,0 +1,14 @@
+package com.grzechuhehe.SportsBettingManagerApp.repository.projection;
+
+import com.grzechuhehe.SportsBettingManagerApp.model.enum_model.BetStatus;
+
+import java.math.BigDecimal;
+
+/** Wiersz GROUP BY currency, sport, status po zakładach głównych użytkownika (sumy w walucie zakładu). */
+public record BetBucketTotals(
+        String currency,
+        String sport,
+        BetStatus status,
+        Long bets,
+        BigDecimal staked,
+        BigDecimal profit) {}
@@ -0,0 +1,39 @@
+package com.grzechuhehe.SportsBettingManagerApp.repository.projection;
+
+import com.grzechuhehe.SportsBettingManagerApp.model.enum_model.BetStatus;
+import com.grzechuhehe.SportsBettingManagerApp.model.enum_model.BetType;
+import com.grzechuhehe.SportsBettingManagerApp.model.enum_model.MarketType;
+import com.grzechuhehe.SportsBettingManagerApp.model.enum_model.OddsType;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Kolumny zakładu wyświetlane na liście — bez {@code notes} (@Lob) i bez hydratacji encji Bet.
+ *
+ * @param parentBetId null dla zakładów głównych
+ */
+public record BetSummaryRow(
+        Long id,
+        Long userId,
+        Long parentBetId,
+        BetType betType,
+        BetStatus status,
+        BigDecimal stake,
+        String currency,
+        BigDecimal odds,
+        OddsType oddsType,
+        BigDecimal potentialWinnings,
+        BigDecimal finalProfit,
+        String sport,
+        String eventName,
+        LocalDateTime eventDate,
+        MarketType marketType,
+        String selection,
+        String line,
+        String bookmaker,
+        String externalBetId,
+        String externalApiName,
+        LocalDateTime placedAt,
+        LocalDateTime settledAt,
+        String imageProofPath) {}
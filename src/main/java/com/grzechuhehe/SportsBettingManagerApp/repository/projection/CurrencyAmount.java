@@ -0,0 +1,8 @@
+package com.grzechuhehe.SportsBettingManagerApp.repository.projection;
+
+import java.math.BigDecimal;
+
+/** Suma kwot w jednej walucie (wiersz GROUP BY currency). */
+public record CurrencyAmount(
+        String currency,
+        BigDecimal amount) {}
@@ -0,0 +1,12 @@
+package com.grzechuhehe.SportsBettingManagerApp.repository.projection;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/** Wiersz GROUP BY dzień rozliczenia, currency po rozliczonych zakładach głównych użytkownika. */
+public record DailyPnlTotals(
+        LocalDate day,
+        String currency,
+        Long bets,
+        BigDecimal staked,
+        BigDecimal profit) {}
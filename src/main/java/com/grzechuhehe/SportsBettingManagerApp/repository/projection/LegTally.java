@@ -0,0 +1,13 @@
+package com.grzechuhehe.SportsBettingManagerApp.repository.projection;
+
+/** Rozliczone i wygrane nogi kuponów PARLAY użytkownika (SUM zwraca null przy braku wierszy). */
+public record LegTally(Long settledLegs, Long wonLegs) {
+
+    public long settled() {
+        return settledLegs != null ? settledLegs : 0L;
+    }
+
+    public long won() {
+        return wonLegs != null ? wonLegs : 0L;
+    }
+}
@@ -0,0 +1,105 @@
+package com.grzechuhehe.SportsBettingManagerApp.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Pamięciowy dziennik usunięć zakładów (tombstone) dla synchronizacji przyrostowej. Wstawienia i zmiany
+ * widać w kolumnie {@code bet.updated_at}; usuniętych wierszy już nie ma, więc trzymamy je tutaj —
+ * ograniczone liczbą wpisów i czasem retencji. Klient ze znacznikiem starszym niż najstarszy
+ * zachowany stan (lub sprzed startu aplikacji) dostaje {@code resync} i pobiera listę od nowa.
+ */
+@Component
+@Slf4j
+public class BetChangeLog {
+
+    private final int capacity;
+    private final Duration retention;
+    private final Deque<Tombstone> tombstones = new ArrayDeque<>();
+    // Usunięcia do tego znacznika włącznie mogły zostać zapomniane
+    private long horizon;
+
+    public BetChangeLog(
+            @Value("${bet.changes.tombstone-capacity:10000}") int capacity,
+            @Value("${bet.changes.tombstone-retention-hours:24}") int retentionHours) {
+        this.capacity = capacity;
+        this.retention = Duration.ofHours(retentionHours);
+        this.horizon = toVersion(LocalDateTime.now());
+    }
+
+    /** Znacznik wersji: updatedAt jako mikrosekundy epoki (ta sama skala co DATETIME(6)). */
+    public static long toVersion(LocalDateTime time) {
+        return ChronoUnit.MICROS.between(LocalDateTime.ofEpochSecond(0, 0, ZoneOffset.UTC), time);
+    }
+
+    public static LocalDateTime fromVersion(long version) {
+        return LocalDateTime.ofEpochSecond(0, 0, ZoneOffset.UTC).plus(version, ChronoUnit.MICROS);
+    }
+
+    /** Rejestruje usunięcie po commicie transakcji — wycofane usunięcie nie zostawia tombstone'a. */
+    public void recordDeletion(Long userId, Long betId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    append(userId, betId);
+                }
+            });
+        } else {
+            append(userId, betId);
+        }
+    }
+
+    /**
+     * ID zakładów użytkownika usuniętych po {@code since}; pusty Optional, gdy dziennik nie obejmuje
+     * już tego okresu i klient musi zsynchronizować się od zera.
+     */
+    public synchronized Optional<List<Long>> deletedSince(Long userId, long since) {
+        evictExpired();
+        if (since < horizon) {
+            return Optional.empty();
+        }
+        List<Long> deleted = new ArrayList<>();
+        for (Tombstone t : tombstones) {
+            if (t.version() > since && t.userId().equals(userId)) {
+                deleted.add(t.betId());
+            }
+        }
+        return Optional.of(deleted);
+    }
+
+    private synchronized void append(Long userId, Long betId) {
+        tombstones.addLast(new Tombstone(userId, betId, toVersion(LocalDateTime.now())));
+        while (tombstones.size() > capacity) {
+            forget(tombstones.removeFirst());
+        }
+        evictExpired();
+    }
+
+    private void evictExpired() {
+        long cutoff = toVersion(LocalDateTime.now().minus(retention));
+        while (!tombstones.isEmpty() && tombstones.peekFirst().version() < cutoff) {
+            forget(tombstones.removeFirst());
+        }
+    }
+
+    private void forget(Tombstone evicted) {
+        horizon = Math.max(horizon, evicted.version());
+        log.debug("Usunięto z dziennika tombstone zakładu {} — horyzont synchronizacji {}", evicted.betId(), horizon);
+    }
+
+    private record Tombstone(Long userId, Long betId, long version) {}
+}
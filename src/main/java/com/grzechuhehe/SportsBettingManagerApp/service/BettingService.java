@@ -1,6 +1,9 @@
 package com.grzechuhehe.SportsBettingManagerApp.service;
 
+import com.grzechuhehe.SportsBettingManagerApp.dto.BetChangesResponse;
+import com.grzechuhehe.SportsBettingManagerApp.dto.BetCursorPage;
 import com.grzechuhehe.SportsBettingManagerApp.dto.BetRequest;
+import com.grzechuhehe.SportsBettingManagerApp.dto.BetResponse;
 import com.grzechuhehe.SportsBettingManagerApp.dto.BetStatistics;
 import com.grzechuhehe.SportsBettingManagerApp.dto.CreateBetRequest;
 import com.grzechuhehe.SportsBettingManagerApp.model.Bet;
@@ -10,18 +13,32 @@ import com.grzechuhehe.SportsBettingManagerApp.model.enum_model.BetType;
 import com.grzechuhehe.SportsBettingManagerApp.model.enum_model.MarketType;
 import com.grzechuhehe.SportsBettingManagerApp.repository.BetRepository;
 import com.grzechuhehe.SportsBettingManagerApp.repository.UserRepository;
+import com.grzechuhehe.SportsBettingManagerApp.repository.projection.AdvancedStatsRow;
+import com.grzechuhehe.SportsBettingManagerApp.repository.projection.BetSummaryRow;
+import com.grzechuhehe.SportsBettingManagerApp.service.analytics.AdvancedStatsAccumulator;
+import com.grzechuhehe.SportsBettingManagerApp.service.analytics.CentsConverter;
+import com.grzechuhehe.SportsBettingManagerApp.service.analytics.MoneyCents;
+import com.grzechuhehe.SportsBettingManagerApp.service.stats.BetStatsContribution;
+import com.grzechuhehe.SportsBettingManagerApp.service.stats.DailyPnlRange;
+import com.grzechuhehe.SportsBettingManagerApp.service.stats.UserAnalyticsCache;
+import com.grzechuhehe.SportsBettingManagerApp.service.stats.UserStatsService;
+import com.grzechuhehe.SportsBettingManagerApp.service.stats.UserStatsSnapshot;
 import jakarta.validation.ConstraintViolation;
 import jakarta.validation.Validator;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import com.grzechuhehe.SportsBettingManagerApp.dto.DashboardStatsDTO;
 import com.grzechuhehe.SportsBettingManagerApp.dto.EquityCurvePoint;
@@ -37,31 +54,46 @@ public class BettingService {
     private final UserRepository userRepository;
     private final Validator validator;
     private final CurrencyConversionService currencyConversionService;
+    private final UserStatsService userStatsService;
+    private final BetChangeLog betChangeLog;
+    private final UserAnalyticsCache analyticsCache;
 
+    static final int MAX_BET_PAGE_SIZE = 200;
+    static final int MAX_CHANGED_ROOTS = 500;
 
-    public DashboardStatsDTO getDashboardStats(User user) {
-        log.info("Calculating dashboard stats for user: {} (ID: {})", user.getUsername(), user.getId());
-        String displayCurrency = currencyConversionService.resolveDisplayCurrency(user.getDisplayCurrency());
+    @Value("${bet.changes.commit-grace:PT5S}")
+    private Duration changesCommitGrace = Duration.ofSeconds(5);
 
-        List<Bet> allBets = betRepository.findByUser(user).stream()
-                .filter(b -> b.getParentBet() == null)
-                .collect(Collectors.toList());
 
-        log.info("Found {} root bets for user ID: {}", allBets.size(), user.getId());
+    public DashboardStatsDTO getDashboardStats(User user) {
+        return getDashboardStats(user, null, null);
+    }
 
-        BigDecimal totalProfitLoss = allBets.stream()
-                .filter(b -> b.getStatus() != BetStatus.PENDING)
-                .map(b -> convertBetProfit(b, displayCurrency))
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    /**
+     * {@code from}/{@code to} zawężają tylko krzywą kapitału (startuje od zysku sprzed {@code from});
+     * sumy i wskaźniki zawsze obejmują całą historię. Cache tylko dla wariantu bez zakresu.
+     */
+    public DashboardStatsDTO getDashboardStats(User user, LocalDate from, LocalDate to) {
+        validateRange(from, to);
+        String displayCurrency = currencyConversionService.resolveDisplayCurrency(user.getDisplayCurrency());
+        if (from == null && to == null) {
+            return analyticsCache.get(user.getId(), displayCurrency, UserAnalyticsCache.Kind.DASHBOARD,
+                    () -> computeDashboardStats(user, displayCurrency, null, null));
+        }
+        return computeDashboardStats(user, displayCurrency, from, to);
+    }
 
-        int totalBets = allBets.size();
+    private DashboardStatsDTO computeDashboardStats(User user, String displayCurrency, LocalDate from, LocalDate to) {
+        log.info("Calculating dashboard stats for user: {} (ID: {})", user.getUsername(), user.getId());
+        CentsConverter converter = new CentsConverter(currencyConversionService, displayCurrency);
+        UserStatsSnapshot stats = userStatsService.load(user);
 
-        int activeBetsCount = (int) allBets.stream()
-                .filter(b -> b.getStatus() == BetStatus.PENDING)
-                .count();
+        BigDecimal totalProfitLoss = convertTotal(stats.profitByCurrency(), converter);
+        int totalBets = (int) stats.totalBets();
+        int activeBetsCount = (int) stats.pendingBets();
 
-        long wonBets = allBets.stream().filter(b -> b.getStatus() == BetStatus.WON).count();
-        long lostBets = allBets.stream().filter(b -> b.getStatus() == BetStatus.LOST).count();
+        long wonBets = stats.wonBets();
+        long lostBets = stats.lostBets();
         long settledForWinRate = wonBets + lostBets;
 
         BigDecimal winRate = BigDecimal.ZERO;
@@ -71,9 +103,7 @@ public class BettingService {
                     .multiply(BigDecimal.valueOf(100));
         }
 
-        BigDecimal totalStaked = allBets.stream()
-                .map(b -> convertBetStake(b, displayCurrency))
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        BigDecimal totalStaked = convertTotal(stats.stakedByCurrency(), converter);
 
         BigDecimal roi = BigDecimal.ZERO;
         BigDecimal yield = BigDecimal.ZERO;
@@ -83,35 +113,22 @@ public class BettingService {
             yield = roi;
         }
 
-        Map<String, BigDecimal> profitBySport = allBets.stream()
-                .filter(b -> b.getStatus() != BetStatus.PENDING && b.getSport() != null)
-                .collect(Collectors.groupingBy(
-                        Bet::getSport,
-                        Collectors.mapping(
-                                b -> convertBetProfit(b, displayCurrency),
-                                Collectors.reducing(BigDecimal.ZERO, BigDecimal::add)
-                        )
-                ));
-
-        List<Bet> sortedSettledBets = allBets.stream()
-                .filter(b -> b.getStatus() != BetStatus.PENDING && b.getSettledAt() != null)
-                .sorted(Comparator.comparing(Bet::getSettledAt))
-                .collect(Collectors.toList());
+        Map<String, BigDecimal> profitBySport = new HashMap<>();
+        stats.profitBySportAndCurrency().forEach((sport, byCurrency) ->
+                profitBySport.put(sport, convertTotal(byCurrency, converter)));
 
         List<EquityCurvePoint> equityCurve = new ArrayList<>();
-        BigDecimal currentEquity = BigDecimal.ZERO;
-
-        Map<LocalDate, BigDecimal> dailyProfits = new TreeMap<>();
-
-        for (Bet bet : sortedSettledBets) {
-            LocalDate date = bet.getSettledAt().toLocalDate();
-            BigDecimal profit = convertBetProfit(bet, displayCurrency);
-            dailyProfits.merge(date, profit, BigDecimal::add);
+        long currentEquityCents = 0L;
+        Map<LocalDate, Map<String, BigDecimal>> dailyProfit = stats.dailyProfitByCurrency();
+        if (from != null || to != null) {
+            DailyPnlRange range = userStatsService.loadDailyPnl(user, from, to);
+            currentEquityCents = convertTotalCents(range.openingProfitByCurrency(), converter);
+            dailyProfit = range.dailyProfitByCurrency();
         }
 
-        for (Map.Entry<LocalDate, BigDecimal> entry : dailyProfits.entrySet()) {
-            currentEquity = currentEquity.add(entry.getValue());
-            equityCurve.add(new EquityCurvePoint(entry.getKey(), currentEquity));
+        for (Map.Entry<LocalDate, Map<String, BigDecimal>> entry : dailyProfit.entrySet()) {
+            currentEquityCents = Math.addExact(currentEquityCents, convertTotalCents(entry.getValue(), converter));
+            equityCurve.add(new EquityCurvePoint(entry.getKey(), MoneyCents.toAmount(currentEquityCents)));
         }
 
         return new DashboardStatsDTO(
@@ -130,9 +147,9 @@ public class BettingService {
 
     /** Lightweight aggregate stats for profile search card — no full bet list load. */
     public ProfileSummaryStats getProfileSummaryStats(User user) {
-        long totalBets = betRepository.countRootBetsByUser(user);
-        long won = betRepository.countRootBetsByUserAndStatus(user, BetStatus.WON);
-        long lost = betRepository.countRootBetsByUserAndStatus(user, BetStatus.LOST);
+        UserStatsSnapshot stats = userStatsService.load(user);
+        long won = stats.wonBets();
+        long lost = stats.lostBets();
         long settledForWinRate = won + lost;
 
         BigDecimal winRate = BigDecimal.ZERO;
@@ -142,26 +159,16 @@ public class BettingService {
                     .multiply(BigDecimal.valueOf(100));
         }
 
-        String displayCurrency = currencyConversionService.resolveDisplayCurrency(user.getDisplayCurrency());
-        List<Bet> rootBets = betRepository.findByUser(user).stream()
-                .filter(b -> b.getParentBet() == null)
-                .toList();
-
-        BigDecimal profit = rootBets.stream()
-                .filter(b -> b.getStatus() != BetStatus.PENDING)
-                .map(b -> convertBetProfit(b, displayCurrency))
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        BigDecimal staked = rootBets.stream()
-                .map(b -> convertBetStake(b, displayCurrency))
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        CentsConverter converter = new CentsConverter(currencyConversionService, user.getDisplayCurrency());
+        BigDecimal profit = convertTotal(stats.profitByCurrency(), converter);
+        BigDecimal staked = convertTotal(stats.stakedByCurrency(), converter);
 
         BigDecimal yield = BigDecimal.ZERO;
         if (staked.compareTo(BigDecimal.ZERO) > 0) {
             yield = profit.divide(staked, 4, RoundingMode.HALF_UP).multiply(BigDecimal.valueOf(100));
         }
 
-        return new ProfileSummaryStats((int) totalBets, winRate, yield);
+        return new ProfileSummaryStats((int) stats.totalBets(), winRate, yield);
     }
 
     public record ProfileSummaryStats(int totalBets, BigDecimal winRate, BigDecimal yield) {}
@@ -186,7 +193,10 @@ public class BettingService {
             }
             Bet singleBet = buildBetFromRequest(betRequest, user, BetType.SINGLE, null, betRequest.getStake());
             applyImageProofPath(singleBet, createBetRequest.getImageProofPath());
-            placedBets.add(betRepository.save(singleBet));
+            Bet savedSingleBet = betRepository.save(singleBet);
+            userStatsService.record(null, savedSingleBet);
+            analyticsCache.invalidate(user.getId());
+            placedBets.add(savedSingleBet);
         } else {
             // Parlay Bet
             BigDecimal parlayStake = betRequests.stream()
@@ -235,6 +245,8 @@ public class BettingService {
 
             // Save the parent bet, which cascades to save the child bets
             Bet savedParlayBet = betRepository.save(parlayBet);
+            userStatsService.record(null, savedParlayBet);
+            analyticsCache.invalidate(user.getId());
             placedBets.add(savedParlayBet);
         }
         return placedBets;
@@ -284,130 +296,168 @@ public class BettingService {
         return betRepository.findRootBetsWithLegsByUser(user);
     }
 
+    /**
+     * Strona zakładów głównych (najnowsze pierwsze) stronicowana kluczem (placedAt, id), z nogami kuponów
+     * dociąganymi jednym zapytaniem IN. Oba zapytania to projekcje — bez encji Bet i bez kolumny notes.
+     */
+    @Transactional(readOnly = true)
+    public BetCursorPage getUserBetsPage(User user, String cursor, int size) {
+        int limit = Math.max(1, Math.min(size, MAX_BET_PAGE_SIZE));
+        PageRequest window = PageRequest.of(0, limit + 1); // +1 wiersz mówi, czy jest kolejna strona
+        List<BetSummaryRow> roots;
+        if (cursor == null || cursor.isBlank()) {
+            roots = betRepository.findRootSummariesByUser(user, window);
+        } else {
+            BetListCursor after = BetListCursor.decode(cursor);
+            roots = betRepository.findRootSummariesByUserBefore(user, after.placedAt(), after.id(), window);
+        }
+
+        boolean last = roots.size() <= limit;
+        if (!last) {
+            roots = roots.subList(0, limit);
+        }
+
+        List<BetResponse> content = toResponsesWithLegs(roots);
+
+        String nextCursor = null;
+        if (!last) {
+            BetSummaryRow tail = roots.get(roots.size() - 1);
+            nextCursor = new BetListCursor(tail.placedAt(), tail.id()).encode();
+        }
+        return new BetCursorPage(content, nextCursor, last);
+    }
+
+    /**
+     * Zmiany zakładów użytkownika od znacznika {@code since} (z poprzedniej odpowiedzi): zmienione lub nowe
+     * kupony w całości oraz ID usuniętych. {@code resync} oznacza, że klient musi pobrać listę od nowa.
+     */
+    @Transactional(readOnly = true)
+    public BetChangesResponse getChangesSince(User user, Long since) {
+        LocalDateTime now = LocalDateTime.now();
+        // Znacznik cofnięty o okno na transakcje zatwierdzone z opóźnieniem — duplikaty są nieszkodliwe
+        long version = BetChangeLog.toVersion(now.minus(changesCommitGrace));
+        if (since == null) {
+            return new BetChangesResponse(List.of(), List.of(), version, true);
+        }
+        version = Math.max(version, since);
+
+        Optional<List<Long>> deleted = betChangeLog.deletedSince(user.getId(), since);
+        if (deleted.isEmpty()) {
+            return new BetChangesResponse(List.of(), List.of(), version, true);
+        }
+        List<Long> changedRootIds = betRepository.findChangedRootIds(
+                user, BetChangeLog.fromVersion(since), PageRequest.of(0, MAX_CHANGED_ROOTS + 1));
+        if (changedRootIds.size() > MAX_CHANGED_ROOTS) {
+            return new BetChangesResponse(List.of(), List.of(), version, true);
+        }
+
+        List<BetSummaryRow> roots = changedRootIds.isEmpty()
+                ? List.of()
+                : betRepository.findSummariesByIds(changedRootIds);
+        return new BetChangesResponse(toResponsesWithLegs(roots), deleted.get(), version, false);
+    }
+
+    private List<BetResponse> toResponsesWithLegs(List<BetSummaryRow> roots) {
+        Map<Long, List<BetResponse>> legsByParent = new HashMap<>();
+        if (!roots.isEmpty()) {
+            List<Long> rootIds = roots.stream().map(BetSummaryRow::id).toList();
+            for (BetSummaryRow leg : betRepository.findLegSummariesByParentIds(rootIds)) {
+                legsByParent.computeIfAbsent(leg.parentBetId(), id -> new ArrayList<>()).add(toResponse(leg));
+            }
+        }
+
+        List<BetResponse> content = new ArrayList<>(roots.size());
+        for (BetSummaryRow root : roots) {
+            BetResponse dto = toResponse(root);
+            dto.setChildBets(legsByParent.get(root.id()));
+            content.add(dto);
+        }
+        return content;
+    }
+
+    private BetResponse toResponse(BetSummaryRow row) {
+        BetResponse dto = new BetResponse();
+        dto.setId(row.id());
+        dto.setBetType(row.betType());
+        dto.setStatus(row.status());
+        dto.setStake(row.stake());
+        dto.setCurrency(row.currency() != null ? row.currency() : "PLN");
+        dto.setOdds(row.odds());
+        dto.setOddsType(row.oddsType());
+        dto.setPotentialWinnings(row.potentialWinnings());
+        dto.setFinalProfit(row.finalProfit());
+        dto.setSport(row.sport());
+        dto.setEventName(row.eventName());
+        dto.setEventDate(row.eventDate());
+        dto.setMarketType(row.marketType());
+        dto.setSelection(row.selection());
+        dto.setLine(row.line());
+        dto.setBookmaker(row.bookmaker());
+        dto.setExternalBetId(row.externalBetId());
+        dto.setExternalApiName(row.externalApiName());
+        dto.setPlacedAt(row.placedAt());
+        dto.setSettledAt(row.settledAt());
+        dto.setImageProofPath(row.imageProofPath());
+        dto.setUserId(row.userId());
+        return dto;
+    }
+
     public Map<String, Object> getStatistics(User user) {
         String displayCurrency = currencyConversionService.resolveDisplayCurrency(user.getDisplayCurrency());
-        List<Bet> bets = betRepository.findByUser(user).stream()
-                .filter(b -> b.getParentBet() == null)
-                .collect(Collectors.toList());
+        Map<String, Object> figures = analyticsCache.get(user.getId(), displayCurrency, UserAnalyticsCache.Kind.STATS,
+                () -> computeStatisticsFigures(user, displayCurrency));
+
+        // Ostatnie zakłady to encje (leniwe relacje) — zawsze świeże z bieżącej sesji, poza cache
+        Map<String, Object> statistics = new HashMap<>(figures);
+        statistics.put("recentBets", betRepository.findTop5ByUserAndParentBetIsNullOrderByPlacedAtDesc(user));
+        return statistics;
+    }
 
-        BigDecimal totalStake = bets.stream()
-                .map(b -> convertBetStake(b, displayCurrency))
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    private Map<String, Object> computeStatisticsFigures(User user, String displayCurrency) {
+        CentsConverter converter = new CentsConverter(currencyConversionService, displayCurrency);
+        UserStatsSnapshot stats = userStatsService.load(user);
 
-        BigDecimal profitLoss = calculateNetProfit(bets, displayCurrency);
+        BigDecimal totalStake = convertTotal(stats.stakedByCurrency(), converter);
+        BigDecimal profitLoss = convertTotal(stats.profitByCurrency(), converter);
         BigDecimal roi = calculateROI(profitLoss, totalStake);
 
-        List<Bet> recentBets = bets.stream()
-                .sorted(Comparator.comparing(Bet::getPlacedAt).reversed())
-                .limit(5)
-                .collect(Collectors.toList());
         return Map.of(
-                "totalBets", bets.size(),
+                "totalBets", (int) stats.totalBets(),
                 "wonBets", betRepository.countByUserAndStatus(user, BetStatus.WON),
                 "totalStake", totalStake,
                 "profitLoss", profitLoss,
                 "roi", roi,
-                "recentBets", recentBets,
                 "displayCurrency", displayCurrency
         );
     }
 
+    /**
+     * Jeden przebieg kursorem po zakładach głównych (posortowanych po dacie rozliczenia) plus jedno
+     * zapytanie agregujące nogi kuponów — pamięć stała niezależnie od długości historii.
+     */
+    @Transactional(readOnly = true)
     public BetStatistics getAdvancedStatistics(User user) {
         String displayCurrency = currencyConversionService.resolveDisplayCurrency(user.getDisplayCurrency());
-        List<Bet> bets = betRepository.findByUserOrderByPlacedAtAsc(user).stream()
-                .filter(b -> b.getParentBet() == null)
-                .collect(Collectors.toList());
-
-        BigDecimal totalInvestment = bets.stream()
-                .map(b -> convertBetStake(b, displayCurrency))
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        BigDecimal profit = calculateNetProfit(bets, displayCurrency);
-        BigDecimal roi = calculateROI(profit, totalInvestment);
-        BigDecimal efficiency = calculateLegEfficiency(bets);
-
-        BetStatistics stats = new BetStatistics(
-                bets.size(),
-                countSuccessfulBets(bets),
-                profit,
-                roi,
-                calculateWinRatesByType(bets),
-                calculateRollingAverage(bets, 30, displayCurrency),
-                analyzeStreaks(bets),
-                calculateSharpeRatio(bets, displayCurrency),
-                efficiency,
-                displayCurrency
-        );
-        return stats;
-    }
-
-    private BigDecimal calculateLegEfficiency(List<Bet> parentBets) {
-        long totalLegs = 0;
-        long wonLegs = 0;
-
-        for (Bet bet : parentBets) {
-            if (bet.getBetType() == BetType.PARLAY && bet.getChildBets() != null && !bet.getChildBets().isEmpty()) {
-                for (Bet child : bet.getChildBets()) {
-                    if (child.getStatus() != BetStatus.PENDING) {
-                        totalLegs++;
-                        if (child.getStatus() == BetStatus.WON) wonLegs++;
-                    }
-                }
-            } else {
-                if (bet.getStatus() != BetStatus.PENDING) {
-                    totalLegs++;
-                    if (bet.getStatus() == BetStatus.WON) wonLegs++;
-                }
-            }
-        }
-
-        if (totalLegs == 0) return BigDecimal.ZERO;
-        return BigDecimal.valueOf(wonLegs)
-                .divide(BigDecimal.valueOf(totalLegs), 4, RoundingMode.HALF_UP)
-                .multiply(BigDecimal.valueOf(100));
+        return analyticsCache.get(user.getId(), displayCurrency, UserAnalyticsCache.Kind.ADVANCED,
+                () -> computeAdvancedStatistics(user, displayCurrency));
     }
 
-    private BigDecimal calculateSharpeRatio(List<Bet> bets, String displayCurrency) {
-        List<BigDecimal> profits = bets.stream()
-                .filter(b -> b.getStatus() != BetStatus.PENDING && b.getFinalProfit() != null)
-                .map(b -> convertBetProfit(b, displayCurrency))
-                .collect(Collectors.toList());
+    private BetStatistics computeAdvancedStatistics(User user, String displayCurrency) {
+        AdvancedStatsAccumulator stats = new AdvancedStatsAccumulator(
+                new CentsConverter(currencyConversionService, displayCurrency), LocalDateTime.now());
 
-        if (profits.size() < 2) return BigDecimal.ZERO;
-
-        // 1. Średni zysk (Mean Return)
-        BigDecimal sum = profits.stream().reduce(BigDecimal.ZERO, BigDecimal::add);
-        BigDecimal mean = sum.divide(BigDecimal.valueOf(profits.size()), 4, RoundingMode.HALF_UP);
-
-        // 2. Odchylenie standardowe (Standard Deviation)
-        BigDecimal varianceSum = BigDecimal.ZERO;
-        for (BigDecimal profit : profits) {
-            BigDecimal diff = profit.subtract(mean);
-            varianceSum = varianceSum.add(diff.pow(2));
+        try (Stream<AdvancedStatsRow> rows = betRepository.streamAdvancedStatsRows(user)) {
+            rows.forEach(stats::accept);
         }
-        
-        // Dzielimy przez N (dla populacji) lub N-1 (dla próbki). Tutaj N dla uproszczenia.
-        BigDecimal variance = varianceSum.divide(BigDecimal.valueOf(profits.size()), 4, RoundingMode.HALF_UP);
-        double stdDevDouble = Math.sqrt(variance.doubleValue());
-        BigDecimal stdDev = BigDecimal.valueOf(stdDevDouble);
-
-        if (stdDev.compareTo(BigDecimal.ZERO) == 0) return BigDecimal.ZERO;
-
-        // 3. Sharpe Ratio = Mean / StdDev (zakładając Risk Free Rate = 0)
-        return mean.divide(stdDev, 4, RoundingMode.HALF_UP);
-    }
+        stats.acceptLegs(betRepository.tallySettledParlayLegs(user, BetType.PARLAY, BetStatus.PENDING, BetStatus.WON));
 
-    private int countSuccessfulBets(List<Bet> bets) {
-        return (int) bets.stream()
-                .filter(bet -> bet.getStatus() == BetStatus.WON)
-                .count();
+        return stats.toStatistics(displayCurrency);
     }
 
-    private BigDecimal calculateNetProfit(List<Bet> bets, String displayCurrency) {
-        return bets.stream()
-                .filter(bet -> bet.getStatus() != BetStatus.PENDING)
-                .map(bet -> convertBetProfit(bet, displayCurrency))
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    private static void validateRange(LocalDate from, LocalDate to) {
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new IllegalArgumentException("Invalid date range: from " + from + " is after to " + to);
+        }
     }
 
     private BigDecimal calculateROI(BigDecimal profit, BigDecimal investment) {
@@ -418,117 +468,38 @@ public class BettingService {
                 .multiply(BigDecimal.valueOf(100));
     }
 
-    private Map<String, BigDecimal> calculateWinRatesByType(List<Bet> bets) {
-        return bets.stream()
-                .collect(Collectors.groupingBy(
-                        bet -> bet.getBetType().name(),
-                        Collectors.collectingAndThen(
-                                Collectors.toList(),
-                                list -> {
-                                    long total = list.size();
-                                    if (total == 0) return BigDecimal.ZERO;
-                                    long won = list.stream()
-                                            .filter(b -> b.getStatus() == BetStatus.WON)
-                                            .count();
-                                    return BigDecimal.valueOf(won)
-                                            .divide(BigDecimal.valueOf(total), 4, RoundingMode.HALF_UP)
-                                            .multiply(BigDecimal.valueOf(100));
-                                }
-                        )
-                ));
-    }
-
-    private BigDecimal calculateRollingAverage(List<Bet> bets, int days, String displayCurrency) {
-        LocalDateTime cutoff = LocalDateTime.now().minusDays(days);
-
-        BigDecimal periodProfit = bets.stream()
-                .filter(b -> b.getPlacedAt().isAfter(cutoff))
-                .filter(bet -> bet.getStatus() != BetStatus.PENDING)
-                .map(bet -> convertBetProfit(bet, displayCurrency))
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        return periodProfit.divide(BigDecimal.valueOf(days), 2, RoundingMode.HALF_UP);
-    }
-
-    private BigDecimal convertBetProfit(Bet bet, String displayCurrency) {
-        return currencyConversionService.convert(
-                Optional.ofNullable(bet.getFinalProfit()).orElse(BigDecimal.ZERO),
-                bet.getCurrency(),
-                displayCurrency);
+    /** Sumy per waluta przeliczane raz na walutę (agregaty trzymają kwoty w walucie zakładu). */
+    private BigDecimal convertTotal(Map<String, BigDecimal> amountsByCurrency, CentsConverter converter) {
+        if (amountsByCurrency.isEmpty()) {
+            return BigDecimal.ZERO;
+        }
+        return MoneyCents.toAmount(convertTotalCents(amountsByCurrency, converter));
     }
 
-    private BigDecimal convertBetStake(Bet bet, String displayCurrency) {
-        return currencyConversionService.convert(
-                Optional.ofNullable(bet.getStake()).orElse(BigDecimal.ZERO),
-                bet.getCurrency(),
-                displayCurrency);
+    private long convertTotalCents(Map<String, BigDecimal> amountsByCurrency, CentsConverter converter) {
+        long total = 0L;
+        for (Map.Entry<String, BigDecimal> entry : amountsByCurrency.entrySet()) {
+            total = Math.addExact(total, converter.convert(entry.getValue(), entry.getKey()));
+        }
+        return total;
     }
 
-    private String analyzeStreaks(List<Bet> bets) {
-        int maxWinStreak = 0;
-        int maxLossStreak = 0;
-        BetStatus lastStatus = null;
-        int streakCounter = 0;
-
-        // Sortujemy po dacie rozliczenia, żeby analiza miała sens chronologiczny
-        List<Bet> settledBets = bets.stream()
-                .filter(b -> b.getStatus() == BetStatus.WON || b.getStatus() == BetStatus.LOST)
-                .filter(b -> b.getSettledAt() != null)
-                .sorted(Comparator.comparing(Bet::getSettledAt))
-                .collect(Collectors.toList());
-
-        for (Bet bet : settledBets) {
-            if (lastStatus == null || bet.getStatus() != lastStatus) {
-                lastStatus = bet.getStatus();
-                streakCounter = 1;
-            } else {
-                streakCounter++;
-            }
-            if (lastStatus == BetStatus.WON && streakCounter > maxWinStreak) {
-                maxWinStreak = streakCounter;
-            } else if (lastStatus == BetStatus.LOST && streakCounter > maxLossStreak) {
-                maxLossStreak = streakCounter;
-            }
-        }
-        
-        // Obliczanie bieżącej serii (od tyłu)
-        int currentStreakCount = 0;
-        String currentStreakType = "None";
-        
-        if (!settledBets.isEmpty()) {
-            Bet lastBet = settledBets.get(settledBets.size() - 1);
-            BetStatus currentStatus = lastBet.getStatus();
-            currentStreakType = currentStatus == BetStatus.WON ? "Win" : "Loss";
-            
-            for (int i = settledBets.size() - 1; i >= 0; i--) {
-                if (settledBets.get(i).getStatus() == currentStatus) {
-                    currentStreakCount++;
-                } else {
-                    break;
-                }
-            }
+    /** Heatmapa z user_daily_pnl w zakresie [from, to] (null = bez granicy); cache tylko bez zakresu. */
+    public HeatmapResponse getHeatmapData(User user, LocalDate from, LocalDate to) {
+        validateRange(from, to);
+        String displayCurrency = currencyConversionService.resolveDisplayCurrency(user.getDisplayCurrency());
+        if (from == null && to == null) {
+            return analyticsCache.get(user.getId(), displayCurrency, UserAnalyticsCache.Kind.HEATMAP,
+                    () -> computeHeatmapData(user, displayCurrency, null, null));
         }
-        
-        return String.format("Current: %d %s | Max Win: %d | Max Loss: %d", 
-                currentStreakCount, currentStreakType, maxWinStreak, maxLossStreak);
+        return computeHeatmapData(user, displayCurrency, from, to);
     }
 
-    public HeatmapResponse getHeatmapData(User user) {
-        String displayCurrency = currencyConversionService.resolveDisplayCurrency(user.getDisplayCurrency());
-        List<Bet> bets = betRepository.findByUser(user).stream()
-                .filter(b -> b.getParentBet() == null)
-                .filter(b -> b.getStatus() != BetStatus.PENDING)
-                .collect(Collectors.toList());
-
-        Map<String, BigDecimal> dailyProfit = bets.stream()
-                .filter(b -> b.getSettledAt() != null)
-                .collect(Collectors.groupingBy(
-                        b -> b.getSettledAt().toLocalDate().toString(),
-                        Collectors.mapping(
-                                b -> convertBetProfit(b, displayCurrency),
-                                Collectors.reducing(BigDecimal.ZERO, BigDecimal::add)
-                        )
-                ));
+    private HeatmapResponse computeHeatmapData(User user, String displayCurrency, LocalDate from, LocalDate to) {
+        CentsConverter converter = new CentsConverter(currencyConversionService, displayCurrency);
+        Map<String, BigDecimal> dailyProfit = new HashMap<>();
+        userStatsService.loadDailyPnl(user, from, to).dailyProfitByCurrency().forEach((day, byCurrency) ->
+                dailyProfit.put(day.toString(), convertTotal(byCurrency, converter)));
         return new HeatmapResponse(displayCurrency, dailyProfit);
     }
 
@@ -544,6 +515,7 @@ public class BettingService {
         if (bet.getStatus() != BetStatus.PENDING) {
             throw new IllegalArgumentException("Cannot settle a bet that is already " + bet.getStatus());
         }
+        BetStatsContribution before = userStatsService.snapshot(bet);
 
         bet.setStatus(newStatus);
         bet.setSettledAt(LocalDateTime.now());
@@ -568,7 +540,10 @@ public class BettingService {
             }
         }
 
-        return betRepository.save(bet);
+        Bet saved = betRepository.save(bet);
+        userStatsService.record(before, saved);
+        analyticsCache.invalidate(user.getId());
+        return saved;
     }
 
     @Transactional
@@ -580,13 +555,17 @@ public class BettingService {
             throw new IllegalArgumentException("You are not authorized to update this bet.");
         }
 
+        BetStatsContribution before = userStatsService.snapshot(bet);
         applyUpdateToEntity(bet, betRequest);
         validateEffectiveState(bet);
         
         // Recalculate potential winnings if stake or odds changed
         bet.calculatePotentialWinnings();
 
-        return betRepository.save(bet);
+        Bet saved = betRepository.save(bet);
+        userStatsService.record(before, saved);
+        analyticsCache.invalidate(user.getId());
+        return saved;
     }
 
     @Transactional
@@ -597,8 +576,12 @@ public class BettingService {
         if (!bet.getUser().getId().equals(user.getId())) {
             throw new IllegalArgumentException("You are not authorized to delete this bet.");
         }
-        
+
+        BetStatsContribution before = userStatsService.snapshot(bet);
         betRepository.delete(bet);
+        userStatsService.record(before, null);
+        betChangeLog.recordDeletion(user.getId(), betId);
+        analyticsCache.invalidate(user.getId());
     }
 
     /** Applies request values onto the entity. Missing request fields keep the existing value;
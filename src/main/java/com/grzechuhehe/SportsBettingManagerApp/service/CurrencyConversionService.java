@@ -59,6 +59,11 @@ public class CurrencyConversionService {
         return inPln.divide(rateFor(to), 2, RoundingMode.HALF_UP);
     }
 
+    /** Kurs waluty w PLN (waluty spoza konfiguracji traktowane jak PLN). */
+    public BigDecimal plnPerUnit(String currency) {
+        return rateFor(resolveDisplayCurrency(currency));
+    }
+
     private BigDecimal rateFor(String currency) {
         return plnPerUnit.getOrDefault(currency, BigDecimal.ONE);
     }
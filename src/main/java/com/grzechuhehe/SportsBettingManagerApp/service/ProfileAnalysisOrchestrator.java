@@ -15,6 +15,9 @@ import com.grzechuhehe.SportsBettingManagerApp.repository.UserRepository;
 import com.grzechuhehe.SportsBettingManagerApp.service.resolution.importing.BetImportResolutionEnricher;
 import com.grzechuhehe.SportsBettingManagerApp.service.resolution.importing.BetStakeExtractionNormalizer;
 import com.grzechuhehe.SportsBettingManagerApp.service.resolution.importing.BetStakeNormalizationResult;
+import com.grzechuhehe.SportsBettingManagerApp.service.stats.BetStatsContribution;
+import com.grzechuhehe.SportsBettingManagerApp.service.stats.UserAnalyticsCache;
+import com.grzechuhehe.SportsBettingManagerApp.service.stats.UserStatsService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.scheduling.annotation.Scheduled;
@@ -45,6 +48,8 @@ public class ProfileAnalysisOrchestrator {
     private final ObjectMapper objectMapper;
     private final BetImportResolutionEnricher betImportResolutionEnricher;
     private final BetStakeExtractionNormalizer betStakeExtractionNormalizer;
+    private final UserStatsService userStatsService;
+    private final UserAnalyticsCache analyticsCache;
 
     // Uruchamia się co 15 minut
     @Scheduled(fixedRate = 900000)
@@ -106,6 +111,8 @@ public class ProfileAnalysisOrchestrator {
             return Optional.empty();
         }
         Bet saved = betRepository.save(bet);
+        userStatsService.record(null, saved);
+        analyticsCache.invalidate(user.getId());
         log.info("Import z obrazu: zapisano zakład {} (user {})", saved.getId(), user.getId());
         return Optional.of(saved);
     }
@@ -249,12 +256,15 @@ public class ProfileAnalysisOrchestrator {
                     
                     if (!localImagePaths.isEmpty() && existingBet.getImageProofPath() == null) {
                         log.info("Wykryto dodane zdjęcia do istniejącego posta {} od {}", tweetId, xUsername);
+                        BetStatsContribution before = userStatsService.snapshot(existingBet);
                         existingBet.setImageProofPath(localImagePaths.get(0));
                         updateBetDataFromAI(existingBet, fullText, localImagePaths, threadContext);
                         betImportResolutionEnricher.enrich(existingBet);
 
                         if (isBetValid(existingBet)) {
                             betRepository.save(existingBet);
+                            userStatsService.record(before, existingBet);
+                            analyticsCache.invalidate(user.getId());
                             log.info("Zaktualizowano istniejący zakład z posta {}", tweetId);
                         }
                     }
@@ -278,6 +288,8 @@ public class ProfileAnalysisOrchestrator {
 
                 if (isBetValid(newBet)) {
                      betRepository.save(newBet);
+                     userStatsService.record(null, newBet);
+                     analyticsCache.invalidate(user.getId());
                      savedCount++;
                      log.info("✅ Zapisano nowy zakład z posta {} (@{})", tweetId, xUsername);
                 } else {
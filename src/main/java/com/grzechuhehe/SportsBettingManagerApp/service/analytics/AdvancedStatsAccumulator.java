@@ -0,0 +1,154 @@
+package com.grzechuhehe.SportsBettingManagerApp.service.analytics;
+
+import com.grzechuhehe.SportsBettingManagerApp.dto.BetStatistics;
+import com.grzechuhehe.SportsBettingManagerApp.model.enum_model.BetStatus;
+import com.grzechuhehe.SportsBettingManagerApp.model.enum_model.BetType;
+import com.grzechuhehe.SportsBettingManagerApp.repository.projection.AdvancedStatsRow;
+import com.grzechuhehe.SportsBettingManagerApp.repository.projection.LegTally;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Jednoprzebiegowe statystyki zaawansowane: każdy zakład główny trafia tu raz (w kolejności
+ * rozliczenia), a pamięć zależy tylko od liczby typów zakładów, nie od długości historii.
+ * Zysk, stawki i Sharpe idą przez {@link CentsAccumulator}, serie przez prosty automat stanów.
+ */
+public final class AdvancedStatsAccumulator {
+
+    public static final int ROLLING_WINDOW_DAYS = 30;
+
+    private final CentsConverter converter;
+    private final LocalDateTime rollingCutoff;
+
+    private int totalBets;
+    private int wonBets;
+    private final CentsAccumulator investment = new CentsAccumulator();
+    private final CentsAccumulator netProfit = new CentsAccumulator();
+    private final CentsAccumulator sharpeProfits = new CentsAccumulator();
+    private long rollingProfitCents;
+    private final Map<BetType, long[]> byType = new EnumMap<>(BetType.class);
+    private long settledLegs;
+    private long wonLegs;
+
+    private BetStatus streakStatus;
+    private int streakLength;
+    private int maxWinStreak;
+    private int maxLossStreak;
+
+    public AdvancedStatsAccumulator(CentsConverter converter, LocalDateTime now) {
+        this.converter = converter;
+        this.rollingCutoff = now.minusDays(ROLLING_WINDOW_DAYS);
+    }
+
+    public void accept(AdvancedStatsRow row) {
+        BetStatus status = row.status();
+        boolean settled = status != BetStatus.PENDING;
+        totalBets++;
+        if (status == BetStatus.WON) {
+            wonBets++;
+        }
+        investment.add(converter.convert(row.stake(), row.currency()));
+
+        if (settled) {
+            long profit = converter.convert(row.finalProfit(), row.currency());
+            netProfit.add(profit);
+            if (row.finalProfit() != null) {
+                sharpeProfits.add(profit);
+            }
+            if (row.placedAt().isAfter(rollingCutoff)) {
+                rollingProfitCents = Math.addExact(rollingProfitCents, profit);
+            }
+        }
+
+        long[] typeCounts = byType.computeIfAbsent(row.betType(), type -> new long[2]);
+        typeCounts[0]++;
+        if (status == BetStatus.WON) {
+            typeCounts[1]++;
+        }
+
+        // Kupony z nogami liczone są nogami (acceptLegs), pozostałe — samym zakładem
+        boolean parlayWithLegs = row.betType() == BetType.PARLAY && row.legCount() != null && row.legCount() > 0;
+        if (!parlayWithLegs && settled) {
+            settledLegs++;
+            if (status == BetStatus.WON) {
+                wonLegs++;
+            }
+        }
+
+        if ((status == BetStatus.WON || status == BetStatus.LOST) && row.settledAt() != null) {
+            trackStreak(status);
+        }
+    }
+
+    public void acceptLegs(LegTally legs) {
+        if (legs != null) {
+            settledLegs += legs.settled();
+            wonLegs += legs.won();
+        }
+    }
+
+    public BetStatistics toStatistics(String displayCurrency) {
+        BigDecimal profit = netProfit.total();
+        BigDecimal totalInvestment = investment.total();
+        BigDecimal roi = BigDecimal.ZERO;
+        if (totalInvestment.compareTo(BigDecimal.ZERO) != 0) {
+            roi = profit.divide(totalInvestment, 4, RoundingMode.HALF_UP).multiply(BigDecimal.valueOf(100));
+        }
+        BigDecimal rollingAverage = MoneyCents.toAmount(rollingProfitCents)
+                .divide(BigDecimal.valueOf(ROLLING_WINDOW_DAYS), 2, RoundingMode.HALF_UP);
+
+        return new BetStatistics(
+                totalBets,
+                wonBets,
+                profit,
+                roi,
+                winRatesByType(),
+                rollingAverage,
+                streakSummary(),
+                sharpeProfits.sharpeRatio(),
+                percentage(wonLegs, settledLegs),
+                displayCurrency
+        );
+    }
+
+    private void trackStreak(BetStatus status) {
+        if (status != streakStatus) {
+            streakStatus = status;
+            streakLength = 1;
+        } else {
+            streakLength++;
+        }
+        if (status == BetStatus.WON) {
+            maxWinStreak = Math.max(maxWinStreak, streakLength);
+        } else {
+            maxLossStreak = Math.max(maxLossStreak, streakLength);
+        }
+    }
+
+    // Ostatnia seria automatu to bieżąca seria — nie trzeba przechodzić listy od końca
+    private String streakSummary() {
+        String currentType = streakStatus == null ? "None" : streakStatus == BetStatus.WON ? "Win" : "Loss";
+        return String.format("Current: %d %s | Max Win: %d | Max Loss: %d",
+                streakLength, currentType, maxWinStreak, maxLossStreak);
+    }
+
+    private Map<String, BigDecimal> winRatesByType() {
+        Map<String, BigDecimal> rates = new HashMap<>();
+        byType.forEach((type, counts) -> rates.put(type.name(), percentage(counts[1], counts[0])));
+        return rates;
+    }
+
+    private static BigDecimal percentage(long part, long total) {
+        if (total == 0) {
+            return BigDecimal.ZERO;
+        }
+        return BigDecimal.valueOf(part)
+                .divide(BigDecimal.valueOf(total), 4, RoundingMode.HALF_UP)
+                .multiply(BigDecimal.valueOf(100));
+    }
+}
@@ -0,0 +1,97 @@
+package com.grzechuhehe.SportsBettingManagerApp.service.analytics;
+
+import com.grzechuhehe.SportsBettingManagerApp.service.CurrencyConversionService;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Przeliczanie kwot na groszach dla jednej waluty wyświetlania. Kurs z→do jest sprowadzany raz
+ * na walutę do ułamka licznik/mianownik, więc {@code convert} to jedno mnożenie i dzielenie na
+ * {@code long} z tym samym zaokrągleniem HALF_UP co {@link CurrencyConversionService#convert}.
+ * Przy przepełnieniu lub kwocie z więcej niż 2 miejscami po przecinku wraca do ścieżki BigDecimal.
+ *
+ * <p>Instancja nie jest bezpieczna wątkowo — tworzona na jedno żądanie.
+ */
+public final class CentsConverter {
+
+    private static final Ratio UNSUPPORTED = new Ratio(0, 0);
+
+    private final CurrencyConversionService currencies;
+    private final String displayCurrency;
+    private final Map<String, Ratio> ratios = new HashMap<>();
+
+    public CentsConverter(CurrencyConversionService currencies, String displayCurrency) {
+        this.currencies = currencies;
+        this.displayCurrency = currencies.resolveDisplayCurrency(displayCurrency);
+    }
+
+    public String displayCurrency() {
+        return displayCurrency;
+    }
+
+    /** Kwota w walucie {@code currency} przeliczona na grosze waluty wyświetlania (null = 0). */
+    public long convert(BigDecimal amount, String currency) {
+        if (amount == null || amount.signum() == 0) {
+            return 0L;
+        }
+        if (amount.scale() <= 2) {
+            Ratio ratio = ratios.computeIfAbsent(currency, this::ratioFor);
+            if (ratio != UNSUPPORTED) {
+                try {
+                    long cents = MoneyCents.of(amount);
+                    return ratio.isIdentity()
+                            ? cents
+                            : MoneyCents.divideHalfUp(Math.multiplyExact(cents, ratio.numerator()), ratio.denominator());
+                } catch (ArithmeticException overflow) {
+                    // kwota poza zakresem long — poniżej dokładna ścieżka BigDecimal
+                }
+            }
+        }
+        return MoneyCents.of(currencies.convert(amount, currency, displayCurrency));
+    }
+
+    public BigDecimal convertToAmount(BigDecimal amount, String currency) {
+        return MoneyCents.toAmount(convert(amount, currency));
+    }
+
+    // wynik w groszach = grosze * (kurs_z / kurs_do) = grosze * licznik / mianownik
+    private Ratio ratioFor(String currency) {
+        if (currencies.resolveDisplayCurrency(currency).equals(displayCurrency)) {
+            return new Ratio(1, 1);
+        }
+        BigDecimal from = currencies.plnPerUnit(currency);
+        BigDecimal to = currencies.plnPerUnit(displayCurrency);
+        if (from.signum() <= 0 || to.signum() <= 0) {
+            return UNSUPPORTED;
+        }
+        // kurs = unscaled * 10^-scale, więc skala "do" mnoży licznik, a skala "z" — mianownik
+        BigInteger numerator = from.unscaledValue();
+        BigInteger denominator = to.unscaledValue();
+        if (to.scale() >= 0) {
+            numerator = numerator.multiply(BigInteger.TEN.pow(to.scale()));
+        } else {
+            denominator = denominator.multiply(BigInteger.TEN.pow(-to.scale()));
+        }
+        if (from.scale() >= 0) {
+            denominator = denominator.multiply(BigInteger.TEN.pow(from.scale()));
+        } else {
+            numerator = numerator.multiply(BigInteger.TEN.pow(-from.scale()));
+        }
+        BigInteger gcd = numerator.gcd(denominator);
+        numerator = numerator.divide(gcd);
+        denominator = denominator.divide(gcd);
+        if (numerator.bitLength() >= Long.SIZE || denominator.bitLength() >= Long.SIZE) {
+            return UNSUPPORTED;
+        }
+        return new Ratio(numerator.longValue(), denominator.longValue());
+    }
+
+    private record Ratio(long numerator, long denominator) {
+        boolean isIdentity() {
+            return numerator == 1 && denominator == 1;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.grzechuhehe.SportsBettingManagerApp.service.analytics;
+
+import java.math.BigDecimal;
+
+/**
+ * Kwoty analityki trzymane jako {@code long} w groszach (1/100 jednostki waluty).
+ * BigDecimal pojawia się dopiero na granicy API — tu nie ma żadnego zaokrąglania po drodze.
+ */
+public final class MoneyCents {
+
+    private MoneyCents() {
+    }
+
+    /** Dokładna zamiana; rzuca ArithmeticException, gdy kwota ma więcej niż 2 miejsca po przecinku. */
+    public static long of(BigDecimal amount) {
+        return amount.movePointRight(2).longValueExact();
+    }
+
+    public static BigDecimal toAmount(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+
+    /** Dzielenie z zaokrągleniem HALF_UP (połówki od zera) — tak samo jak BigDecimal. Dzielnik musi być dodatni. */
+    static long divideHalfUp(long dividend, long divisor) {
+        long quotient = dividend / divisor;
+        long remainder = Math.abs(dividend % divisor);
+        if (remainder >= divisor - remainder) {
+            quotient += Long.signum(dividend);
+        }
+        return quotient;
+    }
+}
@@ -0,0 +1,349 @@
+package com.grzechuhehe.SportsBettingManagerApp.service.bulk;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.grzechuhehe.SportsBettingManagerApp.dto.BetImportResult;
+import com.grzechuhehe.SportsBettingManagerApp.dto.BetRequest;
+import com.grzechuhehe.SportsBettingManagerApp.model.Bet;
+import com.grzechuhehe.SportsBettingManagerApp.model.User;
+import com.grzechuhehe.SportsBettingManagerApp.model.enum_model.BetStatus;
+import com.grzechuhehe.SportsBettingManagerApp.model.enum_model.BetType;
+import com.grzechuhehe.SportsBettingManagerApp.model.enum_model.MarketType;
+import com.grzechuhehe.SportsBettingManagerApp.model.enum_model.OddsType;
+import com.grzechuhehe.SportsBettingManagerApp.service.export.BetExportFormat;
+import com.grzechuhehe.SportsBettingManagerApp.service.stats.UserAnalyticsCache;
+import com.grzechuhehe.SportsBettingManagerApp.service.stats.UserStatsService;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Masowy import historii zakładów z pliku CSV/NDJSON (format zgodny z eksportem). Plik czytany jest
+ * strumieniowo, wiersze walidowane tym samym {@link Validator} co ręczne zakłady i zapisywane paczkami
+ * przez JDBC batch — z pominięciem Hibernate, który przy IDENTITY robi jeden INSERT na encję.
+ * Klucze IDENTITY wracają z getGeneratedKeys całej paczki, więc nogi dostają ID swoich kuponów
+ * bez dodatkowych zapytań. Agregat statystyk przeliczany jest raz, na końcu importu.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class BetBulkImportService {
+
+    static final int MAX_REPORTED_ERRORS = 100;
+
+    private static final String INSERT_SQL = """
+            INSERT INTO bet (user_id, parent_bet_id, bet_type, status, stake, units, currency, odds, odds_type,
+                             potential_winnings, final_profit, sport, event_name, event_date, market_type,
+                             selection, line, bookmaker, external_bet_id, external_api_name, is_ai_extracted,
+                             retroactive_at_import, is_pre_match, placed_at, settled_at, updated_at, notes)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+            """;
+
+    // Kupon PARLAY nie ma własnego wydarzenia ani rynku; noga nie ma własnej stawki
+    private static final Set<String> PARLAY_EXEMPT = Set.of("eventDate", "marketType", "selection", "bookmaker");
+    private static final Set<String> LEG_EXEMPT = Set.of("stake");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Validator validator;
+    private final UserStatsService userStatsService;
+    private final UserAnalyticsCache analyticsCache;
+
+    @Value("${bet.import.batch-size:1000}")
+    private int batchSize = 1000;
+
+    @Transactional
+    public BetImportResult importBets(User user, BetExportFormat format, InputStream in) throws IOException {
+        ImportRun run = new ImportRun(user);
+        try (BetImportReader reader = BetImportReader.open(format, in)) {
+            Map<String, String> row;
+            while ((row = nextRow(reader)) != null) {
+                run.accept(reader.record(), row);
+                if (run.roots.size() + run.legs.size() >= batchSize) {
+                    run.flush();
+                }
+            }
+        }
+        run.flush();
+        if (run.imported > 0) {
+            userStatsService.rebuild(user.getId());
+            analyticsCache.invalidate(user.getId());
+        }
+        log.info("Import zakładów użytkownika {} ({}): zapisano {}, odrzucono {}",
+                user.getUsername(), format, run.imported, run.rejected);
+        return new BetImportResult(run.imported, run.rejected, List.copyOf(run.errors));
+    }
+
+    private static Map<String, String> nextRow(BetImportReader reader) throws IOException {
+        try {
+            return reader.next();
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Row " + (reader.record() + 1) + ": malformed JSON — "
+                    + e.getOriginalMessage());
+        }
+    }
+
+    private final class ImportRun {
+        private final User user;
+        private final LocalDateTime now = LocalDateTime.now();
+        // ID z pliku -> nowe ID kuponu; null, dopóki kupon czeka w bieżącej paczce
+        private final Map<Long, Long> rootIds = new HashMap<>();
+        private final List<PendingBet> roots = new ArrayList<>();
+        private final List<PendingBet> legs = new ArrayList<>();
+        private final List<String> errors = new ArrayList<>();
+        private long imported;
+        private long rejected;
+
+        ImportRun(User user) {
+            this.user = user;
+        }
+
+        void accept(long record, Map<String, String> row) {
+            PendingBet pending;
+            try {
+                pending = toPendingBet(row);
+                validate(pending);
+            } catch (IllegalArgumentException | DateTimeParseException e) {
+                reject(record, e.getMessage());
+                return;
+            }
+            if (pending.sourceParentId() == null) {
+                if (pending.sourceId() != null) {
+                    if (rootIds.containsKey(pending.sourceId())) {
+                        reject(record, "duplicate id " + pending.sourceId());
+                        return;
+                    }
+                    rootIds.put(pending.sourceId(), null);
+                }
+                roots.add(pending);
+            } else if (rootIds.containsKey(pending.sourceParentId())) {
+                legs.add(pending);
+            } else {
+                reject(record, "parent bet " + pending.sourceParentId() + " not found earlier in the file");
+            }
+        }
+
+        void flush() {
+            // Najpierw kupony — ich klucze są potrzebne nogom z tej samej paczki
+            List<Long> ids = insert(roots);
+            for (int i = 0; i < roots.size(); i++) {
+                Long sourceId = roots.get(i).sourceId();
+                if (sourceId != null) {
+                    rootIds.put(sourceId, ids.get(i));
+                }
+            }
+            insert(legs);
+            imported += roots.size() + legs.size();
+            roots.clear();
+            legs.clear();
+        }
+
+        private List<Long> insert(List<PendingBet> batch) {
+            if (batch.isEmpty()) {
+                return List.of();
+            }
+            GeneratedKeyHolder keys = new GeneratedKeyHolder();
+            jdbcTemplate.batchUpdate(
+                    connection -> connection.prepareStatement(INSERT_SQL, new String[]{"id"}),
+                    new BatchPreparedStatementSetter() {
+                        @Override
+                        public void setValues(PreparedStatement ps, int i) throws SQLException {
+                            PendingBet pending = batch.get(i);
+                            Long parentId = pending.sourceParentId() != null ? rootIds.get(pending.sourceParentId()) : null;
+                            bind(ps, pending.bet(), user.getId(), parentId, now);
+                        }
+
+                        @Override
+                        public int getBatchSize() {
+                            return batch.size();
+                        }
+                    },
+                    keys);
+            return keys.getKeyList().stream()
+                    .map(key -> ((Number) key.values().iterator().next()).longValue())
+                    .toList();
+        }
+
+        private void reject(long record, String reason) {
+            rejected++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add("Row " + record + ": " + reason);
+            }
+        }
+    }
+
+    private static PendingBet toPendingBet(Map<String, String> row) {
+        Long sourceParentId = parseLong(row.get("parentbetid"), "parentBetId");
+        BigDecimal stake = parseDecimal(row.get("stake"), "stake");
+        BetType betType = sourceParentId != null
+                ? BetType.SINGLE
+                : parseEnum(BetType.class, row.get("bettype"), BetType.SINGLE, "betType");
+        String currency = row.get("currency");
+
+        Bet bet = Bet.builder()
+                .betType(betType)
+                .status(parseEnum(BetStatus.class, row.get("status"), BetStatus.PENDING, "status"))
+                .stake(sourceParentId != null ? null : stake)
+                .units(stake != null && sourceParentId == null
+                        ? stake.divide(new BigDecimal("10"), 2, RoundingMode.HALF_UP) : BigDecimal.ONE)
+                .currency(currency != null ? currency.trim().toUpperCase(Locale.ROOT) : "PLN")
+                .odds(parseDecimal(row.get("odds"), "odds"))
+                .oddsType(parseEnum(OddsType.class, row.get("oddstype"), OddsType.DECIMAL, "oddsType"))
+                .potentialWinnings(parseDecimal(row.get("potentialwinnings"), "potentialWinnings"))
+                .finalProfit(parseDecimal(row.get("finalprofit"), "finalProfit"))
+                .sport(row.get("sport"))
+                .eventName(row.get("eventname"))
+                .eventDate(parseDateTime(row.get("eventdate")))
+                .marketType(parseEnum(MarketType.class, row.get("markettype"), null, "marketType"))
+                .selection(row.get("selection"))
+                .line(row.get("line"))
+                .bookmaker(row.get("bookmaker"))
+                .externalBetId(row.get("externalbetid"))
+                .externalApiName(row.get("externalapiname"))
+                .placedAt(row.get("placedat") != null ? parseDateTime(row.get("placedat")) : LocalDateTime.now())
+                .settledAt(parseDateTime(row.get("settledat")))
+                .notes(row.get("notes"))
+                .build();
+        bet.calculatePotentialWinnings();
+        return new PendingBet(parseLong(row.get("id"), "id"), sourceParentId, bet);
+    }
+
+    /** Te same ograniczenia co {@link BetRequest}, bez pól, których dany rodzaj wiersza nie ma. */
+    private void validate(PendingBet pending) {
+        Bet bet = pending.bet();
+        if (bet.getCurrency().length() != 3) {
+            throw new IllegalArgumentException("currency: must be a 3-letter code");
+        }
+        BetRequest snapshot = new BetRequest();
+        snapshot.setSport(bet.getSport());
+        snapshot.setEventName(bet.getEventName());
+        snapshot.setEventDate(bet.getEventDate());
+        snapshot.setMarketType(bet.getMarketType());
+        snapshot.setSelection(bet.getSelection());
+        snapshot.setBookmaker(bet.getBookmaker());
+        snapshot.setStake(bet.getStake());
+        snapshot.setOdds(bet.getOdds());
+        snapshot.setNotes(bet.getNotes());
+
+        Set<String> exempt = pending.sourceParentId() != null ? LEG_EXEMPT
+                : bet.getBetType() == BetType.PARLAY ? PARLAY_EXEMPT : Set.of();
+        Set<ConstraintViolation<BetRequest>> violations = validator.validate(snapshot);
+        String message = violations.stream()
+                .filter(v -> !exempt.contains(v.getPropertyPath().toString()))
+                .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                .sorted()
+                .collect(Collectors.joining("; "));
+        if (!message.isEmpty()) {
+            throw new IllegalArgumentException(message);
+        }
+    }
+
+    private static void bind(PreparedStatement ps, Bet bet, Long userId, Long parentId, LocalDateTime now)
+            throws SQLException {
+        ps.setLong(1, userId);
+        setLong(ps, 2, parentId);
+        ps.setString(3, bet.getBetType().name());
+        ps.setString(4, bet.getStatus().name());
+        ps.setBigDecimal(5, bet.getStake());
+        ps.setBigDecimal(6, bet.getUnits());
+        ps.setString(7, bet.getCurrency());
+        ps.setBigDecimal(8, bet.getOdds());
+        ps.setString(9, bet.getOddsType().name());
+        ps.setBigDecimal(10, bet.getPotentialWinnings());
+        ps.setBigDecimal(11, bet.getFinalProfit());
+        ps.setString(12, bet.getSport());
+        ps.setString(13, bet.getEventName());
+        setTimestamp(ps, 14, bet.getEventDate());
+        ps.setString(15, bet.getMarketType() != null ? bet.getMarketType().name() : null);
+        ps.setString(16, bet.getSelection());
+        ps.setString(17, bet.getLine());
+        ps.setString(18, bet.getBookmaker());
+        ps.setString(19, bet.getExternalBetId());
+        ps.setString(20, bet.getExternalApiName());
+        ps.setBoolean(21, bet.isAiExtracted());
+        ps.setBoolean(22, bet.isRetroactiveAtImport());
+        ps.setBoolean(23, bet.isPreMatch());
+        setTimestamp(ps, 24, bet.getPlacedAt());
+        setTimestamp(ps, 25, bet.getSettledAt());
+        setTimestamp(ps, 26, now);
+        ps.setString(27, bet.getNotes());
+    }
+
+    private static void setLong(PreparedStatement ps, int index, Long value) throws SQLException {
+        if (value == null) {
+            ps.setNull(index, Types.BIGINT);
+        } else {
+            ps.setLong(index, value);
+        }
+    }
+
+    private static void setTimestamp(PreparedStatement ps, int index, LocalDateTime value) throws SQLException {
+        if (value == null) {
+            ps.setNull(index, Types.TIMESTAMP);
+        } else {
+            ps.setObject(index, value);
+        }
+    }
+
+    private static Long parseLong(String value, String field) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Long.valueOf(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(field + ": not a number '" + value + "'");
+        }
+    }
+
+    private static BigDecimal parseDecimal(String value, String field) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return new BigDecimal(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(field + ": not a number '" + value + "'");
+        }
+    }
+
+    // Eksport zapisuje ISO (2026-10-01T12:00); arkusze często zamieniają T na spację
+    private static LocalDateTime parseDateTime(String value) {
+        return value == null ? null : LocalDateTime.parse(value.trim().replace(' ', 'T'));
+    }
+
+    private static <E extends Enum<E>> E parseEnum(Class<E> type, String value, E fallback, String field) {
+        if (value == null || value.isBlank()) {
+            return fallback;
+        }
+        try {
+            return Enum.valueOf(type, value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(field + ": unknown value '" + value + "'");
+        }
+    }
+
+    private record PendingBet(Long sourceId, Long sourceParentId, Bet bet) {}
+}
@@ -0,0 +1,169 @@
+package com.grzechuhehe.SportsBettingManagerApp.service.bulk;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.grzechuhehe.SportsBettingManagerApp.service.export.BetExportFormat;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Strumieniowy odczyt pliku z historią zakładów (ten sam format co eksport): jeden rekord naraz,
+ * bez wczytywania całego pliku. Klucze rekordu są znormalizowane — {@code parent_bet_id} i
+ * {@code parentBetId} dają ten sam klucz {@code parentbetid}.
+ */
+abstract class BetImportReader implements Closeable {
+
+    private static final ObjectMapper JSON = new ObjectMapper()
+            .enable(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS);
+
+    /** Numer bieżącego rekordu (1 = pierwszy wiersz danych) — do komunikatów o błędach. */
+    protected long record;
+
+    static BetImportReader open(BetExportFormat format, InputStream in) throws IOException {
+        return format == BetExportFormat.NDJSON ? new Ndjson(in) : new Csv(in);
+    }
+
+    /** Następny rekord lub null na końcu pliku. */
+    abstract Map<String, String> next() throws IOException;
+
+    long record() {
+        return record;
+    }
+
+    static String normalizeKey(String key) {
+        return key.replace("_", "").trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static final class Csv extends BetImportReader {
+        private final Reader reader;
+        private final List<String> header;
+        private final StringBuilder field = new StringBuilder();
+
+        Csv(InputStream in) throws IOException {
+            this.reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 64 * 1024);
+            List<String> names = readFields();
+            if (names == null) {
+                throw new IllegalArgumentException("CSV file is empty (header row expected)");
+            }
+            if (!names.isEmpty() && names.get(0).startsWith("\uFEFF")) {
+                names.set(0, names.get(0).substring(1)); // BOM z Excela
+            }
+            this.header = names.stream().map(BetImportReader::normalizeKey).toList();
+        }
+
+        @Override
+        Map<String, String> next() throws IOException {
+            List<String> values;
+            do {
+                values = readFields();
+                if (values == null) {
+                    return null;
+                }
+            } while (values.size() == 1 && values.get(0).isEmpty()); // pusta linia
+            record++;
+            if (values.size() > header.size()) {
+                throw new IllegalArgumentException("Row " + record + ": " + values.size()
+                        + " fields, header has " + header.size());
+            }
+            Map<String, String> row = new HashMap<>();
+            for (int i = 0; i < values.size(); i++) {
+                String value = values.get(i);
+                row.put(header.get(i), value.isEmpty() ? null : value);
+            }
+            return row;
+        }
+
+        // RFC 4180: pola w cudzysłowach mogą zawierać przecinki, "" i końce linii
+        private List<String> readFields() throws IOException {
+            int c = reader.read();
+            if (c == -1) {
+                return null;
+            }
+            List<String> fields = new ArrayList<>();
+            field.setLength(0);
+            boolean quoted = false;
+            while (true) {
+                if (quoted) {
+                    if (c == -1) {
+                        throw new IllegalArgumentException("Row " + (record + 1) + ": unterminated quoted field");
+                    }
+                    if (c == '"') {
+                        reader.mark(1);
+                        int nextChar = reader.read();
+                        if (nextChar == '"') {
+                            field.append('"');
+                        } else {
+                            quoted = false;
+                            reader.reset();
+                        }
+                    } else {
+                        field.append((char) c);
+                    }
+                } else if (c == '"' && field.isEmpty()) {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else if (c == '\n' || c == -1) {
+                    fields.add(field.toString());
+                    return fields;
+                } else if (c != '\r') {
+                    field.append((char) c);
+                }
+                c = reader.read();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+    }
+
+    private static final class Ndjson extends BetImportReader {
+        private final JsonParser parser;
+        private final MappingIterator<JsonNode> nodes;
+
+        Ndjson(InputStream in) throws IOException {
+            this.parser = JSON.getFactory().createParser(in);
+            this.nodes = JSON.readerFor(JsonNode.class).readValues(parser);
+        }
+
+        @Override
+        Map<String, String> next() throws IOException {
+            if (!nodes.hasNextValue()) {
+                return null;
+            }
+            JsonNode node = nodes.nextValue();
+            record++;
+            if (!node.isObject()) {
+                throw new IllegalArgumentException("Row " + record + ": JSON object expected");
+            }
+            Map<String, String> row = new HashMap<>();
+            node.fields().forEachRemaining(e -> {
+                JsonNode value = e.getValue();
+                row.put(normalizeKey(e.getKey()), value.isNull() ? null : value.asText());
+            });
+            return row;
+        }
+
+        @Override
+        public void close() throws IOException {
+            parser.close();
+        }
+    }
+}
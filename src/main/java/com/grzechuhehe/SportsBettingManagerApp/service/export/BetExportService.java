@@ -0,0 +1,215 @@
+package com.grzechuhehe.SportsBettingManagerApp.service.export;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Eksport pełnej historii zakładów użytkownika wiersz po wierszu z kursora JDBC (fetch size +
+ * useCursorFetch) prosto do strumienia odpowiedzi — bez encji, bez transakcji i bez listy w pamięci.
+ * Nogi kuponów są spłaszczone: osobne wiersze z wypełnionym {@code parent_bet_id}.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class BetExportService {
+
+    private static final JsonFactory JSON = new JsonFactory();
+    private static final int WRITE_BUFFER_BYTES = 64 * 1024;
+
+    private static final List<Column> COLUMNS = List.of(
+            new Column("id", "id", Kind.LONG),
+            new Column("parent_bet_id", "parentBetId", Kind.LONG),
+            new Column("bet_type", "betType", Kind.TEXT),
+            new Column("status", "status", Kind.TEXT),
+            new Column("stake", "stake", Kind.DECIMAL),
+            new Column("currency", "currency", Kind.TEXT),
+            new Column("odds", "odds", Kind.DECIMAL),
+            new Column("odds_type", "oddsType", Kind.TEXT),
+            new Column("potential_winnings", "potentialWinnings", Kind.DECIMAL),
+            new Column("final_profit", "finalProfit", Kind.DECIMAL),
+            new Column("sport", "sport", Kind.TEXT),
+            new Column("event_name", "eventName", Kind.TEXT),
+            new Column("event_date", "eventDate", Kind.DATETIME),
+            new Column("market_type", "marketType", Kind.TEXT),
+            new Column("selection", "selection", Kind.TEXT),
+            new Column("line", "line", Kind.TEXT),
+            new Column("bookmaker", "bookmaker", Kind.TEXT),
+            new Column("placed_at", "placedAt", Kind.DATETIME),
+            new Column("settled_at", "settledAt", Kind.DATETIME),
+            new Column("notes", "notes", Kind.TEXT)
+    );
+
+    // Kolejność po PK: indeks user_id (InnoDB: user_id, id) bez sortowania w pamięci;
+    // nogi mają większe ID niż ich kupon, więc wypadają po nim
+    private static final String EXPORT_SQL = "SELECT "
+            + COLUMNS.stream().map(Column::sqlName).collect(Collectors.joining(", "))
+            + " FROM bet WHERE user_id = ? ORDER BY id";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${bet.export.fetch-size:1000}")
+    private int fetchSize = 1000;
+
+    /** Zapisuje eksport do {@code out} (nie zamyka go); zwraca liczbę wierszy. */
+    public long export(Long userId, BetExportFormat format, OutputStream out) throws IOException {
+        RowSink sink = format == BetExportFormat.NDJSON ? new NdjsonSink(out) : new CsvSink(out);
+        long[] rows = {0L};
+        sink.start();
+        try {
+            jdbcTemplate.query(connection -> {
+                PreparedStatement ps = connection.prepareStatement(
+                        EXPORT_SQL, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                ps.setFetchSize(fetchSize);
+                ps.setLong(1, userId);
+                return ps;
+            }, (ResultSet rs) -> {
+                try {
+                    sink.row(rs);
+                } catch (IOException e) {
+                    // klient przerwał pobieranie — wychodzimy z kursora, JdbcTemplate zwolni połączenie
+                    throw new UncheckedIOException(e);
+                }
+                rows[0]++;
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        sink.finish();
+        log.info("Eksport zakładów użytkownika {} ({}): {} wierszy", userId, format, rows[0]);
+        return rows[0];
+    }
+
+    private interface RowSink {
+        void start() throws IOException;
+
+        void row(ResultSet rs) throws IOException, SQLException;
+
+        void finish() throws IOException;
+    }
+
+    private static final class CsvSink implements RowSink {
+        private final Writer writer;
+
+        CsvSink(OutputStream out) {
+            this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), WRITE_BUFFER_BYTES);
+        }
+
+        @Override
+        public void start() throws IOException {
+            for (int i = 0; i < COLUMNS.size(); i++) {
+                if (i > 0) writer.write(',');
+                writer.write(COLUMNS.get(i).sqlName());
+            }
+            writer.write("\r\n");
+        }
+
+        @Override
+        public void row(ResultSet rs) throws IOException, SQLException {
+            for (int i = 0; i < COLUMNS.size(); i++) {
+                if (i > 0) writer.write(',');
+                Object value = COLUMNS.get(i).read(rs, i + 1);
+                if (value != null) {
+                    writeEscaped(value instanceof BigDecimal d ? d.toPlainString() : value.toString());
+                }
+            }
+            writer.write("\r\n");
+        }
+
+        @Override
+        public void finish() throws IOException {
+            writer.flush();
+        }
+
+        // RFC 4180: cudzysłów wokół pól z przecinkiem, cudzysłowem lub końcem linii; " podwajany
+        private void writeEscaped(String value) throws IOException {
+            boolean quote = false;
+            for (int i = 0; i < value.length() && !quote; i++) {
+                char c = value.charAt(i);
+                quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+            }
+            if (!quote) {
+                writer.write(value);
+                return;
+            }
+            writer.write('"');
+            writer.write(value.replace("\"", "\"\""));
+            writer.write('"');
+        }
+    }
+
+    private static final class NdjsonSink implements RowSink {
+        private final JsonGenerator json;
+
+        NdjsonSink(OutputStream out) throws IOException {
+            this.json = JSON.createGenerator(out);
+            this.json.configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
+            this.json.setRootValueSeparator(null);
+        }
+
+        @Override
+        public void start() {
+        }
+
+        @Override
+        public void row(ResultSet rs) throws IOException, SQLException {
+            json.writeStartObject();
+            for (int i = 0; i < COLUMNS.size(); i++) {
+                Column column = COLUMNS.get(i);
+                Object value = column.read(rs, i + 1);
+                json.writeFieldName(column.jsonName());
+                if (value == null) {
+                    json.writeNull();
+                } else if (value instanceof Long l) {
+                    json.writeNumber(l);
+                } else if (value instanceof BigDecimal d) {
+                    json.writeNumber(d);
+                } else {
+                    json.writeString(value.toString());
+                }
+            }
+            json.writeEndObject();
+            json.writeRaw('\n');
+        }
+
+        @Override
+        public void finish() throws IOException {
+            json.flush();
+        }
+    }
+
+    private enum Kind { LONG, DECIMAL, TEXT, DATETIME }
+
+    private record Column(String sqlName, String jsonName, Kind kind) {
+        Object read(ResultSet rs, int index) throws SQLException {
+            return switch (kind) {
+                case LONG -> {
+                    long value = rs.getLong(index);
+                    yield rs.wasNull() ? null : value;
+                }
+                case DECIMAL -> rs.getBigDecimal(index);
+                case TEXT -> rs.getString(index);
+                case DATETIME -> rs.getObject(index, LocalDateTime.class);
+            };
+        }
+    }
+}
@@ -3,19 +3,24 @@ package com.grzechuhehe.SportsBettingManagerApp.service.resolution;
 import com.grzechuhehe.SportsBettingManagerApp.integration.apify.dto.SofaScoreEventDto;
 import com.grzechuhehe.SportsBettingManagerApp.model.Bet;
 import com.grzechuhehe.SportsBettingManagerApp.service.resolution.matching.MatchReRanker;
+import com.grzechuhehe.SportsBettingManagerApp.service.resolution.matching.NameFolding;
+import com.grzechuhehe.SportsBettingManagerApp.service.resolution.matching.TokenDictionary;
 import org.springframework.stereotype.Component;
 
-import java.text.Normalizer;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.ZoneOffset;
 import java.util.regex.Pattern;
+import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Component
 public class BetMatcher {
@@ -24,11 +29,15 @@ public class BetMatcher {
     /** Kategoria płci — nie identyfikuje drużyny, tylko obniża Jaccarda przy query „Brazil Women”. */
     private static final Set<String> CATEGORY_TOKENS = Set.of("women", "womens", "men", "mens", "female", "male");
 
+    private static final Pattern NON_LETTER = Pattern.compile("[^a-z]");
     private static final Pattern TENNIS_BOOKMAKER_SIDE =
             Pattern.compile("^\\s*([^,]+)\\s*,\\s*(.+)$|^(.+?)\\s+[A-Z]\\.?$");
 
+    private static final int MAX_MEMOIZED_NAMES = 20_000;
+
     private final ResolutionNameTranslator nameTranslator;
     private final MatchReRanker reRanker;
+    private final Map<String, Set<String>> tokenMemo = new ConcurrentHashMap<>();
 
     public BetMatcher(ResolutionNameTranslator nameTranslator, MatchReRanker reRanker) {
         this.nameTranslator = nameTranslator;
@@ -41,17 +50,115 @@ public class BetMatcher {
         if (events == null || events.isEmpty() || bet.getEventName() == null) {
             return Optional.empty();
         }
+        return findBestMatch(bet, index(events), dateWindowDays);
+    }
+
+    /** Tokenizuje pulę raz; indeks jest niezmienny i może obsłużyć wszystkie zakłady cyklu. */
+    public EventPoolIndex index(List<SofaScoreEventDto> events) {
+        List<SofaScoreEventDto> pool = events == null ? List.of() : events;
+        List<EventPoolIndex.Entry> entries = new ArrayList<>(pool.size());
+        TokenDictionary dictionary = new TokenDictionary();
+        for (SofaScoreEventDto event : pool) {
+            Set<String> home = Set.copyOf(tokenize(event.getHomeTeam()));
+            Set<String> away = Set.copyOf(tokenize(event.getAwayTeam()));
+            Set<String> homeLeading = leadingWordTokens(event.getHomeTeam());
+            Set<String> awayLeading = leadingWordTokens(event.getAwayTeam());
+            Set<String> tokens = new HashSet<>(home);
+            tokens.addAll(away);
+            entries.add(new EventPoolIndex.Entry(
+                    event,
+                    home,
+                    away,
+                    homeLeading,
+                    awayLeading,
+                    Set.copyOf(tokens),
+                    dictionary.assign(withoutCategoryTokens(home)),
+                    dictionary.assign(withoutCategoryTokens(away)),
+                    dictionary.assign(withoutCategoryTokens(homeLeading)),
+                    dictionary.assign(withoutCategoryTokens(awayLeading)),
+                    isWomensEvent(event),
+                    isMensEvent(event)));
+        }
+        return new EventPoolIndex(pool, entries, dictionary, CATEGORY_TOKENS);
+    }
+
+    /**
+     * Pełna ocena tylko dla meczów w oknie dat, które dzielą z zakładem choć jeden token. Mecz bez
+     * wspólnego tokenu ma wszystkie Jaccardy równe 0 i dostaje najwyżej {@link MatchReRanker#MAX_BONUS};
+     * gdy najlepszy kandydat jest wyżej, reszty puli nie trzeba oglądać. W przeciwnym razie przechodzimy
+     * okno w kolejności puli (remis wygrywa wcześniejszy mecz — jak w pełnym przejściu listy).
+     */
+    public Optional<MatchCandidate> findBestMatch(Bet bet, EventPoolIndex pool, int dateWindowDays) {
+        if (pool == null || pool.isEmpty() || bet.getEventName() == null) {
+            return Optional.empty();
+        }
+        Set<String> betTokens = tokenize(bet.getEventName());
+        if (betTokens.isEmpty()) {
+            return Optional.empty();
+        }
+        BetQuery query = betQuery(bet, betTokens, pool.dictionary());
+
+        BitSet inWindow = positionsInDateWindow(pool, bet.getPlacedAt(), dateWindowDays);
+        BitSet sharingTokens = pool.sharingAnyToken(query.probeTokens());
+        sharingTokens.and(inWindow);
+
+        MatchCandidate best = null;
+        for (int i = sharingTokens.nextSetBit(0); i >= 0; i = sharingTokens.nextSetBit(i + 1)) {
+            best = better(best, pool.entry(i), scoreCandidate(query, pool.entry(i), dateWindowDays));
+        }
+        if (best != null && best.confidence() > MatchReRanker.MAX_BONUS) {
+            return Optional.of(best);
+        }
+
+        best = null;
+        for (int i = inWindow.nextSetBit(0); i >= 0; i = inWindow.nextSetBit(i + 1)) {
+            EventPoolIndex.Entry entry = pool.entry(i);
+            double confidence = sharingTokens.get(i)
+                    ? scoreCandidate(query, entry, dateWindowDays)
+                    : scoreDisjoint(query, entry, dateWindowDays);
+            best = better(best, entry, confidence);
+        }
+        return Optional.ofNullable(best);
+    }
+
+    /**
+     * Wzorzec bez przycinania: pełna ocena każdego meczu z okna dat (sprawdzanego co do sekundy, bez kubełków),
+     * w kolejności puli — tak liczyło przejście listy sprzed indeksu. Testy porównują z nim
+     * {@link #findBestMatch(Bet, EventPoolIndex, int)}.
+     */
+    Optional<MatchCandidate> findBestMatchByFullScan(Bet bet, EventPoolIndex pool, int dateWindowDays) {
+        if (pool == null || pool.isEmpty() || bet.getEventName() == null) {
+            return Optional.empty();
+        }
         Set<String> betTokens = tokenize(bet.getEventName());
         if (betTokens.isEmpty()) {
             return Optional.empty();
         }
+        BetQuery query = betQuery(bet, betTokens, pool.dictionary());
+        MatchCandidate best = null;
+        for (int i = 0; i < pool.size(); i++) {
+            EventPoolIndex.Entry entry = pool.entry(i);
+            if (withinDateWindow(bet.getPlacedAt(), entry.event().getStartTimestamp(), dateWindowDays)) {
+                best = better(best, entry, scoreCandidate(query, entry, dateWindowDays));
+            }
+        }
+        return Optional.ofNullable(best);
+    }
+
+    private static MatchCandidate better(MatchCandidate best, EventPoolIndex.Entry entry, double confidence) {
+        if (Double.isNaN(confidence) || (best != null && confidence <= best.confidence())) {
+            return best;
+        }
+        return new MatchCandidate(entry.event(), confidence);
+    }
 
-        boolean womensBet = isWomensBet(bet);
+    private BetQuery betQuery(Bet bet, Set<String> betTokens, TokenDictionary dictionary) {
         Optional<ResolutionNameTranslator.TwoSides> sidesOpt =
                 nameTranslator.parseTwoTeamSides(bet.getEventName());
-        boolean tennisBookmakerBet = sidesOpt
-                .map(sides -> isTennisBookmakerSide(sides.home()) || isTennisBookmakerSide(sides.away()))
-                .orElse(false);
+        SideQuery home = sidesOpt.map(sides -> sideQuery(sides.home(), dictionary)).orElse(null);
+        SideQuery away = sidesOpt.map(sides -> sideQuery(sides.away(), dictionary)).orElse(null);
+        boolean tennisBookmakerBet = home != null && (home.tennisBookmaker() || away.tennisBookmaker());
+
         Set<String> scoredBetTokens = withoutCategoryTokens(betTokens);
         if (tennisBookmakerBet) {
             scoredBetTokens = pruneConcatenatedTokens(scoredBetTokens);
@@ -60,45 +167,92 @@ public class BetMatcher {
                 .map(q -> withoutCategoryTokens(baseTokenize(q)))
                 .orElse(Set.of());
 
-        MatchCandidate best = null;
-        for (SofaScoreEventDto event : events) {
-            if (!withinDateWindow(bet.getPlacedAt(), event.getStartTimestamp(), dateWindowDays)) {
-                continue;
-            }
-            boolean womensEvent = isWomensEvent(event);
-            boolean mensEvent = isMensEvent(event);
-            if (womensBet && mensEvent) {
-                continue;
-            }
-            if (!womensBet && womensEvent) {
-                continue;
-            }
-            Set<String> eventTokens = new HashSet<>();
-            sidesOpt.ifPresentOrElse(sides -> {
-                eventTokens.addAll(matchingEventTeamTokens(sides.home(), event.getHomeTeam()));
-                eventTokens.addAll(matchingEventTeamTokens(sides.away(), event.getAwayTeam()));
-            }, () -> {
-                eventTokens.addAll(tokenize(event.getHomeTeam()));
-                eventTokens.addAll(tokenize(event.getAwayTeam()));
-            });
-            if (eventTokens.isEmpty()) {
-                continue;
-            }
-            Set<String> scoredEventTokens = withoutCategoryTokens(eventTokens);
-            double confidence = jaccard(scoredBetTokens, scoredEventTokens);
-            confidence = Math.max(confidence, queryTokenConfidence(queryTokens, eventTokens));
-            if (sidesOpt.isPresent()) {
-                ResolutionNameTranslator.TwoSides sides = sidesOpt.get();
-                double homeScore = sideScore(sides.home(), event.getHomeTeam(), eventTokens);
-                double awayScore = sideScore(sides.away(), event.getAwayTeam(), eventTokens);
-                confidence = Math.max(confidence, (homeScore + awayScore) / 2.0);
-            }
-            confidence = reRanker.adjust(confidence, bet, event, dateWindowDays);
-            if (best == null || confidence > best.confidence()) {
-                best = new MatchCandidate(event, confidence);
+        // Każdy zbiór, z którym liczymy Jaccarda; tokeny kategorii i tak nie trafiają do indeksu
+        Set<String> probeTokens = new HashSet<>(betTokens);
+        probeTokens.addAll(queryTokens);
+        for (SideQuery side : home == null ? List.<SideQuery>of() : List.of(home, away)) {
+            probeTokens.addAll(side.tokens());
+            probeTokens.addAll(side.matchingTokens());
+            probeTokens.addAll(side.translatedTokens());
+        }
+        return new BetQuery(
+                bet,
+                isWomensBet(bet),
+                dictionary.lookup(scoredBetTokens),
+                dictionary.lookup(queryTokens),
+                home,
+                away,
+                probeTokens);
+    }
+
+    private SideQuery sideQuery(String betSide, TokenDictionary dictionary) {
+        Set<String> tokens = tokenize(betSide);
+        Set<String> matchingTokens = withoutCategoryTokens(nameTranslator.matchingTokens(betSide, tokens));
+        Set<String> translatedTokens = withoutCategoryTokens(tokenize(nameTranslator.translateSegment(betSide)));
+        return new SideQuery(
+                isTennisBookmakerSide(betSide),
+                tokens,
+                matchingTokens,
+                translatedTokens,
+                dictionary.lookup(withoutCategoryTokens(tokens)),
+                dictionary.lookup(matchingTokens),
+                dictionary.lookup(translatedTokens));
+    }
+
+    private BitSet positionsInDateWindow(EventPoolIndex pool, LocalDateTime placedAt, int dateWindowDays) {
+        if (placedAt == null) {
+            return pool.allPositions();
+        }
+        LocalDateTime placedAtUtc = toUtc(placedAt);
+        BitSet positions = pool.startingBetween(
+                placedAtUtc.minusDays(1).toLocalDate(), placedAtUtc.plusDays(dateWindowDays).toLocalDate());
+        // Kubełki są dobowe — brzegi okna sprawdzamy co do sekundy
+        for (int i = positions.nextSetBit(0); i >= 0; i = positions.nextSetBit(i + 1)) {
+            if (!withinDateWindow(placedAt, pool.entry(i).event().getStartTimestamp(), dateWindowDays)) {
+                positions.clear(i);
             }
         }
-        return Optional.ofNullable(best);
+        return positions;
+    }
+
+    private boolean genderMismatch(BetQuery query, EventPoolIndex.Entry entry) {
+        return query.womensBet() ? entry.mens() : entry.womens();
+    }
+
+    /**
+     * Pełna ocena meczu; NaN, gdy mecz odpada (płeć, brak tokenów drużyn). Zbiory to posortowane numery
+     * ze słownika puli — Jaccard bez alokacji. Tokeny meczu to X ∪ Y, gdzie X to tokeny gospodarzy albo
+     * samo ich nazwisko (tenis, zapis bukmachera), a X zawsze zawiera się w tokenach gospodarzy — stąd
+     * tokeny strony gospodarzy z dołożonymi tokenami meczu to po prostu gospodarze ∪ Y (i symetrycznie).
+     */
+    private double scoreCandidate(BetQuery query, EventPoolIndex.Entry entry, int dateWindowDays) {
+        if (genderMismatch(query, entry)) {
+            return Double.NaN;
+        }
+        boolean homeBySurname = query.home() != null && matchesLeadingSurname(query.home(), entry.homeLeadingIds());
+        boolean awayBySurname = query.away() != null && matchesLeadingSurname(query.away(), entry.awayLeadingIds());
+        if (!homeBySurname && !awayBySurname && entry.tokens().isEmpty()) {
+            return Double.NaN;
+        }
+        int[] home = homeBySurname ? entry.homeLeadingIds() : entry.homeIds();
+        int[] away = awayBySurname ? entry.awayLeadingIds() : entry.awayIds();
+
+        double confidence = TokenDictionary.jaccard(query.scoredBetTokens(), home, away);
+        confidence = Math.max(confidence, queryTokenConfidence(query.queryTokens(), home, away));
+        if (query.home() != null) {
+            double homeScore = sideScore(query.home(), entry.homeIds(), away);
+            double awayScore = sideScore(query.away(), entry.awayIds(), home);
+            confidence = Math.max(confidence, (homeScore + awayScore) / 2.0);
+        }
+        return reRanker.adjust(confidence, query.bet(), entry.event(), dateWindowDays);
+    }
+
+    /** Mecz bez wspólnego tokenu: Jaccardy są zerowe, zostaje sam bonus re-rankera. */
+    private double scoreDisjoint(BetQuery query, EventPoolIndex.Entry entry, int dateWindowDays) {
+        if (genderMismatch(query, entry) || entry.tokens().isEmpty()) {
+            return Double.NaN;
+        }
+        return reRanker.adjust(0.0, query.bet(), entry.event(), dateWindowDays);
     }
 
     boolean isWomensBet(Bet bet) {
@@ -146,7 +300,7 @@ public class BetMatcher {
 
     /** „women” / „men” jako osobne słowa — nie traktujemy „Germany” jako „men”. */
     private String genderMarker(String text) {
-        return " " + text.replaceAll("[^a-z]", " ") + " ";
+        return " " + NON_LETTER.matcher(text).replaceAll(" ") + " ";
     }
 
     private Set<String> withoutCategoryTokens(Set<String> tokens) {
@@ -159,24 +313,17 @@ public class BetMatcher {
      * Osobny score z angielskiej frazy Apify (np. „Croatia Slovenia”) — bez polskich tokenów
      * „Chorwacja/Słowenia”, które zaniżają Jaccarda do ~0.5 mimo poprawnego meczu.
      */
-    private double queryTokenConfidence(Set<String> queryTokens, Set<String> eventTokens) {
-        if (queryTokens.isEmpty()) {
+    private double queryTokenConfidence(TokenDictionary.TokenIds queryTokens, int[] home, int[] away) {
+        if (queryTokens.size() == 0) {
             return 0.0;
         }
-        return jaccard(queryTokens, withoutCategoryTokens(eventTokens));
+        return TokenDictionary.jaccard(queryTokens, home, away);
     }
 
-    private double sideScore(String betSide, String eventSide, Set<String> eventTokens) {
-        Set<String> betSideTokens = nameTranslator.matchingTokens(betSide, tokenize(betSide));
-        Set<String> eventSideTokens = tokenize(eventSide);
-        eventSideTokens.addAll(eventTokens);
-        double j = jaccard(withoutCategoryTokens(betSideTokens), withoutCategoryTokens(eventSideTokens));
-        return Math.max(j, querySideConfidence(betSide, eventSideTokens));
-    }
-
-    private double querySideConfidence(String betSide, Set<String> eventTokens) {
-        String translated = nameTranslator.translateSegment(betSide);
-        return jaccard(withoutCategoryTokens(tokenize(translated)), withoutCategoryTokens(eventTokens));
+    private double sideScore(SideQuery betSide, int[] eventSideTeam, int[] otherSideTokens) {
+        double j = TokenDictionary.jaccard(betSide.matchingIds(), eventSideTeam, otherSideTokens);
+        // Osobny score z przetłumaczonej strony zakładu (np. „Chorwacja” → „Croatia”)
+        return Math.max(j, TokenDictionary.jaccard(betSide.translatedIds(), eventSideTeam, otherSideTokens));
     }
 
     boolean withinDateWindow(LocalDateTime placedAt, Long startTimestamp, int dateWindowDays) {
@@ -184,34 +331,30 @@ public class BetMatcher {
             return true;
         }
         LocalDateTime eventTime = LocalDateTime.ofInstant(Instant.ofEpochSecond(startTimestamp), ZoneOffset.UTC);
-        LocalDateTime placedAtUtc = placedAt.atZone(ZoneId.systemDefault())
-                .withZoneSameInstant(ZoneOffset.UTC)
-                .toLocalDateTime();
+        LocalDateTime placedAtUtc = toUtc(placedAt);
         return !eventTime.isBefore(placedAtUtc.minusDays(1))
                 && !eventTime.isAfter(placedAtUtc.plusDays(dateWindowDays));
     }
 
+    private static LocalDateTime toUtc(LocalDateTime placedAt) {
+        return placedAt.atZone(ZoneId.systemDefault())
+                .withZoneSameInstant(ZoneOffset.UTC)
+                .toLocalDateTime();
+    }
+
     private boolean isTennisBookmakerSide(String betSide) {
         return betSide != null && TENNIS_BOOKMAKER_SIDE.matcher(betSide.trim()).matches();
     }
 
-    private Set<String> matchingEventTeamTokens(String betSide, String eventTeam) {
-        if (!isTennisBookmakerSide(betSide) || eventTeam == null || eventTeam.isBlank()) {
-            return tokenize(eventTeam);
-        }
-        Set<String> betSideTokens = tokenize(betSide);
-        String[] eventWords = eventTeam.trim().split("\\s+");
-        if (eventWords.length > 0) {
-            Set<String> leadingSurname = baseTokenize(eventWords[0]);
-            if (!leadingSurname.isEmpty()) {
-                for (String token : withoutCategoryTokens(betSideTokens)) {
-                    if (leadingSurname.contains(token)) {
-                        return leadingSurname;
-                    }
-                }
-            }
+    private boolean matchesLeadingSurname(SideQuery betSide, int[] leadingSurname) {
+        return betSide.tennisBookmaker() && betSide.tokenIds().intersects(leadingSurname);
+    }
+
+    private Set<String> leadingWordTokens(String eventTeam) {
+        if (eventTeam == null || eventTeam.isBlank()) {
+            return Set.of();
         }
-        return tokenize(eventTeam);
+        return Set.copyOf(baseTokenize(eventTeam.trim().split("\\s+")[0]));
     }
 
     private Set<String> pruneConcatenatedTokens(Set<String> tokens) {
@@ -226,39 +369,67 @@ public class BetMatcher {
         return pruned;
     }
 
+    /**
+     * Tokeny nazwy (z aliasami tłumacza) — niezmienny zbiór z pamięci podręcznej, bo te same nazwy drużyn
+     * wracają przy każdym zakładzie i w każdym cyklu. Limit wpisów pilnuje pamięci; po jego przekroczeniu
+     * zaczynamy od zera zamiast liczyć LRU na gorącej ścieżce.
+     */
     Set<String> tokenize(String text) {
         if (text == null) {
             return Set.of();
         }
-        return nameTranslator.matchingTokens(text, baseTokenize(text));
+        Set<String> tokens = tokenMemo.get(text);
+        if (tokens == null) {
+            tokens = Set.copyOf(nameTranslator.matchingTokens(text, baseTokenize(text)));
+            if (tokenMemo.size() >= MAX_MEMOIZED_NAMES) {
+                tokenMemo.clear();
+            }
+            tokenMemo.put(text, tokens);
+        }
+        return tokens;
     }
 
     private Set<String> baseTokenize(String text) {
         if (text == null) {
             return Set.of();
         }
-        String normalized = Normalizer.normalize(text, Normalizer.Form.NFD)
-                .replaceAll("\\p{M}", "")
-                .toLowerCase(Locale.ROOT)
-                .replace("ł", "l") // NFD nie rozkłada ł
-                .replaceAll("[^a-z0-9 ]", " ");
+        String normalized = NameFolding.foldToWords(text);
         Set<String> tokens = new HashSet<>();
-        for (String token : normalized.split("\\s+")) {
-            if (token.length() >= 3 && !STOPWORDS.contains(token)) {
-                tokens.add(token);
+        int start = 0;
+        while (start < normalized.length()) {
+            int end = normalized.indexOf(' ', start);
+            if (end < 0) {
+                end = normalized.length();
+            }
+            if (end - start >= 3) {
+                String token = normalized.substring(start, end);
+                if (!STOPWORDS.contains(token)) {
+                    tokens.add(token);
+                }
             }
+            start = end + 1;
         }
         return tokens;
     }
 
-    double jaccard(Set<String> a, Set<String> b) {
-        Set<String> intersection = new HashSet<>(a);
-        intersection.retainAll(b);
-        Set<String> union = new HashSet<>(a);
-        union.addAll(b);
-        if (union.isEmpty()) {
-            return 0.0;
-        }
-        return (double) intersection.size() / union.size();
+    private record BetQuery(
+            Bet bet,
+            boolean womensBet,
+            TokenDictionary.TokenIds scoredBetTokens,
+            TokenDictionary.TokenIds queryTokens,
+            SideQuery home,
+            SideQuery away,
+            Set<String> probeTokens) {
+    }
+
+    /** Strona zakładu stokenizowana raz na zakład, a nie przy każdym meczu z puli. */
+    private record SideQuery(
+            boolean tennisBookmaker,
+            Set<String> tokens,
+            Set<String> matchingTokens,
+            Set<String> translatedTokens,
+            TokenDictionary.TokenIds tokenIds,
+            TokenDictionary.TokenIds matchingIds,
+            TokenDictionary.TokenIds translatedIds) {
     }
 }
@@ -4,6 +4,7 @@ import com.grzechuhehe.SportsBettingManagerApp.model.Bet;
 import com.grzechuhehe.SportsBettingManagerApp.model.BetResolutionAttempt;
 import com.grzechuhehe.SportsBettingManagerApp.repository.BetRepository;
 import com.grzechuhehe.SportsBettingManagerApp.repository.BetResolutionAttemptRepository;
+import com.grzechuhehe.SportsBettingManagerApp.service.resolution.discovery.DiscoveryProgress;
 import com.grzechuhehe.SportsBettingManagerApp.service.resolution.discovery.DiscoveryResult;
 import com.grzechuhehe.SportsBettingManagerApp.service.resolution.discovery.MatchDiscoveryService;
 import com.grzechuhehe.SportsBettingManagerApp.service.resolution.discovery.ResolutionQueuePrioritizer;
@@ -17,11 +18,25 @@ import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Service
@@ -43,6 +58,8 @@ public class BetResolutionService {
 
     private static final double APIFY_COST_PER_CALL_USD = 0.08;
     private static final double APIFY_FAILURE_RATE_THRESHOLD = 0.30;
+    /** Znacznik końca discovery w kolejce etapów (także gdy discovery rzuci wyjątek). */
+    private static final DiscoveryProgress END_OF_DISCOVERY = new DiscoveryProgress(-1, List.of(), Set.of(), Set.of());
 
     @Value("${bet.resolution.match-confidence-threshold:0.85}")
     private double confidenceThreshold;
@@ -59,6 +76,14 @@ public class BetResolutionService {
     @Value("${bet.resolution.max-enrichment-calls-per-cycle:3}")
     private int maxEnrichmentCallsPerCycle;
 
+    /** Max roots processed concurrently; each holds a pooled DB connection for its whole transaction. */
+    @Value("${bet.resolution.process-parallelism:4}")
+    private int processParallelism;
+
+    /** Rozliczanie korzeni z gotowymi danymi (cache, wcześniejsze batche), gdy kolejne batche Apify jeszcze trwają. */
+    @Value("${bet.resolution.pipeline-discovery:true}")
+    private boolean pipelineDiscovery;
+
     public int getManualCooldownMinutes() {
         return manualCooldownMinutes;
     }
@@ -139,15 +164,26 @@ public class BetResolutionService {
         List<Bet> eligibleLeaves = collectEligibleLeaves(rootsToProcess, now, force);
         Set<Long> eligibleIds = eligibleLeaves.stream().map(Bet::getId).collect(Collectors.toSet());
 
-        long apifyStart = System.currentTimeMillis();
-        DiscoveryResult fetch = discoveryService.discover(eligibleLeaves, now);
-        long apifyMs = System.currentTimeMillis() - apifyStart;
+        CycleEnrichmentBudget enrichmentBudget = new CycleEnrichmentBudget(maxEnrichmentCallsPerCycle);
+        CycleContext cycle = new CycleContext(now, eligibleIds, config.dateWindowDays(), enrichmentBudget, cycleId);
+
+        // Korzenie rozliczone w trakcie discovery wypadają z tej listy; reszta idzie z pełną pulą
+        List<Bet> remainingRoots = new ArrayList<>(rootsToProcess);
+        AtomicLong apifyMs = new AtomicLong();
+        DiscoveryResult fetch;
+        if (pipelineDiscovery) {
+            fetch = discoverPipelined(eligibleLeaves, remainingRoots, cycle, apifyMs);
+        } else {
+            long apifyStart = System.currentTimeMillis();
+            fetch = discoveryService.discover(eligibleLeaves, now);
+            apifyMs.set(System.currentTimeMillis() - apifyStart);
+        }
         log.info("Apify HTTP: {} ms, {} wywołań actora (~${} przy ${}/wywołanie)",
-                apifyMs, fetch.apifyCalls(), String.format("%.2f", fetch.apifyCalls() * APIFY_COST_PER_CALL_USD),
+                apifyMs.get(), fetch.apifyCalls(), String.format("%.2f", fetch.apifyCalls() * APIFY_COST_PER_CALL_USD),
                 APIFY_COST_PER_CALL_USD);
 
         Set<Long> fetchedBetIds = fetch.fetchedBetIds();
-        CycleEnrichmentBudget enrichmentBudget = new CycleEnrichmentBudget(maxEnrichmentCallsPerCycle);
+        EventPoolIndex eventPool = resolutionTx.indexEventPool(fetch.events());
 
         if (!eligibleLeaves.isEmpty()) {
             log.info(
@@ -166,23 +202,7 @@ public class BetResolutionService {
                 eligibleLeaves.size()
         );
 
-        for (Bet root : rootsToProcess) {
-            try {
-                resolutionTx.processRoot(
-                        root.getId(),
-                        fetch.events(),
-                        now,
-                        eligibleIds,
-                        fetchedBetIds,
-                        confidenceThreshold,
-                        config.dateWindowDays(),
-                        enrichmentBudget,
-                        cycleId
-                );
-            } catch (Exception e) {
-                log.error("Błąd auto-rozliczania zakładu {}: {}", root.getId(), e.getMessage(), e);
-            }
-        }
+        settleRoots(remainingRoots, eventPool, fetchedBetIds, cycle);
 
         log.info(
                 "Apify cycle summary: cycleId={}, eligible={}, cacheHits={}, apifyCalls={}, apifyFailures={}, events={}, fetchedBetIds={}, costUsd={}",
@@ -220,6 +240,160 @@ public class BetResolutionService {
         });
     }
 
+    /**
+     * Discovery na osobnym wątku wirtualnym, rozliczanie na bieżącym: po każdym etapie (cache, kolejny
+     * batch Apify) rozliczamy korzenie, których wszystkie kwalifikujące się nogi mają już ostateczny wynik
+     * discovery — z pulą zebraną do tego etapu. Dla takich nóg {@code fetchedBetIds} etapu jest już końcowy.
+     * Korzenie czekające na późniejsze batche zostają w {@code remainingRoots} i idą po discovery z pełną pulą.
+     */
+    private DiscoveryResult discoverPipelined(
+            List<Bet> eligibleLeaves, List<Bet> remainingRoots, CycleContext cycle, AtomicLong apifyMs) {
+        Map<Long, Set<Long>> leavesByRoot = eligibleLeavesByRoot(remainingRoots, cycle.eligibleIds());
+        BlockingQueue<DiscoveryProgress> stages = new LinkedBlockingQueue<>();
+        CompletableFuture<DiscoveryResult> discovery = new CompletableFuture<>();
+        Thread.startVirtualThread(() -> {
+            long apifyStart = System.currentTimeMillis();
+            try {
+                discovery.complete(discoveryService.discover(eligibleLeaves, cycle.now(), stages::add));
+            } catch (Throwable e) {
+                discovery.completeExceptionally(e);
+            } finally {
+                apifyMs.set(System.currentTimeMillis() - apifyStart);
+                stages.add(END_OF_DISCOVERY);
+            }
+        });
+
+        boolean interrupted = false;
+        while (true) {
+            DiscoveryProgress stage;
+            try {
+                stage = stages.take();
+            } catch (InterruptedException e) {
+                // Discovery i tak zakończy się znacznikiem — czekamy na niego, przerwanie oddajemy na końcu
+                interrupted = true;
+                continue;
+            }
+            if (stage == END_OF_DISCOVERY) {
+                break;
+            }
+            List<Bet> ready = takeReadyRoots(remainingRoots, leavesByRoot, stage.completedBetIds());
+            if (ready.isEmpty()) {
+                continue;
+            }
+            log.info("Pipeline discovery: etap {} — {} meczów w puli, rozliczam {} korzeni, czeka {}",
+                    stage.batch(), stage.events().size(), ready.size(), remainingRoots.size());
+            settleRoots(ready, resolutionTx.indexEventPool(stage.events()), stage.fetchedBetIds(), cycle);
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            return discovery.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /** Kwalifikujące się nogi każdego korzenia (singiel: on sam); korzeń bez takich nóg jest gotowy od razu. */
+    private static Map<Long, Set<Long>> eligibleLeavesByRoot(List<Bet> roots, Set<Long> eligibleIds) {
+        Map<Long, Set<Long>> leavesByRoot = new HashMap<>();
+        for (Bet root : roots) {
+            Set<Long> leaves = new HashSet<>();
+            if (root.getBetType() == BetType.PARLAY) {
+                if (root.getChildBets() != null) {
+                    root.getChildBets().stream().map(Bet::getId).filter(eligibleIds::contains).forEach(leaves::add);
+                }
+            } else if (eligibleIds.contains(root.getId())) {
+                leaves.add(root.getId());
+            }
+            leavesByRoot.put(root.getId(), leaves);
+        }
+        return leavesByRoot;
+    }
+
+    private static List<Bet> takeReadyRoots(
+            List<Bet> remainingRoots, Map<Long, Set<Long>> leavesByRoot, Set<Long> completedBetIds) {
+        List<Bet> ready = new ArrayList<>();
+        for (Iterator<Bet> it = remainingRoots.iterator(); it.hasNext(); ) {
+            Bet root = it.next();
+            if (completedBetIds.containsAll(leavesByRoot.get(root.getId()))) {
+                ready.add(root);
+                it.remove();
+            }
+        }
+        return ready;
+    }
+
+    private void settleRoots(
+            List<Bet> roots, EventPoolIndex eventPool, Set<Long> fetchedBetIds, CycleContext cycle) {
+        processRoots(roots, root -> {
+            try {
+                resolutionTx.processRoot(
+                        root.getId(),
+                        eventPool,
+                        cycle.now(),
+                        cycle.eligibleIds(),
+                        fetchedBetIds,
+                        confidenceThreshold,
+                        cycle.dateWindowDays(),
+                        cycle.enrichmentBudget(),
+                        cycle.cycleId()
+                );
+            } catch (Exception e) {
+                log.error("Błąd auto-rozliczania zakładu {}: {}", root.getId(), e.getMessage(), e);
+            }
+        });
+    }
+
+    /** Stałe jednego cyklu, wspólne dla wszystkich etapów rozliczania. */
+    private record CycleContext(
+            LocalDateTime now,
+            Set<Long> eligibleIds,
+            int dateWindowDays,
+            CycleEnrichmentBudget enrichmentBudget,
+            String cycleId) {
+    }
+
+    /**
+     * Fans roots out over virtual threads, at most {@code processParallelism} at a time so concurrent
+     * transactions never drain the connection pool. Roots of one user stay sequential on a single lane:
+     * their settlements update the same user_stats / user_daily_pnl rows. The event pool index and id sets are
+     * read-only here and {@link CycleEnrichmentBudget} is atomic, so lanes share them as-is.
+     */
+    private void processRoots(List<Bet> roots, Consumer<Bet> processor) {
+        Map<Long, List<Bet>> lanes = new LinkedHashMap<>();
+        for (Bet root : roots) {
+            Long userId = root.getUser() != null ? root.getUser().getId() : null;
+            lanes.computeIfAbsent(userId, id -> new ArrayList<>()).add(root);
+        }
+        int parallelism = Math.min(processParallelism, lanes.size());
+        if (parallelism <= 1) {
+            roots.forEach(processor);
+            return;
+        }
+
+        long start = System.currentTimeMillis();
+        Semaphore permits = new Semaphore(parallelism);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (List<Bet> lane : lanes.values()) {
+                // Backpressure in the submitting thread: no pile of parked threads waiting for a connection
+                permits.acquireUninterruptibly();
+                executor.execute(() -> {
+                    try {
+                        lane.forEach(processor);
+                    } finally {
+                        permits.release();
+                    }
+                });
+            }
+        }
+        log.info("Auto-rozliczanie: {} korzeni w {} kolejkach użytkowników (równolegle {}) w {} ms",
+                roots.size(), lanes.size(), parallelism, System.currentTimeMillis() - start);
+    }
+
     private void storeCycleMetrics(
             String cycleId,
             LocalDateTime now,
@@ -262,13 +436,15 @@ public class BetResolutionService {
                 estimatedCostUsd,
                 successLast24h,
                 pendingLeaves,
-                healthAlertFlag);
+                healthAlertFlag,
+                fetch.searchBatchSize(),
+                fetch.searchBatches());
         metricsHolder.setLast(metrics);
 
         log.info(
                 "Resolution cycle metrics: cycleId={}, eligible={}, discoveryCalls={}, enrichmentCalls={}, "
                         + "settled={}, belowThreshold={}, noMatch={}, estimatedCostUsd={}, "
-                        + "successLast24h={}, pendingLeaves={}, healthAlert={}",
+                        + "successLast24h={}, pendingLeaves={}, healthAlert={}, searchBatchSize={}, searchBatches={}",
                 cycleId,
                 eligible,
                 discoveryCalls,
@@ -279,7 +455,9 @@ public class BetResolutionService {
                 String.format(Locale.ROOT, "%.2f", estimatedCostUsd),
                 successLast24h,
                 pendingLeaves,
-                healthAlertFlag);
+                healthAlertFlag,
+                fetch.searchBatchSize(),
+                fetch.searchBatches().size());
     }
 
     private List<Bet> collectEligibleLeaves(List<Bet> roots, LocalDateTime now, boolean force) {
@@ -10,6 +10,9 @@ import com.grzechuhehe.SportsBettingManagerApp.repository.BetRepository;
 import com.grzechuhehe.SportsBettingManagerApp.repository.BetResolutionAttemptRepository;
 import com.grzechuhehe.SportsBettingManagerApp.service.resolution.importing.MarketTypeInferrer;
 import com.grzechuhehe.SportsBettingManagerApp.service.resolution.matching.SportConfidenceThresholds;
+import com.grzechuhehe.SportsBettingManagerApp.service.stats.BetStatsContribution;
+import com.grzechuhehe.SportsBettingManagerApp.service.stats.UserAnalyticsCache;
+import com.grzechuhehe.SportsBettingManagerApp.service.stats.UserStatsService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.PageRequest;
@@ -18,6 +21,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
@@ -37,6 +41,8 @@ class BetResolutionTransactionService {
     private final SportConfidenceThresholds sportConfidenceThresholds;
     private final EventEnrichmentService enrichmentService;
     private final MarketTypeInferrer marketTypeInferrer;
+    private final UserStatsService userStatsService;
+    private final UserAnalyticsCache analyticsCache;
 
     @Transactional(readOnly = true)
     public List<Bet> loadPendingRoots(int limit) {
@@ -62,6 +68,11 @@ class BetResolutionTransactionService {
         return betRepository.findRootsWithLegsByIds(rootIds);
     }
 
+    /** Indeks puli meczów budowany raz na cykl, po discovery — współdzielony przez wszystkie korzenie. */
+    public EventPoolIndex indexEventPool(List<SofaScoreEventDto> events) {
+        return betMatcher.index(events);
+    }
+
     @Transactional
     public void processRoot(
             Long rootId,
@@ -73,10 +84,26 @@ class BetResolutionTransactionService {
             int dateWindowDays,
             CycleEnrichmentBudget enrichmentBudget,
             String cycleId) {
+        processRoot(rootId, betMatcher.index(eventPool), now, eligibleIds, fetchedBetIds,
+                confidenceThreshold, dateWindowDays, enrichmentBudget, cycleId);
+    }
+
+    @Transactional
+    public void processRoot(
+            Long rootId,
+            EventPoolIndex eventPool,
+            LocalDateTime now,
+            Set<Long> eligibleIds,
+            Set<Long> fetchedBetIds,
+            double confidenceThreshold,
+            int dateWindowDays,
+            CycleEnrichmentBudget enrichmentBudget,
+            String cycleId) {
         Bet root = betRepository.findByIdWithChildBets(rootId).orElse(null);
         if (root == null || root.getStatus() != BetStatus.PENDING) {
             return;
         }
+        List<BetStatus> statusesBefore = statuses(root);
         if (root.getBetType() == BetType.PARLAY) {
             processParlay(root, eventPool, now, eligibleIds, fetchedBetIds, confidenceThreshold, dateWindowDays, enrichmentBudget, cycleId);
         } else if (eligibleIds.contains(root.getId())) {
@@ -85,11 +112,24 @@ class BetResolutionTransactionService {
             }
             betRepository.save(root);
         }
+        // Rozliczenie (także pojedynczej nogi) zmienia statystyki; sama próba dopasowania — nie
+        if (root.getUser() != null && !statusesBefore.equals(statuses(root))) {
+            analyticsCache.invalidate(root.getUser().getId());
+        }
+    }
+
+    private static List<BetStatus> statuses(Bet root) {
+        List<BetStatus> statuses = new ArrayList<>();
+        statuses.add(root.getStatus());
+        if (root.getChildBets() != null) {
+            root.getChildBets().forEach(leg -> statuses.add(leg.getStatus()));
+        }
+        return statuses;
     }
 
     private void processParlay(
             Bet parlay,
-            List<SofaScoreEventDto> eventPool,
+            EventPoolIndex eventPool,
             LocalDateTime now,
             Set<Long> eligibleIds,
             Set<Long> fetchedBetIds,
@@ -258,16 +298,18 @@ class BetResolutionTransactionService {
                 }
             }
         }
+        BetStatsContribution before = userStatsService.snapshot(parlay);
         parlay.setStatus(BetStatus.WON);
         parlay.setSettledAt(LocalDateTime.now());
         parlay.setResolutionSource(RESOLUTION_SOURCE);
         BigDecimal payout = parlay.getStake().multiply(effectiveOdds);
         parlay.setFinalProfit(payout.subtract(parlay.getStake()));
+        userStatsService.record(before, parlay);
     }
 
     boolean resolveSingle(
             Bet bet,
-            List<SofaScoreEventDto> eventPool,
+            EventPoolIndex eventPool,
             LocalDateTime now,
             Set<Long> fetchedBetIds,
             double confidenceThreshold,
@@ -346,10 +388,10 @@ class BetResolutionTransactionService {
                 String.format("%.2f", match.get().confidence())
         );
 
-        int enrichmentUsedBefore = enrichmentBudget.usedCount();
-        SofaScoreEventDto eventForEval = enrichmentService.enrichIfNeeded(
+        EventEnrichmentService.EnrichmentResult enrichment = enrichmentService.enrich(
                 bet, match.get().event(), match.get().confidence(), enrichmentBudget);
-        boolean enrichmentAttempted = enrichmentBudget.usedCount() > enrichmentUsedBefore;
+        SofaScoreEventDto eventForEval = enrichment.event();
+        boolean enrichmentAttempted = enrichment.attempted();
         Optional<BetStatus> outcome = betOutcomeEvaluator.evaluate(bet, eventForEval);
         if (outcome.isEmpty()) {
             bet.setLastResolutionAttemptAt(now);
@@ -399,6 +441,8 @@ class BetResolutionTransactionService {
     }
 
     private void applyOutcome(Bet bet, BetStatus status, Double confidence, String eventUrl) {
+        // Nogi kuponu nie wchodzą do agregatu — snapshot zwraca dla nich null, a record() nic nie robi.
+        BetStatsContribution before = userStatsService.snapshot(bet);
         bet.setStatus(status);
         bet.setSettledAt(LocalDateTime.now());
         bet.setResolutionSource(RESOLUTION_SOURCE);
@@ -415,5 +459,6 @@ class BetResolutionTransactionService {
         } else if (status == BetStatus.VOID) {
             bet.setFinalProfit(BigDecimal.ZERO);
         }
+        userStatsService.record(before, bet);
     }
 }
@@ -8,7 +8,11 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDateTime;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Pattern;
 
 @Service
@@ -21,6 +25,11 @@ public class EventEnrichmentService {
             Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE);
 
     private final ApifySofaScoreClient apifyClient;
+    private final SofaScoreEventStore eventStore;
+
+    /** Pobrania szczegółów w toku po kluczu meczu — równoległe nogi tego samego meczu czekają na jedno wywołanie. */
+    private final ConcurrentHashMap<String, CompletableFuture<Optional<SofaScoreEventDto>>> inFlight =
+            new ConcurrentHashMap<>();
 
     @Value("${bet.resolution.enrichment-enabled:false}")
     private boolean enrichmentEnabled;
@@ -28,36 +37,104 @@ public class EventEnrichmentService {
     @Value("${bet.resolution.enrichment-min-confidence:0.80}")
     private double enrichmentMinConfidence;
 
+    /** Statystyki z sofascore_event zamiast ponownego fetchEventDetails; trafienie nie zużywa limitu cyklu. */
+    @Value("${bet.resolution.enrichment-cache-enabled:false}")
+    private boolean enrichmentCacheEnabled;
+
     public SofaScoreEventDto enrichIfNeeded(
             Bet bet,
             SofaScoreEventDto event,
             double confidence,
             CycleEnrichmentBudget budget) {
+        return enrich(bet, event, confidence, budget).event();
+    }
+
+    /**
+     * Jak {@link #enrichIfNeeded}, ale mówi też, czy to wywołanie zużyło limit cyklu. Przy równoległym
+     * rozliczaniu licznik budżetu zmieniają inne wątki, więc porównanie usedCount() przed/po kłamie.
+     */
+    public EnrichmentResult enrich(
+            Bet bet,
+            SofaScoreEventDto event,
+            double confidence,
+            CycleEnrichmentBudget budget) {
         if (!enrichmentEnabled) {
-            return event;
+            return EnrichmentResult.skipped(event);
         }
         if (confidence < enrichmentMinConfidence) {
-            return event;
+            return EnrichmentResult.skipped(event);
         }
         if (event == null || event.getUrl() == null || event.getUrl().isBlank()) {
-            return event;
+            return EnrichmentResult.skipped(event);
         }
         if (!needsEnrichment(bet)) {
-            return event;
+            return EnrichmentResult.skipped(event);
+        }
+        if (!enrichmentCacheEnabled) {
+            return fetch(bet, event, budget);
+        }
+
+        String eventKey = SofaScoreEventStore.eventKey(event);
+        Optional<Map<String, Object>> cached = findCachedStatistics(eventKey);
+        if (cached.isPresent()) {
+            log.debug("Zakład {}: statystyki meczu z cache wzbogacenia ({})", bet.getId(), event.getUrl());
+            return EnrichmentResult.skipped(withDetails(event, cached.get(), null));
+        }
+
+        CompletableFuture<Optional<SofaScoreEventDto>> mine = new CompletableFuture<>();
+        CompletableFuture<Optional<SofaScoreEventDto>> running = inFlight.putIfAbsent(eventKey, mine);
+        if (running != null) {
+            // Inna noga tego meczu właśnie pobiera szczegóły — bierzemy jej wynik bez drugiego wywołania
+            Optional<SofaScoreEventDto> shared = running.join();
+            return EnrichmentResult.skipped(shared.map(details -> merge(event, details)).orElse(event));
+        }
+        Optional<SofaScoreEventDto> enriched = Optional.empty();
+        try {
+            EnrichmentResult result = fetch(bet, event, budget);
+            // Kopia powstaje tylko, gdy Apify zwrócił szczegóły w tym wywołaniu — tylko takie zapisujemy
+            if (result.event() != event && result.event().getStatistics() != null) {
+                enriched = Optional.of(result.event());
+                saveCachedStatistics(eventKey, result.event());
+            }
+            return result;
+        } finally {
+            inFlight.remove(eventKey, mine);
+            mine.complete(enriched);
         }
+    }
+
+    private EnrichmentResult fetch(Bet bet, SofaScoreEventDto event, CycleEnrichmentBudget budget) {
         if (budget == null || !budget.tryConsume()) {
             log.info("Zakład {}: limit wzbogacenia statystyk na cykl wyczerpany", bet.getId());
-            return event;
+            return EnrichmentResult.skipped(event);
         }
 
         Optional<SofaScoreEventDto> enriched = apifyClient.fetchEventDetails(event.getUrl());
         if (enriched.isEmpty()) {
             log.warn("Zakład {}: Apify nie zwrócił statystyk dla {}", bet.getId(), event.getUrl());
-            return event;
+            return new EnrichmentResult(event, true);
         }
 
         log.info("Zakład {}: wzbogacono mecz statystykami Apify ({})", bet.getId(), event.getUrl());
-        return merge(event, enriched.get());
+        return new EnrichmentResult(merge(event, enriched.get()), true);
+    }
+
+    /** Błąd cache nie może zablokować rozliczenia — traktujemy go jak brak wpisu. */
+    private Optional<Map<String, Object>> findCachedStatistics(String eventKey) {
+        try {
+            return eventStore.findStatistics(eventKey, LocalDateTime.now());
+        } catch (RuntimeException e) {
+            log.warn("Cache wzbogacenia: błąd odczytu {} — pobieram z Apify: {}", eventKey, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    private void saveCachedStatistics(String eventKey, SofaScoreEventDto event) {
+        try {
+            eventStore.saveStatistics(eventKey, event, LocalDateTime.now());
+        } catch (RuntimeException e) {
+            log.warn("Cache wzbogacenia: błąd zapisu {}: {}", eventKey, e.getMessage());
+        }
     }
 
     private static boolean needsEnrichment(Bet bet) {
@@ -76,12 +153,36 @@ public class EventEnrichmentService {
     }
 
     private static SofaScoreEventDto merge(SofaScoreEventDto base, SofaScoreEventDto enriched) {
-        if (enriched.getStatistics() != null) {
-            base.setStatistics(enriched.getStatistics());
-        }
-        if (enriched.getEventId() != null) {
-            base.setEventId(enriched.getEventId());
+        return withDetails(base, enriched.getStatistics(), enriched.getEventId());
+    }
+
+    /**
+     * Kopia meczu ze statystykami i id (null = wartość z {@code base}). Mecz z puli cyklu jest współdzielony
+     * przez równoległe ścieżki rozliczania i trzymany w L1 między cyklami — nie wolno go modyfikować.
+     */
+    private static SofaScoreEventDto withDetails(
+            SofaScoreEventDto base, Map<String, Object> statistics, String eventId) {
+        SofaScoreEventDto copy = new SofaScoreEventDto();
+        copy.setType(base.getType());
+        copy.setSport(base.getSport());
+        copy.setName(base.getName());
+        copy.setHomeTeam(base.getHomeTeam());
+        copy.setAwayTeam(base.getAwayTeam());
+        copy.setHomeScore(base.getHomeScore());
+        copy.setAwayScore(base.getAwayScore());
+        copy.setStatusType(base.getStatusType());
+        copy.setWinnerCode(base.getWinnerCode());
+        copy.setStartTimestamp(base.getStartTimestamp());
+        copy.setTournament(base.getTournament());
+        copy.setUrl(base.getUrl());
+        copy.setStatistics(statistics != null ? statistics : base.getStatistics());
+        copy.setEventId(eventId != null ? eventId : base.getEventId());
+        return copy;
+    }
+
+    public record EnrichmentResult(SofaScoreEventDto event, boolean attempted) {
+        static EnrichmentResult skipped(SofaScoreEventDto event) {
+            return new EnrichmentResult(event, false);
         }
-        return base;
     }
 }
@@ -0,0 +1,126 @@
+package com.grzechuhehe.SportsBettingManagerApp.service.resolution;
+
+import com.grzechuhehe.SportsBettingManagerApp.integration.apify.dto.SofaScoreEventDto;
+import com.grzechuhehe.SportsBettingManagerApp.service.resolution.matching.TokenDictionary;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Pula meczów cyklu przygotowana raz po discovery: tokeny drużyn policzone z góry, mecze w kubełkach
+ * po dniu startu (UTC) i w indeksie odwróconym token → pozycje. {@link BetMatcher} ocenia w pełni tylko
+ * mecze z oknem dat i choć jednym wspólnym tokenem; pozostałe mają Jaccarda 0, więc liczy się im sam
+ * bonus {@code MatchReRanker} — wynik jest ten sam co przy przejściu całej listy.
+ * Po zbudowaniu tylko do odczytu — wątki rozliczające korzenie dzielą jedną instancję.
+ */
+public final class EventPoolIndex {
+
+    private final List<SofaScoreEventDto> events;
+    private final List<Entry> entries;
+    private final TokenDictionary dictionary;
+    private final Map<String, BitSet> postings;
+    private final TreeMap<Long, BitSet> byStartDay;
+    private final BitSet undated;
+    private final BitSet all;
+
+    EventPoolIndex(List<SofaScoreEventDto> events, List<Entry> entries, TokenDictionary dictionary,
+                   Set<String> ignoredTokens) {
+        this.events = List.copyOf(events);
+        this.entries = List.copyOf(entries);
+        this.dictionary = dictionary;
+        this.postings = new HashMap<>();
+        this.byStartDay = new TreeMap<>();
+        this.undated = new BitSet(entries.size());
+        this.all = new BitSet(entries.size());
+        for (int i = 0; i < entries.size(); i++) {
+            Entry entry = entries.get(i);
+            all.set(i);
+            for (String token : entry.tokens()) {
+                if (!ignoredTokens.contains(token)) {
+                    postings.computeIfAbsent(token, t -> new BitSet()).set(i);
+                }
+            }
+            Long start = entry.event().getStartTimestamp();
+            if (start == null) {
+                undated.set(i);
+            } else {
+                byStartDay.computeIfAbsent(startDay(start), d -> new BitSet()).set(i);
+            }
+        }
+    }
+
+    public List<SofaScoreEventDto> events() {
+        return events;
+    }
+
+    public boolean isEmpty() {
+        return events.isEmpty();
+    }
+
+    public int size() {
+        return events.size();
+    }
+
+    TokenDictionary dictionary() {
+        return dictionary;
+    }
+
+    Entry entry(int position) {
+        return entries.get(position);
+    }
+
+    /** Pozycje meczów startujących w dniach [fromDay, toDay] (UTC) oraz meczów bez daty startu. */
+    BitSet startingBetween(LocalDate fromDay, LocalDate toDay) {
+        BitSet result = (BitSet) undated.clone();
+        byStartDay.subMap(fromDay.toEpochDay(), true, toDay.toEpochDay(), true).values().forEach(result::or);
+        return result;
+    }
+
+    BitSet allPositions() {
+        return (BitSet) all.clone();
+    }
+
+    /** Pozycje meczów, których tokeny drużyn mają choć jeden wspólny element z {@code tokens}. */
+    BitSet sharingAnyToken(Collection<String> tokens) {
+        BitSet result = new BitSet(entries.size());
+        for (String token : tokens) {
+            BitSet positions = postings.get(token);
+            if (positions != null) {
+                result.or(positions);
+            }
+        }
+        return result;
+    }
+
+    private static long startDay(long startTimestamp) {
+        return Instant.ofEpochSecond(startTimestamp).atOffset(ZoneOffset.UTC).toLocalDate().toEpochDay();
+    }
+
+    /**
+     * Mecz z policzonymi raz tokenami: {@code home}/{@code away} jak {@code BetMatcher.tokenize},
+     * {@code homeLeading}/{@code awayLeading} — pierwsze słowo nazwy (nazwisko tenisisty), {@code tokens} — suma.
+     * Pola {@code *Ids} to te same zbiory bez tokenów kategorii, jako numery ze słownika puli.
+     */
+    record Entry(
+            SofaScoreEventDto event,
+            Set<String> home,
+            Set<String> away,
+            Set<String> homeLeading,
+            Set<String> awayLeading,
+            Set<String> tokens,
+            int[] homeIds,
+            int[] awayIds,
+            int[] homeLeadingIds,
+            int[] awayLeadingIds,
+            boolean womens,
+            boolean mens) {
+    }
+}
@@ -1,5 +1,9 @@
 package com.grzechuhehe.SportsBettingManagerApp.service.resolution;
 
+import com.grzechuhehe.SportsBettingManagerApp.service.resolution.discovery.SearchBatchSample;
+
+import java.util.List;
+
 public record ResolutionCycleMetrics(
         String cycleId,
         int eligible,
@@ -11,4 +15,6 @@ public record ResolutionCycleMetrics(
         double estimatedCostUsd,
         long successLast24h,
         long pendingLeaves,
-        boolean healthAlert) {}
+        boolean healthAlert,
+        int searchBatchSize,
+        List<SearchBatchSample> searchBatches) {}
@@ -1,10 +1,10 @@
 package com.grzechuhehe.SportsBettingManagerApp.service.resolution;
 
 import com.grzechuhehe.SportsBettingManagerApp.service.resolution.matching.DoublesNameNormalizer;
+import com.grzechuhehe.SportsBettingManagerApp.service.resolution.matching.NameFolding;
 import com.grzechuhehe.SportsBettingManagerApp.service.resolution.matching.TennisNameNormalizer;
 import org.springframework.stereotype.Component;
 
-import java.text.Normalizer;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.Locale;
@@ -122,12 +122,12 @@ public class ResolutionNameTranslator {
             return false;
         }
         String normalized = normalize(side);
-        for (String word : normalized.split("\\s+")) {
+        for (String word : normalized.split(" ")) {
             if (REJECTED_SIDE_WORDS.contains(word)) {
                 return false;
             }
         }
-        return normalized.split("\\s+").length <= 6;
+        return normalized.split(" ").length <= 6;
     }
 
     private boolean isUnknownAbbrev(String side) {
@@ -174,7 +174,7 @@ public class ResolutionNameTranslator {
 
     private static void addTokenized(Set<String> tokens, String text) {
         String normalized = normalize(text);
-        for (String word : normalized.split("\\s+")) {
+        for (String word : normalized.split(" ")) {
             if (word.length() >= 3) {
                 tokens.add(word);
             }
@@ -208,15 +208,9 @@ public class ResolutionNameTranslator {
         return translated;
     }
 
+    // ł składane ręcznie (NFD go nie rozkłada) — bez tego "Korea Płd." → "korea pd"
     private static String normalize(String text) {
-        return Normalizer.normalize(text, Normalizer.Form.NFD)
-                .replaceAll("\\p{M}", "")
-                .toLowerCase(Locale.ROOT)
-                .replace("ł", "l") // NFD nie rozkłada ł — bez tego "Korea Płd." → "korea pd"
-                .replaceAll("\\(k\\)", " women ")
-                .replaceAll("[^a-z0-9 ]", " ")
-                .replaceAll("\\s+", " ")
-                .trim();
+        return NameFolding.foldToWordsWithWomenMarker(text);
     }
 
     private static Map<String, String> buildAliases() {
@@ -11,17 +11,25 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HexFormat;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.function.Function;
 import java.util.stream.Collectors;
@@ -35,11 +43,49 @@ public class SofaScoreCacheService {
 
     private final SofaScoreQueryCacheRepository cacheRepository;
     private final ObjectMapper objectMapper;
+    private final SofaScoreQueryL1Cache l1Cache;
+    private final SofaScorePayloadCodec payloadCodec;
+    private final SofaScoreCacheWriter cacheWriter;
+    private final SofaScoreEventStore eventStore;
+
+    static final String SOURCE_APIFY = "APIFY";
+    static final String SOURCE_NEGATIVE = "NEGATIVE";
+
+    /** Po tylu godzinach od startu mecz zwykle jest już zakończony w SofaScore. */
+    private static final int EXPECTED_FINISH_HOURS = 3;
 
     @Value("${bet.resolution.cache-ttl-hours:72}")
     private int cacheTtlHours;
 
-    public record CacheLookupResult(List<SofaScoreEventDto> events, Set<String> missingQueries) {}
+    /** Pierwszy TTL wpisu negatywnego; każdy kolejny pusty wynik podwaja go aż do max. 0 = bez cache negatywnego. */
+    @Value("${bet.resolution.negative-cache-ttl-minutes:0}")
+    private int negativeCacheTtlMinutes;
+
+    @Value("${bet.resolution.negative-cache-max-ttl-hours:24}")
+    private int negativeCacheMaxTtlHours;
+
+    /** Zapis w formacie binarnym (SofaScorePayloadCodec) zamiast JSON; odczyt obsługuje oba formaty zawsze. */
+    @Value("${bet.resolution.cache-binary-payload:false}")
+    private boolean binaryPayload;
+
+    /** Mecze w sofascore_event + mapowanie zapytań zamiast kopii listy w każdym wierszu; wiersz bez payloadu. */
+    @Value("${bet.resolution.cache-event-store:false}")
+    private boolean eventStoreEnabled;
+
+    /** Mecze bez zapytań zostają tyle dni od startu (statystyki wzbogacenia). */
+    @Value("${bet.resolution.event-store-retention-days:30}")
+    private int eventStoreRetentionDays;
+
+    /**
+     * {@code negativeHits} — ile zapytań z {@code events} pominęło Apify dzięki wpisowi negatywnemu
+     * (ich nogi mają „dane”, tylko bez meczów — tak samo jak po pustym batchu).
+     */
+    public record CacheLookupResult(List<SofaScoreEventDto> events, Set<String> missingQueries, int negativeHits) {
+
+        public CacheLookupResult(List<SofaScoreEventDto> events, Set<String> missingQueries) {
+            this(events, missingQueries, 0);
+        }
+    }
 
     public CacheLookupResult getFresh(List<String> queries, LocalDateTime now) {
         List<SofaScoreEventDto> events = new ArrayList<>();
@@ -53,22 +99,73 @@ public class SofaScoreCacheService {
             return new CacheLookupResult(List.of(), Set.of());
         }
 
-        Map<String, SofaScoreQueryCache> byHash = cacheRepository
-                .findByQueryHashInAndExpiresAtAfter(queryToHash.values(), now)
-                .stream()
-                .collect(Collectors.toMap(SofaScoreQueryCache::getQueryHash, row -> row, (a, b) -> a));
+        // L1 najpierw; do tabeli idą tylko hashe bez świeżego wpisu w pamięci
+        Map<String, SofaScoreQueryL1Cache.Entry> fromL1 = new HashMap<>();
+        Set<String> dbHashes = new LinkedHashSet<>();
+        for (String hash : new LinkedHashSet<>(queryToHash.values())) {
+            SofaScoreQueryL1Cache.Entry entry = l1Cache.get(hash, now);
+            if (entry != null) {
+                fromL1.put(hash, entry);
+            } else {
+                dbHashes.add(hash);
+            }
+        }
 
+        Map<String, SofaScoreQueryL1Cache.Entry> fromDb = new HashMap<>();
+        if (!dbHashes.isEmpty()) {
+            List<SofaScoreQueryCache> rows = cacheRepository.findByQueryHashInAndExpiresAtAfter(dbHashes, now);
+            Set<String> storedHashes = rows.stream()
+                    .filter(SofaScoreCacheService::inEventStore)
+                    .map(SofaScoreQueryCache::getQueryHash)
+                    .collect(Collectors.toSet());
+            Map<String, List<SofaScoreEventDto>> fromStore = eventStore.findByQueryHashes(storedHashes);
+            for (SofaScoreQueryCache row : rows) {
+                if (fromDb.containsKey(row.getQueryHash())) {
+                    continue;
+                }
+                List<SofaScoreEventDto> rowEvents = inEventStore(row)
+                        ? fromStore.getOrDefault(row.getQueryHash(), List.of())
+                        : readPayload(row);
+                boolean negative = SOURCE_NEGATIVE.equals(row.getSource());
+                fromDb.put(row.getQueryHash(), new SofaScoreQueryL1Cache.Entry(rowEvents, negative, row.getExpiresAt()));
+                l1Cache.put(row.getQueryHash(), rowEvents, negative, row.getExpiresAt(), now);
+            }
+            l1Cache.recordDb(fromDb.size(), dbHashes.size() - fromDb.size());
+        }
+
+        int negativeHits = 0;
         for (String query : queryToHash.keySet()) {
             String hash = queryToHash.get(query);
-            SofaScoreQueryCache row = byHash.get(hash);
-            if (row != null) {
-                events.addAll(deserialize(row.getPayloadJson()));
+            SofaScoreQueryL1Cache.Entry entry = fromL1.containsKey(hash) ? fromL1.get(hash) : fromDb.get(hash);
+            if (entry != null) {
+                events.addAll(entry.events());
+                if (entry.negative()) {
+                    negativeHits++;
+                }
             } else {
                 missing.add(query);
             }
         }
 
-        return new CacheLookupResult(events, missing);
+        log.debug("SofaScore cache: {} zapytań — L1 {}, baza {}/{}, brak {}",
+                queryToHash.size(), fromL1.size(), fromDb.size(), dbHashes.size(), missing.size());
+        return new CacheLookupResult(events, missing, negativeHits);
+    }
+
+    /**
+     * Mecze z magazynu rozpoczęte w [from, to), niezależnie od zapytań, które je zwróciły. Pusta lista, gdy
+     * magazyn jest wyłączony albo odczyt się nie powiódł — uzupełnienie puli nie może zablokować cyklu.
+     */
+    public List<SofaScoreEventDto> findStoredEventsStartingBetween(LocalDateTime from, LocalDateTime to) {
+        if (!eventStoreEnabled) {
+            return List.of();
+        }
+        try {
+            return eventStore.findStartingBetween(from, to);
+        } catch (RuntimeException e) {
+            log.warn("SofaScore event store: błąd odczytu meczów {}..{} — pomijam: {}", from, to, e.getMessage());
+            return List.of();
+        }
     }
 
     @Transactional
@@ -77,6 +174,10 @@ public class SofaScoreCacheService {
             return;
         }
         LocalDateTime expiresAt = now.plusHours(cacheTtlHours);
+        // Wszystkie zapytania batcha Apify wskazują tę samą listę meczów — kodowana raz
+        Map<List<SofaScoreEventDto>, EncodedPayload> encoded = new IdentityHashMap<>();
+        Map<String, SofaScoreQueryCache> rows = new LinkedHashMap<>();
+        Map<String, List<SofaScoreEventDto>> eventsByHash = new LinkedHashMap<>();
         for (Map.Entry<String, List<SofaScoreEventDto>> entry : byQuery.entrySet()) {
             String query = entry.getKey();
             if (query == null || query.isBlank()) {
@@ -85,26 +186,153 @@ public class SofaScoreCacheService {
             List<SofaScoreEventDto> events = entry.getValue() == null ? List.of() : entry.getValue();
             String hash = sha256(normalize(query));
 
-            SofaScoreQueryCache row = cacheRepository.findByQueryHash(hash).orElseGet(SofaScoreQueryCache::new);
+            SofaScoreQueryCache row = new SofaScoreQueryCache();
             row.setQueryHash(hash);
             row.setQueryText(query);
-            row.setPayloadJson(serialize(events));
+            if (eventStoreEnabled) {
+                EncodedPayload.IN_EVENT_STORE.applyTo(row);
+            } else {
+                encoded.computeIfAbsent(events, this::encode).applyTo(row);
+            }
             row.setEventCount(events.size());
             row.setFetchedAt(now);
             row.setExpiresAt(expiresAt);
-            row.setSource("APIFY");
-            cacheRepository.save(row);
+            row.setSource(SOURCE_APIFY);
+            row.setMissCount(0);
+            rows.put(hash, row);
+            eventsByHash.put(hash, events);
+        }
+        cacheWriter.upsert(List.copyOf(rows.values()));
+        if (eventStoreEnabled) {
+            eventStore.saveForQueries(eventsByHash, now);
+        }
+        afterCommit(() -> eventsByHash.forEach((hash, events) -> l1Cache.put(hash, events, false, expiresAt, now)));
+    }
+
+    /**
+     * Wpisy negatywne dla zapytań, które nie dały zakończonych meczów — kolejne cykle nie płacą za nie co raz.
+     * TTL rośnie wykładniczo z każdym pustym wynikiem z rzędu (ten sam klucz sha256 co wpisy z danymi),
+     * ale gdy Apify zwróciło niezakończone mecze, ponowienie wypada najpóźniej ~3 h po starcie najwcześniejszego.
+     *
+     * @param unfinishedByQuery zapytanie → niezakończone mecze z jego batcha (pusta lista gdy actor nic nie znalazł)
+     */
+    @Transactional
+    public void putNegative(Map<String, List<SofaScoreEventDto>> unfinishedByQuery, LocalDateTime now) {
+        if (negativeCacheTtlMinutes <= 0 || unfinishedByQuery == null || unfinishedByQuery.isEmpty()) {
+            return;
+        }
+        Map<String, String> queryToHash = new LinkedHashMap<>();
+        for (String query : unfinishedByQuery.keySet()) {
+            if (query != null && !query.isBlank()) {
+                queryToHash.put(query, sha256(normalize(query)));
+            }
+        }
+        if (queryToHash.isEmpty()) {
+            return;
         }
+        // Poprzedni stan (licznik pustych wyników) jednym zapytaniem IN
+        Map<String, SofaScoreQueryCache> previous = cacheRepository.findByQueryHashIn(queryToHash.values()).stream()
+                .collect(Collectors.toMap(SofaScoreQueryCache::getQueryHash, row -> row, (a, b) -> a));
+        EncodedPayload empty = encode(List.of());
+        Map<String, SofaScoreQueryCache> rows = new LinkedHashMap<>();
+        for (Map.Entry<String, String> entry : queryToHash.entrySet()) {
+            String hash = entry.getValue();
+            SofaScoreQueryCache last = previous.get(hash);
+            int missCount = last != null && SOURCE_NEGATIVE.equals(last.getSource()) ? last.getMissCount() + 1 : 1;
+            SofaScoreQueryCache row = new SofaScoreQueryCache();
+            row.setQueryHash(hash);
+            row.setQueryText(entry.getKey());
+            empty.applyTo(row);
+            row.setEventCount(0);
+            row.setFetchedAt(now);
+            row.setExpiresAt(negativeExpiry(missCount, unfinishedByQuery.get(entry.getKey()), now));
+            row.setSource(SOURCE_NEGATIVE);
+            row.setMissCount(missCount);
+            rows.put(hash, row);
+        }
+        cacheWriter.upsert(List.copyOf(rows.values()));
+        afterCommit(() -> rows.forEach((hash, row) -> l1Cache.put(hash, List.of(), true, row.getExpiresAt(), now)));
+    }
+
+    /** Zapis do L1 dopiero po commicie — wycofany zapis nie zostaje w pamięci jako świeży wpis. */
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    LocalDateTime negativeExpiry(int missCount, List<SofaScoreEventDto> unfinished, LocalDateTime now) {
+        long maxMinutes = Math.max((long) negativeCacheMaxTtlHours * 60, negativeCacheTtlMinutes);
+        long backoffMinutes = Math.min(maxMinutes, (long) negativeCacheTtlMinutes << Math.min(missCount - 1, 20));
+        LocalDateTime expiresAt = now.plusMinutes(backoffMinutes);
+        LocalDateTime expectedFinish = expectedFinish(unfinished);
+        if (expectedFinish != null && expectedFinish.isAfter(now) && expectedFinish.isBefore(expiresAt)) {
+            LocalDateTime earliest = now.plusMinutes(negativeCacheTtlMinutes);
+            expiresAt = expectedFinish.isAfter(earliest) ? expectedFinish : earliest;
+        }
+        return expiresAt;
+    }
+
+    private static LocalDateTime expectedFinish(List<SofaScoreEventDto> unfinished) {
+        if (unfinished == null) {
+            return null;
+        }
+        return unfinished.stream()
+                .map(SofaScoreEventDto::getStartTimestamp)
+                .filter(Objects::nonNull)
+                .min(Long::compare)
+                .map(start -> LocalDateTime.ofInstant(Instant.ofEpochSecond(start), ZoneId.systemDefault())
+                        .plusHours(EXPECTED_FINISH_HOURS))
+                .orElse(null);
     }
 
     @Scheduled(cron = "0 30 4 * * *")
     @Transactional
     public void purgeExpired() {
-        LocalDateTime cutoff = LocalDateTime.now();
+        // Wygasłe wpisy negatywne zostają jeszcze max TTL — następny pusty wynik kontynuuje backoff, a nie zaczyna od nowa
+        LocalDateTime cutoff = LocalDateTime.now().minusHours(Math.max(negativeCacheMaxTtlHours, 0));
         cacheRepository.deleteByExpiresAtBefore(cutoff);
+        // Usunięcia JPA muszą być widoczne dla podzapytań JDBC czyszczących mapowania
+        cacheRepository.flush();
+        eventStore.purgeOrphans(LocalDateTime.now().minusDays(Math.max(eventStoreRetentionDays, 0)));
         log.debug("SofaScore query cache: usunięto wpisy wygasłe przed {}", cutoff);
     }
 
+    /**
+     * Przekodowuje w tle wiersze zapisane jeszcze jako JSON — porcjami, żeby nie trzymać długiej transakcji.
+     * Wygasłe pomija: i tak usunie je purgeExpired albo nadpisze następny zapis.
+     */
+    @Scheduled(fixedDelayString = "${bet.resolution.cache-reencode-interval-ms:600000}", initialDelay = 60000)
+    @Transactional
+    public void reencodeLegacyPayloads() {
+        if (!binaryPayload) {
+            return;
+        }
+        List<SofaScoreQueryCache> rows =
+                cacheRepository.findTop200ByPayloadIsNullAndPayloadJsonIsNotNullAndExpiresAtAfterOrderByIdAsc(
+                        LocalDateTime.now());
+        if (rows.isEmpty()) {
+            return;
+        }
+        long jsonBytes = 0;
+        long binaryBytes = 0;
+        for (SofaScoreQueryCache row : rows) {
+            jsonBytes += row.getPayloadJson() == null ? 0 : row.getPayloadJson().getBytes(StandardCharsets.UTF_8).length;
+            encode(deserialize(row.getPayloadJson())).applyTo(row);
+            binaryBytes += row.getPayload().length;
+        }
+        cacheRepository.saveAll(rows);
+        log.info("SofaScore query cache: przekodowano {} wierszy JSON → binarny ({} B → {} B)",
+                rows.size(), jsonBytes, binaryBytes);
+    }
+
     static String normalize(String query) {
         return query.trim().toLowerCase(Locale.ROOT);
     }
@@ -119,6 +347,43 @@ public class SofaScoreCacheService {
         }
     }
 
+    private EncodedPayload encode(List<SofaScoreEventDto> events) {
+        return binaryPayload
+                ? new EncodedPayload(null, payloadCodec.encode(events))
+                : new EncodedPayload(serialize(events), null);
+    }
+
+    /** Wiersz bez obu payloadów — mecze czytane z SofaScoreEventStore po query_hash. */
+    private static boolean inEventStore(SofaScoreQueryCache row) {
+        return row.getPayload() == null && row.getPayloadJson() == null;
+    }
+
+    /**
+     * Dokładnie jedno z pól jest ustawione — zależnie od bet.resolution.cache-binary-payload;
+     * oba puste tylko dla wierszy, których mecze są w sofascore_event.
+     */
+    private record EncodedPayload(String json, byte[] binary) {
+
+        static final EncodedPayload IN_EVENT_STORE = new EncodedPayload(null, null);
+
+        void applyTo(SofaScoreQueryCache row) {
+            row.setPayloadJson(json);
+            row.setPayload(binary);
+        }
+    }
+
+    private List<SofaScoreEventDto> readPayload(SofaScoreQueryCache row) {
+        if (row.getPayload() == null) {
+            return deserialize(row.getPayloadJson());
+        }
+        try {
+            return payloadCodec.decode(row.getPayload());
+        } catch (Exception e) {
+            log.warn("SofaScore cache: błąd dekodowania payload — traktuję jako miss: {}", e.getMessage());
+            return List.of();
+        }
+    }
+
     private List<SofaScoreEventDto> deserialize(String payloadJson) {
         try {
             List<SofaScoreEventDto> events = objectMapper.readValue(payloadJson, EVENT_LIST_TYPE);
@@ -0,0 +1,190 @@
+package com.grzechuhehe.SportsBettingManagerApp.service.resolution;
+
+import com.grzechuhehe.SportsBettingManagerApp.model.SofaScoreEvent;
+import com.grzechuhehe.SportsBettingManagerApp.model.SofaScoreQueryCache;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Zapis wierszy sofascore_query_cache jednym batchem JDBC kluczowanym po unikalnym query_hash
+ * (uk_query_hash, zakłada SofaScoreCacheSchemaRunner) — bez odczytu istniejących wierszy przed zapisem.
+ * MySQL: INSERT … ON DUPLICATE KEY UPDATE, z rewriteBatchedStatements=true to jedno zapytanie na batch;
+ * H2 (testy): MERGE INTO … KEY (query_hash). Tak samo mecze sofascore_event (po event_key) i mapowanie
+ * zapytanie → mecze.
+ * <p>
+ * Każdy batch idzie w kolejności klucza (query_hash / event_key): równoległe putAll z kilku batchy wyszukiwania
+ * często zapisują te same mecze, a upserty blokujące wspólne wiersze w różnej kolejności to deadlock InnoDB.
+ */
+@Component
+@RequiredArgsConstructor
+public class SofaScoreCacheWriter {
+
+    private static final String COLUMNS =
+            "query_hash, query_text, payload_json, payload, event_count, fetched_at, expires_at, source, miss_count";
+
+    private static final String MYSQL_UPSERT_SQL = "INSERT INTO sofascore_query_cache (" + COLUMNS + ") "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?) "
+            + "ON DUPLICATE KEY UPDATE query_text = VALUES(query_text), payload_json = VALUES(payload_json), "
+            + "payload = VALUES(payload), event_count = VALUES(event_count), fetched_at = VALUES(fetched_at), "
+            + "expires_at = VALUES(expires_at), source = VALUES(source), miss_count = VALUES(miss_count)";
+
+    private static final String MERGE_SQL = "MERGE INTO sofascore_query_cache (" + COLUMNS + ") "
+            + "KEY (query_hash) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String EVENT_COLUMNS = "event_key, event_id, url, type, sport, name, home_team, away_team, "
+            + "home_score, away_score, status_type, winner_code, start_timestamp, start_time, tournament, updated_at";
+
+    /** Statystyk nie nadpisuje — ustawia je osobny UPDATE tylko dla meczów, które je mają. */
+    private static final String MYSQL_EVENT_UPSERT_SQL = "INSERT INTO sofascore_event (" + EVENT_COLUMNS + ") "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?) "
+            + "ON DUPLICATE KEY UPDATE event_id = COALESCE(VALUES(event_id), event_id), url = VALUES(url), "
+            + "type = VALUES(type), sport = VALUES(sport), name = VALUES(name), home_team = VALUES(home_team), "
+            + "away_team = VALUES(away_team), home_score = VALUES(home_score), away_score = VALUES(away_score), "
+            + "status_type = VALUES(status_type), winner_code = VALUES(winner_code), "
+            + "start_timestamp = VALUES(start_timestamp), start_time = VALUES(start_time), "
+            + "tournament = VALUES(tournament), updated_at = VALUES(updated_at)";
+
+    private static final String EVENT_MERGE_SQL = "MERGE INTO sofascore_event (" + EVENT_COLUMNS + ") "
+            + "KEY (event_key) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String EVENT_STATISTICS_SQL =
+            "UPDATE sofascore_event SET statistics = ?, statistics_expires_at = ? WHERE event_key = ?";
+
+    private static final String QUERY_EVENT_INSERT_SQL =
+            "INSERT INTO sofascore_query_event (query_hash, event_key, event_index) VALUES (?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private volatile Boolean h2;
+
+    /** @param unordered wiersze z różnymi query_hash — id jest ignorowane */
+    public void upsert(List<SofaScoreQueryCache> unordered) {
+        if (unordered.isEmpty()) {
+            return;
+        }
+        List<SofaScoreQueryCache> rows = unordered.stream()
+                .sorted(Comparator.comparing(SofaScoreQueryCache::getQueryHash))
+                .toList();
+        jdbcTemplate.batchUpdate(h2() ? MERGE_SQL : MYSQL_UPSERT_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                SofaScoreQueryCache row = rows.get(i);
+                ps.setString(1, row.getQueryHash());
+                ps.setString(2, row.getQueryText());
+                if (row.getPayloadJson() != null) {
+                    ps.setString(3, row.getPayloadJson());
+                } else {
+                    ps.setNull(3, Types.LONGVARCHAR);
+                }
+                if (row.getPayload() != null) {
+                    ps.setBytes(4, row.getPayload());
+                } else {
+                    ps.setNull(4, Types.LONGVARBINARY);
+                }
+                ps.setInt(5, row.getEventCount());
+                ps.setTimestamp(6, Timestamp.valueOf(row.getFetchedAt()));
+                ps.setTimestamp(7, Timestamp.valueOf(row.getExpiresAt()));
+                ps.setString(8, row.getSource());
+                ps.setInt(9, row.getMissCount());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return rows.size();
+            }
+        });
+    }
+
+    /** @param unordered mecze z różnymi event_key; statystyki null zostawiają zapisane wcześniej (z ich ważnością) */
+    public void upsertEvents(List<SofaScoreEvent> unordered) {
+        if (unordered.isEmpty()) {
+            return;
+        }
+        List<SofaScoreEvent> events = unordered.stream()
+                .sorted(Comparator.comparing(SofaScoreEvent::getEventKey))
+                .toList();
+        jdbcTemplate.batchUpdate(h2() ? EVENT_MERGE_SQL : MYSQL_EVENT_UPSERT_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                SofaScoreEvent event = events.get(i);
+                ps.setString(1, event.getEventKey());
+                ps.setString(2, event.getEventId());
+                ps.setString(3, event.getUrl());
+                ps.setString(4, event.getType());
+                ps.setString(5, event.getSport());
+                ps.setString(6, event.getName());
+                ps.setString(7, event.getHomeTeam());
+                ps.setString(8, event.getAwayTeam());
+                ps.setObject(9, event.getHomeScore(), Types.INTEGER);
+                ps.setObject(10, event.getAwayScore(), Types.INTEGER);
+                ps.setString(11, event.getStatusType());
+                ps.setObject(12, event.getWinnerCode(), Types.INTEGER);
+                ps.setObject(13, event.getStartTimestamp(), Types.BIGINT);
+                ps.setTimestamp(14, event.getStartTime() == null ? null : Timestamp.valueOf(event.getStartTime()));
+                ps.setString(15, event.getTournament());
+                ps.setTimestamp(16, Timestamp.valueOf(event.getUpdatedAt()));
+            }
+
+            @Override
+            public int getBatchSize() {
+                return events.size();
+            }
+        });
+
+        List<SofaScoreEvent> withStatistics = events.stream().filter(event -> event.getStatistics() != null).toList();
+        if (!withStatistics.isEmpty()) {
+            jdbcTemplate.batchUpdate(EVENT_STATISTICS_SQL, withStatistics, withStatistics.size(), (ps, event) -> {
+                ps.setBytes(1, event.getStatistics());
+                ps.setTimestamp(2, event.getStatisticsExpiresAt() == null
+                        ? null : Timestamp.valueOf(event.getStatisticsExpiresAt()));
+                ps.setString(3, event.getEventKey());
+            });
+        }
+    }
+
+    /** Podmienia mapowanie zapytań na mecze: usuwa dotychczasowe wiersze tych hashy i wstawia nowe. */
+    public void replaceQueryEvents(Map<String, List<String>> eventKeysByQueryHash) {
+        if (eventKeysByQueryHash.isEmpty()) {
+            return;
+        }
+        List<String> hashes = eventKeysByQueryHash.keySet().stream().sorted().toList();
+        jdbcTemplate.update("DELETE FROM sofascore_query_event WHERE query_hash IN ("
+                + String.join(", ", Collections.nCopies(hashes.size(), "?")) + ")", hashes.toArray());
+
+        List<Object[]> mappings = new ArrayList<>();
+        for (String hash : hashes) {
+            List<String> keys = eventKeysByQueryHash.get(hash);
+            for (int index = 0; index < keys.size(); index++) {
+                mappings.add(new Object[]{hash, keys.get(index), index});
+            }
+        }
+        if (!mappings.isEmpty()) {
+            jdbcTemplate.batchUpdate(QUERY_EVENT_INSERT_SQL, mappings);
+        }
+    }
+
+    private boolean h2() {
+        Boolean result = h2;
+        if (result == null) {
+            String product = jdbcTemplate.execute(
+                    (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+            result = product != null && product.toLowerCase(Locale.ROOT).contains("h2");
+            h2 = result;
+        }
+        return result;
+    }
+}
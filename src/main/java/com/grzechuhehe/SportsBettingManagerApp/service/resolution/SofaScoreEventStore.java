@@ -0,0 +1,240 @@
+package com.grzechuhehe.SportsBettingManagerApp.service.resolution;
+
+import com.grzechuhehe.SportsBettingManagerApp.integration.apify.dto.SofaScoreEventDto;
+import com.grzechuhehe.SportsBettingManagerApp.model.SofaScoreEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Znormalizowany magazyn meczów SofaScore: każdy mecz raz w sofascore_event (klucz z id meczu, awaryjnie z URL),
+ * zapytania wskazują mecze przez sofascore_query_event. Mecz zwrócony przez wiele zapytań zajmuje jeden wiersz,
+ * a zakończenie albo wzbogacenie statystykami aktualizuje go w jednym miejscu. Statystyki meczu zakończonego
+ * są ważne bezterminowo (cache wzbogacenia), niezakończonego — przez enrichment-cache-unfinished-ttl-minutes.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SofaScoreEventStore {
+
+    private static final Pattern URL_EVENT_ID = Pattern.compile("#id:(\\d+)");
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private static final String EVENT_COLUMNS = "e.event_key, e.event_id, e.url, e.type, e.sport, e.name, "
+            + "e.home_team, e.away_team, e.home_score, e.away_score, e.status_type, e.winner_code, "
+            + "e.start_timestamp, e.tournament, e.statistics";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SofaScoreCacheWriter cacheWriter;
+    private final SofaScorePayloadCodec payloadCodec;
+
+    /** Statystyki meczu w trakcie (albo bez statusu) zmieniają się — po tym czasie wzbogacenie pobiera je od nowa. */
+    @Value("${bet.resolution.enrichment-cache-unfinished-ttl-minutes:30}")
+    private long unfinishedStatisticsTtlMinutes;
+
+    /**
+     * Zapisuje mecze zapytań i podmienia ich mapowanie. Mecz wspólny dla wielu zapytań trafia do batcha raz;
+     * mecz bez statystyk nie kasuje statystyk zapisanych wcześniej.
+     *
+     * @param eventsByQueryHash sha256 zapytania → mecze w kolejności z Apify
+     */
+    public void saveForQueries(Map<String, List<SofaScoreEventDto>> eventsByQueryHash, LocalDateTime now) {
+        Map<String, SofaScoreEvent> events = new LinkedHashMap<>();
+        Map<String, List<String>> keysByQueryHash = new LinkedHashMap<>();
+        for (Map.Entry<String, List<SofaScoreEventDto>> entry : eventsByQueryHash.entrySet()) {
+            Set<String> keys = new LinkedHashSet<>();
+            for (SofaScoreEventDto dto : entry.getValue()) {
+                String key = eventKey(dto);
+                if (keys.add(key)) {
+                    events.computeIfAbsent(key, k -> toEntity(k, dto, now));
+                }
+            }
+            keysByQueryHash.put(entry.getKey(), List.copyOf(keys));
+        }
+        cacheWriter.upsertEvents(List.copyOf(events.values()));
+        cacheWriter.replaceQueryEvents(keysByQueryHash);
+    }
+
+    /**
+     * Mecze zapytań jednym złączeniem. Ten sam mecz w kilku zapytaniach to ten sam obiekt w wyniku.
+     *
+     * @return sha256 zapytania → mecze w kolejności zapisu; zapytań bez mapowania nie ma w mapie
+     */
+    public Map<String, List<SofaScoreEventDto>> findByQueryHashes(Collection<String> queryHashes) {
+        if (queryHashes.isEmpty()) {
+            return Map.of();
+        }
+        List<String> hashes = List.copyOf(queryHashes);
+        Map<String, SofaScoreEventDto> byKey = new HashMap<>();
+        Map<String, List<SofaScoreEventDto>> byQueryHash = new LinkedHashMap<>();
+        jdbcTemplate.query("SELECT m.query_hash, " + EVENT_COLUMNS + " FROM sofascore_event e "
+                        + "JOIN sofascore_query_event m ON m.event_key = e.event_key "
+                        + "WHERE m.query_hash IN (" + placeholders(hashes.size()) + ") "
+                        + "ORDER BY m.query_hash, m.event_index",
+                rs -> {
+                    SofaScoreEventDto event = byKey.get(rs.getString("event_key"));
+                    if (event == null) {
+                        event = toDto(rs);
+                        byKey.put(rs.getString("event_key"), event);
+                    }
+                    byQueryHash.computeIfAbsent(rs.getString("query_hash"), h -> new ArrayList<>()).add(event);
+                },
+                hashes.toArray());
+        return byQueryHash;
+    }
+
+    /**
+     * Ważne statystyki meczu z cache wzbogacenia.
+     *
+     * @return puste, gdy meczu nie ma, nie ma statystyk, ich ważność minęła albo nie dało się ich zdekodować
+     */
+    public Optional<Map<String, Object>> findStatistics(String eventKey, LocalDateTime now) {
+        List<byte[]> rows = jdbcTemplate.query("SELECT statistics FROM sofascore_event WHERE event_key = ? "
+                        + "AND statistics IS NOT NULL AND (statistics_expires_at IS NULL OR statistics_expires_at > ?)",
+                (rs, rowNum) -> rs.getBytes(1),
+                eventKey, Timestamp.valueOf(now));
+        if (rows.isEmpty()) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.ofNullable(payloadCodec.decodeStatistics(rows.getFirst()));
+        } catch (Exception e) {
+            log.warn("SofaScore event store: błąd dekodowania statystyk {} — traktuję jako miss: {}",
+                    eventKey, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Zapisuje mecz wzbogacony statystykami pod kluczem wyliczonym przed wzbogaceniem (to pod nim szuka
+     * {@link #findStatistics}). Bez statystyk nic nie zapisuje.
+     */
+    public void saveStatistics(String eventKey, SofaScoreEventDto event, LocalDateTime now) {
+        if (event.getStatistics() == null) {
+            return;
+        }
+        cacheWriter.upsertEvents(List.of(toEntity(eventKey, event, now)));
+    }
+
+    /** Mecze rozpoczęte w przedziale [from, to) — po indeksie start_time, bez przechodzenia przez zapytania. */
+    public List<SofaScoreEventDto> findStartingBetween(LocalDateTime from, LocalDateTime to) {
+        return jdbcTemplate.query(
+                "SELECT " + EVENT_COLUMNS + " FROM sofascore_event e "
+                        + "WHERE e.start_time >= ? AND e.start_time < ? ORDER BY e.start_time",
+                (rs, rowNum) -> toDto(rs),
+                Timestamp.valueOf(from), Timestamp.valueOf(to));
+    }
+
+    /**
+     * Usuwa mapowania zapytań, których wiersz cache już wygasł i został usunięty, oraz mecze bez żadnego
+     * zapytania rozpoczęte przed {@code startedBefore}. Mecze z bezterminowymi statystykami zostają — to cache
+     * wzbogacenia, a ponowne pobranie kosztuje wywołanie Apify.
+     */
+    public void purgeOrphans(LocalDateTime startedBefore) {
+        int mappings = jdbcTemplate.update("DELETE FROM sofascore_query_event WHERE query_hash NOT IN "
+                + "(SELECT query_hash FROM sofascore_query_cache)");
+        int events = jdbcTemplate.update("DELETE FROM sofascore_event WHERE start_time < ? "
+                + "AND (statistics IS NULL OR statistics_expires_at IS NOT NULL) "
+                + "AND event_key NOT IN (SELECT event_key FROM sofascore_query_event)", Timestamp.valueOf(startedBefore));
+        log.debug("SofaScore event store: usunięto {} mapowań i {} meczów bez zapytań", mappings, events);
+    }
+
+    /** id meczu SofaScore (pole albo „#id:” z URL), potem URL, a dla meczu bez obu — hash nazwy i startu. */
+    static String eventKey(SofaScoreEventDto event) {
+        if (event.getEventId() != null && !event.getEventId().isBlank()) {
+            return "id:" + event.getEventId().trim();
+        }
+        if (event.getUrl() != null && !event.getUrl().isBlank()) {
+            Matcher matcher = URL_EVENT_ID.matcher(event.getUrl());
+            if (matcher.find()) {
+                return "id:" + matcher.group(1);
+            }
+            String url = event.getUrl().trim();
+            return url.length() + 4 <= MAX_KEY_LENGTH
+                    ? "url:" + url
+                    : "url:" + SofaScoreCacheService.sha256(url);
+        }
+        return "h:" + SofaScoreCacheService.sha256(event.getType() + "|" + event.getHomeTeam() + "|"
+                + event.getAwayTeam() + "|" + event.getStartTimestamp());
+    }
+
+    private SofaScoreEvent toEntity(String key, SofaScoreEventDto dto, LocalDateTime now) {
+        SofaScoreEvent event = new SofaScoreEvent();
+        event.setEventKey(key);
+        event.setEventId(dto.getEventId());
+        event.setUrl(dto.getUrl());
+        event.setType(dto.getType());
+        event.setSport(dto.getSport());
+        event.setName(dto.getName());
+        event.setHomeTeam(dto.getHomeTeam());
+        event.setAwayTeam(dto.getAwayTeam());
+        event.setHomeScore(dto.getHomeScore());
+        event.setAwayScore(dto.getAwayScore());
+        event.setStatusType(dto.getStatusType());
+        event.setWinnerCode(dto.getWinnerCode());
+        event.setStartTimestamp(dto.getStartTimestamp());
+        event.setStartTime(dto.getStartTimestamp() == null ? null
+                : LocalDateTime.ofInstant(Instant.ofEpochSecond(dto.getStartTimestamp()), ZoneId.systemDefault()));
+        event.setTournament(dto.getTournament());
+        if (dto.getStatistics() != null) {
+            event.setStatistics(payloadCodec.encodeStatistics(dto.getStatistics()));
+            event.setStatisticsExpiresAt("finished".equalsIgnoreCase(dto.getStatusType())
+                    ? null
+                    : now.plusMinutes(Math.max(unfinishedStatisticsTtlMinutes, 0)));
+        }
+        event.setUpdatedAt(now);
+        return event;
+    }
+
+    private SofaScoreEventDto toDto(ResultSet rs) throws SQLException {
+        SofaScoreEventDto event = new SofaScoreEventDto();
+        event.setEventId(rs.getString("event_id"));
+        event.setUrl(rs.getString("url"));
+        event.setType(rs.getString("type"));
+        event.setSport(rs.getString("sport"));
+        event.setName(rs.getString("name"));
+        event.setHomeTeam(rs.getString("home_team"));
+        event.setAwayTeam(rs.getString("away_team"));
+        event.setHomeScore(rs.getObject("home_score", Integer.class));
+        event.setAwayScore(rs.getObject("away_score", Integer.class));
+        event.setStatusType(rs.getString("status_type"));
+        event.setWinnerCode(rs.getObject("winner_code", Integer.class));
+        event.setStartTimestamp(rs.getObject("start_timestamp", Long.class));
+        event.setTournament(rs.getString("tournament"));
+        byte[] statistics = rs.getBytes("statistics");
+        if (statistics != null) {
+            try {
+                event.setStatistics(payloadCodec.decodeStatistics(statistics));
+            } catch (Exception e) {
+                log.warn("SofaScore event store: błąd dekodowania statystyk {} — pomijam: {}",
+                        rs.getString("event_key"), e.getMessage());
+            }
+        }
+        return event;
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+}
@@ -0,0 +1,85 @@
+package com.grzechuhehe.SportsBettingManagerApp.service.resolution;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import com.grzechuhehe.SportsBettingManagerApp.integration.apify.dto.SofaScoreEventDto;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Binarny payload wiersza sofascore_query_cache: bajt formatu + treść. Format 1 to Smile (binarny JSON Jacksona,
+ * nazwy pól statystyk zapisane raz i dalej jako odwołania) skompresowany gzipem. Nowy format dostaje kolejny
+ * numer, a stare wiersze dalej się czytają; payload_json bez bajtu formatu to wiersze sprzed kodeka.
+ */
+@Component
+public class SofaScorePayloadCodec {
+
+    static final byte FORMAT_SMILE_GZIP = 1;
+
+    private static final TypeReference<List<SofaScoreEventDto>> EVENT_LIST_TYPE = new TypeReference<>() {};
+    private static final TypeReference<Map<String, Object>> STATISTICS_TYPE = new TypeReference<>() {};
+
+    private final ObjectMapper smileMapper;
+
+    public SofaScorePayloadCodec() {
+        SmileFactory factory = new SmileFactory();
+        // Powtarzające się krótkie wartości (statusy, nazwy drużyn w statystykach zawodników) też jako odwołania
+        factory.enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES);
+        this.smileMapper = new ObjectMapper(factory)
+                .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    }
+
+    public byte[] encode(List<SofaScoreEventDto> events) {
+        return write(events == null ? List.of() : events);
+    }
+
+    /** @throws IllegalArgumentException pusty payload albo nieznany bajt formatu */
+    public List<SofaScoreEventDto> decode(byte[] payload) throws IOException {
+        List<SofaScoreEventDto> events = read(payload, EVENT_LIST_TYPE);
+        return events == null ? List.of() : events;
+    }
+
+    /** Mapa statistics jednego meczu (kolumna sofascore_event.statistics) — ten sam format co listy meczów. */
+    public byte[] encodeStatistics(Map<String, Object> statistics) {
+        return write(statistics);
+    }
+
+    public Map<String, Object> decodeStatistics(byte[] payload) throws IOException {
+        return read(payload, STATISTICS_TYPE);
+    }
+
+    private byte[] write(Object value) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        bytes.write(FORMAT_SMILE_GZIP);
+        try (OutputStream out = new GZIPOutputStream(bytes)) {
+            smileMapper.writeValue(out, value);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to encode SofaScore events for cache", e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private <T> T read(byte[] payload, TypeReference<T> type) throws IOException {
+        if (payload == null || payload.length == 0) {
+            throw new IllegalArgumentException("Empty SofaScore cache payload");
+        }
+        if (payload[0] != FORMAT_SMILE_GZIP) {
+            throw new IllegalArgumentException("Unknown SofaScore cache payload format: " + payload[0]);
+        }
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(payload, 1, payload.length - 1))) {
+            return smileMapper.readValue(in, type);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.grzechuhehe.SportsBettingManagerApp.service.resolution;
+
+import com.grzechuhehe.SportsBettingManagerApp.integration.apify.dto.SofaScoreEventDto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Pamięciowy poziom L1 przed tabelą sofascore_query_cache: już zdeserializowane mecze pod kluczem
+ * sha256(normalize(query)), LRU po liczbie wpisów. Wpis żyje najwyżej do {@code expiresAt} wiersza
+ * i nie dłużej niż ttl od wczytania. Listy są niemodyfikowalne, a mecze współdzielone między cyklami
+ * (tak jak w puli jednego cyklu), więc traktujemy je jako tylko do odczytu — wzbogacenie statystykami
+ * pracuje na kopii i nie zmienia obiektów trzymanych w L1.
+ * Liczniki trafień prowadzone osobno dla L1 i dla tabeli (odczyty, które przeszły do bazy).
+ */
+@Component
+public class SofaScoreQueryL1Cache {
+
+    private final int maxEntries;
+    private final Duration ttl;
+    private final LinkedHashMap<String, Entry> entries;
+
+    private long l1Hits;
+    private long l1Misses;
+    private long dbHits;
+    private long dbMisses;
+    private long evictions;
+    private long expirations;
+
+    public SofaScoreQueryL1Cache(
+            @Value("${bet.resolution.cache-l1.max-entries:2000}") int maxEntries,
+            @Value("${bet.resolution.cache-l1.ttl:PT12H}") Duration ttl) {
+        this.maxEntries = maxEntries;
+        this.ttl = ttl;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() > SofaScoreQueryL1Cache.this.maxEntries) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /** Świeży wpis albo {@code null} — wtedy wołający czyta tabelę i zgłasza wynik przez {@link #recordDb}. */
+    public synchronized Entry get(String queryHash, LocalDateTime now) {
+        Entry entry = entries.get(queryHash);
+        if (entry != null) {
+            if (entry.expiresAt().isAfter(now)) {
+                l1Hits++;
+                return entry;
+            }
+            entries.remove(queryHash);
+            expirations++;
+        }
+        l1Misses++;
+        return null;
+    }
+
+    public synchronized void put(
+            String queryHash,
+            List<SofaScoreEventDto> events,
+            boolean negative,
+            LocalDateTime rowExpiresAt,
+            LocalDateTime now) {
+        if (maxEntries <= 0 || rowExpiresAt == null) {
+            return;
+        }
+        LocalDateTime cap = now.plus(ttl);
+        LocalDateTime expiresAt = rowExpiresAt.isBefore(cap) ? rowExpiresAt : cap;
+        if (expiresAt.isAfter(now)) {
+            entries.put(queryHash, new Entry(List.copyOf(events), negative, expiresAt));
+        }
+    }
+
+    public synchronized void recordDb(int hits, int misses) {
+        dbHits += hits;
+        dbMisses += misses;
+    }
+
+    public synchronized Metrics metrics() {
+        return new Metrics(entries.size(), maxEntries, l1Hits, l1Misses, ratio(l1Hits, l1Misses),
+                dbHits, dbMisses, ratio(dbHits, dbMisses), evictions, expirations);
+    }
+
+    private static double ratio(long hits, long misses) {
+        long total = hits + misses;
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+
+    public record Metrics(int size, int maxEntries, long l1Hits, long l1Misses, double l1HitRatio,
+                          long dbHits, long dbMisses, double dbHitRatio, long evictions, long expirations) {}
+
+    public record Entry(List<SofaScoreEventDto> events, boolean negative, LocalDateTime expiresAt) {}
+}
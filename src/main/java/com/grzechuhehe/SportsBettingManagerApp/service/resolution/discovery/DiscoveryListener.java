@@ -0,0 +1,10 @@
+package com.grzechuhehe.SportsBettingManagerApp.service.resolution.discovery;
+
+/** Odbiorca etapów discovery; wołany na wątku discovery — nie może go blokować. */
+@FunctionalInterface
+public interface DiscoveryListener {
+
+    DiscoveryListener NONE = progress -> {};
+
+    void onProgress(DiscoveryProgress progress);
+}
@@ -0,0 +1,19 @@
+package com.grzechuhehe.SportsBettingManagerApp.service.resolution.discovery;
+
+import com.grzechuhehe.SportsBettingManagerApp.integration.apify.dto.SofaScoreEventDto;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Stan discovery po kolejnym etapie (0 = odczyt cache, dalej kolejne batche Apify).
+ * {@code events} i {@code fetchedBetIds} — pula i nogi z danymi zebrane dotąd, {@code completedBetIds} —
+ * nogi, których wynik discovery jest już ostateczny (trafienie w cache, batch zakończony albo nieudany,
+ * brak zapytania). Dla tych nóg {@code fetchedBetIds} nie zmieni się już do końca cyklu.
+ */
+public record DiscoveryProgress(
+        int batch,
+        List<SofaScoreEventDto> events,
+        Set<Long> fetchedBetIds,
+        Set<Long> completedBetIds) {
+}
@@ -5,12 +5,27 @@ import com.grzechuhehe.SportsBettingManagerApp.integration.apify.dto.SofaScoreEv
 import java.util.List;
 import java.util.Set;
 
+/**
+ * {@code searchBatches} — pomiary batchy search z tego cyklu w kolejności zakończenia,
+ * {@code searchBatchSize} — rozmiar batcha, od którego zacznie następny cykl (0 poza trybem search).
+ */
 public record DiscoveryResult(
         List<SofaScoreEventDto> events,
         int apifyCalls,
         Set<Long> fetchedBetIds,
         int apifyFailures,
-        int cacheHits) {
+        int cacheHits,
+        List<SearchBatchSample> searchBatches,
+        int searchBatchSize) {
+
+    public DiscoveryResult(
+            List<SofaScoreEventDto> events,
+            int apifyCalls,
+            Set<Long> fetchedBetIds,
+            int apifyFailures,
+            int cacheHits) {
+        this(events, apifyCalls, fetchedBetIds, apifyFailures, cacheHits, List.of(), 0);
+    }
 
     public static DiscoveryResult empty() {
         return new DiscoveryResult(List.of(), 0, Set.of(), 0, 0);
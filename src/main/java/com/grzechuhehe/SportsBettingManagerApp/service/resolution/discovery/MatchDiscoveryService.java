@@ -1,5 +1,6 @@
 package com.grzechuhehe.SportsBettingManagerApp.service.resolution.discovery;
 
+import com.grzechuhehe.SportsBettingManagerApp.integration.apify.ApifyBatchResult;
 import com.grzechuhehe.SportsBettingManagerApp.integration.apify.ApifySofaScoreClient;
 import com.grzechuhehe.SportsBettingManagerApp.integration.apify.dto.SofaScoreEventDto;
 import com.grzechuhehe.SportsBettingManagerApp.model.Bet;
@@ -15,6 +16,7 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
@@ -23,6 +25,12 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 @Service
@@ -34,6 +42,8 @@ public class MatchDiscoveryService {
     private final SofaScoreSportMapper sportMapper;
     private final ResolutionNameTranslator nameTranslator;
     private final SofaScoreCacheService sofaScoreCacheService;
+    private final SearchBatchSizer batchSizer;
+    private final SearchQueryPlanner queryPlanner;
 
     @Value("${bet.resolution.apify-mode:scheduled}")
     private String apifyMode;
@@ -44,15 +54,16 @@ public class MatchDiscoveryService {
     @Value("${bet.resolution.scheduled-max-items:400}")
     private int scheduledMaxItems;
 
-    @Value("${bet.resolution.search-batch-size:8}")
-    private int searchBatchSize;
-
     @Value("${bet.resolution.max-search-queries:20}")
     private int maxSearchQueries;
 
     @Value("${bet.resolution.max-apify-calls-per-cycle:5}")
     private int maxApifyCallsPerCycle;
 
+    /** Batche actora w locie naraz; każdy blokuje wątek wirtualny do read-timeout klienta Apify. */
+    @Value("${bet.resolution.search-concurrency:1}")
+    private int searchConcurrency;
+
     @Value("${bet.resolution.scheduled-max-days-back:7}")
     private int scheduledMaxDaysBack;
 
@@ -64,12 +75,21 @@ public class MatchDiscoveryService {
     }
 
     public DiscoveryResult discover(List<Bet> eligibleLeaves, LocalDateTime now) {
+        return discover(eligibleLeaves, now, DiscoveryListener.NONE);
+    }
+
+    /**
+     * Jak {@link #discover(List, LocalDateTime)}, ale w trybie search zgłasza też etapy pośrednie
+     * (po odczycie cache i po każdym batchu Apify), żeby nogi z gotowymi danymi mogły być rozliczane,
+     * zanim skończą się kolejne batche. Tryb scheduled to jedno wywołanie — etapów pośrednich nie ma.
+     */
+    public DiscoveryResult discover(List<Bet> eligibleLeaves, LocalDateTime now, DiscoveryListener listener) {
         if (eligibleLeaves.isEmpty()) {
             return DiscoveryResult.empty();
         }
 
         if ("search".equalsIgnoreCase(apifyMode)) {
-            return fetchBySearchBatch(eligibleLeaves);
+            return fetchBySearchBatch(eligibleLeaves, listener);
         }
         return fetchByScheduled(eligibleLeaves, now);
     }
@@ -105,24 +125,36 @@ public class MatchDiscoveryService {
                 start, daysAhead, sports, startFromBets, endFromBets
         );
 
-        List<SofaScoreEventDto> events = apifySofaScoreClient.fetchScheduledMatches(
-                start, daysAhead, sports, scheduledMaxItems);
+        List<SofaScoreEventDto> events = new ArrayList<>(apifySofaScoreClient.fetchScheduledMatches(
+                start, daysAhead, sports, scheduledMaxItems));
+        // Mecze z magazynu (z wcześniejszych wyszukiwań, także ponad scheduled-max-items) uzupełniają pulę
+        // z tego samego okna; Apify pierwszy, więc przy dedup po URL wygrywa świeższy stan
+        List<SofaScoreEventDto> stored = sofaScoreCacheService.findStoredEventsStartingBetween(
+                start.atStartOfDay(), start.plusDays(daysAhead + 1L).atStartOfDay());
+        int fromApify = events.size();
+        events.addAll(stored);
+        List<SofaScoreEventDto> pool = dedupEventsByUrl(events);
+        log.info("Scheduled Apify: {} meczów z Apify, {} z magazynu, {} w puli", fromApify, stored.size(), pool.size());
+
         Set<Long> fetchedBetIds = eligibleLeaves.stream().map(Bet::getId).collect(Collectors.toSet());
-        return new DiscoveryResult(events, 1, fetchedBetIds, 0, 0);
+        return new DiscoveryResult(pool, 1, fetchedBetIds, 0, 0);
     }
 
     /**
      * Batch search: unikalne query w jednym lub kilku wywołaniach actora (~$0.08 każde).
-     * Wszystkie zebrane query idą do Apify (w paczkach po searchBatchSize), nie tylko pierwsze N.
+     * Wszystkie zebrane query idą do Apify (w paczkach o rozmiarze z {@link SearchBatchSizer}), nie tylko pierwsze N.
      */
-    private DiscoveryResult fetchBySearchBatch(List<Bet> eligibleLeaves) {
+    private DiscoveryResult fetchBySearchBatch(List<Bet> eligibleLeaves, DiscoveryListener listener) {
         LinkedHashSet<String> allQueries = new LinkedHashSet<>();
         Map<String, Set<Long>> queryToBetIds = new LinkedHashMap<>();
+        // Nogi z ostatecznym wynikiem discovery — bez zapytania od razu, pozostałe po cache / swoim batchu
+        Set<Long> completedBetIds = new HashSet<>();
 
         for (Bet bet : eligibleLeaves) {
             String raw = bet.getEventName().trim();
             Optional<String> queryOpt = nameTranslator.resolveQueryForApify(raw);
             if (queryOpt.isEmpty()) {
+                completedBetIds.add(bet.getId());
                 continue;
             }
             String query = queryOpt.get();
@@ -149,90 +181,187 @@ public class MatchDiscoveryService {
         SofaScoreCacheService.CacheLookupResult cacheLookup =
                 sofaScoreCacheService.getFresh(new ArrayList<>(allQueries), now);
 
-        List<SofaScoreEventDto> all = new ArrayList<>(cacheLookup.events());
         Set<Long> fetchedBetIds = new HashSet<>();
         for (String query : allQueries) {
             if (!cacheLookup.missingQueries().contains(query)) {
                 fetchedBetIds.addAll(queryToBetIds.getOrDefault(query, Set.of()));
             }
         }
+        completedBetIds.addAll(fetchedBetIds);
+        List<String> missing = new ArrayList<>(cacheLookup.missingQueries());
+        int capacity = maxApifyCallsPerCycle * batchSizer.currentSize();
+        if (missing.size() > capacity) {
+            // Budżet nie obejmie wszystkich — najpierw zapytania odblokowujące najwięcej rozliczeń
+            Map<Long, Bet> legsById = eligibleLeaves.stream()
+                    .collect(Collectors.toMap(Bet::getId, bet -> bet, (a, b) -> a));
+            missing = queryPlanner.rank(missing, queryToBetIds, legsById, fetchedBetIds, now);
+            log.info(
+                    "Apify search: {} zapytań bez cache przy budżecie ~{} — kolejność wg oczekiwanych rozliczeń",
+                    missing.size(),
+                    capacity
+            );
+        }
+        // Wyniki batchy po indeksie — pula w kolejności batchy, niezależnie od kolejności odpowiedzi
+        Map<Integer, List<SofaScoreEventDto>> batchMatches = new TreeMap<>();
+        if (!missing.isEmpty()) {
+            publish(listener, 0, collectEvents(cacheLookup.events(), batchMatches), fetchedBetIds, completedBetIds);
+        }
 
         int cacheHits = allQueries.size() - cacheLookup.missingQueries().size();
-        int calls = 0;
-        int apifyFailures = 0;
-        List<String> batch = new ArrayList<>(searchBatchSize);
-
-        for (String query : cacheLookup.missingQueries()) {
-            batch.add(query);
-            if (batch.size() >= searchBatchSize) {
-                if (calls >= maxApifyCallsPerCycle) {
-                    int processedMissing = calls * searchBatchSize;
-                    log.warn(
-                            "Apify search: limit {} wywołań/cykl — pominięto ~{} zapytań bez cache",
-                            maxApifyCallsPerCycle,
-                            Math.max(0, cacheLookup.missingQueries().size() - processedMissing)
-                    );
+        int concurrency = Math.max(1, searchConcurrency);
+        SearchCallBudget budget = new SearchCallBudget(maxApifyCallsPerCycle);
+        Semaphore inFlight = new Semaphore(concurrency);
+        AtomicInteger apifyFailures = new AtomicInteger();
+        AtomicInteger finishedBatches = new AtomicInteger();
+        List<SearchBatchSample> samples = Collections.synchronizedList(new ArrayList<>());
+        Object progressLock = new Object();
+        int dispatched = 0;
+        int offset = 0;
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            while (offset < missing.size()) {
+                // Backpressure w wątku discovery: najwyżej searchConcurrency batchy w locie
+                inFlight.acquireUninterruptibly();
+                if (!budget.tryReserve()) {
+                    inFlight.release();
                     break;
                 }
-                if (appendBatchSearchResult(all, queryToBetIds, fetchedBetIds, batch, now)) {
-                    calls++;
-                } else {
-                    apifyFailures++;
-                }
-                batch.clear();
+                // Rozmiar czytany dopiero teraz — uwzględnia pomiary batchy zakończonych w tym cyklu
+                int end = Math.min(missing.size(), offset + batchSizer.currentSize());
+                List<String> batch = List.copyOf(missing.subList(offset, end));
+                offset = end;
+                int index = dispatched++;
+                executor.execute(() -> {
+                    long start = System.nanoTime();
+                    ApifyBatchResult result = null;
+                    try {
+                        result = searchBatch(batch, now);
+                    } finally {
+                        // Także przy wyjątku — inaczej rezerwacja w limicie blokuje wątek discovery
+                        boolean successful = result != null && result.successful();
+                        if (successful) {
+                            budget.consume();
+                        } else {
+                            budget.refund();
+                            apifyFailures.incrementAndGet();
+                        }
+                        SearchBatchSample sample = new SearchBatchSample(
+                                batch.size(),
+                                successful ? result.matches().size() : 0,
+                                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start),
+                                successful,
+                                result != null && result.timedOut());
+                        samples.add(sample);
+                        batchSizer.record(sample);
+                        inFlight.release();
+                    }
+                    synchronized (progressLock) {
+                        if (result.successful()) {
+                            batchMatches.put(index, result.matches());
+                            for (String q : batch) {
+                                fetchedBetIds.addAll(queryToBetIds.getOrDefault(q, Set.of()));
+                            }
+                        }
+                        completeBatch(batch, queryToBetIds, completedBetIds);
+                        publish(listener, finishedBatches.incrementAndGet(),
+                                collectEvents(cacheLookup.events(), batchMatches), fetchedBetIds, completedBetIds);
+                    }
+                });
             }
         }
-        if (!batch.isEmpty() && calls < maxApifyCallsPerCycle) {
-            if (appendBatchSearchResult(all, queryToBetIds, fetchedBetIds, batch, now)) {
-                calls++;
-            } else {
-                apifyFailures++;
-            }
+        if (offset < missing.size()) {
+            log.warn(
+                    "Apify search: limit {} wywołań/cykl — pominięto ~{} zapytań bez cache",
+                    maxApifyCallsPerCycle,
+                    missing.size() - offset
+            );
         }
 
+        int calls = budget.usedCount();
+        List<SofaScoreEventDto> all = collectEvents(cacheLookup.events(), batchMatches);
         List<SofaScoreEventDto> deduped = dedupEventsByUrl(all);
 
         log.info(
-                "Apify batch search: {} unikalnych query, cacheHits={}, wywołań actora={}, apifyFailures={}, {} meczów w puli ({} przed dedup), {} nóg z danymi",
+                "Apify batch search: {} unikalnych query, cacheHits={} (negatywne {}), wywołań actora={}, apifyFailures={}, równolegle {}, batche {}, {} meczów w puli ({} przed dedup), {} nóg z danymi",
                 allQueries.size(),
                 cacheHits,
+                cacheLookup.negativeHits(),
                 calls,
-                apifyFailures,
+                apifyFailures.get(),
+                Math.min(concurrency, dispatched),
+                samples.stream().map(sample -> sample.queries() + "q/" + sample.latencyMs() + "ms").toList(),
                 deduped.size(),
                 all.size(),
                 fetchedBetIds.size()
         );
 
-        return new DiscoveryResult(deduped, calls, fetchedBetIds, apifyFailures, cacheHits);
+        return new DiscoveryResult(deduped, calls, fetchedBetIds, apifyFailures.get(), cacheHits,
+                List.copyOf(samples), batchSizer.currentSize());
+    }
+
+    private static List<SofaScoreEventDto> collectEvents(
+            List<SofaScoreEventDto> cached, Map<Integer, List<SofaScoreEventDto>> batchMatches) {
+        List<SofaScoreEventDto> all = new ArrayList<>(cached);
+        batchMatches.values().forEach(all::addAll);
+        return all;
+    }
+
+    private static void completeBatch(
+            List<String> batch, Map<String, Set<Long>> queryToBetIds, Set<Long> completedBetIds) {
+        for (String query : batch) {
+            completedBetIds.addAll(queryToBetIds.getOrDefault(query, Set.of()));
+        }
     }
 
-    private boolean appendBatchSearchResult(
+    /** Migawka dla odbiorcy — discovery dalej zmienia swoje kolekcje. */
+    private static void publish(
+            DiscoveryListener listener,
+            int batch,
             List<SofaScoreEventDto> all,
-            Map<String, Set<Long>> queryToBetIds,
             Set<Long> fetchedBetIds,
-            List<String> batch,
-            LocalDateTime now) {
-        var result = apifySofaScoreClient.searchMatchesBatch(batch);
+            Set<Long> completedBetIds) {
+        listener.onProgress(new DiscoveryProgress(
+                batch, dedupEventsByUrl(all), Set.copyOf(fetchedBetIds), Set.copyOf(completedBetIds)));
+    }
+
+    /** Jedno wywołanie actora; woła się równolegle — dotyka tylko swojego batcha. */
+    private ApifyBatchResult searchBatch(List<String> batch, LocalDateTime now) {
+        ApifyBatchResult result;
+        try {
+            result = apifySofaScoreClient.searchMatchesBatch(batch);
+        } catch (RuntimeException e) {
+            log.warn("Apify search: wyjątek w batchu {} zapytań: {}", batch.size(), e.getMessage());
+            result = ApifyBatchResult.failure();
+        }
         if (!result.successful()) {
             log.warn(
-                    "Apify search: batch {} zapytań nieudany — nogi z tego batcha spróbują ponownie w kolejnym cyklu",
-                    batch.size()
+                    "Apify search: batch {} zapytań nieudany{} — nogi z tego batcha spróbują ponownie w kolejnym cyklu",
+                    batch.size(),
+                    result.timedOut() ? " (timeout)" : ""
             );
-            return false;
+            return result;
         }
-        all.addAll(result.matches());
         List<SofaScoreEventDto> cacheable = result.matches().stream()
                 .filter(MatchDiscoveryService::isCacheableEvent)
                 .toList();
         Map<String, List<SofaScoreEventDto>> toCache = new LinkedHashMap<>();
         for (String q : batch) {
-            fetchedBetIds.addAll(queryToBetIds.getOrDefault(q, Set.of()));
-            if (!cacheable.isEmpty()) {
-                toCache.put(q, cacheable);
+            toCache.put(q, cacheable.isEmpty() ? result.matches() : cacheable);
+        }
+        // Wynik jest już opłacony — błąd zapisu cache (np. deadlock) nie może zrobić z niego nieudanego batcha;
+        // wyjątek z wątku wirtualnego trafiłby tylko do logu, a nogi nie dostałyby meczów
+        try {
+            if (cacheable.isEmpty()) {
+                // Batch bez zakończonych meczów — wpis negatywny z backoffem zamiast płacenia w każdym cyklu
+                sofaScoreCacheService.putNegative(toCache, now);
+            } else {
+                sofaScoreCacheService.putAll(toCache, now);
             }
+        } catch (RuntimeException e) {
+            log.error("Apify search: nie zapisano cache batcha {} zapytań (wynik użyty w tym cyklu): {}",
+                    batch.size(), e.getMessage(), e);
         }
-        sofaScoreCacheService.putAll(toCache, now);
-        return true;
+        return result;
     }
 
     private static final Set<String> CACHEABLE_STATUS_TYPES = Set.of("finished", "canceled", "postponed");
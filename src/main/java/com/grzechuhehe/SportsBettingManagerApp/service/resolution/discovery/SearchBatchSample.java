@@ -0,0 +1,13 @@
+package com.grzechuhehe.SportsBettingManagerApp.service.resolution.discovery;
+
+/**
+ * Pomiar jednego wywołania batch search: ile zapytań poszło, ile meczów wróciło, ile trwało
+ * i czym się skończyło ({@code timedOut} — limit czasu actora albo read-timeout klienta).
+ */
+public record SearchBatchSample(
+        int queries,
+        int items,
+        long latencyMs,
+        boolean successful,
+        boolean timedOut) {
+}
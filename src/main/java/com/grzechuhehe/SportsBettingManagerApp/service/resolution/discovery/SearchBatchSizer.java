@@ -0,0 +1,60 @@
+package com.grzechuhehe.SportsBettingManagerApp.service.resolution.discovery;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Rozmiar batcha search dobierany AIMD między cyklami: pełny batch zakończony w docelowym czasie → +1 zapytanie,
+ * timeout → połowa. Wolny, ale udany batch trzyma rozmiar; inne błędy (HTTP, 402) rozmiaru nie ruszają.
+ * Większy batch to mniej wywołań actora (~$0.08 każde) na tę samą liczbę zapytań — do granicy, za którą
+ * run nie mieści się w limicie czasu actora. {@code min-size == max-size} wyłącza strojenie.
+ */
+@Component
+@Slf4j
+public class SearchBatchSizer {
+
+    @Value("${bet.resolution.search-batch-size:8}")
+    private int initialSize;
+
+    @Value("${bet.resolution.search-batch-min-size:2}")
+    private int minSize;
+
+    @Value("${bet.resolution.search-batch-max-size:15}")
+    private int maxSize;
+
+    /** Udany batch dłuższy niż ten próg nie zwiększa rozmiaru — zapas przed 300 s limitu actora. */
+    @Value("${bet.resolution.search-batch-target-latency-ms:180000}")
+    private long targetLatencyMs;
+
+    /** 0 = jeszcze nie ustalony; pierwsze użycie startuje od search-batch-size. */
+    private int size;
+
+    public synchronized int currentSize() {
+        if (size == 0) {
+            size = clamp(initialSize);
+        }
+        return size;
+    }
+
+    public synchronized void record(SearchBatchSample sample) {
+        int current = currentSize();
+        int next = current;
+        if (sample.timedOut()) {
+            next = clamp(current / 2);
+        } else if (sample.successful() && sample.queries() >= current && sample.latencyMs() <= targetLatencyMs) {
+            next = clamp(current + 1);
+        }
+        if (next != current) {
+            log.info("Apify search: rozmiar batcha {} → {} (batch {} zapytań, {} ms, timeout={})",
+                    current, next, sample.queries(), sample.latencyMs(), sample.timedOut());
+            size = next;
+        }
+    }
+
+    private int clamp(int value) {
+        int lower = Math.max(1, minSize);
+        int upper = Math.max(lower, maxSize);
+        return Math.min(Math.max(value, lower), upper);
+    }
+}
@@ -0,0 +1,69 @@
+package com.grzechuhehe.SportsBettingManagerApp.service.resolution.discovery;
+
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Limit wywołań actora w cyklu przy kilku batchach w locie. Miejsce rezerwuje się przed wysłaniem batcha:
+ * udany batch je zużywa, nieudany zwraca — jak przy wysyłce po kolei, limit liczy tylko udane wywołania.
+ * Gdy wolne miejsca są zarezerwowane przez batche w locie, {@link #tryReserve()} czeka na ich wynik.
+ */
+final class SearchCallBudget {
+
+    private final int maxCalls;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition released = lock.newCondition();
+    private int used;
+    private int reserved;
+
+    SearchCallBudget(int maxCalls) {
+        this.maxCalls = Math.max(maxCalls, 0);
+    }
+
+    /** {@code false} dopiero, gdy udane wywołania wyczerpały limit — nic już nie jest w locie. */
+    boolean tryReserve() {
+        lock.lock();
+        try {
+            while (used + reserved >= maxCalls && reserved > 0) {
+                released.awaitUninterruptibly();
+            }
+            if (used + reserved >= maxCalls) {
+                return false;
+            }
+            reserved++;
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void consume() {
+        release(true);
+    }
+
+    void refund() {
+        release(false);
+    }
+
+    int usedCount() {
+        lock.lock();
+        try {
+            return used;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void release(boolean successful) {
+        lock.lock();
+        try {
+            reserved--;
+            if (successful) {
+                used++;
+            }
+            released.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.grzechuhehe.SportsBettingManagerApp.service.resolution.discovery;
+
+import com.grzechuhehe.SportsBettingManagerApp.model.Bet;
+import com.grzechuhehe.SportsBettingManagerApp.model.enum_model.BetStatus;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Kolejność zapytań search, gdy budżet wywołań nie obejmie wszystkich: każde zapytanie kosztuje tyle samo
+ * (1/rozmiar batcha wywołania), więc liczy się oczekiwana liczba rozliczeń, które odblokowuje.
+ * Dla każdego korzenia z nogami w zapytaniu: szansa, że mecz już się skończył (wiek eventDate) ×
+ * część korzenia, którą zapytanie domyka (1 — po nim korzeń nie czeka na inne nogi bez danych) ×
+ * premia za wygrane nogi obok (kupon wygrany po domknięciu) × waga stawki.
+ */
+@Component
+public class SearchQueryPlanner {
+
+    private static final double FINISHED_PROBABILITY = 1.0;
+    private static final double UNKNOWN_DATE_PROBABILITY = 0.5;
+    private static final double RECENT_EVENT_PROBABILITY = 0.2;
+    private static final int RECENT_EVENT_HOURS = 3;
+    private static final double WON_SIBLING_BONUS = 0.5;
+
+    /**
+     * Zapytania od najcenniejszego; remisy zostają w kolejności wejściowej (priorytet nóg z kolejki).
+     *
+     * @param availableBetIds nogi, które mają już dane w tym cyklu (trafienia w cache)
+     */
+    public List<String> rank(
+            List<String> queries,
+            Map<String, Set<Long>> queryToBetIds,
+            Map<Long, Bet> legsById,
+            Set<Long> availableBetIds,
+            LocalDateTime now) {
+        Map<String, Double> values = new HashMap<>();
+        for (String query : queries) {
+            values.put(query, value(queryToBetIds.getOrDefault(query, Set.of()), legsById, availableBetIds, now));
+        }
+        List<String> ranked = new ArrayList<>(queries);
+        ranked.sort(Comparator.comparingDouble((String query) -> values.get(query)).reversed());
+        return ranked;
+    }
+
+    double value(Set<Long> betIds, Map<Long, Bet> legsById, Set<Long> availableBetIds, LocalDateTime now) {
+        Map<Bet, List<Bet>> legsByRoot = new LinkedHashMap<>();
+        for (Long id : betIds) {
+            Bet leg = legsById.get(id);
+            if (leg != null) {
+                Bet root = leg.getParentBet() != null ? leg.getParentBet() : leg;
+                legsByRoot.computeIfAbsent(root, r -> new ArrayList<>()).add(leg);
+            }
+        }
+        double value = 0.0;
+        for (Map.Entry<Bet, List<Bet>> entry : legsByRoot.entrySet()) {
+            Bet root = entry.getKey();
+            List<Bet> legs = entry.getValue();
+            double finished = legs.stream().mapToDouble(leg -> finishedProbability(leg, now)).min().orElse(0.0);
+            double won = hasWonLeg(root) ? 1.0 + WON_SIBLING_BONUS : 1.0;
+            value += finished * completedShare(root, legs, availableBetIds) * won * stakeWeight(root.getStake());
+        }
+        return value;
+    }
+
+    /** 1, gdy po tym zapytaniu wszystkie nogi PENDING korzenia mają dane; inaczej udział nóg z zapytania. */
+    private static double completedShare(Bet root, List<Bet> legs, Set<Long> availableBetIds) {
+        if (root.getChildBets() == null || root.getChildBets().isEmpty()) {
+            return 1.0;
+        }
+        int waiting = 0;
+        for (Bet sibling : root.getChildBets()) {
+            if (sibling.getStatus() == BetStatus.PENDING
+                    && !availableBetIds.contains(sibling.getId())
+                    && legs.stream().noneMatch(leg -> leg.getId().equals(sibling.getId()))) {
+                waiting++;
+            }
+        }
+        return (double) legs.size() / (legs.size() + waiting);
+    }
+
+    private static boolean hasWonLeg(Bet root) {
+        return root.getChildBets() != null
+                && root.getChildBets().stream().anyMatch(sibling -> sibling.getStatus() == BetStatus.WON);
+    }
+
+    private static double finishedProbability(Bet leg, LocalDateTime now) {
+        if (leg.getEventDate() == null) {
+            return UNKNOWN_DATE_PROBABILITY;
+        }
+        return leg.getEventDate().isBefore(now.minusHours(RECENT_EVENT_HOURS))
+                ? FINISHED_PROBABILITY
+                : RECENT_EVENT_PROBABILITY;
+    }
+
+    /** Stawka 0 → 1, 10 → ~1.5, 100 → ~2 — większa stawka waży więcej, ale nie przykrywa liczby rozliczeń. */
+    private static double stakeWeight(BigDecimal stake) {
+        if (stake == null || stake.signum() <= 0) {
+            return 1.0;
+        }
+        return 1.0 + Math.log10(1.0 + stake.doubleValue()) / 2.0;
+    }
+}
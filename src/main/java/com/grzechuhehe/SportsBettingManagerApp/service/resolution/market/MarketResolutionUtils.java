@@ -1,8 +1,8 @@
 package com.grzechuhehe.SportsBettingManagerApp.service.resolution.market;
 
 import com.grzechuhehe.SportsBettingManagerApp.model.enum_model.BetStatus;
+import com.grzechuhehe.SportsBettingManagerApp.service.resolution.matching.NameFolding;
 
-import java.text.Normalizer;
 import java.util.Locale;
 import java.util.Optional;
 import java.util.regex.Matcher;
@@ -44,11 +44,7 @@ final class MarketResolutionUtils {
         if (text == null) {
             return "";
         }
-        return Normalizer.normalize(text, Normalizer.Form.NFD)
-                .replaceAll("\\p{M}", "")
-                .toLowerCase(Locale.ROOT)
-                .replace("ł", "l")
-                .replaceAll("[^a-z0-9]", "");
+        return NameFolding.foldCompact(text);
     }
 
     static boolean isTennis(com.grzechuhehe.SportsBettingManagerApp.integration.apify.dto.SofaScoreEventDto event,
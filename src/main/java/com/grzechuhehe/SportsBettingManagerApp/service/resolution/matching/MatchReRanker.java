@@ -13,6 +13,13 @@ import java.util.Locale;
 @Component
 public class MatchReRanker {
 
+    private static final double SAME_DAY_BONUS = 0.10;
+    private static final double IN_WINDOW_BONUS = 0.05;
+    private static final double SUBSTRING_BONUS = 0.05;
+
+    /** Górna granica bonusu — wyżej nie wejdzie mecz bez wspólnego tokenu z zakładem (Jaccard 0). */
+    public static final double MAX_BONUS = SAME_DAY_BONUS + 2 * SUBSTRING_BONUS;
+
     public double adjust(double baseConfidence, Bet bet, SofaScoreEventDto event, int dateWindowDays) {
         double score = baseConfidence;
         score += dateProximityBonus(bet.getPlacedAt(), event.getStartTimestamp(), dateWindowDays);
@@ -27,10 +34,10 @@ public class MatchReRanker {
         LocalDateTime eventTime = LocalDateTime.ofInstant(Instant.ofEpochSecond(startTimestamp), ZoneOffset.UTC);
         long hours = Math.abs(ChronoUnit.HOURS.between(placedAt, eventTime));
         if (hours <= 24) {
-            return 0.10;
+            return SAME_DAY_BONUS;
         }
         if (hours <= dateWindowDays * 24L) {
-            return 0.05;
+            return IN_WINDOW_BONUS;
         }
         return 0.0;
     }
@@ -42,10 +49,10 @@ public class MatchReRanker {
         String lower = eventName.toLowerCase(Locale.ROOT);
         double bonus = 0.0;
         if (home != null && lower.contains(home.toLowerCase(Locale.ROOT).split(" ")[0])) {
-            bonus += 0.05;
+            bonus += SUBSTRING_BONUS;
         }
         if (away != null && lower.contains(away.toLowerCase(Locale.ROOT).split(" ")[0])) {
-            bonus += 0.05;
+            bonus += SUBSTRING_BONUS;
         }
         return bonus;
     }
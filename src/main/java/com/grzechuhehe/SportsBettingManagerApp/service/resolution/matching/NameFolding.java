@@ -0,0 +1,183 @@
+package com.grzechuhehe.SportsBettingManagerApp.service.resolution.matching;
+
+import java.text.Normalizer;
+import java.util.Locale;
+
+/**
+ * Składanie nazw drużyn/zawodników do małych liter ASCII bez regexów w ścieżce gorącej — znak po
+ * znaku, z tablicą wyników dla BMP wypełnianą leniwie. Wynik jest identyczny jak dotychczasowy łańcuch
+ * {@code NFD → usuń \p{M} → toLowerCase(ROOT) → ł→l → [^a-z0-9] na spację}: każdy krok działa na
+ * pojedynczym znaku (NFD poza rozkładem tylko przestawia znaki łączące, a te i tak wypadają).
+ */
+public final class NameFolding {
+
+    // Wartości tablicy poza [a-z0-9 ]: jeszcze nie policzono / znak znika (np. znak łączący) / wynik wieloznakowy
+    private static final char UNKNOWN = 0;
+    private static final char DROP = 1;
+    private static final char MULTI = 2;
+
+    private static final char[] FOLD = new char[Character.MAX_VALUE + 1];
+
+    static {
+        for (char c = 0; c < 128; c++) {
+            FOLD[c] = c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : isWordChar(c) ? c : ' ';
+        }
+    }
+
+    private NameFolding() {}
+
+    /** Słowa oddzielone pojedynczą spacją, bez spacji na brzegach. */
+    public static String foldToWords(String text) {
+        return fold(text, false, true);
+    }
+
+    /** Jak {@link #foldToWords}, a {@code (k)} (kobiety u bukmachera) staje się słowem {@code women}. */
+    public static String foldToWordsWithWomenMarker(String text) {
+        return fold(text, true, true);
+    }
+
+    /** Same litery i cyfry, bez separatorów. */
+    public static String foldCompact(String text) {
+        return fold(text, false, false);
+    }
+
+    private static String fold(String text, boolean womenMarker, boolean keepSpaces) {
+        if (text == null || text.isEmpty()) {
+            return "";
+        }
+        StringBuilder out = new StringBuilder(text.length() + 8);
+        // Spacja zaległa: wstawiana dopiero przed kolejnym słowem — stąd brak spacji na końcu i podwójnych
+        boolean pendingSpace = false;
+        int i = 0;
+        while (i < text.length()) {
+            char c = text.charAt(i);
+            if (womenMarker && c == '(') {
+                int end = womenMarkerEnd(text, i);
+                if (end > 0) {
+                    pendingSpace = out.length() > 0;
+                    appendWord(out, "women", pendingSpace && keepSpaces);
+                    pendingSpace = true;
+                    i = end;
+                    continue;
+                }
+            }
+            String folded;
+            int width = 1;
+            char f = Character.isSurrogate(c) ? MULTI : foldChar(c);
+            if (f == DROP) {
+                i++;
+                continue;
+            } else if (f != MULTI) {
+                folded = null;
+            } else if (Character.isHighSurrogate(c) && i + 1 < text.length()
+                    && Character.isLowSurrogate(text.charAt(i + 1))) {
+                width = 2;
+                folded = foldSlow(text.substring(i, i + 2));
+            } else {
+                folded = foldSlow(String.valueOf(c));
+            }
+            if (folded == null) {
+                if (f == ' ') {
+                    pendingSpace = out.length() > 0;
+                } else {
+                    appendChar(out, f, pendingSpace && keepSpaces);
+                    pendingSpace = false;
+                }
+            } else {
+                for (int k = 0; k < folded.length(); k++) {
+                    char fc = folded.charAt(k);
+                    if (fc == ' ') {
+                        pendingSpace = out.length() > 0;
+                    } else {
+                        appendChar(out, fc, pendingSpace && keepSpaces);
+                        pendingSpace = false;
+                    }
+                }
+            }
+            i += width;
+        }
+        return out.toString();
+    }
+
+    private static void appendChar(StringBuilder out, char c, boolean spaceBefore) {
+        if (spaceBefore) {
+            out.append(' ');
+        }
+        out.append(c);
+    }
+
+    private static void appendWord(StringBuilder out, String word, boolean spaceBefore) {
+        if (spaceBefore) {
+            out.append(' ');
+        }
+        out.append(word);
+    }
+
+    /**
+     * Koniec (wyłącznie) znacznika „(k)” zaczynającego się na {@code start}, albo -1. Znaki znikające
+     * przy składaniu (akcenty) mogą stać pomiędzy — tak jak w {@code (k)} szukanym po NFD.
+     */
+    private static int womenMarkerEnd(String text, int start) {
+        int i = skipDropped(text, start + 1);
+        if (i >= text.length() || Character.isSurrogate(text.charAt(i)) || foldChar(text.charAt(i)) != 'k') {
+            return -1;
+        }
+        i = skipDropped(text, i + 1);
+        return i < text.length() && text.charAt(i) == ')' ? i + 1 : -1;
+    }
+
+    private static int skipDropped(String text, int i) {
+        while (i < text.length()) {
+            char c = text.charAt(i);
+            if (!Character.isSurrogate(c)) {
+                if (foldChar(c) != DROP) {
+                    return i;
+                }
+                i++;
+            } else {
+                int width = Character.charCount(text.codePointAt(i));
+                if (!foldSlow(text.substring(i, i + width)).isEmpty()) {
+                    return i;
+                }
+                i += width;
+            }
+        }
+        return i;
+    }
+
+    private static char foldChar(char c) {
+        char f = FOLD[c];
+        if (f != UNKNOWN) {
+            return f;
+        }
+        String folded = foldSlow(String.valueOf(c));
+        if (folded.isEmpty()) {
+            f = DROP;
+        } else if (folded.length() == 1) {
+            f = folded.charAt(0);
+        } else {
+            f = MULTI;
+        }
+        // Wyścig między wątkami jest nieszkodliwy — każdy policzy tę samą wartość
+        FOLD[c] = f;
+        return f;
+    }
+
+    /** Dotychczasowy łańcuch dla jednego punktu kodowego — tylko przy pierwszym spotkaniu znaku spoza ASCII. */
+    private static String foldSlow(String codePoint) {
+        String lowered = Normalizer.normalize(codePoint, Normalizer.Form.NFD)
+                .replaceAll("\\p{M}", "")
+                .toLowerCase(Locale.ROOT)
+                .replace("ł", "l");
+        StringBuilder sb = new StringBuilder(lowered.length());
+        for (int i = 0; i < lowered.length(); i++) {
+            char c = lowered.charAt(i);
+            sb.append(isWordChar(c) ? c : ' ');
+        }
+        return sb.toString();
+    }
+
+    private static boolean isWordChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9');
+    }
+}
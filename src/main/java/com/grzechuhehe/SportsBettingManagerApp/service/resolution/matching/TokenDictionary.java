@@ -0,0 +1,111 @@
+package com.grzechuhehe.SportsBettingManagerApp.service.resolution.matching;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Słownik tokenów puli meczów cyklu: każdy token dostaje numer, a zbiór tokenów staje się posortowaną
+ * tablicą {@code int[]}. Jaccard liczony jest wtedy scalaniem tablic, bez budowania zbiorów części wspólnej
+ * i sumy — i daje dokładnie ten sam {@code double}, bo dzieli te same dwie liczby całkowite.
+ * Tokeny zakładu spoza słownika nie mogą trafić w żaden mecz, więc liczą się tylko do rozmiaru zbioru.
+ * Numery nadaje {@link #assign} przy budowie indeksu; później słownik jest tylko czytany.
+ */
+public final class TokenDictionary {
+
+    private static final int[] EMPTY = new int[0];
+
+    private final Map<String, Integer> ids = new HashMap<>();
+
+    /** Numery tokenów meczu (nadaje brakujące); tylko w wątku budującym indeks. */
+    public int[] assign(Set<String> tokens) {
+        if (tokens.isEmpty()) {
+            return EMPTY;
+        }
+        int[] result = new int[tokens.size()];
+        int n = 0;
+        for (String token : tokens) {
+            result[n++] = ids.computeIfAbsent(token, t -> ids.size());
+        }
+        Arrays.sort(result);
+        return result;
+    }
+
+    /** Zbiór tokenów zakładu: numery znanych tokenów i liczba tokenów, których nie ma w żadnym meczu. */
+    public TokenIds lookup(Set<String> tokens) {
+        if (tokens.isEmpty()) {
+            return TokenIds.NONE;
+        }
+        int[] known = new int[tokens.size()];
+        int n = 0;
+        for (String token : tokens) {
+            Integer id = ids.get(token);
+            if (id != null) {
+                known[n++] = id;
+            }
+        }
+        known = Arrays.copyOf(known, n);
+        Arrays.sort(known);
+        return new TokenIds(known, tokens.size() - n);
+    }
+
+    public record TokenIds(int[] known, int unknown) {
+        static final TokenIds NONE = new TokenIds(EMPTY, 0);
+
+        public int size() {
+            return known.length + unknown;
+        }
+
+        public boolean intersects(int[] other) {
+            return intersectionSize(known, other, EMPTY) > 0;
+        }
+    }
+
+    /** Jaccard zbioru zakładu {@code a} ze zbiorem meczu {@code b ∪ c} (np. tokeny gospodarzy i gości). */
+    public static double jaccard(TokenIds a, int[] b, int[] c) {
+        int intersection = intersectionSize(a.known(), b, c);
+        int union = a.size() + unionSize(b, c) - intersection;
+        if (union == 0) {
+            return 0.0;
+        }
+        return (double) intersection / union;
+    }
+
+    /** |a ∩ (b ∪ c)| dla posortowanych tablic bez powtórzeń. */
+    private static int intersectionSize(int[] a, int[] b, int[] c) {
+        int count = 0;
+        int j = 0;
+        int k = 0;
+        for (int value : a) {
+            while (j < b.length && b[j] < value) {
+                j++;
+            }
+            while (k < c.length && c[k] < value) {
+                k++;
+            }
+            if ((j < b.length && b[j] == value) || (k < c.length && c[k] == value)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static int unionSize(int[] b, int[] c) {
+        int common = 0;
+        int j = 0;
+        int k = 0;
+        while (j < b.length && k < c.length) {
+            if (b[j] < c[k]) {
+                j++;
+            } else if (b[j] > c[k]) {
+                k++;
+            } else {
+                common++;
+                j++;
+                k++;
+            }
+        }
+        return b.length + c.length - common;
+    }
+}
@@ -0,0 +1,65 @@
+package com.grzechuhehe.SportsBettingManagerApp.service.stats;
+
+import com.grzechuhehe.SportsBettingManagerApp.model.Bet;
+import com.grzechuhehe.SportsBettingManagerApp.model.enum_model.BetStatus;
+import com.grzechuhehe.SportsBettingManagerApp.service.CurrencyConversionService;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+
+/**
+ * Wkład pojedynczego zakładu głównego w agregaty statystyk. Zrzut robiony przed mutacją
+ * i porównywany ze stanem po niej daje deltę do nałożenia na user_stats / user_daily_pnl.
+ *
+ * @param aggregated czy agregat właściciela jest już zbudowany (inaczej delty nie mają sensu —
+ *                   pierwszy odczyt i tak przeliczy go od zera)
+ */
+public record BetStatsContribution(
+        Long userId,
+        String currency,
+        String sport,
+        BetStatus status,
+        BigDecimal stake,
+        BigDecimal profit,
+        LocalDate settledDay) {
+
+    static final String NO_SPORT = "";
+
+    /** Zwraca null dla nóg kuponu (parentBet != null) — liczone są wyłącznie zakłady główne. */
+    public static BetStatsContribution of(Bet bet, CurrencyConversionService currencies) {
+        if (bet == null || bet.getParentBet() != null || bet.getStatus() == null) {
+            return null;
+        }
+        Long userId = bet.getUser() != null ? bet.getUser().getId() : null;
+        boolean settled = bet.getStatus() != BetStatus.PENDING;
+        return new BetStatsContribution(
+                userId,
+                currencies.resolveDisplayCurrency(bet.getCurrency()),
+                bet.getSport() != null ? bet.getSport() : NO_SPORT,
+                bet.getStatus(),
+                cents(bet.getStake()),
+                settled ? cents(bet.getFinalProfit()) : BigDecimal.ZERO.setScale(2),
+                settled && bet.getSettledAt() != null ? bet.getSettledAt().toLocalDate() : null);
+    }
+
+    boolean settled() {
+        return status != BetStatus.PENDING;
+    }
+
+    /** Bez userId — dwa zrzuty tego samego zakładu różnią się tylko tym, co liczy agregat. */
+    boolean sameFigures(BetStatsContribution other) {
+        return other != null
+                && currency.equals(other.currency)
+                && sport.equals(other.sport)
+                && status == other.status
+                && stake.compareTo(other.stake) == 0
+                && profit.compareTo(other.profit) == 0
+                && java.util.Objects.equals(settledDay, other.settledDay);
+    }
+
+    // Kolumny zakładu mają scale=2 — zaokrąglamy tak jak zrobi to baza przy zapisie.
+    private static BigDecimal cents(BigDecimal amount) {
+        return amount == null ? BigDecimal.ZERO.setScale(2) : amount.setScale(2, RoundingMode.HALF_UP);
+    }
+}
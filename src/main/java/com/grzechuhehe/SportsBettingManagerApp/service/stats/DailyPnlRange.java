@@ -0,0 +1,21 @@
+package com.grzechuhehe.SportsBettingManagerApp.service.stats;
+
+import com.grzechuhehe.SportsBettingManagerApp.model.UserDailyPnl;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Wiersze user_daily_pnl z zakresu dat oraz zysk narosły przed jego początkiem (per waluta),
+ * od którego startuje krzywa kapitału. Bez dolnej granicy {@code openingProfitByCurrency} jest puste.
+ */
+public record DailyPnlRange(Map<String, BigDecimal> openingProfitByCurrency, List<UserDailyPnl> days) {
+
+    /** dzień → waluta → zysk, rosnąco po dniu; dni bez rozliczonych zakładów są pomijane. */
+    public TreeMap<LocalDate, Map<String, BigDecimal>> dailyProfitByCurrency() {
+        return UserStatsSnapshot.groupByDay(days);
+    }
+}
@@ -0,0 +1,139 @@
+package com.grzechuhehe.SportsBettingManagerApp.service.stats;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Pamięciowy cache wyników statystyk użytkownika (dashboard, /stats, advanced, heatmapa) z kluczem
+ * (użytkownik, waluta wyświetlania, rodzaj). Ograniczony liczbą wpisów (LRU) i czasem życia.
+ * Mutacje zakładów unieważniają wpisy użytkownika po commicie; licznik generacji pilnuje, by
+ * wynik policzony równolegle ze zmianą (ze starych danych) nie trafił już do cache.
+ */
+@Component
+@Slf4j
+public class UserAnalyticsCache {
+
+    public enum Kind { DASHBOARD, STATS, ADVANCED, HEATMAP }
+
+    // Generacje w stałej liczbie pasków zamiast mapy po wszystkich użytkownikach; kolizja oznacza
+    // najwyżej jeden niezapisany wynik, nigdy nieaktualny
+    private static final int GENERATION_STRIPES = 1024;
+
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final LongSupplier nanoClock;
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+    private final LinkedHashMap<Key, Entry> entries;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long expirations;
+    private long invalidations;
+
+    @Autowired
+    public UserAnalyticsCache(
+            @Value("${bet.stats.cache.max-entries:5000}") int maxEntries,
+            @Value("${bet.stats.cache.ttl:PT10M}") Duration ttl) {
+        this(maxEntries, ttl, System::nanoTime);
+    }
+
+    UserAnalyticsCache(int maxEntries, Duration ttl, LongSupplier nanoClock) {
+        this.maxEntries = maxEntries;
+        this.ttlNanos = ttl.toNanos();
+        this.nanoClock = nanoClock;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                if (size() > UserAnalyticsCache.this.maxEntries) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /** Wynik z cache albo policzony przez {@code loader} (poza blokadą) i zapamiętany. */
+    @SuppressWarnings("unchecked")
+    public <T> T get(Long userId, String displayCurrency, Kind kind, Supplier<T> loader) {
+        Key key = new Key(userId, displayCurrency, kind);
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                if (nanoClock.getAsLong() - entry.expiresAt() < 0) {
+                    hits++;
+                    return (T) entry.value();
+                }
+                entries.remove(key);
+                expirations++;
+            }
+            misses++;
+        }
+
+        int stripe = stripe(userId);
+        long generation = generations.get(stripe);
+        T value = loader.get();
+        synchronized (this) {
+            if (maxEntries > 0 && generations.get(stripe) == generation) {
+                entries.put(key, new Entry(value, nanoClock.getAsLong() + ttlNanos));
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Unieważnia wszystkie wyniki użytkownika. W transakcji — dopiero po commicie, żeby odczyt
+     * sprzed commitu nie zapisał ponownie starych danych; wycofana zmiana niczego nie czyści.
+     */
+    public void invalidate(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evictUser(userId);
+                }
+            });
+        } else {
+            evictUser(userId);
+        }
+    }
+
+    public synchronized Metrics metrics() {
+        return new Metrics(entries.size(), maxEntries, hits, misses, evictions, expirations, invalidations);
+    }
+
+    private void evictUser(Long userId) {
+        generations.incrementAndGet(stripe(userId));
+        synchronized (this) {
+            invalidations++;
+            entries.keySet().removeIf(key -> key.userId().equals(userId));
+        }
+        log.debug("Unieważniono cache statystyk użytkownika {}", userId);
+    }
+
+    private static int stripe(Long userId) {
+        return Long.hashCode(userId) & (GENERATION_STRIPES - 1);
+    }
+
+    public record Metrics(int size, int maxEntries, long hits, long misses, long evictions,
+                          long expirations, long invalidations) {}
+
+    private record Key(Long userId, String displayCurrency, Kind kind) {}
+
+    private record Entry(Object value, long expiresAt) {}
+}
@@ -0,0 +1,104 @@
+package com.grzechuhehe.SportsBettingManagerApp.service.stats;
+
+import com.grzechuhehe.SportsBettingManagerApp.model.UserDailyPnl;
+import com.grzechuhehe.SportsBettingManagerApp.model.UserStats;
+import com.grzechuhehe.SportsBettingManagerApp.model.enum_model.BetStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sumuje wkłady zakładów w kubełki (waluta, sport) i (dzień, waluta). Ten sam kod liczy
+ * delty przy mutacjach (sign = ±1) i pełny agregat przy przebudowie od zera.
+ */
+final class UserStatsAccumulator {
+
+    private final Long userId;
+    private final Map<BucketKey, UserStats> buckets = new LinkedHashMap<>();
+    private final Map<DayKey, UserDailyPnl> days = new LinkedHashMap<>();
+
+    UserStatsAccumulator(Long userId) {
+        this.userId = userId;
+    }
+
+    void add(BetStatsContribution c, int sign) {
+        if (c == null) {
+            return;
+        }
+        addBucket(c.currency(), c.sport(), c.status(), sign, signed(c.stake(), sign), signed(c.profit(), sign));
+        if (c.settledDay() != null) {
+            addDay(c.settledDay(), c.currency(), sign, signed(c.stake(), sign), signed(c.profit(), sign));
+        }
+    }
+
+    void addBucket(String currency, String sport, BetStatus status, long bets, BigDecimal staked, BigDecimal profit) {
+        UserStats bucket = buckets.computeIfAbsent(new BucketKey(currency, sport), key -> {
+            UserStats s = new UserStats();
+            s.setUserId(userId);
+            s.setCurrency(key.currency());
+            s.setSport(key.sport());
+            return s;
+        });
+        bucket.setTotalBets(bucket.getTotalBets() + bets);
+        switch (status) {
+            case PENDING -> bucket.setPendingBets(bucket.getPendingBets() + bets);
+            case WON -> bucket.setWonBets(bucket.getWonBets() + bets);
+            case LOST -> bucket.setLostBets(bucket.getLostBets() + bets);
+            case VOID -> bucket.setVoidBets(bucket.getVoidBets() + bets);
+            default -> bucket.setOtherBets(bucket.getOtherBets() + bets);
+        }
+        bucket.setStaked(bucket.getStaked().add(staked));
+        bucket.setProfit(bucket.getProfit().add(profit));
+    }
+
+    void addDay(LocalDate date, String currency, long bets, BigDecimal staked, BigDecimal profit) {
+        UserDailyPnl day = days.computeIfAbsent(new DayKey(date, currency), key -> {
+            UserDailyPnl d = new UserDailyPnl();
+            d.setUserId(userId);
+            d.setDay(key.day());
+            d.setCurrency(key.currency());
+            return d;
+        });
+        day.setBets(day.getBets() + bets);
+        day.setStaked(day.getStaked().add(staked));
+        day.setProfit(day.getProfit().add(profit));
+    }
+
+    UserStatsSnapshot toSnapshot() {
+        List<UserDailyPnl> sortedDays = new ArrayList<>(days.values());
+        sortedDays.sort(Comparator.comparing(UserDailyPnl::getDay));
+        return new UserStatsSnapshot(new ArrayList<>(buckets.values()), sortedDays);
+    }
+
+    Collection<UserStats> buckets() {
+        return buckets.values();
+    }
+
+    Collection<UserDailyPnl> days() {
+        return days.values();
+    }
+
+    static boolean isZero(UserStats s) {
+        return s.getTotalBets() == 0 && s.getPendingBets() == 0 && s.getWonBets() == 0
+                && s.getLostBets() == 0 && s.getVoidBets() == 0 && s.getOtherBets() == 0
+                && s.getStaked().signum() == 0 && s.getProfit().signum() == 0;
+    }
+
+    static boolean isZero(UserDailyPnl d) {
+        return d.getBets() == 0 && d.getStaked().signum() == 0 && d.getProfit().signum() == 0;
+    }
+
+    private static BigDecimal signed(BigDecimal amount, int sign) {
+        return sign < 0 ? amount.negate() : amount;
+    }
+
+    private record BucketKey(String currency, String sport) {}
+
+    private record DayKey(LocalDate day, String currency) {}
+}
@@ -0,0 +1,236 @@
+package com.grzechuhehe.SportsBettingManagerApp.service.stats;
+
+import com.grzechuhehe.SportsBettingManagerApp.model.Bet;
+import com.grzechuhehe.SportsBettingManagerApp.model.User;
+import com.grzechuhehe.SportsBettingManagerApp.model.UserDailyPnl;
+import com.grzechuhehe.SportsBettingManagerApp.model.UserStats;
+import com.grzechuhehe.SportsBettingManagerApp.model.enum_model.BetStatus;
+import com.grzechuhehe.SportsBettingManagerApp.repository.BetRepository;
+import com.grzechuhehe.SportsBettingManagerApp.repository.UserDailyPnlRepository;
+import com.grzechuhehe.SportsBettingManagerApp.repository.UserRepository;
+import com.grzechuhehe.SportsBettingManagerApp.repository.UserStatsRepository;
+import com.grzechuhehe.SportsBettingManagerApp.repository.projection.BetBucketTotals;
+import com.grzechuhehe.SportsBettingManagerApp.repository.projection.CurrencyAmount;
+import com.grzechuhehe.SportsBettingManagerApp.repository.projection.DailyPnlTotals;
+import com.grzechuhehe.SportsBettingManagerApp.service.CurrencyConversionService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Utrzymuje agregaty user_stats / user_daily_pnl. Mutacje zakładów przekazują zrzut sprzed zmiany
+ * ({@link #snapshot(Bet)}) i zakład po zmianie ({@link #record(BetStatsContribution, Bet)}) —
+ * na agregat nakładana jest tylko różnica (upsert z przyrostem), w tej samej transakcji co zmiana zakładu.
+ * Agregat użytkownika jest budowany leniwie przy pierwszym odczycie (User.statsRebuiltAt); delty i przebudowa
+ * biorą tę samą blokadę wiersza użytkownika, więc żadna zmiana zakładu nie wypada między nie.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class UserStatsService {
+
+    // Zakres kolumny DATE w MySQL — granice zapytania, gdy klient nie podał from/to
+    private static final LocalDate MIN_DAY = LocalDate.of(1000, 1, 1);
+    private static final LocalDate MAX_DAY = LocalDate.of(9999, 12, 31);
+
+    private final BetRepository betRepository;
+    private final UserRepository userRepository;
+    private final UserStatsRepository userStatsRepository;
+    private final UserDailyPnlRepository userDailyPnlRepository;
+    private final CurrencyConversionService currencyConversionService;
+
+    public BetStatsContribution snapshot(Bet bet) {
+        return BetStatsContribution.of(bet, currencyConversionService);
+    }
+
+    @Transactional
+    public void record(BetStatsContribution before, Bet after) {
+        BetStatsContribution current = snapshot(after);
+        if (before == null && current == null) {
+            return;
+        }
+        if (current != null && current.sameFigures(before)) {
+            return;
+        }
+        BetStatsContribution owner = current != null ? current : before;
+        if (owner.userId() == null) {
+            return;
+        }
+        // Stan agregatu z bazy pod blokadą rebuild(): encja User zakładu może być sprzed trwającej przebudowy,
+        // a pominięta wtedy delta nie trafiłaby ani tu, ani do compute() (nie widzi niezatwierdzonego zakładu)
+        Long rebuilt = userRepository.lockStatsRebuilt(owner.userId());
+        if (rebuilt == null || rebuilt == 0) {
+            return;
+        }
+
+        UserStatsAccumulator delta = new UserStatsAccumulator(owner.userId());
+        delta.add(before, -1);
+        delta.add(current, 1);
+        LocalDateTime now = LocalDateTime.now();
+
+        for (UserStats d : delta.buckets()) {
+            if (UserStatsAccumulator.isZero(d)) {
+                continue;
+            }
+            userStatsRepository.upsertDelta(
+                    d.getUserId(), d.getCurrency(), d.getSport(),
+                    d.getTotalBets(), d.getPendingBets(), d.getWonBets(),
+                    d.getLostBets(), d.getVoidBets(), d.getOtherBets(),
+                    d.getStaked(), d.getProfit(), now);
+        }
+        for (UserDailyPnl d : delta.days()) {
+            if (UserStatsAccumulator.isZero(d)) {
+                continue;
+            }
+            userDailyPnlRepository.upsertDelta(
+                    d.getUserId(), d.getDay(), d.getCurrency(), d.getProfit(), d.getStaked(), d.getBets());
+        }
+    }
+
+    /** Agregat użytkownika; przy pierwszym odczycie budowany od zera z tabeli bet. */
+    @Transactional
+    public UserStatsSnapshot load(User user) {
+        if (user.getStatsRebuiltAt() == null) {
+            UserStatsSnapshot rebuilt = rebuild(user.getId());
+            user.setStatsRebuiltAt(LocalDateTime.now());
+            return rebuilt;
+        }
+        return new UserStatsSnapshot(
+                userStatsRepository.findByUserId(user.getId()),
+                userDailyPnlRepository.findByUserIdOrderByDayAsc(user.getId()));
+    }
+
+    /**
+     * Dzienne wyniki z zakresu [from, to] (null = bez granicy): co najwyżej jeden wiersz na dzień
+     * i walutę z zakresu zamiast całej historii, plus suma zysku sprzed {@code from}.
+     */
+    @Transactional
+    public DailyPnlRange loadDailyPnl(User user, LocalDate from, LocalDate to) {
+        if (user.getStatsRebuiltAt() == null) {
+            rebuild(user.getId());
+            user.setStatsRebuiltAt(LocalDateTime.now());
+        }
+        List<UserDailyPnl> days = userDailyPnlRepository.findByUserIdAndDayBetweenOrderByDayAsc(
+                user.getId(), from != null ? from : MIN_DAY, to != null ? to : MAX_DAY);
+        Map<String, BigDecimal> opening = new HashMap<>();
+        if (from != null) {
+            for (CurrencyAmount c : userDailyPnlRepository.sumProfitBefore(user.getId(), from)) {
+                opening.merge(c.currency(), orZero(c.amount()), BigDecimal::add);
+            }
+        }
+        return new DailyPnlRange(opening, days);
+    }
+
+    /**
+     * Przelicza agregat od zera i zastępuje nim zapisane wiersze. Blokada wiersza użytkownika szereguje
+     * równoległe przebudowy (np. dwa pierwsze odczyty dashboardu): druga czeka na commit pierwszej i podmienia
+     * jej wiersze, zamiast wstawiać te same kubełki i łamać unikalny klucz.
+     */
+    @Transactional
+    public UserStatsSnapshot rebuild(Long userId) {
+        userRepository.lockById(userId);
+        UserStatsSnapshot fresh = compute(userId);
+        LocalDateTime now = LocalDateTime.now();
+        userStatsRepository.deleteByUserId(userId);
+        userDailyPnlRepository.deleteByUserId(userId);
+        fresh.buckets().forEach(s -> s.setUpdatedAt(now));
+        userStatsRepository.saveAll(fresh.buckets());
+        userDailyPnlRepository.saveAll(fresh.days());
+        userRepository.markStatsRebuilt(userId, now);
+        log.debug("Przebudowano agregat statystyk użytkownika {}: {} kubełków, {} dni",
+                userId, fresh.buckets().size(), fresh.days().size());
+        return fresh;
+    }
+
+    /**
+     * Porównuje zapisany agregat z przeliczonym od zera. Zwraca opisy rozbieżności
+     * (pusta lista = agregat zgodny z tabelą bet).
+     */
+    @Transactional(readOnly = true)
+    public List<String> verify(Long userId) {
+        UserStatsSnapshot fresh = compute(userId);
+        List<String> drift = new ArrayList<>();
+
+        Map<String, UserStats> stored = new HashMap<>();
+        for (UserStats s : userStatsRepository.findByUserId(userId)) {
+            if (!UserStatsAccumulator.isZero(s)) {
+                stored.put(s.getCurrency() + "|" + s.getSport(), s);
+            }
+        }
+        for (UserStats expected : fresh.buckets()) {
+            String key = expected.getCurrency() + "|" + expected.getSport();
+            UserStats actual = stored.remove(key);
+            if (actual == null || !sameBucket(expected, actual)) {
+                drift.add("user_stats[" + key + "]");
+            }
+        }
+        stored.keySet().forEach(key -> drift.add("user_stats[" + key + "] (nadmiarowy)"));
+
+        Map<String, UserDailyPnl> storedDays = new HashMap<>();
+        for (UserDailyPnl d : userDailyPnlRepository.findByUserIdOrderByDayAsc(userId)) {
+            if (!UserStatsAccumulator.isZero(d)) {
+                storedDays.put(d.getDay() + "|" + d.getCurrency(), d);
+            }
+        }
+        for (UserDailyPnl expected : fresh.days()) {
+            String key = expected.getDay() + "|" + expected.getCurrency();
+            UserDailyPnl actual = storedDays.remove(key);
+            if (actual == null
+                    || actual.getBets() != expected.getBets()
+                    || actual.getProfit().compareTo(expected.getProfit()) != 0
+                    || actual.getStaked().compareTo(expected.getStaked()) != 0) {
+                drift.add("user_daily_pnl[" + key + "]");
+            }
+        }
+        storedDays.keySet().forEach(key -> drift.add("user_daily_pnl[" + key + "] (nadmiarowy)"));
+        return drift;
+    }
+
+    /** Agregat od zera z dwóch zapytań GROUP BY — bez ładowania encji Bet do pamięci. */
+    private UserStatsSnapshot compute(Long userId) {
+        UserStatsAccumulator accumulator = new UserStatsAccumulator(userId);
+        for (BetBucketTotals t : betRepository.sumRootBucketsByUserId(userId)) {
+            boolean settled = t.status() != BetStatus.PENDING;
+            accumulator.addBucket(
+                    currencyConversionService.resolveDisplayCurrency(t.currency()),
+                    t.sport() != null ? t.sport() : BetStatsContribution.NO_SPORT,
+                    t.status(),
+                    t.bets(),
+                    orZero(t.staked()),
+                    settled ? orZero(t.profit()) : BigDecimal.ZERO);
+        }
+        for (DailyPnlTotals d : betRepository.sumRootDailyPnlByUserId(userId, BetStatus.PENDING)) {
+            accumulator.addDay(
+                    d.day(),
+                    currencyConversionService.resolveDisplayCurrency(d.currency()),
+                    d.bets(),
+                    orZero(d.staked()),
+                    orZero(d.profit()));
+        }
+        return accumulator.toSnapshot();
+    }
+
+    private static BigDecimal orZero(BigDecimal amount) {
+        return amount != null ? amount : BigDecimal.ZERO;
+    }
+
+    private static boolean sameBucket(UserStats a, UserStats b) {
+        return a.getTotalBets() == b.getTotalBets()
+                && a.getPendingBets() == b.getPendingBets()
+                && a.getWonBets() == b.getWonBets()
+                && a.getLostBets() == b.getLostBets()
+                && a.getVoidBets() == b.getVoidBets()
+                && a.getOtherBets() == b.getOtherBets()
+                && a.getStaked().compareTo(b.getStaked()) == 0
+                && a.getProfit().compareTo(b.getProfit()) == 0;
+    }
+}
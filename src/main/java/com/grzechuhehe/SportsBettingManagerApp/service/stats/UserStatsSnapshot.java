@@ -0,0 +1,92 @@
+package com.grzechuhehe.SportsBettingManagerApp.service.stats;
+
+import com.grzechuhehe.SportsBettingManagerApp.model.Bet;
+import com.grzechuhehe.SportsBettingManagerApp.model.UserDailyPnl;
+import com.grzechuhehe.SportsBettingManagerApp.model.UserStats;
+import com.grzechuhehe.SportsBettingManagerApp.service.CurrencyConversionService;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Odczytany agregat statystyk użytkownika: kilka wierszy per (waluta, sport) oraz po jednym
+ * per (dzień, waluta). Kwoty zostają w walucie zakładu — przeliczenie na walutę wyświetlania
+ * robi BettingService raz na walutę, a nie raz na zakład.
+ */
+public record UserStatsSnapshot(List<UserStats> buckets, List<UserDailyPnl> days) {
+
+    /** Liczy agregat w pamięci z listy zakładów (nogi kuponów są pomijane). */
+    public static UserStatsSnapshot fromBets(Long userId, Iterable<Bet> bets, CurrencyConversionService currencies) {
+        UserStatsAccumulator accumulator = new UserStatsAccumulator(userId);
+        for (Bet bet : bets) {
+            accumulator.add(BetStatsContribution.of(bet, currencies), 1);
+        }
+        return accumulator.toSnapshot();
+    }
+
+    public long totalBets() {
+        return buckets.stream().mapToLong(UserStats::getTotalBets).sum();
+    }
+
+    public long pendingBets() {
+        return buckets.stream().mapToLong(UserStats::getPendingBets).sum();
+    }
+
+    public long wonBets() {
+        return buckets.stream().mapToLong(UserStats::getWonBets).sum();
+    }
+
+    public long lostBets() {
+        return buckets.stream().mapToLong(UserStats::getLostBets).sum();
+    }
+
+    public Map<String, BigDecimal> stakedByCurrency() {
+        Map<String, BigDecimal> result = new HashMap<>();
+        for (UserStats s : buckets) {
+            result.merge(s.getCurrency(), s.getStaked(), BigDecimal::add);
+        }
+        return result;
+    }
+
+    public Map<String, BigDecimal> profitByCurrency() {
+        Map<String, BigDecimal> result = new HashMap<>();
+        for (UserStats s : buckets) {
+            result.merge(s.getCurrency(), s.getProfit(), BigDecimal::add);
+        }
+        return result;
+    }
+
+    /** sport → waluta → zysk; tylko sporty z co najmniej jednym rozliczonym zakładem. */
+    public Map<String, Map<String, BigDecimal>> profitBySportAndCurrency() {
+        Map<String, Map<String, BigDecimal>> result = new HashMap<>();
+        for (UserStats s : buckets) {
+            if (BetStatsContribution.NO_SPORT.equals(s.getSport()) || s.getTotalBets() - s.getPendingBets() <= 0) {
+                continue;
+            }
+            result.computeIfAbsent(s.getSport(), k -> new HashMap<>())
+                    .merge(s.getCurrency(), s.getProfit(), BigDecimal::add);
+        }
+        return result;
+    }
+
+    /** dzień → waluta → zysk, rosnąco po dniu; dni bez rozliczonych zakładów są pomijane. */
+    public TreeMap<LocalDate, Map<String, BigDecimal>> dailyProfitByCurrency() {
+        return groupByDay(days);
+    }
+
+    static TreeMap<LocalDate, Map<String, BigDecimal>> groupByDay(List<UserDailyPnl> days) {
+        TreeMap<LocalDate, Map<String, BigDecimal>> result = new TreeMap<>();
+        for (UserDailyPnl d : days) {
+            if (d.getBets() <= 0) {
+                continue;
+            }
+            result.computeIfAbsent(d.getDay(), k -> new HashMap<>())
+                    .merge(d.getCurrency(), d.getProfit(), BigDecimal::add);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,31 @@
+-- Dokumentacja schematu (projekt używa ddl-auto=update, brak Flyway — ten plik nie jest wykonywany).
+-- Agregaty utrzymywane przez UserStatsService; przebudowa: bet.stats.rebuild-on-startup=true.
+CREATE TABLE user_stats (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    user_id BIGINT NOT NULL,
+    currency VARCHAR(3) NOT NULL,
+    sport VARCHAR(255) NOT NULL,
+    total_bets BIGINT NOT NULL DEFAULT 0,
+    pending_bets BIGINT NOT NULL DEFAULT 0,
+    won_bets BIGINT NOT NULL DEFAULT 0,
+    lost_bets BIGINT NOT NULL DEFAULT 0,
+    void_bets BIGINT NOT NULL DEFAULT 0,
+    other_bets BIGINT NOT NULL DEFAULT 0,
+    staked DECIMAL(19, 2) NOT NULL DEFAULT 0,
+    profit DECIMAL(19, 2) NOT NULL DEFAULT 0,
+    updated_at DATETIME(6) NULL,
+    UNIQUE KEY uk_user_stats_bucket (user_id, currency, sport)
+);
+
+CREATE TABLE user_daily_pnl (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    user_id BIGINT NOT NULL,
+    day DATE NOT NULL,
+    currency VARCHAR(3) NOT NULL,
+    profit DECIMAL(19, 2) NOT NULL DEFAULT 0,
+    staked DECIMAL(19, 2) NOT NULL DEFAULT 0,
+    bets BIGINT NOT NULL DEFAULT 0,
+    UNIQUE KEY uk_user_daily_pnl (user_id, day, currency)
+);
+
+ALTER TABLE user ADD COLUMN stats_rebuilt_at DATETIME(6) NULL;
@@ -0,0 +1,4 @@
+-- Dokumentacja schematu (ddl-auto=update, brak Flyway). Wspiera GET /api/bets/page:
+-- korzenie użytkownika po (placed_at, id) malejąco oraz dociąganie nóg po parent_bet_id.
+ALTER TABLE bet
+    ADD KEY idx_bet_user_parent_placed (user_id, parent_bet_id, placed_at, id);
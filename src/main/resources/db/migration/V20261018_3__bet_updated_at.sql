@@ -0,0 +1,5 @@
+-- Dokumentacja schematu (ddl-auto=update, brak Flyway). Znacznik zmian dla GET /api/bets/changes.
+-- Istniejące wiersze zostają z NULL — klient i tak zaczyna od pełnej listy, delta obejmuje późniejsze zapisy.
+ALTER TABLE bet
+    ADD COLUMN updated_at DATETIME(6) NULL,
+    ADD KEY idx_bet_user_updated (user_id, updated_at);
@@ -0,0 +1,4 @@
+-- Dokumentacja schematu (ddl-auto=update, brak Flyway). Wpisy negatywne (source = 'NEGATIVE', payload '[]')
+-- dzielą tabelę i klucz query_hash z wpisami z danymi; miss_count steruje wykładniczym TTL.
+ALTER TABLE sofascore_query_cache
+    ADD COLUMN miss_count INT NOT NULL DEFAULT 0;
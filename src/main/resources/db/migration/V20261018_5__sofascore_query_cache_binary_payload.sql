@@ -0,0 +1,6 @@
+-- Dokumentacja schematu (ddl-auto=update, brak Flyway). Payload binarny: bajt formatu + gzip(Smile).
+-- Stare wiersze zostają w payload_json i są czytane bez zmian; zadanie w tle przekodowuje je do payload.
+-- ddl-auto nie zdejmuje NOT NULL z istniejącej kolumny — MODIFY trzeba wykonać ręcznie.
+ALTER TABLE sofascore_query_cache
+    ADD COLUMN payload MEDIUMBLOB NULL,
+    MODIFY COLUMN payload_json MEDIUMTEXT NULL;
@@ -0,0 +1,34 @@
+-- Dokumentacja schematu (ddl-auto=update, brak Flyway). Znormalizowany magazyn meczów SofaScore
+-- (bet.resolution.cache-event-store=true): mecz raz w sofascore_event, zapytania wskazują go przez
+-- sofascore_query_event; wiersz sofascore_query_cache ma wtedy payload_json i payload = NULL.
+CREATE TABLE sofascore_event (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    event_key VARCHAR(255) NOT NULL,
+    event_id VARCHAR(64) NULL,
+    url VARCHAR(1024) NULL,
+    type VARCHAR(32) NULL,
+    sport VARCHAR(64) NULL,
+    name VARCHAR(512) NULL,
+    home_team VARCHAR(255) NULL,
+    away_team VARCHAR(255) NULL,
+    home_score INT NULL,
+    away_score INT NULL,
+    status_type VARCHAR(32) NULL,
+    winner_code INT NULL,
+    start_timestamp BIGINT NULL,
+    start_time DATETIME(6) NULL,
+    tournament VARCHAR(255) NULL,
+    statistics MEDIUMBLOB NULL,
+    updated_at DATETIME(6) NULL,
+    UNIQUE KEY uk_sofascore_event_key (event_key),
+    KEY idx_sofascore_event_start_time (start_time)
+);
+
+CREATE TABLE sofascore_query_event (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    query_hash VARCHAR(64) NOT NULL,
+    event_key VARCHAR(255) NOT NULL,
+    event_index INT NOT NULL,
+    UNIQUE KEY uk_sofascore_query_event (query_hash, event_key),
+    KEY idx_sofascore_query_event_key (event_key)
+);
@@ -0,0 +1,7 @@
+-- Dokumentacja schematu (ddl-auto=update, brak Flyway). Cache wzbogacenia statystykami
+-- (bet.resolution.enrichment-cache-enabled=true): NULL = mecz zakończony, statystyki ważne bezterminowo.
+ALTER TABLE sofascore_event ADD COLUMN statistics_expires_at DATETIME(6) NULL;
+
+-- Statystyki zapisane przed kolumną dla meczów niezakończonych nie mogą uchodzić za ostateczne
+UPDATE sofascore_event SET statistics_expires_at = updated_at
+WHERE statistics IS NOT NULL AND (status_type IS NULL OR status_type <> 'finished');
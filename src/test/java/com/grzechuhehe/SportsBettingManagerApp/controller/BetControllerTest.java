@@ -2,9 +2,12 @@ package com.grzechuhehe.SportsBettingManagerApp.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.grzechuhehe.SportsBettingManagerApp.config.AuthEntryPointJwt;
+import com.grzechuhehe.SportsBettingManagerApp.dto.BetCursorPage;
 import com.grzechuhehe.SportsBettingManagerApp.dto.BetRequest;
+import com.grzechuhehe.SportsBettingManagerApp.dto.BetResponse;
 import com.grzechuhehe.SportsBettingManagerApp.dto.CreateBetRequest;
 import com.grzechuhehe.SportsBettingManagerApp.dto.DashboardStatsDTO;
+import com.grzechuhehe.SportsBettingManagerApp.dto.HeatmapResponse;
 import com.grzechuhehe.SportsBettingManagerApp.model.Bet;
 import com.grzechuhehe.SportsBettingManagerApp.model.User;
 import com.grzechuhehe.SportsBettingManagerApp.model.enum_model.BetStatus;
@@ -15,9 +18,13 @@ import com.grzechuhehe.SportsBettingManagerApp.repository.BetResolutionAttemptRe
 import com.grzechuhehe.SportsBettingManagerApp.repository.UserRepository;
 import com.grzechuhehe.SportsBettingManagerApp.service.BettingService;
 import com.grzechuhehe.SportsBettingManagerApp.service.ImageStorageService;
+import com.grzechuhehe.SportsBettingManagerApp.service.export.BetExportService;
+import com.grzechuhehe.SportsBettingManagerApp.service.stats.UserAnalyticsCache;
 import com.grzechuhehe.SportsBettingManagerApp.service.resolution.BetResolutionService;
 import com.grzechuhehe.SportsBettingManagerApp.service.resolution.ResolutionCycleMetrics;
 import com.grzechuhehe.SportsBettingManagerApp.service.resolution.ResolutionCycleMetricsHolder;
+import com.grzechuhehe.SportsBettingManagerApp.service.resolution.SofaScoreQueryL1Cache;
+import com.grzechuhehe.SportsBettingManagerApp.service.resolution.discovery.SearchBatchSample;
 import com.grzechuhehe.SportsBettingManagerApp.util.JwtUtils;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -33,13 +40,16 @@ import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -71,6 +81,15 @@ class BetControllerTest {
     @MockBean
     private ImageStorageService imageStorageService;
 
+    @MockBean
+    private BetExportService betExportService;
+
+    @MockBean
+    private UserAnalyticsCache analyticsCache;
+
+    @MockBean
+    private SofaScoreQueryL1Cache sofaScoreL1Cache;
+
     @MockBean
     private JwtUtils jwtUtils;
 
@@ -152,7 +171,7 @@ class BetControllerTest {
                 "PLN"
         );
 
-        Mockito.when(bettingService.getDashboardStats(any(User.class))).thenReturn(stats);
+        Mockito.when(bettingService.getDashboardStats(any(User.class), isNull(), isNull())).thenReturn(stats);
 
         // When & Then
         mockMvc.perform(get("/api/bets/dashboard-stats"))
@@ -164,6 +183,32 @@ class BetControllerTest {
                 .andExpect(jsonPath("$.totalStaked").value(1000.00));
     }
 
+    @Test
+    @WithMockUser(username = "testuser")
+    void getHeatmap_ShouldPassDateRange() throws Exception {
+        Mockito.when(bettingService.getHeatmapData(testUser, LocalDate.of(2026, 1, 1), LocalDate.of(2026, 1, 31)))
+                .thenReturn(new HeatmapResponse("PLN", Map.of("2026-01-05", new BigDecimal("12.50"))));
+
+        mockMvc.perform(get("/api/bets/heatmap").param("from", "2026-01-01").param("to", "2026-01-31"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.dailyProfit['2026-01-05']").value(12.50));
+    }
+
+    @Test
+    @WithMockUser(username = "testuser")
+    void getBetsPage_ShouldPassCursorAndReturnNextCursor() throws Exception {
+        BetResponse bet = new BetResponse();
+        bet.setId(7L);
+        Mockito.when(bettingService.getUserBetsPage(testUser, "abc", 25))
+                .thenReturn(new BetCursorPage(List.of(bet), "def", false));
+
+        mockMvc.perform(get("/api/bets/page").param("cursor", "abc").param("size", "25"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].id").value(7L))
+                .andExpect(jsonPath("$.nextCursor").value("def"))
+                .andExpect(jsonPath("$.last").value(false));
+    }
+
     @Test
     @WithMockUser(username = "testuser")
     void deleteBet_ShouldReturnOk_WhenBetExists() throws Exception {
@@ -224,7 +269,8 @@ class BetControllerTest {
     void getLastResolutionCycleMetrics_ShouldReturnOk_WhenDebugEnabledAndMetricsPresent() throws Exception {
         ReflectionTestUtils.setField(betController, "debugEndpoints", true);
         ResolutionCycleMetrics metrics = new ResolutionCycleMetrics(
-                "cycle-1", 3, 2, 1, 1, 0, 1, 0.24, 5L, 79L, true);
+                "cycle-1", 3, 2, 1, 1, 0, 1, 0.24, 5L, 79L, true,
+                9, List.of(new SearchBatchSample(8, 31, 142_000L, true, false)));
         Mockito.when(resolutionMetricsHolder.getLast()).thenReturn(Optional.of(metrics));
 
         mockMvc.perform(get("/api/bets/resolution/metrics/last-cycle"))
@@ -234,7 +280,9 @@ class BetControllerTest {
                 .andExpect(jsonPath("$.settled").value(1))
                 .andExpect(jsonPath("$.successLast24h").value(5))
                 .andExpect(jsonPath("$.pendingLeaves").value(79))
-                .andExpect(jsonPath("$.healthAlert").value(true));
+                .andExpect(jsonPath("$.healthAlert").value(true))
+                .andExpect(jsonPath("$.searchBatchSize").value(9))
+                .andExpect(jsonPath("$.searchBatches[0].latencyMs").value(142000));
     }
 
     @Test
@@ -1,5 +1,6 @@
 package com.grzechuhehe.SportsBettingManagerApp.controller;
 
+import com.grzechuhehe.SportsBettingManagerApp.dto.BetImportResult;
 import com.grzechuhehe.SportsBettingManagerApp.model.Bet;
 import com.grzechuhehe.SportsBettingManagerApp.model.User;
 import com.grzechuhehe.SportsBettingManagerApp.model.enum_model.BetStatus;
@@ -7,6 +8,8 @@ import com.grzechuhehe.SportsBettingManagerApp.model.enum_model.BetType;
 import com.grzechuhehe.SportsBettingManagerApp.repository.UserRepository;
 import com.grzechuhehe.SportsBettingManagerApp.service.ImageStorageService;
 import com.grzechuhehe.SportsBettingManagerApp.service.ProfileAnalysisOrchestrator;
+import com.grzechuhehe.SportsBettingManagerApp.service.bulk.BetBulkImportService;
+import com.grzechuhehe.SportsBettingManagerApp.service.export.BetExportFormat;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -36,13 +39,14 @@ class BetImportControllerTest {
     @Mock private UserRepository userRepository;
     @Mock private ImageStorageService imageStorageService;
     @Mock private ProfileAnalysisOrchestrator orchestrator;
+    @Mock private BetBulkImportService betBulkImportService;
 
     private MockMvc mockMvc;
 
     @BeforeEach
     void setUp() {
         BetImportController controller =
-                new BetImportController(userRepository, imageStorageService, orchestrator);
+                new BetImportController(userRepository, imageStorageService, orchestrator, betBulkImportService);
         mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
         SecurityContextHolder.getContext().setAuthentication(
                 new UsernamePasswordAuthenticationToken("john", null));
@@ -91,4 +95,36 @@ class BetImportControllerTest {
         mockMvc.perform(multipart("/api/bets/import-from-image").file(file))
                 .andExpect(status().isUnprocessableEntity());
     }
+
+    @Test
+    void bulkImportPicksFormatFromFileExtension() throws Exception {
+        User user = new User();
+        when(userRepository.findByUsername("john")).thenReturn(Optional.of(user));
+        when(betBulkImportService.importBets(eq(user), eq(BetExportFormat.NDJSON), any()))
+                .thenReturn(new BetImportResult(2, 1, List.of("Row 3: odds: Odds cannot be null")));
+
+        MockMultipartFile file = new MockMultipartFile(
+                "file", "historia.ndjson", "application/x-ndjson", "{}\n".getBytes());
+
+        mockMvc.perform(multipart("/api/bets/import").file(file))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(2))
+                .andExpect(jsonPath("$.rejected").value(1))
+                .andExpect(jsonPath("$.errors[0]").value("Row 3: odds: Odds cannot be null"));
+    }
+
+    @Test
+    void bulkImportReturns400ForMalformedFile() throws Exception {
+        User user = new User();
+        when(userRepository.findByUsername("john")).thenReturn(Optional.of(user));
+        when(betBulkImportService.importBets(eq(user), eq(BetExportFormat.CSV), any()))
+                .thenThrow(new IllegalArgumentException("Row 1: unterminated quoted field"));
+
+        MockMultipartFile file = new MockMultipartFile(
+                "file", "historia.csv", "text/csv", "id,odds\n\"1".getBytes());
+
+        mockMvc.perform(multipart("/api/bets/import").file(file))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.status").value("invalid_file"));
+    }
 }
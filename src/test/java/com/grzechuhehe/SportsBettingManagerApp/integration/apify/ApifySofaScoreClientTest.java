@@ -4,7 +4,9 @@ import com.grzechuhehe.SportsBettingManagerApp.integration.apify.dto.SofaScoreEv
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.test.web.client.ExpectedCount;
 import org.springframework.test.web.client.MockRestServiceServer;
 import org.springframework.web.client.RestClient;
 
@@ -14,6 +16,7 @@ import static org.hamcrest.Matchers.containsString;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.springframework.test.web.client.match.MockRestRequestMatchers.method;
 import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
 import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
 
 class ApifySofaScoreClientTest {
@@ -97,4 +100,18 @@ class ApifySofaScoreClientTest {
 
         assertTrue(result.isEmpty());
     }
+
+    @Test
+    void shouldMarkBatchFailedByActorTimeoutAsTimedOut() {
+        server.expect(ExpectedCount.times(2), requestTo(containsString("/acts/")))
+                .andRespond(withStatus(HttpStatus.REQUEST_TIMEOUT)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .body("{\"error\":{\"type\":\"run-timeout-exceeded\"}}"));
+
+        ApifyBatchResult result = client.searchMatchesBatch(List.of("Legia Lech", "Arsenal Chelsea"));
+
+        assertFalse(result.successful());
+        assertTrue(result.timedOut());
+        server.verify();
+    }
 }
@@ -1,17 +1,28 @@
 package com.grzechuhehe.SportsBettingManagerApp.service;
 
+import com.grzechuhehe.SportsBettingManagerApp.dto.BetChangesResponse;
+import com.grzechuhehe.SportsBettingManagerApp.dto.BetCursorPage;
 import com.grzechuhehe.SportsBettingManagerApp.dto.BetRequest;
+import com.grzechuhehe.SportsBettingManagerApp.dto.BetResponse;
 import com.grzechuhehe.SportsBettingManagerApp.dto.BetStatistics;
 import com.grzechuhehe.SportsBettingManagerApp.dto.CreateBetRequest;
 import com.grzechuhehe.SportsBettingManagerApp.dto.DashboardStatsDTO;
+import com.grzechuhehe.SportsBettingManagerApp.dto.EquityCurvePoint;
 import com.grzechuhehe.SportsBettingManagerApp.model.Bet;
 import com.grzechuhehe.SportsBettingManagerApp.model.User;
+import com.grzechuhehe.SportsBettingManagerApp.model.UserDailyPnl;
 import com.grzechuhehe.SportsBettingManagerApp.model.enum_model.BetStatus;
 import com.grzechuhehe.SportsBettingManagerApp.model.enum_model.BetType;
 import com.grzechuhehe.SportsBettingManagerApp.model.enum_model.MarketType;
 import com.grzechuhehe.SportsBettingManagerApp.repository.BetRepository;
 import com.grzechuhehe.SportsBettingManagerApp.repository.UserRepository;
-import com.grzechuhehe.SportsBettingManagerApp.dto.BetStatistics;
+import com.grzechuhehe.SportsBettingManagerApp.repository.projection.AdvancedStatsRow;
+import com.grzechuhehe.SportsBettingManagerApp.repository.projection.BetSummaryRow;
+import com.grzechuhehe.SportsBettingManagerApp.repository.projection.LegTally;
+import com.grzechuhehe.SportsBettingManagerApp.service.stats.DailyPnlRange;
+import com.grzechuhehe.SportsBettingManagerApp.service.stats.UserAnalyticsCache;
+import com.grzechuhehe.SportsBettingManagerApp.service.stats.UserStatsService;
+import com.grzechuhehe.SportsBettingManagerApp.service.stats.UserStatsSnapshot;
 import jakarta.validation.Validator;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -20,10 +31,12 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -31,6 +44,7 @@ import java.util.Optional;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -45,7 +59,11 @@ class BettingServiceTest {
     @Mock
     private Validator validator;
 
+    @Mock
+    private UserStatsService userStatsService;
+
     private CurrencyConversionService currencyConversionService;
+    private BetChangeLog betChangeLog;
     private BettingService bettingService;
 
     private User testUser;
@@ -58,7 +76,10 @@ class BettingServiceTest {
                 "EUR", new BigDecimal("4.30"),
                 "GBP", new BigDecimal("5.10")
         ));
-        bettingService = new BettingService(betRepository, userRepository, validator, currencyConversionService);
+        betChangeLog = new BetChangeLog(100, 24);
+        bettingService = new BettingService(
+                betRepository, userRepository, validator, currencyConversionService, userStatsService, betChangeLog,
+                new UserAnalyticsCache(100, Duration.ofMinutes(10)));
         testUser = new User();
         testUser.setId(1L);
         testUser.setUsername("testuser");
@@ -283,12 +304,14 @@ class BettingServiceTest {
         bet.setId(30L);
         bet.setUser(testUser);
         when(betRepository.findById(30L)).thenReturn(Optional.of(bet));
+        long since = BetChangeLog.toVersion(LocalDateTime.now());
 
         // When
         bettingService.deleteBet(30L, testUser);
 
         // Then
         verify(betRepository, times(1)).delete(bet);
+        assertThat(betChangeLog.deletedSince(testUser.getId(), since)).hasValue(List.of(30L));
     }
 
     @Test
@@ -352,11 +375,11 @@ class BettingServiceTest {
         bet3.setFinalProfit(new BigDecimal("-20.00"));
         bet3.setStatus(BetStatus.LOST);
 
-        // Używamy findByUser zamiast findByUserAndSettledAtIsNotNull
-        when(betRepository.findByUser(testUser)).thenReturn(Arrays.asList(bet1, bet2, bet3));
+        when(userStatsService.loadDailyPnl(testUser, null, null))
+                .thenReturn(new DailyPnlRange(Map.of(), aggregate(Arrays.asList(bet1, bet2, bet3)).days()));
 
         // When
-        var heatmap = bettingService.getHeatmapData(testUser);
+        var heatmap = bettingService.getHeatmapData(testUser, null, null);
 
         assertThat(heatmap.dailyProfit()).hasSize(2);
         assertThat(heatmap.dailyProfit().get("2023-01-01")).isEqualByComparingTo("150.00");
@@ -380,7 +403,7 @@ class BettingServiceTest {
         usdBet.setCurrency("USD");
         usdBet.setSettledAt(LocalDateTime.now());
 
-        when(betRepository.findByUser(testUser)).thenReturn(List.of(plnBet, usdBet));
+        givenAggregatedBets(List.of(plnBet, usdBet));
 
         DashboardStatsDTO stats = bettingService.getDashboardStats(testUser);
 
@@ -410,7 +433,7 @@ class BettingServiceTest {
         loss.setFinalProfit(new BigDecimal("-100"));
         loss.setSport("Football");
 
-        when(betRepository.findByUser(testUser)).thenReturn(Arrays.asList(win1, win2, loss));
+        givenAggregatedBets(Arrays.asList(win1, win2, loss));
 
         // When
         DashboardStatsDTO stats = bettingService.getDashboardStats(testUser);
@@ -425,6 +448,60 @@ class BettingServiceTest {
         assertThat(stats.profitBySport().get("Tennis")).isEqualByComparingTo("50.00");
     }
 
+    @Test
+    void getDashboardStats_WithFromDate_ShouldStartEquityCurveFromEarlierProfit() {
+        List<Bet> bets = List.of(
+                settledBet(LocalDate.of(2026, 1, 1), "100.00"),
+                settledBet(LocalDate.of(2026, 1, 2), "50.00"),
+                settledBet(LocalDate.of(2026, 1, 3), "-20.00"));
+        givenAggregatedBets(bets);
+        List<UserDailyPnl> fromSecondDay = aggregate(bets).days().stream()
+                .filter(d -> !d.getDay().isBefore(LocalDate.of(2026, 1, 2)))
+                .toList();
+        when(userStatsService.loadDailyPnl(testUser, LocalDate.of(2026, 1, 2), null))
+                .thenReturn(new DailyPnlRange(Map.of("PLN", new BigDecimal("100.00")), fromSecondDay));
+
+        DashboardStatsDTO stats = bettingService.getDashboardStats(testUser, LocalDate.of(2026, 1, 2), null);
+
+        assertThat(stats.equityCurve()).extracting(EquityCurvePoint::date)
+                .containsExactly(LocalDate.of(2026, 1, 2), LocalDate.of(2026, 1, 3));
+        assertThat(stats.equityCurve().get(0).cumulativeProfit()).isEqualByComparingTo("150.00");
+        assertThat(stats.equityCurve().get(1).cumulativeProfit()).isEqualByComparingTo("130.00");
+        assertThat(stats.totalProfitLoss()).isEqualByComparingTo("130.00");
+    }
+
+    @Test
+    void getHeatmapData_ShouldRejectInvertedRange() {
+        assertThrows(IllegalArgumentException.class, () ->
+                bettingService.getHeatmapData(testUser, LocalDate.of(2026, 2, 1), LocalDate.of(2026, 1, 1)));
+    }
+
+    @Test
+    void getDashboardStats_ShouldServeCachedResultUntilBetIsSettled() {
+        Bet bet = new Bet();
+        bet.setId(10L);
+        bet.setUser(testUser);
+        bet.setStatus(BetStatus.PENDING);
+        bet.setStake(new BigDecimal("100.00"));
+        bet.setOdds(new BigDecimal("3.00"));
+        bet.calculatePotentialWinnings();
+        when(userStatsService.load(testUser)).thenAnswer(invocation ->
+                UserStatsSnapshot.fromBets(testUser.getId(), List.of(bet), currencyConversionService));
+        when(betRepository.findById(10L)).thenReturn(Optional.of(bet));
+        when(betRepository.save(any(Bet.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        DashboardStatsDTO first = bettingService.getDashboardStats(testUser);
+        DashboardStatsDTO cached = bettingService.getDashboardStats(testUser);
+        bettingService.settleBet(10L, BetStatus.WON, testUser);
+        DashboardStatsDTO afterSettlement = bettingService.getDashboardStats(testUser);
+
+        assertThat(cached).isSameAs(first);
+        assertThat(first.activeBetsCount()).isEqualTo(1);
+        assertThat(afterSettlement.activeBetsCount()).isZero();
+        assertThat(afterSettlement.totalProfitLoss()).isEqualByComparingTo("200.00");
+        verify(userStatsService, times(2)).load(testUser);
+    }
+
     @Test
     void getDashboardStats_ShouldCalculateAdvancedAnalytics() {
         // Given
@@ -446,7 +523,7 @@ class BettingServiceTest {
         bet3.setFinalProfit(new BigDecimal("-40"));
         bet3.setSettledAt(LocalDate.of(2023, 1, 2).atStartOfDay());
 
-        when(betRepository.findByUser(testUser)).thenReturn(Arrays.asList(bet1, bet2, bet3));
+        givenAggregatedBets(Arrays.asList(bet1, bet2, bet3));
 
         // When
         DashboardStatsDTO stats = bettingService.getDashboardStats(testUser);
@@ -466,7 +543,7 @@ class BettingServiceTest {
     @Test
     void getDashboardStats_ShouldReturnZeroROI_WhenNoBets() {
         // Given
-        when(betRepository.findByUser(testUser)).thenReturn(Arrays.asList());
+        givenAggregatedBets(Arrays.asList());
 
         // When
         DashboardStatsDTO stats = bettingService.getDashboardStats(testUser);
@@ -503,7 +580,7 @@ class BettingServiceTest {
         loss.setPlacedAt(LocalDate.of(2023, 1, 3).atStartOfDay());
         loss.setBetType(BetType.SINGLE);
 
-        when(betRepository.findByUserOrderByPlacedAtAsc(testUser)).thenReturn(Arrays.asList(win1, win2, loss));
+        givenAdvancedStatsRows(Arrays.asList(win1, win2, loss));
 
         // When
         BetStatistics stats = bettingService.getAdvancedStatistics(testUser);
@@ -542,7 +619,7 @@ class BettingServiceTest {
         
         parlay.setChildBets(new java.util.HashSet<>(java.util.Arrays.asList(leg1, leg2)));
 
-        when(betRepository.findByUserOrderByPlacedAtAsc(testUser)).thenReturn(java.util.Arrays.asList(singleWin, singleLoss, parlay));
+        givenAdvancedStatsRows(java.util.Arrays.asList(singleWin, singleLoss, parlay));
 
         BetStatistics stats = bettingService.getAdvancedStatistics(testUser);
         
@@ -551,4 +628,170 @@ class BettingServiceTest {
         // Efficiency = 2 / 4 = 50%
         org.assertj.core.api.Assertions.assertThat(stats.getEfficiency()).isEqualByComparingTo("50.00");
     }
-}
\ No newline at end of file
+
+    @Test
+    void getAdvancedStatistics_ShouldFollowSettlementOrderForStreaksAndRollingWindow() {
+        LocalDateTime now = LocalDateTime.now();
+        // Postawione w odwrotnej kolejności niż rozliczone — seria liczy się po settledAt
+        Bet lateLoss = settledSingle(BetStatus.LOST, "-50", now.minusDays(60), now.minusDays(1));
+        Bet earlyWin1 = settledSingle(BetStatus.WON, "30", now.minusDays(10), now.minusDays(5));
+        Bet earlyWin2 = settledSingle(BetStatus.WON, "40", now.minusDays(9), now.minusDays(4));
+        Bet pending = new Bet();
+        pending.setStatus(BetStatus.PENDING);
+        pending.setBetType(BetType.PARLAY);
+        pending.setStake(new BigDecimal("10"));
+        pending.setPlacedAt(now.minusDays(2));
+        givenAdvancedStatsRows(List.of(lateLoss, earlyWin1, earlyWin2, pending));
+
+        BetStatistics stats = bettingService.getAdvancedStatistics(testUser);
+
+        assertThat(stats.getTotalBets()).isEqualTo(4);
+        assertThat(stats.getProfitLoss()).isEqualByComparingTo("20.00");
+        assertThat(stats.getRoiPercentage()).isEqualByComparingTo("12.50");
+        assertThat(stats.getCurrentStreak()).isEqualTo("Current: 1 Loss | Max Win: 2 | Max Loss: 1");
+        assertThat(stats.getRollingAverage30d()).isEqualByComparingTo("2.33");
+        assertThat(stats.getWinRatesByType())
+                .containsOnlyKeys("SINGLE", "PARLAY")
+                .satisfies(rates -> assertThat(rates.get("PARLAY")).isEqualByComparingTo("0"));
+        assertThat(stats.getEfficiency()).isEqualByComparingTo("66.67");
+    }
+
+    @Test
+    void getUserBetsPage_ShouldReturnCursorAndAttachLegsFromSingleInQuery() {
+        LocalDateTime t = LocalDateTime.of(2026, 10, 1, 12, 0);
+        BetSummaryRow newest = summary(30L, null, BetType.PARLAY, t);
+        BetSummaryRow middle = summary(20L, null, BetType.SINGLE, t);
+        BetSummaryRow extra = summary(10L, null, BetType.SINGLE, t.minusDays(1));
+        when(betRepository.findRootSummariesByUser(eq(testUser), any()))
+                .thenReturn(List.of(newest, middle, extra));
+        when(betRepository.findLegSummariesByParentIds(List.of(30L, 20L)))
+                .thenReturn(List.of(summary(31L, 30L, BetType.SINGLE, t), summary(32L, 30L, BetType.SINGLE, t)));
+
+        BetCursorPage page = bettingService.getUserBetsPage(testUser, null, 2);
+
+        assertThat(page.last()).isFalse();
+        assertThat(page.content()).extracting(BetResponse::getId).containsExactly(30L, 20L);
+        assertThat(page.content().get(0).getChildBets()).extracting(BetResponse::getId).containsExactly(31L, 32L);
+        assertThat(page.content().get(1).getChildBets()).isNull();
+        assertThat(page.content().get(1).getCurrency()).isEqualTo("PLN");
+
+        when(betRepository.findRootSummariesByUserBefore(eq(testUser), eq(t), eq(20L), any()))
+                .thenReturn(List.of(extra));
+        when(betRepository.findLegSummariesByParentIds(List.of(10L))).thenReturn(List.of());
+
+        BetCursorPage next = bettingService.getUserBetsPage(testUser, page.nextCursor(), 2);
+
+        assertThat(next.last()).isTrue();
+        assertThat(next.nextCursor()).isNull();
+        assertThat(next.content()).extracting(BetResponse::getId).containsExactly(10L);
+    }
+
+    @Test
+    void getUserBetsPage_ShouldRejectMalformedCursor() {
+        assertThrows(IllegalArgumentException.class,
+                () -> bettingService.getUserBetsPage(testUser, "not-a-cursor", 20));
+        verifyNoInteractions(betRepository);
+    }
+
+    @Test
+    void getChangesSince_WithoutWatermark_ShouldRequestResyncAndHandOutVersion() {
+        BetChangesResponse changes = bettingService.getChangesSince(testUser, null);
+
+        assertThat(changes.resync()).isTrue();
+        assertThat(changes.version()).isPositive();
+        verifyNoInteractions(betRepository);
+    }
+
+    @Test
+    void getChangesSince_ShouldReturnChangedCouponsAndTombstones() {
+        long since = BetChangeLog.toVersion(LocalDateTime.now());
+        betChangeLog.recordDeletion(testUser.getId(), 99L);
+        betChangeLog.recordDeletion(2L, 98L); // cudzy zakład
+        LocalDateTime t = LocalDateTime.of(2026, 10, 1, 12, 0);
+        when(betRepository.findChangedRootIds(eq(testUser), eq(BetChangeLog.fromVersion(since)), any()))
+                .thenReturn(List.of(30L));
+        when(betRepository.findSummariesByIds(List.of(30L))).thenReturn(List.of(summary(30L, null, BetType.PARLAY, t)));
+        when(betRepository.findLegSummariesByParentIds(List.of(30L)))
+                .thenReturn(List.of(summary(31L, 30L, BetType.SINGLE, t)));
+
+        BetChangesResponse changes = bettingService.getChangesSince(testUser, since);
+
+        assertThat(changes.resync()).isFalse();
+        assertThat(changes.deletedIds()).containsExactly(99L);
+        assertThat(changes.upserts()).extracting(BetResponse::getId).containsExactly(30L);
+        assertThat(changes.upserts().get(0).getChildBets()).extracting(BetResponse::getId).containsExactly(31L);
+        assertThat(changes.version()).isGreaterThanOrEqualTo(since);
+    }
+
+    @Test
+    void getChangesSince_WatermarkOlderThanChangeLog_ShouldRequestResync() {
+        long beforeStartup = BetChangeLog.toVersion(LocalDateTime.now().minusDays(1));
+
+        BetChangesResponse changes = bettingService.getChangesSince(testUser, beforeStartup);
+
+        assertThat(changes.resync()).isTrue();
+        assertThat(changes.upserts()).isEmpty();
+        verifyNoInteractions(betRepository);
+    }
+
+    private BetSummaryRow summary(Long id, Long parentId, BetType type, LocalDateTime placedAt) {
+        return new BetSummaryRow(id, testUser.getId(), parentId, type, BetStatus.PENDING, BigDecimal.TEN, null,
+                new BigDecimal("2.00"), null, null, null, "Football", "A vs B", null, MarketType.MONEYLINE_1X2,
+                "A", null, "Bookie", null, null, placedAt, null, null);
+    }
+
+    private Bet settledSingle(BetStatus status, String profit, LocalDateTime placedAt, LocalDateTime settledAt) {
+        Bet bet = new Bet();
+        bet.setStatus(status);
+        bet.setBetType(BetType.SINGLE);
+        bet.setStake(new BigDecimal("50"));
+        bet.setFinalProfit(new BigDecimal(profit));
+        bet.setPlacedAt(placedAt);
+        bet.setSettledAt(settledAt);
+        return bet;
+    }
+
+    /** Odwzorowuje kursor repozytorium: zakłady główne po settledAt (NULL-e pierwsze), potem placedAt. */
+    private void givenAdvancedStatsRows(List<Bet> roots) {
+        List<AdvancedStatsRow> rows = roots.stream()
+                .sorted(Comparator.comparing(Bet::getSettledAt, Comparator.nullsFirst(Comparator.naturalOrder()))
+                        .thenComparing(Bet::getPlacedAt))
+                .map(b -> new AdvancedStatsRow(b.getId(), b.getBetType(), b.getStatus(), b.getStake(),
+                        b.getFinalProfit(), b.getCurrency(), b.getPlacedAt(), b.getSettledAt(),
+                        b.getChildBets() != null ? b.getChildBets().size() : 0))
+                .toList();
+        when(betRepository.streamAdvancedStatsRows(testUser)).thenReturn(rows.stream());
+
+        long settledLegs = 0;
+        long wonLegs = 0;
+        for (Bet root : roots) {
+            if (root.getBetType() == BetType.PARLAY && root.getChildBets() != null) {
+                for (Bet leg : root.getChildBets()) {
+                    if (leg.getStatus() != BetStatus.PENDING) {
+                        settledLegs++;
+                        if (leg.getStatus() == BetStatus.WON) wonLegs++;
+                    }
+                }
+            }
+        }
+        when(betRepository.tallySettledParlayLegs(testUser, BetType.PARLAY, BetStatus.PENDING, BetStatus.WON))
+                .thenReturn(new LegTally(settledLegs, wonLegs));
+    }
+
+    private void givenAggregatedBets(List<Bet> bets) {
+        when(userStatsService.load(testUser)).thenReturn(aggregate(bets));
+    }
+
+    private UserStatsSnapshot aggregate(List<Bet> bets) {
+        return UserStatsSnapshot.fromBets(testUser.getId(), bets, currencyConversionService);
+    }
+
+    private static Bet settledBet(LocalDate day, String profit) {
+        Bet bet = new Bet();
+        bet.setStatus(new BigDecimal(profit).signum() >= 0 ? BetStatus.WON : BetStatus.LOST);
+        bet.setStake(new BigDecimal("100.00"));
+        bet.setFinalProfit(new BigDecimal(profit));
+        bet.setSettledAt(day.atTime(12, 0));
+        return bet;
+    }
+}
@@ -17,6 +17,8 @@ import com.grzechuhehe.SportsBettingManagerApp.service.resolution.market.Composi
 import com.grzechuhehe.SportsBettingManagerApp.service.resolution.ResolutionNameTranslator;
 import com.grzechuhehe.SportsBettingManagerApp.service.resolution.matching.DoublesNameNormalizer;
 import com.grzechuhehe.SportsBettingManagerApp.service.resolution.matching.TennisNameNormalizer;
+import com.grzechuhehe.SportsBettingManagerApp.service.stats.UserAnalyticsCache;
+import com.grzechuhehe.SportsBettingManagerApp.service.stats.UserStatsService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -40,6 +42,8 @@ class ProfileAnalysisOrchestratorImportTest {
     @Mock private SocialDataClient socialDataClient;
     @Mock private GeminiVisionClient geminiVisionClient;
     @Mock private ImageStorageService imageStorageService;
+    @Mock private UserStatsService userStatsService;
+    @Mock private UserAnalyticsCache analyticsCache;
 
     private ProfileAnalysisOrchestrator orchestrator;
 
@@ -54,7 +58,7 @@ class ProfileAnalysisOrchestratorImportTest {
         BetStakeExtractionNormalizer stakeNormalizer = new BetStakeExtractionNormalizer(new BigDecimal("0.88"));
         orchestrator = new ProfileAnalysisOrchestrator(
                 userRepository, betRepository, socialDataClient,
-                geminiVisionClient, imageStorageService, objectMapper, enricher, stakeNormalizer);
+                geminiVisionClient, imageStorageService, objectMapper, enricher, stakeNormalizer, userStatsService, analyticsCache);
     }
 
     @Test
@@ -7,6 +7,7 @@ import com.grzechuhehe.SportsBettingManagerApp.repository.UserRepository;
 import com.grzechuhehe.SportsBettingManagerApp.repository.BetRepository;
 import com.grzechuhehe.SportsBettingManagerApp.service.resolution.importing.BetImportResolutionEnricher;
 import com.grzechuhehe.SportsBettingManagerApp.service.resolution.importing.BetStakeExtractionNormalizer;
+import com.grzechuhehe.SportsBettingManagerApp.service.stats.UserStatsService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
@@ -34,6 +35,8 @@ class ProfileAnalysisOrchestratorTest {
     private BetImportResolutionEnricher betImportResolutionEnricher;
     @Mock
     private BetStakeExtractionNormalizer betStakeExtractionNormalizer;
+    @Mock
+    private UserStatsService userStatsService;
 
     @InjectMocks
     private ProfileAnalysisOrchestrator orchestrator;
@@ -0,0 +1,121 @@
+package com.grzechuhehe.SportsBettingManagerApp.service.analytics;
+
+import com.grzechuhehe.SportsBettingManagerApp.service.CurrencyConversionService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Kernel groszowy musi dawać dokładnie to samo co dotychczasowe wzory na BigDecimal
+ * (CurrencyConversionService.convert + redukcje z BettingService) — porównanie co do grosza.
+ */
+class AnalyticsKernelParityTest {
+
+    private static final String[] CURRENCIES = {"PLN", "USD", "EUR", "GBP", null, "XYZ"};
+
+    private CurrencyConversionService currencies;
+
+    @BeforeEach
+    void setUp() {
+        currencies = new CurrencyConversionService(
+                BigDecimal.ONE, new BigDecimal("4.0537"), new BigDecimal("4.30"), new BigDecimal("5.1"));
+    }
+
+    @Test
+    void convert_matchesBigDecimalConversionForEveryCurrencyPair() {
+        Random random = new Random(20261018L);
+        for (String display : new String[] {"PLN", "USD", "EUR", "GBP"}) {
+            CentsConverter converter = new CentsConverter(currencies, display);
+            for (int i = 0; i < 5_000; i++) {
+                BigDecimal amount = randomAmount(random);
+                String currency = CURRENCIES[random.nextInt(CURRENCIES.length)];
+
+                assertThat(converter.convertToAmount(amount, currency))
+                        .isEqualTo(currencies.convert(amount, currency, display));
+            }
+        }
+    }
+
+    @Test
+    void convert_fallsBackToBigDecimalOnOverflowAndExtraScale() {
+        CentsConverter converter = new CentsConverter(currencies, "PLN");
+        // grosze * licznik kursu (40537) wychodzą poza long, wynik już się mieści
+        BigDecimal large = new BigDecimal("900000000000000.00");
+        BigDecimal fineGrained = new BigDecimal("10.005");
+
+        assertThat(converter.convertToAmount(large, "USD")).isEqualTo(currencies.convert(large, "USD", "PLN"));
+        assertThat(converter.convertToAmount(fineGrained, "USD"))
+                .isEqualTo(currencies.convert(fineGrained, "USD", "PLN"));
+        assertThat(converter.convert(null, "USD")).isZero();
+    }
+
+    @Test
+    void accumulator_matchesLegacySumMeanVarianceAndSharpe() {
+        Random random = new Random(42L);
+        CentsConverter converter = new CentsConverter(currencies, "EUR");
+        for (int round = 0; round < 200; round++) {
+            int size = random.nextInt(60);
+            List<BigDecimal> converted = new ArrayList<>();
+            CentsAccumulator accumulator = new CentsAccumulator();
+            for (int i = 0; i < size; i++) {
+                BigDecimal amount = randomAmount(random);
+                String currency = CURRENCIES[random.nextInt(CURRENCIES.length)];
+                converted.add(currencies.convert(amount, currency, "EUR"));
+                accumulator.add(converter.convert(amount, currency));
+            }
+
+            assertThat(accumulator.total()).isEqualTo(legacySum(converted));
+            assertThat(accumulator.sharpeRatio()).isEqualTo(legacySharpe(converted));
+        }
+    }
+
+    @Test
+    void accumulator_handlesSquaresBeyondLongRange() {
+        List<BigDecimal> amounts = List.of(
+                new BigDecimal("90000000000.00"), new BigDecimal("-85000000000.55"), new BigDecimal("70000000000.01"));
+        CentsAccumulator accumulator = new CentsAccumulator();
+        amounts.forEach(a -> accumulator.add(MoneyCents.of(a)));
+
+        assertThat(accumulator.total()).isEqualTo(legacySum(amounts));
+        assertThat(accumulator.sharpeRatio()).isEqualTo(legacySharpe(amounts));
+    }
+
+    @Test
+    void divideHalfUp_roundsHalvesAwayFromZero() {
+        assertThat(MoneyCents.divideHalfUp(5, 2)).isEqualTo(3);
+        assertThat(MoneyCents.divideHalfUp(-5, 2)).isEqualTo(-3);
+        assertThat(MoneyCents.divideHalfUp(-4, 3)).isEqualTo(-1);
+        assertThat(MoneyCents.divideHalfUp(Long.MAX_VALUE, Long.MAX_VALUE - 1)).isEqualTo(1);
+    }
+
+    private static BigDecimal randomAmount(Random random) {
+        long unscaled = random.nextLong(-2_000_000L, 2_000_000L);
+        return BigDecimal.valueOf(unscaled, random.nextInt(3));
+    }
+
+    private static BigDecimal legacySum(List<BigDecimal> values) {
+        return values.stream().reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+
+    // Wzór sprzed wprowadzenia kernela (BettingService.calculateSharpeRatio)
+    private static BigDecimal legacySharpe(List<BigDecimal> profits) {
+        if (profits.size() < 2) return BigDecimal.ZERO;
+        BigDecimal sum = legacySum(profits);
+        BigDecimal mean = sum.divide(BigDecimal.valueOf(profits.size()), 4, RoundingMode.HALF_UP);
+        BigDecimal varianceSum = BigDecimal.ZERO;
+        for (BigDecimal profit : profits) {
+            varianceSum = varianceSum.add(profit.subtract(mean).pow(2));
+        }
+        BigDecimal variance = varianceSum.divide(BigDecimal.valueOf(profits.size()), 4, RoundingMode.HALF_UP);
+        BigDecimal stdDev = BigDecimal.valueOf(Math.sqrt(variance.doubleValue()));
+        if (stdDev.compareTo(BigDecimal.ZERO) == 0) return BigDecimal.ZERO;
+        return mean.divide(stdDev, 4, RoundingMode.HALF_UP);
+    }
+}
@@ -0,0 +1,149 @@
+package com.grzechuhehe.SportsBettingManagerApp.service.bulk;
+
+import com.grzechuhehe.SportsBettingManagerApp.dto.BetImportResult;
+import com.grzechuhehe.SportsBettingManagerApp.model.User;
+import com.grzechuhehe.SportsBettingManagerApp.service.export.BetExportFormat;
+import com.grzechuhehe.SportsBettingManagerApp.service.export.BetExportService;
+import com.grzechuhehe.SportsBettingManagerApp.service.stats.UserAnalyticsCache;
+import com.grzechuhehe.SportsBettingManagerApp.service.stats.UserStatsService;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+class BetBulkImportServiceTest {
+
+    private static final String HEADER = "id,parent_bet_id,bet_type,status,stake,currency,odds,final_profit,"
+            + "sport,event_name,event_date,market_type,selection,bookmaker,placed_at,notes\r\n";
+
+    private JdbcTemplate jdbcTemplate;
+    private UserStatsService userStatsService;
+    private BetBulkImportService service;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource("jdbc:h2:mem:bet_import;DB_CLOSE_DELAY=-1"));
+        jdbcTemplate.execute("""
+                CREATE TABLE bet (
+                    id BIGINT AUTO_INCREMENT PRIMARY KEY, parent_bet_id BIGINT, user_id BIGINT NOT NULL,
+                    bet_type VARCHAR(20), status VARCHAR(20), stake DECIMAL(10, 2), units DECIMAL(10, 2),
+                    currency VARCHAR(3), odds DECIMAL(10, 2), odds_type VARCHAR(20),
+                    potential_winnings DECIMAL(10, 2), final_profit DECIMAL(10, 2), sport VARCHAR(255),
+                    event_name VARCHAR(255), event_date TIMESTAMP, market_type VARCHAR(50), selection VARCHAR(1000),
+                    line VARCHAR(255), bookmaker VARCHAR(255), external_bet_id VARCHAR(255),
+                    external_api_name VARCHAR(255), is_ai_extracted BOOLEAN NOT NULL,
+                    retroactive_at_import BOOLEAN NOT NULL, is_pre_match BOOLEAN NOT NULL,
+                    placed_at TIMESTAMP NOT NULL, settled_at TIMESTAMP, updated_at TIMESTAMP(6), notes CLOB)
+                """);
+        userStatsService = mock(UserStatsService.class);
+        service = new BetBulkImportService(jdbcTemplate,
+                Validation.buildDefaultValidatorFactory().getValidator(), userStatsService, mock(UserAnalyticsCache.class));
+        user = new User();
+        user.setId(7L);
+        user.setUsername("john");
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("DROP TABLE bet");
+    }
+
+    @Test
+    void importsParlayLegsAcrossBatchesAndRejectsInvalidRows() throws Exception {
+        ReflectionTestUtils.setField(service, "batchSize", 2);
+        String csv = HEADER
+                + "100,,PARLAY,WON,10.00,PLN,3.00,20.00,Multi-Sport,Parlay Bet (2 legs),,,,,2026-10-01 12:00:00,\r\n"
+                + "101,100,SINGLE,WON,,PLN,1.50,,Football,A vs B,2026-10-01T18:00,MONEYLINE_1X2,A,Bet365,2026-10-01T12:00,\r\n"
+                + "102,100,SINGLE,WON,,PLN,2.00,,Football,C vs D,2026-10-01T20:00,MONEYLINE_1X2,C,Bet365,2026-10-01T12:00,\r\n"
+                + "103,,SINGLE,LOST,5.00,eur,1.90,-5.00,Tennis,E vs F,2026-10-02T10:00,MONEYLINE_1X2,E,Betclic,2026-10-02T09:00,"
+                + "\"notatka, z \"\"cudzysłowem\"\"\"\r\n"
+                + "104,,SINGLE,PENDING,5.00,PLN,,,Tennis,G vs H,2026-10-03T10:00,MONEYLINE_1X2,G,Betclic,2026-10-03T09:00,\r\n"
+                + "105,999,SINGLE,WON,,PLN,1.80,,Tennis,I vs J,2026-10-03T10:00,MONEYLINE_1X2,I,Betclic,2026-10-03T09:00,\r\n";
+
+        BetImportResult result = service.importBets(user, BetExportFormat.CSV, stream(csv));
+
+        assertThat(result.imported()).isEqualTo(4);
+        assertThat(result.rejected()).isEqualTo(2);
+        assertThat(result.errors()).containsExactly(
+                "Row 5: odds: Odds cannot be null",
+                "Row 6: parent bet 999 not found earlier in the file");
+        Long parlayId = jdbcTemplate.queryForObject(
+                "SELECT id FROM bet WHERE bet_type = 'PARLAY'", Long.class);
+        assertThat(jdbcTemplate.queryForList("SELECT parent_bet_id FROM bet WHERE parent_bet_id IS NOT NULL", Long.class))
+                .containsOnly(parlayId)
+                .hasSize(2);
+        Map<String, Object> single = jdbcTemplate.queryForMap(
+                "SELECT currency, potential_winnings, notes, user_id FROM bet WHERE event_name = 'E vs F'");
+        assertThat(single.get("CURRENCY")).isEqualTo("EUR");
+        assertThat(single.get("POTENTIAL_WINNINGS").toString()).isEqualTo("9.50");
+        assertThat(single.get("NOTES")).isEqualTo("notatka, z \"cudzysłowem\"");
+        assertThat(single.get("USER_ID")).isEqualTo(7L);
+        verify(userStatsService).rebuild(7L);
+    }
+
+    @Test
+    void roundTripsOwnNdjsonExport() throws Exception {
+        service.importBets(user, BetExportFormat.CSV, stream(HEADER
+                + "1,,PARLAY,PENDING,10.00,PLN,3.00,,Multi-Sport,Parlay Bet (2 legs),,,,,2026-10-01T12:00,\r\n"
+                + "2,1,SINGLE,PENDING,,PLN,1.50,,Football,A vs B,2026-10-01T18:00,MONEYLINE_1X2,A,Bet365,2026-10-01T12:00,\r\n"
+                + "3,1,SINGLE,PENDING,,PLN,2.00,,Football,C vs D,2026-10-01T20:00,MONEYLINE_1X2,C,Bet365,2026-10-01T12:00,\r\n"));
+        ByteArrayOutputStream exported = new ByteArrayOutputStream();
+        new BetExportService(jdbcTemplate).export(7L, BetExportFormat.NDJSON, exported);
+
+        User other = new User();
+        other.setId(8L);
+        other.setUsername("anna");
+        BetImportResult result = service.importBets(other, BetExportFormat.NDJSON,
+                new ByteArrayInputStream(exported.toByteArray()));
+
+        assertThat(result.imported()).isEqualTo(3);
+        assertThat(result.rejected()).isZero();
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM bet b JOIN bet p ON b.parent_bet_id = p.id WHERE b.user_id = 8 AND p.user_id = 8",
+                Integer.class)).isEqualTo(2);
+    }
+
+    @Test
+    void emptyFileDoesNotRebuildStats() throws Exception {
+        BetImportResult result = service.importBets(user, BetExportFormat.CSV, stream(HEADER));
+
+        assertThat(result).isEqualTo(new BetImportResult(0, 0, List.of()));
+        verifyNoInteractions(userStatsService);
+    }
+
+    /** Import większy niż jeden batch JDBC: wszystkie wiersze trafiają do bazy (przepustowość: BetBulkImportBenchmark). */
+    @Test
+    void importsTwentyThousandBetsAcrossManyBatches() throws Exception {
+        int rows = 20_000;
+        StringBuilder csv = new StringBuilder(HEADER);
+        for (int i = 1; i <= rows; i++) {
+            csv.append(i).append(",,SINGLE,WON,10.00,PLN,1.95,9.50,Football,Team ").append(i)
+                    .append(" vs Team X,2026-10-01T18:00,MONEYLINE_1X2,Team ").append(i)
+                    .append(",Bet365,2026-10-01T12:00,\r\n");
+        }
+
+        BetImportResult result = service.importBets(user, BetExportFormat.CSV, stream(csv.toString()));
+
+        assertThat(result.imported()).isEqualTo(rows);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM bet", Integer.class)).isEqualTo(rows);
+    }
+
+    private static ByteArrayInputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
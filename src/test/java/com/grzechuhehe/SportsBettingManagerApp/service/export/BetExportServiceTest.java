@@ -0,0 +1,82 @@
+package com.grzechuhehe.SportsBettingManagerApp.service.export;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class BetExportServiceTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private BetExportService service;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource("jdbc:h2:mem:bet_export;DB_CLOSE_DELAY=-1"));
+        jdbcTemplate.execute("""
+                CREATE TABLE bet (
+                    id BIGINT PRIMARY KEY, parent_bet_id BIGINT, user_id BIGINT NOT NULL,
+                    bet_type VARCHAR(20), status VARCHAR(20), stake DECIMAL(10, 2), currency VARCHAR(3),
+                    odds DECIMAL(10, 2), odds_type VARCHAR(20), potential_winnings DECIMAL(10, 2),
+                    final_profit DECIMAL(10, 2), sport VARCHAR(255), event_name VARCHAR(255), event_date TIMESTAMP,
+                    market_type VARCHAR(50), selection VARCHAR(1000), line VARCHAR(255), bookmaker VARCHAR(255),
+                    placed_at TIMESTAMP, settled_at TIMESTAMP, notes CLOB)
+                """);
+        jdbcTemplate.update("""
+                INSERT INTO bet (id, parent_bet_id, user_id, bet_type, status, stake, currency, odds, final_profit,
+                                 sport, event_name, placed_at, notes)
+                VALUES (1, NULL, 7, 'PARLAY', 'WON', 10.00, 'PLN', 3.00, 20.00, 'Football', 'Kupon', '2026-10-01 12:00:00',
+                        'notatka, z "cudzysłowem"'),
+                       (2, 1, 7, 'SINGLE', 'WON', NULL, 'PLN', 1.50, NULL, 'Football', 'A vs B', '2026-10-01 12:00:00', NULL),
+                       (3, NULL, 8, 'SINGLE', 'LOST', 5.00, 'EUR', 2.00, -5.00, 'Tennis', 'Cudzy', '2026-10-02 12:00:00', NULL)
+                """);
+        service = new BetExportService(jdbcTemplate);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("DROP TABLE bet");
+    }
+
+    @Test
+    void csv_flattensLegsWithParentIdAndEscapesText() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long rows = service.export(7L, BetExportFormat.CSV, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\r\n");
+        assertThat(rows).isEqualTo(2);
+        assertThat(lines).hasSize(3);
+        assertThat(lines[0]).startsWith("id,parent_bet_id,bet_type,status,stake");
+        assertThat(lines[1]).startsWith("1,,PARLAY,WON,10.00,PLN,3.00,,,20.00,Football,Kupon,,")
+                .endsWith(",2026-10-01T12:00,,\"notatka, z \"\"cudzysłowem\"\"\"");
+        assertThat(lines[2]).startsWith("2,1,SINGLE,WON,,PLN,1.50,");
+    }
+
+    @Test
+    void ndjson_writesOneObjectPerLineWithTypedValues() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        service.export(7L, BetExportFormat.NDJSON, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertThat(lines).hasSize(2);
+        assertThat(lines[0]).startsWith("{\"id\":1,\"parentBetId\":null,\"betType\":\"PARLAY\"")
+                .contains("\"stake\":10.00", "\"placedAt\":\"2026-10-01T12:00\"");
+        assertThat(lines[1]).contains("\"parentBetId\":1", "\"notes\":null");
+    }
+
+    @Test
+    void parse_rejectsUnknownFormat() {
+        assertThat(BetExportFormat.parse("NDJSON")).isEqualTo(BetExportFormat.NDJSON);
+        assertThat(BetExportFormat.parse(null)).isEqualTo(BetExportFormat.CSV);
+        assertThrows(IllegalArgumentException.class, () -> BetExportFormat.parse("xlsx"));
+    }
+}
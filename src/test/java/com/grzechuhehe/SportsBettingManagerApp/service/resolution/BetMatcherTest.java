@@ -9,8 +9,10 @@ import org.junit.jupiter.api.Test;
 
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.Random;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -139,6 +141,158 @@ class BetMatcherTest {
         assertTrue(result.get().confidence() >= 0.80);
     }
 
+    @Test
+    void shouldMatchSeveralBetsAgainstOneIndexLikeAgainstTheList() {
+        LocalDateTime placed = LocalDateTime.of(2026, 6, 7, 18, 0);
+        List<SofaScoreEventDto> events = List.of(
+                event("Legia Warszawa", "Lech Poznan", placed.plusDays(9)),
+                event("Croatia", "Slovenia", placed.plusHours(2)),
+                event("Real Madrid", "Barcelona", placed.plusHours(3)),
+                event("Legia Warszawa", "Lech Poznan", placed.plusHours(5)));
+        EventPoolIndex index = matcher.index(events);
+        List<Bet> bets = List.of(
+                Bet.builder().eventName("Legia Warszawa vs Lech Poznań").placedAt(placed).build(),
+                Bet.builder().eventName("Chorwacja - Słowenia").placedAt(placed).build(),
+                Bet.builder().eventName("Arsenal - Chelsea").placedAt(placed).build());
+
+        for (Bet bet : bets) {
+            assertSameMatch(matcher.findBestMatchByFullScan(bet, index, 4), matcher.findBestMatch(bet, index, 4));
+        }
+        assertSame(events.get(3), matcher.findBestMatch(bets.get(0), index, 4).orElseThrow().event());
+        assertSame(events.get(1), matcher.findBestMatch(bets.get(1), index, 4).orElseThrow().event());
+    }
+
+    /**
+     * Indeks (prefiltr tokenów, kubełki dni, wczesne wyjście powyżej MAX_BONUS) kontra pełna ocena każdego meczu
+     * z okna na losowej puli: płeć, tenis w zapisie bukmachera, mecze bez daty i zduplikowane mecze (remisy —
+     * wygrywa wcześniejszy w puli, porównujemy tożsamość).
+     */
+    @Test
+    void shouldPickExactlyTheSameEventAsFullScanOnRandomPool() {
+        Random random = new Random(20261018L);
+        LocalDateTime base = LocalDateTime.of(2026, 6, 7, 18, 0);
+        List<SofaScoreEventDto> events = new ArrayList<>();
+        for (int i = 0; i < 400; i++) {
+            if (!events.isEmpty() && random.nextInt(8) == 0) {
+                events.add(copyOf(events.get(random.nextInt(events.size()))));
+                continue;
+            }
+            String[] pair = RANDOM_EVENT_PAIRS[random.nextInt(RANDOM_EVENT_PAIRS.length)];
+            SofaScoreEventDto event = event(pair[0], pair[1], base.plusHours(random.nextInt(24 * 14) - 24 * 3));
+            if (random.nextInt(10) == 0) {
+                event.setStartTimestamp(null);
+            }
+            if (pair[0].endsWith("Women")) {
+                event.setTournament("FIFA Women's World Cup");
+            }
+            events.add(event);
+        }
+        EventPoolIndex index = matcher.index(events);
+
+        int matched = 0;
+        for (int i = 0; i < 300; i++) {
+            String name = RANDOM_BET_NAMES[random.nextInt(RANDOM_BET_NAMES.length)];
+            LocalDateTime placed = random.nextInt(12) == 0 ? null : base.plusHours(random.nextInt(24 * 10) - 24 * 2);
+            Bet bet = Bet.builder().eventName(name).placedAt(placed).build();
+
+            Optional<BetMatcher.MatchCandidate> expected = matcher.findBestMatchByFullScan(bet, index, 4);
+            Optional<BetMatcher.MatchCandidate> actual = matcher.findBestMatch(bet, index, 4);
+
+            assertSameMatch(expected, actual);
+            if (expected.isPresent() && expected.get().confidence() > MatchReRanker.MAX_BONUS) {
+                matched++;
+            }
+        }
+        // Bez tego porównanie mogłoby przejść na samych „brak dopasowania”
+        assertTrue(matched > 100, "za mało dopasowań w losowej puli: " + matched);
+    }
+
+    private static final String[][] RANDOM_EVENT_PAIRS = {
+            {"Legia Warszawa", "Lech Poznan"},
+            {"Lech Poznan", "Legia Warszawa"},
+            {"Real Madrid", "Barcelona"},
+            {"Arsenal", "Chelsea"},
+            {"Brighton", "Manchester United"},
+            {"Manchester City", "Manchester United"},
+            {"Croatia", "Slovenia"},
+            {"Brazil", "Germany"},
+            {"Brazil Women", "Germany Women"},
+            {"Poland Women", "Croatia Women"},
+            {"Faria Joao", "Sakamoto Rio"},
+            {"Swiatek Iga", "Sabalenka Aryna"},
+            {"Sabalenka Aryna", "Swiatek Iga"},
+            {"Hurkacz Hubert", "Faria Joao"},
+            {"Juventus", "Inter"},
+            // Bez wspólnego tokenu z „Boca Juniors …”, ale z bonusem za podciąg — wygrywa ze słabym kandydatem
+            {"Junior Barranquilla", "Air Force"},
+    };
+
+    private static final String[] RANDOM_BET_NAMES = {
+            "Legia Warszawa vs Lech Poznań",
+            "Lech Poznań - Legia Warszawa",
+            "Real Madrid - Barcelona",
+            "Arsenal - Chelsea",
+            "Brighton - Manchester United",
+            "Manchester City - Manchester Utd",
+            "Chorwacja - Słowenia",
+            "Brazylia - Niemcy",
+            "Brazylia (K) - Niemcy (K)",
+            "Brazil Women - Germany Women",
+            "Polska (K) - Chorwacja (K)",
+            "Faria J. - Sakamoto R.",
+            "Swiatek, I. - Sabalenka, A.",
+            "Sabalenka A. - Swiatek I.",
+            "Hurkacz, H. - Faria, J.",
+            "Juventus - Inter",
+            "Ajax - Feyenoord",
+            // Jeden słaby wspólny token — pierwsze przejście nie przekracza MAX_BONUS i decyduje całe okno
+            "Real Betis - Sevilla",
+            "Inter Miami - Orlando City",
+            "Manchester City Women - Arsenal Women",
+            "Wisla Krakow - Lech II",
+            "Rio Ave - Porto",
+            "Orlando City Soccer Florida - Miami Fusion",
+            "Boca Juniors Buenos Aires - River Plate Rio",
+    };
+
+    private static SofaScoreEventDto copyOf(SofaScoreEventDto source) {
+        SofaScoreEventDto copy = new SofaScoreEventDto();
+        copy.setType(source.getType());
+        copy.setHomeTeam(source.getHomeTeam());
+        copy.setAwayTeam(source.getAwayTeam());
+        copy.setStartTimestamp(source.getStartTimestamp());
+        copy.setTournament(source.getTournament());
+        return copy;
+    }
+
+    /** Ten sam obiekt meczu (nie równy co do pól — duplikaty są równe) i ta sama pewność co do bitu. */
+    private static void assertSameMatch(
+            Optional<BetMatcher.MatchCandidate> expected, Optional<BetMatcher.MatchCandidate> actual) {
+        assertEquals(expected.isPresent(), actual.isPresent());
+        if (expected.isPresent()) {
+            assertSame(expected.get().event(), actual.get().event());
+            assertEquals(expected.get().confidence(), actual.get().confidence(), 0.0);
+        }
+    }
+
+    @Test
+    void shouldScoreEventWithoutSharedTokensWithReRankerBonusOnly() {
+        LocalDateTime placed = LocalDateTime.of(2026, 6, 7, 18, 0);
+        Bet bet = Bet.builder()
+                .eventName("Arsenal - Chelsea")
+                .placedAt(placed)
+                .build();
+        List<SofaScoreEventDto> events = List.of(
+                event("Real Madrid", "Barcelona", placed.plusHours(3)),
+                event("Croatia", "Slovenia", placed.plusHours(2)));
+
+        Optional<BetMatcher.MatchCandidate> result = matcher.findBestMatch(bet, matcher.index(events), 4);
+
+        assertTrue(result.isPresent());
+        assertSame(events.get(0), result.get().event());
+        assertTrue(result.get().confidence() <= MatchReRanker.MAX_BONUS);
+    }
+
     @Test
     void shouldReturnEmptyWhenNoEvents() {
         Bet bet = Bet.builder().eventName("A vs B").placedAt(LocalDateTime.now()).build();
@@ -2,11 +2,14 @@ package com.grzechuhehe.SportsBettingManagerApp.service.resolution;
 
 import com.grzechuhehe.SportsBettingManagerApp.integration.apify.dto.SofaScoreEventDto;
 import com.grzechuhehe.SportsBettingManagerApp.model.Bet;
+import com.grzechuhehe.SportsBettingManagerApp.model.User;
 import com.grzechuhehe.SportsBettingManagerApp.model.enum_model.BetStatus;
 import com.grzechuhehe.SportsBettingManagerApp.model.enum_model.BetType;
 import com.grzechuhehe.SportsBettingManagerApp.model.enum_model.MarketType;
 import com.grzechuhehe.SportsBettingManagerApp.repository.BetRepository;
 import com.grzechuhehe.SportsBettingManagerApp.repository.BetResolutionAttemptRepository;
+import com.grzechuhehe.SportsBettingManagerApp.service.resolution.discovery.DiscoveryListener;
+import com.grzechuhehe.SportsBettingManagerApp.service.resolution.discovery.DiscoveryProgress;
 import com.grzechuhehe.SportsBettingManagerApp.service.resolution.discovery.DiscoveryResult;
 import com.grzechuhehe.SportsBettingManagerApp.service.resolution.discovery.MatchDiscoveryService;
 import com.grzechuhehe.SportsBettingManagerApp.service.resolution.discovery.ResolutionQueuePrioritizer;
@@ -20,9 +23,12 @@ import org.springframework.test.util.ReflectionTestUtils;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -195,6 +201,74 @@ class BetResolutionServiceTest {
         verify(discoveryService).discover(anyList(), any(LocalDateTime.class));
     }
 
+    @Test
+    void shouldSettleRootsOfDifferentUsersOnParallelVirtualThreads() {
+        ReflectionTestUtils.setField(service, "processParallelism", 4);
+        LocalDateTime placed = LocalDateTime.of(2026, 5, 1, 12, 0);
+        List<Bet> bets = new ArrayList<>();
+        for (long id = 31L; id <= 33L; id++) {
+            User user = new User();
+            user.setId(id * 10);
+            Bet bet = Bet.builder()
+                    .id(id).user(user).betType(BetType.SINGLE).status(BetStatus.PENDING)
+                    .marketType(MarketType.MONEYLINE_1X2).selection("Legia Warszawa")
+                    .eventName("Legia Warszawa vs Lech Poznan")
+                    .stake(new BigDecimal("10")).odds(new BigDecimal("2.00"))
+                    .potentialWinnings(new BigDecimal("20")).placedAt(placed)
+                    .build();
+            bets.add(bet);
+            when(betRepository.findByIdWithChildBets(id)).thenAnswer(invocation -> {
+                assertTrue(Thread.currentThread().isVirtual());
+                return Optional.of(bet);
+            });
+        }
+
+        when(betRepository.findPendingRootIds(eq(BetStatus.PENDING), any())).thenReturn(List.of(31L, 32L, 33L));
+        when(betRepository.findRootsWithLegsByIds(anyList())).thenReturn(bets);
+        when(discoveryService.discover(anyList(), any(LocalDateTime.class)))
+                .thenReturn(new DiscoveryResult(
+                        List.of(finishedEvent(placed.plusDays(1))), 1, Set.of(31L, 32L, 33L), 0, 0));
+
+        service.resolvePendingBets();
+
+        bets.forEach(bet -> assertEquals(BetStatus.WON, bet.getStatus()));
+        bets.forEach(bet -> verify(betRepository).save(bet));
+    }
+
+    @Test
+    void shouldSettleCacheHitRootWhileLaterApifyBatchIsInFlight() {
+        ReflectionTestUtils.setField(service, "pipelineDiscovery", true);
+        LocalDateTime placed = LocalDateTime.of(2026, 5, 1, 12, 0);
+        Bet cached = legiaWinSingle(41L, placed);
+        Bet batched = legiaWinSingle(42L, placed);
+        SofaScoreEventDto event = finishedEvent(placed.plusDays(1));
+        CountDownLatch cachedSettled = new CountDownLatch(1);
+
+        when(betRepository.findPendingRootIds(eq(BetStatus.PENDING), any())).thenReturn(List.of(41L, 42L));
+        when(betRepository.findRootsWithLegsByIds(anyList())).thenReturn(List.of(cached, batched));
+        when(betRepository.findByIdWithChildBets(41L)).thenReturn(Optional.of(cached));
+        when(betRepository.findByIdWithChildBets(42L)).thenReturn(Optional.of(batched));
+        when(betRepository.save(cached)).thenAnswer(invocation -> {
+            cachedSettled.countDown();
+            return cached;
+        });
+        when(discoveryService.discover(anyList(), any(LocalDateTime.class), any(DiscoveryListener.class)))
+                .thenAnswer(invocation -> {
+                    DiscoveryListener listener = invocation.getArgument(2);
+                    listener.onProgress(new DiscoveryProgress(0, List.of(event), Set.of(41L), Set.of(41L)));
+                    // Batch z nogą 42 jeszcze „trwa” — noga 41 z cache ma być już rozliczona
+                    assertTrue(cachedSettled.await(5, TimeUnit.SECONDS));
+                    assertEquals(BetStatus.PENDING, batched.getStatus());
+                    return new DiscoveryResult(List.of(event), 1, Set.of(41L, 42L), 0, 1);
+                });
+
+        runResolutionForced(true);
+
+        assertEquals(BetStatus.WON, cached.getStatus());
+        assertEquals(BetStatus.WON, batched.getStatus());
+        verify(betRepository, times(1)).findByIdWithChildBets(41L);
+    }
+
     @Test
     void shouldLeavePendingWhenNoMatch() {
         Bet bet = Bet.builder()
@@ -324,6 +398,16 @@ class BetResolutionServiceTest {
         assertNull(bet.getLastResolutionAttemptAt());
     }
 
+    private Bet legiaWinSingle(Long id, LocalDateTime placed) {
+        return Bet.builder()
+                .id(id).betType(BetType.SINGLE).status(BetStatus.PENDING)
+                .marketType(MarketType.MONEYLINE_1X2).selection("Legia Warszawa")
+                .eventName("Legia Warszawa vs Lech Poznan")
+                .stake(new BigDecimal("10")).odds(new BigDecimal("2.00"))
+                .potentialWinnings(new BigDecimal("20")).placedAt(placed)
+                .build();
+    }
+
     private Bet searchableSingle(Long id, String eventName, LocalDateTime placed) {
         return Bet.builder()
                 .id(id).betType(BetType.SINGLE).status(BetStatus.PENDING)
@@ -10,21 +10,30 @@ import org.junit.jupiter.api.Test;
 import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.web.client.RestClient;
 
+import java.time.LocalDateTime;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 class EventEnrichmentServiceTest {
 
     private RecordingApifyClient apifyClient;
+    private SofaScoreEventStore eventStore;
     private EventEnrichmentService service;
 
     @BeforeEach
     void setUp() {
         apifyClient = new RecordingApifyClient();
-        service = new EventEnrichmentService(apifyClient);
+        eventStore = mock(SofaScoreEventStore.class);
+        service = new EventEnrichmentService(apifyClient, eventStore);
         ReflectionTestUtils.setField(service, "enrichmentEnabled", true);
         ReflectionTestUtils.setField(service, "enrichmentMinConfidence", 0.80);
     }
@@ -60,9 +69,12 @@ class EventEnrichmentServiceTest {
         SofaScoreEventDto result = service.enrichIfNeeded(
                 bet, event, 0.90, new CycleEnrichmentBudget(3));
 
-        assertSame(event, result);
+        assertNotSame(event, result);
         assertEquals("evt-2", result.getEventId());
         assertNotNull(result.getStatistics());
+        assertEquals(event.getUrl(), result.getUrl());
+        assertNull(event.getStatistics(), "mecz z puli cyklu jest współdzielony — enrichment go nie zmienia");
+        assertNull(event.getEventId());
         assertEquals(1, apifyClient.fetchCalls.get());
         assertEquals(event.getUrl(), apifyClient.lastUrl);
     }
@@ -102,6 +114,63 @@ class EventEnrichmentServiceTest {
         assertEquals(0, apifyClient.fetchCalls.get());
     }
 
+    @Test
+    void shouldUseCachedStatisticsWithoutApifyCallOrBudget() {
+        ReflectionTestUtils.setField(service, "enrichmentCacheEnabled", true);
+        Map<String, Object> cached = Map.of("fouls", Map.of("home", 12, "away", 9));
+        when(eventStore.findStatistics(eq("url:https://www.sofascore.com/match/4"), any(LocalDateTime.class)))
+                .thenReturn(Optional.of(cached));
+        CycleEnrichmentBudget budget = new CycleEnrichmentBudget(1);
+
+        SofaScoreEventDto event = baseEvent("https://www.sofascore.com/match/4");
+
+        EventEnrichmentService.EnrichmentResult result = service.enrich(statsBet(4L), event, 0.95, budget);
+
+        assertEquals(cached, result.event().getStatistics());
+        assertNull(event.getStatistics());
+        assertFalse(result.attempted());
+        assertEquals(0, apifyClient.fetchCalls.get());
+        assertEquals(0, budget.usedCount());
+    }
+
+    @Test
+    void shouldStoreFetchedStatisticsUnderKeyFromBeforeEnrichment() {
+        ReflectionTestUtils.setField(service, "enrichmentCacheEnabled", true);
+        when(eventStore.findStatistics(any(), any())).thenReturn(Optional.empty());
+        SofaScoreEventDto event = baseEvent("https://www.sofascore.com/match/5");
+
+        EventEnrichmentService.EnrichmentResult result = service.enrich(
+                statsBet(5L), event, 0.95, new CycleEnrichmentBudget(3));
+
+        assertTrue(result.attempted());
+        assertEquals(1, apifyClient.fetchCalls.get());
+        verify(eventStore).saveStatistics(eq("url:https://www.sofascore.com/match/5"), eq(result.event()),
+                any(LocalDateTime.class));
+        assertNotNull(result.event().getStatistics());
+    }
+
+    @Test
+    void shouldNotStoreAnythingWhenBudgetIsExhausted() {
+        ReflectionTestUtils.setField(service, "enrichmentCacheEnabled", true);
+        when(eventStore.findStatistics(any(), any())).thenReturn(Optional.empty());
+
+        EventEnrichmentService.EnrichmentResult result = service.enrich(
+                statsBet(6L), baseEvent("https://www.sofascore.com/match/6"), 0.95, new CycleEnrichmentBudget(0));
+
+        assertFalse(result.attempted());
+        assertEquals(0, apifyClient.fetchCalls.get());
+        verify(eventStore, never()).saveStatistics(any(), any(), any());
+    }
+
+    private static Bet statsBet(Long id) {
+        return Bet.builder()
+                .id(id)
+                .betType(BetType.SINGLE)
+                .status(BetStatus.PENDING)
+                .selection("Total fouls over 10.5")
+                .build();
+    }
+
     private static SofaScoreEventDto baseEvent(String url) {
         SofaScoreEventDto event = new SofaScoreEventDto();
         event.setType("match");
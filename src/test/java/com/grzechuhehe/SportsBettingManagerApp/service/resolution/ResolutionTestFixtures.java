@@ -9,6 +9,8 @@ import com.grzechuhehe.SportsBettingManagerApp.service.resolution.matching.Doubl
 import com.grzechuhehe.SportsBettingManagerApp.service.resolution.matching.TennisNameNormalizer;
 import com.grzechuhehe.SportsBettingManagerApp.service.resolution.matching.MatchReRanker;
 import com.grzechuhehe.SportsBettingManagerApp.service.resolution.matching.SportConfidenceThresholds;
+import com.grzechuhehe.SportsBettingManagerApp.service.stats.UserAnalyticsCache;
+import com.grzechuhehe.SportsBettingManagerApp.service.stats.UserStatsService;
 
 import static org.mockito.Mockito.mock;
 
@@ -41,7 +43,7 @@ public final class ResolutionTestFixtures {
     public static BetResolutionTransactionService transactionService(BetRepository betRepository) {
         ResolutionComponents c = components();
         EventEnrichmentService enrichmentService =
-                new EventEnrichmentService(mock(ApifySofaScoreClient.class));
+                new EventEnrichmentService(mock(ApifySofaScoreClient.class), mock(SofaScoreEventStore.class));
         return new BetResolutionTransactionService(
                 betRepository,
                 mock(BetResolutionAttemptRepository.class),
@@ -51,7 +53,9 @@ public final class ResolutionTestFixtures {
                 sportConfidenceThresholds(),
                 enrichmentService,
                 new com.grzechuhehe.SportsBettingManagerApp.service.resolution.importing.MarketTypeInferrer(
-                        c.nameTranslator()));
+                        c.nameTranslator()),
+                mock(UserStatsService.class),
+                mock(UserAnalyticsCache.class));
     }
 
     public static CycleEnrichmentBudget enrichmentBudget() {
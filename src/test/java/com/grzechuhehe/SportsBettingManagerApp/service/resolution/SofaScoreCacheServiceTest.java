@@ -12,12 +12,15 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.test.util.ReflectionTestUtils;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.Collection;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -29,12 +32,22 @@ class SofaScoreCacheServiceTest {
     @Mock
     private SofaScoreQueryCacheRepository cacheRepository;
 
+    @Mock
+    private SofaScoreCacheWriter cacheWriter;
+
+    @Mock
+    private SofaScoreEventStore eventStore;
+
     private SofaScoreCacheService cacheService;
 
     @BeforeEach
     void setUp() {
-        cacheService = new SofaScoreCacheService(cacheRepository, new ObjectMapper());
+        cacheService = new SofaScoreCacheService(
+                cacheRepository, new ObjectMapper(), new SofaScoreQueryL1Cache(0, Duration.ZERO),
+                new SofaScorePayloadCodec(), cacheWriter, eventStore);
         ReflectionTestUtils.setField(cacheService, "cacheTtlHours", 72);
+        ReflectionTestUtils.setField(cacheService, "negativeCacheTtlMinutes", 120);
+        ReflectionTestUtils.setField(cacheService, "negativeCacheMaxTtlHours", 24);
     }
 
     @Test
@@ -86,21 +99,38 @@ class SofaScoreCacheServiceTest {
         event.setType("match");
         event.setUrl("https://www.sofascore.com/x#id:2");
 
-        when(cacheRepository.findByQueryHash(anyString())).thenReturn(Optional.empty());
-        when(cacheRepository.save(any(SofaScoreQueryCache.class))).thenAnswer(inv -> inv.getArgument(0));
-
         Map<String, List<SofaScoreEventDto>> byQuery = new LinkedHashMap<>();
         byQuery.put("Legia Lech", List.of(event));
 
         cacheService.putAll(byQuery, now);
 
-        ArgumentCaptor<SofaScoreQueryCache> captor = ArgumentCaptor.forClass(SofaScoreQueryCache.class);
-        verify(cacheRepository).save(captor.capture());
-        SofaScoreQueryCache saved = captor.getValue();
+        SofaScoreQueryCache saved = upserted().getFirst();
         assertEquals("Legia Lech", saved.getQueryText());
         assertEquals(1, saved.getEventCount());
         assertEquals(now.plusHours(72), saved.getExpiresAt());
         assertEquals("APIFY", saved.getSource());
+        verifyNoInteractions(cacheRepository);
+    }
+
+    @Test
+    void shouldWriteWholeBatchInOneUpsertSerializingSharedEventsOnce() {
+        LocalDateTime now = LocalDateTime.of(2026, 6, 26, 12, 0);
+        SofaScoreEventDto event = new SofaScoreEventDto();
+        event.setType("match");
+        List<SofaScoreEventDto> batchEvents = List.of(event);
+        Map<String, List<SofaScoreEventDto>> byQuery = new LinkedHashMap<>();
+        for (int i = 0; i < 100; i++) {
+            byQuery.put("Query " + i, batchEvents);
+        }
+        byQuery.put(" query 0 ", batchEvents);
+
+        cacheService.putAll(byQuery, now);
+
+        List<SofaScoreQueryCache> rows = upserted();
+        assertEquals(100, rows.size());
+        assertEquals(" query 0 ", rows.getFirst().getQueryText());
+        assertTrue(rows.stream().allMatch(row -> row.getPayloadJson() == rows.getFirst().getPayloadJson()));
+        verify(cacheWriter, times(1)).upsert(anyList());
     }
 
     @Test
@@ -108,5 +138,203 @@ class SofaScoreCacheServiceTest {
         LocalDateTime now = LocalDateTime.of(2026, 6, 26, 4, 30);
         cacheService.purgeExpired();
         verify(cacheRepository).deleteByExpiresAtBefore(any(LocalDateTime.class));
+        verify(eventStore).purgeOrphans(any(LocalDateTime.class));
+    }
+
+    @Test
+    void shouldDoubleNegativeTtlOnConsecutiveEmptyResults() {
+        LocalDateTime now = LocalDateTime.of(2026, 6, 26, 12, 0);
+        SofaScoreQueryCache previous = new SofaScoreQueryCache();
+        previous.setQueryHash(SofaScoreCacheService.sha256(SofaScoreCacheService.normalize("Wisla Plock Stal Mielec")));
+        previous.setSource("NEGATIVE");
+        previous.setMissCount(2);
+        when(cacheRepository.findByQueryHashIn(anyCollection())).thenReturn(List.of(previous));
+
+        cacheService.putNegative(Map.of("Wisla Plock Stal Mielec", List.of(), "Unknown Query", List.of()), now);
+
+        Map<String, SofaScoreQueryCache> byQuery = upserted().stream()
+                .collect(Collectors.toMap(SofaScoreQueryCache::getQueryText, row -> row));
+        SofaScoreQueryCache repeated = byQuery.get("Wisla Plock Stal Mielec");
+        assertEquals(3, repeated.getMissCount());
+        assertEquals("NEGATIVE", repeated.getSource());
+        assertEquals("[]", repeated.getPayloadJson());
+        assertEquals(now.plusHours(8), repeated.getExpiresAt());
+        assertEquals(1, byQuery.get("Unknown Query").getMissCount());
+        assertEquals(now.plusHours(2), byQuery.get("Unknown Query").getExpiresAt());
+        verify(cacheRepository, times(1)).findByQueryHashIn(anyCollection());
+    }
+
+    @Test
+    void shouldCapNegativeTtlAndRetrySoonerWhenUnfinishedMatchShouldBeOver() {
+        LocalDateTime now = LocalDateTime.of(2026, 6, 26, 12, 0);
+        assertEquals(now.plusHours(24), cacheService.negativeExpiry(10, List.of(), now));
+
+        SofaScoreEventDto upcoming = new SofaScoreEventDto();
+        upcoming.setStatusType("notstarted");
+        upcoming.setStartTimestamp(now.plusHours(1).atZone(ZoneId.systemDefault()).toEpochSecond());
+        assertEquals(now.plusHours(4), cacheService.negativeExpiry(5, List.of(upcoming), now));
+    }
+
+    @Test
+    void shouldCountNegativeEntriesAsHitsWithoutEvents() {
+        LocalDateTime now = LocalDateTime.of(2026, 6, 26, 12, 0);
+        SofaScoreQueryCache row = new SofaScoreQueryCache();
+        row.setQueryHash(SofaScoreCacheService.sha256(SofaScoreCacheService.normalize("Wisla Plock Stal Mielec")));
+        row.setPayloadJson("[]");
+        row.setSource("NEGATIVE");
+        when(cacheRepository.findByQueryHashInAndExpiresAtAfter(anyCollection(), eq(now)))
+                .thenReturn(List.of(row));
+
+        SofaScoreCacheService.CacheLookupResult hit =
+                cacheService.getFresh(List.of("Wisla Plock Stal Mielec"), now);
+
+        assertTrue(hit.events().isEmpty());
+        assertTrue(hit.missingQueries().isEmpty());
+        assertEquals(1, hit.negativeHits());
+    }
+
+    @Test
+    void shouldSkipNegativeEntriesWhenDisabled() {
+        ReflectionTestUtils.setField(cacheService, "negativeCacheTtlMinutes", 0);
+
+        cacheService.putNegative(Map.of("Wisla Plock Stal Mielec", List.of()), LocalDateTime.now());
+
+        verifyNoInteractions(cacheRepository);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldServeRepeatedLookupFromL1AndCountHitRatioPerTier() {
+        SofaScoreQueryL1Cache l1Cache = new SofaScoreQueryL1Cache(100, Duration.ofHours(12));
+        cacheService = new SofaScoreCacheService(
+                cacheRepository, new ObjectMapper(), l1Cache, new SofaScorePayloadCodec(), cacheWriter, eventStore);
+        LocalDateTime now = LocalDateTime.of(2026, 6, 26, 12, 0);
+        SofaScoreQueryCache row = new SofaScoreQueryCache();
+        row.setQueryHash(SofaScoreCacheService.sha256(SofaScoreCacheService.normalize("Croatia Slovenia")));
+        row.setPayloadJson("[{\"type\":\"match\",\"homeTeam\":\"Croatia\"}]");
+        row.setSource("APIFY");
+        row.setExpiresAt(now.plusHours(2));
+        when(cacheRepository.findByQueryHashInAndExpiresAtAfter(anyCollection(), any(LocalDateTime.class)))
+                .thenReturn(List.of(row))
+                .thenReturn(List.of());
+
+        cacheService.getFresh(List.of("Croatia Slovenia", "Germany Norway"), now);
+        SofaScoreCacheService.CacheLookupResult second =
+                cacheService.getFresh(List.of("Croatia Slovenia", "Germany Norway"), now.plusHours(1));
+
+        assertEquals("Croatia", second.events().getFirst().getHomeTeam());
+        assertEquals(List.of("Germany Norway"), List.copyOf(second.missingQueries()));
+        ArgumentCaptor<Collection<String>> hashes = ArgumentCaptor.forClass(Collection.class);
+        verify(cacheRepository, times(2)).findByQueryHashInAndExpiresAtAfter(hashes.capture(), any(LocalDateTime.class));
+        assertEquals(1, hashes.getAllValues().get(1).size());
+
+        SofaScoreQueryL1Cache.Metrics metrics = l1Cache.metrics();
+        assertEquals(1, metrics.l1Hits());
+        assertEquals(3, metrics.l1Misses());
+        assertEquals(1, metrics.dbHits());
+        assertEquals(2, metrics.dbMisses());
+        assertEquals(1.0 / 3, metrics.dbHitRatio(), 1e-9);
+    }
+
+    @Test
+    void shouldNotKeepL1EntryPastRowExpiryAndWriteThroughOnPutAll() {
+        SofaScoreQueryL1Cache l1Cache = new SofaScoreQueryL1Cache(100, Duration.ofHours(12));
+        cacheService = new SofaScoreCacheService(
+                cacheRepository, new ObjectMapper(), l1Cache, new SofaScorePayloadCodec(), cacheWriter, eventStore);
+        LocalDateTime now = LocalDateTime.of(2026, 6, 26, 12, 0);
+        ReflectionTestUtils.setField(cacheService, "cacheTtlHours", 1);
+        SofaScoreEventDto event = new SofaScoreEventDto();
+        event.setType("match");
+
+        cacheService.putAll(Map.of("Legia Lech", List.of(event)), now);
+        SofaScoreCacheService.CacheLookupResult fresh =
+                cacheService.getFresh(List.of("Legia Lech"), now.plusMinutes(30));
+
+        assertEquals(1, fresh.events().size());
+        verify(cacheRepository, never()).findByQueryHashInAndExpiresAtAfter(anyCollection(), any(LocalDateTime.class));
+
+        when(cacheRepository.findByQueryHashInAndExpiresAtAfter(anyCollection(), any(LocalDateTime.class)))
+                .thenReturn(List.of());
+        SofaScoreCacheService.CacheLookupResult expired =
+                cacheService.getFresh(List.of("Legia Lech"), now.plusHours(2));
+
+        assertEquals(List.of("Legia Lech"), List.copyOf(expired.missingQueries()));
+        assertEquals(1, l1Cache.metrics().expirations());
+    }
+
+    @Test
+    void shouldWriteBinaryPayloadAndStillReadLegacyJsonRows() throws Exception {
+        ReflectionTestUtils.setField(cacheService, "binaryPayload", true);
+        LocalDateTime now = LocalDateTime.of(2026, 6, 26, 12, 0);
+        SofaScoreEventDto event = new SofaScoreEventDto();
+        event.setType("match");
+        event.setHomeTeam("Legia");
+        cacheService.putAll(Map.of("Legia Lech", List.of(event)), now);
+
+        SofaScoreQueryCache binary = upserted().getFirst();
+        assertNull(binary.getPayloadJson());
+        assertEquals(SofaScorePayloadCodec.FORMAT_SMILE_GZIP, binary.getPayload()[0]);
+
+        SofaScoreQueryCache legacy = new SofaScoreQueryCache();
+        legacy.setQueryHash(SofaScoreCacheService.sha256(SofaScoreCacheService.normalize("Croatia Slovenia")));
+        legacy.setPayloadJson("[{\"type\":\"match\",\"homeTeam\":\"Croatia\"}]");
+        when(cacheRepository.findByQueryHashInAndExpiresAtAfter(anyCollection(), eq(now)))
+                .thenReturn(List.of(binary, legacy));
+
+        SofaScoreCacheService.CacheLookupResult hit =
+                cacheService.getFresh(List.of("Legia Lech", "Croatia Slovenia"), now);
+
+        assertEquals(List.of("Legia", "Croatia"), hit.events().stream().map(SofaScoreEventDto::getHomeTeam).toList());
+        assertTrue(hit.missingQueries().isEmpty());
+    }
+
+    @Test
+    void shouldReencodeLegacyJsonRowsInBackground() {
+        ReflectionTestUtils.setField(cacheService, "binaryPayload", true);
+        SofaScoreQueryCache legacy = new SofaScoreQueryCache();
+        legacy.setPayloadJson("[{\"type\":\"match\",\"homeTeam\":\"Croatia\"}]");
+        when(cacheRepository.findTop200ByPayloadIsNullAndPayloadJsonIsNotNullAndExpiresAtAfterOrderByIdAsc(
+                any(LocalDateTime.class)))
+                .thenReturn(List.of(legacy));
+
+        cacheService.reencodeLegacyPayloads();
+
+        verify(cacheRepository).saveAll(List.of(legacy));
+        assertNull(legacy.getPayloadJson());
+        assertEquals(SofaScorePayloadCodec.FORMAT_SMILE_GZIP, legacy.getPayload()[0]);
+    }
+
+    @Test
+    void shouldKeepEventsInEventStoreAndReadThemBackByQueryHash() {
+        ReflectionTestUtils.setField(cacheService, "eventStoreEnabled", true);
+        LocalDateTime now = LocalDateTime.of(2026, 6, 26, 12, 0);
+        SofaScoreEventDto event = new SofaScoreEventDto();
+        event.setType("match");
+        event.setHomeTeam("Legia");
+        String hash = SofaScoreCacheService.sha256(SofaScoreCacheService.normalize("Legia Lech"));
+
+        cacheService.putAll(Map.of("Legia Lech", List.of(event)), now);
+
+        SofaScoreQueryCache row = upserted().getFirst();
+        assertNull(row.getPayloadJson());
+        assertNull(row.getPayload());
+        assertEquals(1, row.getEventCount());
+        verify(eventStore).saveForQueries(Map.of(hash, List.of(event)), now);
+
+        row.setExpiresAt(now.plusHours(72));
+        when(cacheRepository.findByQueryHashInAndExpiresAtAfter(anyCollection(), eq(now))).thenReturn(List.of(row));
+        when(eventStore.findByQueryHashes(Set.of(hash))).thenReturn(Map.of(hash, List.of(event)));
+
+        SofaScoreCacheService.CacheLookupResult hit = cacheService.getFresh(List.of("Legia Lech"), now);
+
+        assertEquals(List.of(event), hit.events());
+        assertTrue(hit.missingQueries().isEmpty());
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<SofaScoreQueryCache> upserted() {
+        ArgumentCaptor<List<SofaScoreQueryCache>> captor = ArgumentCaptor.forClass(List.class);
+        verify(cacheWriter).upsert(captor.capture());
+        return captor.getValue();
     }
 }
@@ -0,0 +1,72 @@
+package com.grzechuhehe.SportsBettingManagerApp.service.resolution;
+
+import com.grzechuhehe.SportsBettingManagerApp.model.SofaScoreQueryCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SofaScoreCacheWriterTest {
+
+    private final LocalDateTime now = LocalDateTime.of(2026, 6, 26, 12, 0);
+
+    private JdbcTemplate jdbcTemplate;
+    private SofaScoreCacheWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource("jdbc:h2:mem:sofascore_cache;DB_CLOSE_DELAY=-1"));
+        jdbcTemplate.execute("DROP TABLE IF EXISTS sofascore_query_cache");
+        jdbcTemplate.execute("""
+                CREATE TABLE sofascore_query_cache (
+                    id BIGINT AUTO_INCREMENT PRIMARY KEY, query_hash VARCHAR(64) NOT NULL,
+                    query_text VARCHAR(512) NOT NULL, payload_json CLOB, payload BLOB, event_count INT NOT NULL,
+                    fetched_at TIMESTAMP(6), expires_at TIMESTAMP(6), source VARCHAR(32), miss_count INT NOT NULL,
+                    CONSTRAINT uk_query_hash UNIQUE (query_hash))
+                """);
+        writer = new SofaScoreCacheWriter(jdbcTemplate);
+    }
+
+    @Test
+    void shouldInsertNewRowsAndUpdateExistingOnesByQueryHash() {
+        writer.upsert(List.of(row("a", "[]", null, "NEGATIVE", 2), row("b", "[{}]", null, "APIFY", 0)));
+        Long idOfA = jdbcTemplate.queryForObject("SELECT id FROM sofascore_query_cache WHERE query_hash = 'a'", Long.class);
+
+        writer.upsert(List.of(row("a", null, new byte[]{1, 2, 3}, "APIFY", 0), row("c", "[]", null, "APIFY", 0)));
+
+        assertEquals(3, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM sofascore_query_cache", Integer.class));
+        Map<String, Object> a = jdbcTemplate.queryForMap("SELECT * FROM sofascore_query_cache WHERE query_hash = 'a'");
+        assertEquals(idOfA, ((Number) a.get("ID")).longValue());
+        assertNull(a.get("PAYLOAD_JSON"));
+        assertArrayEquals(new byte[]{1, 2, 3}, (byte[]) a.get("PAYLOAD"));
+        assertEquals("APIFY", a.get("SOURCE"));
+        assertEquals(0, a.get("MISS_COUNT"));
+    }
+
+    @Test
+    void shouldIgnoreEmptyBatch() {
+        writer.upsert(List.of());
+
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM sofascore_query_cache", Integer.class));
+    }
+
+    private SofaScoreQueryCache row(String hash, String json, byte[] binary, String source, int missCount) {
+        SofaScoreQueryCache row = new SofaScoreQueryCache();
+        row.setQueryHash(hash);
+        row.setQueryText("query " + hash);
+        row.setPayloadJson(json);
+        row.setPayload(binary);
+        row.setEventCount(json == null ? 1 : 0);
+        row.setFetchedAt(now);
+        row.setExpiresAt(now.plusHours(72));
+        row.setSource(source);
+        row.setMissCount(missCount);
+        return row;
+    }
+}
@@ -0,0 +1,176 @@
+package com.grzechuhehe.SportsBettingManagerApp.service.resolution;
+
+import com.grzechuhehe.SportsBettingManagerApp.integration.apify.dto.SofaScoreEventDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SofaScoreEventStoreTest {
+
+    private final LocalDateTime now = LocalDateTime.of(2026, 6, 26, 12, 0);
+
+    private JdbcTemplate jdbcTemplate;
+    private SofaScoreEventStore store;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource("jdbc:h2:mem:sofascore_events;DB_CLOSE_DELAY=-1"));
+        jdbcTemplate.execute("DROP TABLE IF EXISTS sofascore_query_event");
+        jdbcTemplate.execute("DROP TABLE IF EXISTS sofascore_event");
+        jdbcTemplate.execute("DROP TABLE IF EXISTS sofascore_query_cache");
+        jdbcTemplate.execute("""
+                CREATE TABLE sofascore_event (
+                    id BIGINT AUTO_INCREMENT PRIMARY KEY, event_key VARCHAR(255) NOT NULL UNIQUE,
+                    event_id VARCHAR(64), url VARCHAR(1024), type VARCHAR(32), sport VARCHAR(64), name VARCHAR(512),
+                    home_team VARCHAR(255), away_team VARCHAR(255), home_score INT, away_score INT,
+                    status_type VARCHAR(32), winner_code INT, start_timestamp BIGINT, start_time TIMESTAMP(6),
+                    tournament VARCHAR(255), statistics BLOB, statistics_expires_at TIMESTAMP(6), updated_at TIMESTAMP(6))
+                """);
+        jdbcTemplate.execute("""
+                CREATE TABLE sofascore_query_event (
+                    id BIGINT AUTO_INCREMENT PRIMARY KEY, query_hash VARCHAR(64) NOT NULL,
+                    event_key VARCHAR(255) NOT NULL, event_index INT NOT NULL, UNIQUE (query_hash, event_key))
+                """);
+        jdbcTemplate.execute("CREATE TABLE sofascore_query_cache (id BIGINT AUTO_INCREMENT PRIMARY KEY, "
+                + "query_hash VARCHAR(64) NOT NULL)");
+        store = new SofaScoreEventStore(jdbcTemplate, new SofaScoreCacheWriter(jdbcTemplate), new SofaScorePayloadCodec());
+        ReflectionTestUtils.setField(store, "unfinishedStatisticsTtlMinutes", 30L);
+    }
+
+    @Test
+    void shouldStoreEventSharedByQueriesOnceAndReadItBackInOrder() {
+        SofaScoreEventDto shared = event("https://www.sofascore.com/legia-lech#id:11", "Legia", "Lech", "finished");
+        SofaScoreEventDto other = event("https://www.sofascore.com/wisla-stal#id:12", "Wisla", "Stal", "finished");
+        Map<String, List<SofaScoreEventDto>> byHash = new LinkedHashMap<>();
+        byHash.put("a", List.of(other, shared));
+        byHash.put("b", List.of(shared));
+
+        store.saveForQueries(byHash, now);
+
+        assertEquals(2, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM sofascore_event", Integer.class));
+        Map<String, List<SofaScoreEventDto>> read = store.findByQueryHashes(List.of("a", "b", "missing"));
+        assertEquals(List.of("Wisla", "Legia"), read.get("a").stream().map(SofaScoreEventDto::getHomeTeam).toList());
+        assertSame(read.get("a").get(1), read.get("b").getFirst());
+        assertEquals(2, read.get("a").get(1).getHomeScore());
+        assertFalse(read.containsKey("missing"));
+    }
+
+    @Test
+    void shouldUpdateEventInOnePlaceAndKeepStatisticsWhenLaterCopyHasNone() {
+        SofaScoreEventDto enriched = event("https://www.sofascore.com/legia-lech#id:11", "Legia", "Lech", "inprogress");
+        enriched.setStatistics(Map.of("home", Map.of("fouls", 12)));
+        store.saveForQueries(Map.of("a", List.of(enriched)), now);
+
+        SofaScoreEventDto finished = event("https://www.sofascore.com/legia-lech#id:11", "Legia", "Lech", "finished");
+        store.saveForQueries(Map.of("b", List.of(finished)), now.plusHours(3));
+
+        Map<String, List<SofaScoreEventDto>> read = store.findByQueryHashes(List.of("a", "b"));
+        SofaScoreEventDto fromA = read.get("a").getFirst();
+        assertEquals("finished", fromA.getStatusType());
+        assertEquals(Map.of("home", Map.of("fouls", 12)), fromA.getStatistics());
+        assertSame(fromA, read.get("b").getFirst());
+    }
+
+    @Test
+    void shouldReplaceMappingOfRequeriedQuery() {
+        store.saveForQueries(Map.of("a", List.of(event("https://x/a#id:1", "A", "B", "finished"))), now);
+        store.saveForQueries(Map.of("a", List.of(event("https://x/c#id:2", "C", "D", "finished"))), now);
+
+        assertEquals(List.of("C"), store.findByQueryHashes(List.of("a")).get("a").stream()
+                .map(SofaScoreEventDto::getHomeTeam).toList());
+    }
+
+    @Test
+    void shouldFindEventsByStartTimeRange() {
+        SofaScoreEventDto early = event("https://x/a#id:1", "A", "B", "finished");
+        early.setStartTimestamp(now.minusDays(2).atZone(ZoneId.systemDefault()).toEpochSecond());
+        SofaScoreEventDto late = event("https://x/c#id:2", "C", "D", "finished");
+        late.setStartTimestamp(now.minusHours(2).atZone(ZoneId.systemDefault()).toEpochSecond());
+        store.saveForQueries(Map.of("a", List.of(early, late)), now);
+
+        List<SofaScoreEventDto> lastDay = store.findStartingBetween(now.minusDays(1), now);
+
+        assertEquals(List.of("C"), lastDay.stream().map(SofaScoreEventDto::getHomeTeam).toList());
+    }
+
+    @Test
+    void shouldPurgeMappingsOfExpiredQueriesAndOldUnreferencedEvents() {
+        SofaScoreEventDto old = event("https://x/a#id:1", "A", "B", "finished");
+        old.setStartTimestamp(now.minusDays(40).atZone(ZoneId.systemDefault()).toEpochSecond());
+        SofaScoreEventDto recent = event("https://x/c#id:2", "C", "D", "finished");
+        store.saveForQueries(Map.of("expired", List.of(old), "live", List.of(recent)), now);
+        jdbcTemplate.update("INSERT INTO sofascore_query_cache (query_hash) VALUES ('live')");
+
+        store.purgeOrphans(now.minusDays(30));
+
+        assertEquals(List.of("live"),
+                jdbcTemplate.queryForList("SELECT query_hash FROM sofascore_query_event", String.class));
+        assertEquals(List.of("id:2"), jdbcTemplate.queryForList("SELECT event_key FROM sofascore_event", String.class));
+    }
+
+    @Test
+    void shouldKeepStatisticsOfFinishedEventForeverAndExpireUnfinishedOnes() {
+        SofaScoreEventDto finished = event("https://x/a#id:1", "A", "B", "finished");
+        finished.setStatistics(Map.of("home", Map.of("fouls", 12)));
+        SofaScoreEventDto live = event("https://x/c#id:2", "C", "D", "inprogress");
+        live.setStatistics(Map.of("home", Map.of("fouls", 3)));
+
+        store.saveStatistics("id:1", finished, now);
+        store.saveStatistics("id:2", live, now);
+
+        assertEquals(Map.of("home", Map.of("fouls", 12)),
+                store.findStatistics("id:1", now.plusYears(1)).orElseThrow());
+        assertTrue(store.findStatistics("id:2", now.plusMinutes(29)).isPresent());
+        assertTrue(store.findStatistics("id:2", now.plusMinutes(31)).isEmpty());
+        assertTrue(store.findStatistics("id:3", now).isEmpty());
+    }
+
+    @Test
+    void shouldNotPurgeUnreferencedEventWithFinishedStatistics() {
+        SofaScoreEventDto finished = event("https://x/a#id:1", "A", "B", "finished");
+        finished.setStartTimestamp(now.minusDays(40).atZone(ZoneId.systemDefault()).toEpochSecond());
+        finished.setStatistics(Map.of("home", Map.of("fouls", 12)));
+        SofaScoreEventDto plain = event("https://x/c#id:2", "C", "D", "finished");
+        plain.setStartTimestamp(now.minusDays(40).atZone(ZoneId.systemDefault()).toEpochSecond());
+        store.saveStatistics("id:1", finished, now);
+        store.saveForQueries(Map.of("expired", List.of(plain)), now);
+
+        store.purgeOrphans(now.minusDays(30));
+
+        assertEquals(List.of("id:1"), jdbcTemplate.queryForList("SELECT event_key FROM sofascore_event", String.class));
+    }
+
+    @Test
+    void shouldKeyEventsByIdThenUrl() {
+        SofaScoreEventDto withId = event("https://x/a", "A", "B", "finished");
+        withId.setEventId("77");
+
+        assertEquals("id:77", SofaScoreEventStore.eventKey(withId));
+        assertEquals("id:5", SofaScoreEventStore.eventKey(event("https://x/a#id:5", "A", "B", "finished")));
+        assertEquals("url:https://x/a", SofaScoreEventStore.eventKey(event("https://x/a", "A", "B", "finished")));
+    }
+
+    private SofaScoreEventDto event(String url, String home, String away, String status) {
+        SofaScoreEventDto event = new SofaScoreEventDto();
+        event.setType("match");
+        event.setSport("football");
+        event.setUrl(url);
+        event.setHomeTeam(home);
+        event.setAwayTeam(away);
+        event.setHomeScore(2);
+        event.setAwayScore(1);
+        event.setStatusType(status);
+        event.setStartTimestamp(now.minusHours(3).atZone(ZoneId.systemDefault()).toEpochSecond());
+        return event;
+    }
+}
@@ -0,0 +1,103 @@
+package com.grzechuhehe.SportsBettingManagerApp.service.resolution;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.grzechuhehe.SportsBettingManagerApp.integration.apify.dto.SofaScoreEventDto;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SofaScorePayloadCodecTest {
+
+    private final SofaScorePayloadCodec codec = new SofaScorePayloadCodec();
+
+    @Test
+    void shouldRoundTripEventsWithNestedStatistics() throws Exception {
+        List<SofaScoreEventDto> events = enrichedEvents(3);
+
+        List<SofaScoreEventDto> decoded = codec.decode(codec.encode(events));
+
+        assertEquals(events, decoded);
+    }
+
+    @Test
+    void shouldBeSeveralTimesSmallerThanJsonForEnrichedEvents() throws Exception {
+        List<SofaScoreEventDto> events = enrichedEvents(10);
+
+        int json = new ObjectMapper().writeValueAsString(events).getBytes(StandardCharsets.UTF_8).length;
+        int binary = codec.encode(events).length;
+
+        assertTrue(binary * 5 <= json, "binarny " + binary + " B vs JSON " + json + " B");
+    }
+
+    @Test
+    void shouldRejectUnknownFormatByte() {
+        byte[] payload = codec.encode(List.of());
+        payload[0] = 42;
+
+        assertThrows(IllegalArgumentException.class, () -> codec.decode(payload));
+    }
+
+    private static List<SofaScoreEventDto> enrichedEvents(int count) {
+        List<SofaScoreEventDto> events = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            SofaScoreEventDto event = new SofaScoreEventDto();
+            event.setType("match");
+            event.setSport("football");
+            event.setName("Legia Warszawa - Lech Poznań");
+            event.setHomeTeam("Legia Warszawa");
+            event.setAwayTeam("Lech Poznań");
+            event.setHomeScore(i % 3);
+            event.setAwayScore(1);
+            event.setStatusType("finished");
+            event.setWinnerCode(1);
+            event.setStartTimestamp(1_782_000_000L + i * 3600L);
+            event.setTournament("Ekstraklasa");
+            event.setUrl("https://www.sofascore.com/legia-warszawa-lech-poznan/abc#id:" + (1000 + i));
+            event.setEventId(String.valueOf(1000 + i));
+            event.setStatistics(statistics(i));
+            events.add(event);
+        }
+        return events;
+    }
+
+    private static Map<String, Object> statistics(int seed) {
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put("home", teamStatistics(seed));
+        statistics.put("away", teamStatistics(seed + 1));
+        List<Map<String, Object>> players = new ArrayList<>();
+        for (int p = 0; p < 22; p++) {
+            Map<String, Object> player = new LinkedHashMap<>();
+            player.put("name", "Player " + p);
+            player.put("team", p < 11 ? "home" : "away");
+            player.put("goals", p % 7 == 0 ? 1 : 0);
+            player.put("assists", 0);
+            player.put("shotsOnTarget", p % 3);
+            player.put("totalShots", p % 4);
+            player.put("yellowCards", p % 9 == 0 ? 1 : 0);
+            player.put("redCards", 0);
+            player.put("minutesPlayed", 90);
+            players.add(player);
+        }
+        statistics.put("players", players);
+        return statistics;
+    }
+
+    private static Map<String, Object> teamStatistics(int seed) {
+        Map<String, Object> team = new LinkedHashMap<>();
+        team.put("ballPossession", 45 + seed % 10);
+        team.put("totalShots", 10 + seed % 5);
+        team.put("shotsOnTarget", 4 + seed % 3);
+        team.put("cornerKicks", 5 + seed % 4);
+        team.put("fouls", 12);
+        team.put("yellowCards", 2);
+        team.put("redCards", 0);
+        team.put("offsides", 1 + seed % 2);
+        return team;
+    }
+}
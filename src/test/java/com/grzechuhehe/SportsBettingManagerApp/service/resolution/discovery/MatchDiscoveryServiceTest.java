@@ -1,14 +1,39 @@
 package com.grzechuhehe.SportsBettingManagerApp.service.resolution.discovery;
 
+import com.grzechuhehe.SportsBettingManagerApp.integration.apify.ApifyBatchResult;
+import com.grzechuhehe.SportsBettingManagerApp.integration.apify.ApifySofaScoreClient;
+import com.grzechuhehe.SportsBettingManagerApp.integration.apify.dto.SofaScoreEventDto;
+import com.grzechuhehe.SportsBettingManagerApp.model.Bet;
+import com.grzechuhehe.SportsBettingManagerApp.service.resolution.ResolutionNameTranslator;
+import com.grzechuhehe.SportsBettingManagerApp.service.resolution.SofaScoreCacheService;
+import com.grzechuhehe.SportsBettingManagerApp.service.resolution.SofaScoreSportMapper;
+import com.grzechuhehe.SportsBettingManagerApp.service.resolution.matching.DoublesNameNormalizer;
+import com.grzechuhehe.SportsBettingManagerApp.service.resolution.matching.TennisNameNormalizer;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 class MatchDiscoveryServiceTest {
 
@@ -16,7 +41,7 @@ class MatchDiscoveryServiceTest {
 
     @BeforeEach
     void setUp() {
-        discoveryService = new MatchDiscoveryService(null, null, null, null);
+        discoveryService = new MatchDiscoveryService(null, null, null, null, null, null);
     }
 
     @Test
@@ -32,4 +57,211 @@ class MatchDiscoveryServiceTest {
         assertEquals(0, result.apifyFailures());
         assertEquals(0, result.cacheHits());
     }
+
+    @Test
+    void searchModeReportsCacheHitsAndEachBatchAsSoonAsTheyAreKnown() {
+        ApifySofaScoreClient apify = mock(ApifySofaScoreClient.class);
+        SofaScoreCacheService cache = mock(SofaScoreCacheService.class);
+        ResolutionNameTranslator translator =
+                new ResolutionNameTranslator(new DoublesNameNormalizer(), new TennisNameNormalizer());
+        MatchDiscoveryService search = new MatchDiscoveryService(apify, null, translator, cache, fixedSizer(1), new SearchQueryPlanner());
+        ReflectionTestUtils.setField(search, "apifyMode", "search");
+        ReflectionTestUtils.setField(search, "maxSearchQueries", 20);
+        ReflectionTestUtils.setField(search, "maxApifyCallsPerCycle", 5);
+
+        Bet cached = Bet.builder().id(1L).eventName("Legia Warszawa - Lech Poznan").build();
+        Bet fetched = Bet.builder().id(2L).eventName("Arsenal - Chelsea").build();
+        Bet failed = Bet.builder().id(3L).eventName("Brighton - Manchester United").build();
+        SofaScoreEventDto cachedEvent = new SofaScoreEventDto();
+        cachedEvent.setUrl("https://www.sofascore.com/x#id:1");
+        SofaScoreEventDto fetchedEvent = new SofaScoreEventDto();
+        fetchedEvent.setUrl("https://www.sofascore.com/x#id:2");
+
+        String cachedQuery = translator.resolveQueryForApify(cached.getEventName()).orElseThrow();
+        Set<String> missing = new LinkedHashSet<>(List.of(
+                translator.resolveQueryForApify(fetched.getEventName()).orElseThrow(),
+                translator.resolveQueryForApify(failed.getEventName()).orElseThrow()));
+        when(cache.getFresh(anyList(), any(LocalDateTime.class))).thenAnswer(invocation -> {
+            assertTrue(invocation.<List<String>>getArgument(0).contains(cachedQuery));
+            return new SofaScoreCacheService.CacheLookupResult(List.of(cachedEvent), missing);
+        });
+        when(apify.searchMatchesBatch(anyList()))
+                .thenReturn(ApifyBatchResult.success(List.of(fetchedEvent)))
+                .thenReturn(ApifyBatchResult.failure());
+
+        List<DiscoveryProgress> stages = new ArrayList<>();
+        DiscoveryResult result = search.discover(List.of(cached, fetched, failed), LocalDateTime.now(), stages::add);
+
+        assertEquals(3, stages.size());
+        assertEquals(Set.of(1L), stages.get(0).completedBetIds());
+        assertEquals(Set.of(1L), stages.get(0).fetchedBetIds());
+        assertEquals(List.of(cachedEvent), stages.get(0).events());
+        assertEquals(Set.of(1L, 2L), stages.get(1).completedBetIds());
+        assertEquals(Set.of(1L, 2L), stages.get(1).fetchedBetIds());
+        assertEquals(List.of(cachedEvent, fetchedEvent), stages.get(1).events());
+        assertEquals(Set.of(1L, 2L, 3L), stages.get(2).completedBetIds());
+        assertEquals(Set.of(1L, 2L), stages.get(2).fetchedBetIds());
+        assertEquals(Set.of(1L, 2L), result.fetchedBetIds());
+        assertEquals(1, result.apifyCalls());
+        assertEquals(1, result.apifyFailures());
+    }
+
+    @Test
+    void concurrentBatchesKeepCallLimitAndRetryBudgetOfFailedBatch() {
+        ApifySofaScoreClient apify = mock(ApifySofaScoreClient.class);
+        SofaScoreCacheService cache = mock(SofaScoreCacheService.class);
+        ResolutionNameTranslator translator =
+                new ResolutionNameTranslator(new DoublesNameNormalizer(), new TennisNameNormalizer());
+        MatchDiscoveryService search = new MatchDiscoveryService(apify, null, translator, cache, fixedSizer(1), new SearchQueryPlanner());
+        ReflectionTestUtils.setField(search, "apifyMode", "search");
+        ReflectionTestUtils.setField(search, "maxSearchQueries", 20);
+        ReflectionTestUtils.setField(search, "maxApifyCallsPerCycle", 2);
+        ReflectionTestUtils.setField(search, "searchConcurrency", 2);
+
+        List<Bet> leaves = List.of(
+                Bet.builder().id(1L).eventName("Arsenal - Chelsea").build(),
+                Bet.builder().id(2L).eventName("Brighton - Manchester United").build(),
+                Bet.builder().id(3L).eventName("Legia Warszawa - Lech Poznan").build(),
+                Bet.builder().id(4L).eventName("Real Madrid - Barcelona").build(),
+                Bet.builder().id(5L).eventName("Juventus - Inter").build());
+        Set<String> missing = new LinkedHashSet<>();
+        leaves.forEach(bet -> missing.add(translator.resolveQueryForApify(bet.getEventName()).orElseThrow()));
+        when(cache.getFresh(anyList(), any(LocalDateTime.class)))
+                .thenReturn(new SofaScoreCacheService.CacheLookupResult(List.of(), missing));
+
+        // Dwa pierwsze batche muszą być w locie jednocześnie; pierwszy kończy się błędem i zwraca miejsce w limicie
+        CountDownLatch bothInFlight = new CountDownLatch(2);
+        AtomicInteger invocations = new AtomicInteger();
+        AtomicInteger overlapped = new AtomicInteger();
+        when(apify.searchMatchesBatch(anyList())).thenAnswer(invocation -> {
+            int call = invocations.incrementAndGet();
+            if (call <= 2) {
+                bothInFlight.countDown();
+                if (bothInFlight.await(5, TimeUnit.SECONDS)) {
+                    overlapped.incrementAndGet();
+                }
+            }
+            return call == 1 ? ApifyBatchResult.failure() : ApifyBatchResult.success(List.of());
+        });
+
+        DiscoveryResult result = search.discover(leaves, LocalDateTime.now(), DiscoveryListener.NONE);
+
+        assertEquals(2, result.apifyCalls());
+        assertEquals(1, result.apifyFailures());
+        assertEquals(2, result.fetchedBetIds().size());
+        assertEquals(2, overlapped.get());
+        verify(apify, times(3)).searchMatchesBatch(anyList());
+    }
+
+    @Test
+    void scheduledModeAddsStoredEventsFromTheSameWindowAfterApifyOnes() {
+        ApifySofaScoreClient apify = mock(ApifySofaScoreClient.class);
+        SofaScoreCacheService cache = mock(SofaScoreCacheService.class);
+        SofaScoreSportMapper sportMapper = mock(SofaScoreSportMapper.class);
+        MatchDiscoveryService scheduled = new MatchDiscoveryService(apify, sportMapper, null, cache, fixedSizer(1), new SearchQueryPlanner());
+        ReflectionTestUtils.setField(scheduled, "scheduledSports", "football");
+        ReflectionTestUtils.setField(scheduled, "scheduledMaxItems", 400);
+        ReflectionTestUtils.setField(scheduled, "scheduledMaxDaysBack", 7);
+        ReflectionTestUtils.setField(scheduled, "dateWindowDays", 4);
+
+        LocalDateTime now = LocalDateTime.of(2026, 10, 18, 12, 0);
+        Bet bet = Bet.builder().id(1L).eventName("Arsenal - Chelsea").placedAt(now.minusDays(2)).build();
+        SofaScoreEventDto fromApify = new SofaScoreEventDto();
+        fromApify.setUrl("https://www.sofascore.com/x#id:1");
+        fromApify.setStatusType("finished");
+        SofaScoreEventDto staleCopy = new SofaScoreEventDto();
+        staleCopy.setUrl("https://www.sofascore.com/x#id:1");
+        staleCopy.setStatusType("inprogress");
+        SofaScoreEventDto onlyStored = new SofaScoreEventDto();
+        onlyStored.setUrl("https://www.sofascore.com/x#id:2");
+        when(sportMapper.resolveSportsForBets(anyList(), anyList())).thenReturn(List.of("football"));
+        when(apify.fetchScheduledMatches(any(), anyInt(), anyList(), anyInt())).thenReturn(List.of(fromApify));
+        when(cache.findStoredEventsStartingBetween(any(), any())).thenReturn(List.of(staleCopy, onlyStored));
+
+        DiscoveryResult result = scheduled.discover(List.of(bet), now);
+
+        assertEquals(List.of(fromApify, onlyStored), result.events());
+        assertEquals(1, result.apifyCalls());
+        verify(cache).findStoredEventsStartingBetween(
+                LocalDateTime.of(2026, 10, 15, 0, 0), LocalDateTime.of(2026, 10, 19, 0, 0));
+    }
+
+    @Test
+    void cacheWriteFailureKeepsPaidBatchSuccessful() {
+        ApifySofaScoreClient apify = mock(ApifySofaScoreClient.class);
+        SofaScoreCacheService cache = mock(SofaScoreCacheService.class);
+        ResolutionNameTranslator translator =
+                new ResolutionNameTranslator(new DoublesNameNormalizer(), new TennisNameNormalizer());
+        MatchDiscoveryService search = new MatchDiscoveryService(apify, null, translator, cache, fixedSizer(1), new SearchQueryPlanner());
+        ReflectionTestUtils.setField(search, "apifyMode", "search");
+        ReflectionTestUtils.setField(search, "maxSearchQueries", 20);
+        ReflectionTestUtils.setField(search, "maxApifyCallsPerCycle", 5);
+
+        Bet bet = Bet.builder().id(1L).eventName("Arsenal - Chelsea").build();
+        SofaScoreEventDto event = new SofaScoreEventDto();
+        event.setUrl("https://www.sofascore.com/x#id:1");
+        event.setStatusType("finished");
+        Set<String> missing = Set.of(translator.resolveQueryForApify(bet.getEventName()).orElseThrow());
+        when(cache.getFresh(anyList(), any(LocalDateTime.class)))
+                .thenReturn(new SofaScoreCacheService.CacheLookupResult(List.of(), missing));
+        when(apify.searchMatchesBatch(anyList())).thenReturn(ApifyBatchResult.success(List.of(event)));
+        doThrow(new IllegalStateException("Deadlock found when trying to get lock"))
+                .when(cache).putAll(anyMap(), any(LocalDateTime.class));
+
+        DiscoveryResult result = search.discover(List.of(bet), LocalDateTime.now(), DiscoveryListener.NONE);
+
+        assertEquals(1, result.apifyCalls());
+        assertEquals(0, result.apifyFailures());
+        assertEquals(Set.of(1L), result.fetchedBetIds());
+        assertEquals(List.of(event), result.events());
+    }
+
+    @Test
+    void batchSizeGrowsAfterFastFullBatchesAndHalvesOnTimeout() {
+        ApifySofaScoreClient apify = mock(ApifySofaScoreClient.class);
+        SofaScoreCacheService cache = mock(SofaScoreCacheService.class);
+        ResolutionNameTranslator translator =
+                new ResolutionNameTranslator(new DoublesNameNormalizer(), new TennisNameNormalizer());
+        SearchBatchSizer sizer = new SearchBatchSizer();
+        ReflectionTestUtils.setField(sizer, "initialSize", 2);
+        ReflectionTestUtils.setField(sizer, "minSize", 1);
+        ReflectionTestUtils.setField(sizer, "maxSize", 4);
+        ReflectionTestUtils.setField(sizer, "targetLatencyMs", 60_000L);
+        MatchDiscoveryService search = new MatchDiscoveryService(apify, null, translator, cache, sizer, new SearchQueryPlanner());
+        ReflectionTestUtils.setField(search, "apifyMode", "search");
+        ReflectionTestUtils.setField(search, "maxSearchQueries", 20);
+        ReflectionTestUtils.setField(search, "maxApifyCallsPerCycle", 5);
+
+        List<Bet> leaves = List.of(
+                Bet.builder().id(1L).eventName("Arsenal - Chelsea").build(),
+                Bet.builder().id(2L).eventName("Brighton - Manchester United").build(),
+                Bet.builder().id(3L).eventName("Legia Warszawa - Lech Poznan").build(),
+                Bet.builder().id(4L).eventName("Real Madrid - Barcelona").build(),
+                Bet.builder().id(5L).eventName("Juventus - Inter").build(),
+                Bet.builder().id(6L).eventName("Ajax - Feyenoord").build());
+        Set<String> missing = new LinkedHashSet<>();
+        leaves.forEach(bet -> missing.add(translator.resolveQueryForApify(bet.getEventName()).orElseThrow()));
+        when(cache.getFresh(anyList(), any(LocalDateTime.class)))
+                .thenReturn(new SofaScoreCacheService.CacheLookupResult(List.of(), missing));
+        when(apify.searchMatchesBatch(anyList()))
+                .thenReturn(ApifyBatchResult.success(List.of()))
+                .thenReturn(ApifyBatchResult.timeout());
+
+        DiscoveryResult result = search.discover(leaves, LocalDateTime.now(), DiscoveryListener.NONE);
+
+        // 2 zapytania (szybko, +1) → 3 zapytania (timeout, 3/2) → ostatnie zapytanie (timeout, rozmiar na minimum)
+        assertEquals(List.of(2, 3, 1), result.searchBatches().stream().map(SearchBatchSample::queries).toList());
+        assertTrue(result.searchBatches().get(1).timedOut());
+        assertEquals(1, result.apifyCalls());
+        assertEquals(2, result.apifyFailures());
+        assertEquals(1, result.searchBatchSize());
+    }
+
+    private static SearchBatchSizer fixedSizer(int size) {
+        SearchBatchSizer sizer = new SearchBatchSizer();
+        ReflectionTestUtils.setField(sizer, "initialSize", size);
+        ReflectionTestUtils.setField(sizer, "minSize", size);
+        ReflectionTestUtils.setField(sizer, "maxSize", size);
+        return sizer;
+    }
 }
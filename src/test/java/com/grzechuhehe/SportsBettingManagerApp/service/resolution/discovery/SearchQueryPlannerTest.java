@@ -0,0 +1,161 @@
+package com.grzechuhehe.SportsBettingManagerApp.service.resolution.discovery;
+
+import com.grzechuhehe.SportsBettingManagerApp.model.Bet;
+import com.grzechuhehe.SportsBettingManagerApp.model.enum_model.BetStatus;
+import com.grzechuhehe.SportsBettingManagerApp.model.enum_model.BetType;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SearchQueryPlannerTest {
+
+    private final SearchQueryPlanner planner = new SearchQueryPlanner();
+    private final LocalDateTime now = LocalDateTime.now();
+
+    @Test
+    void queryClosingParlayWithWonLegOutranksFirstLegOfOpenParlay() {
+        Bet closing = leg(1L, BetStatus.PENDING, now.minusHours(30));
+        Bet won = leg(2L, BetStatus.WON, now.minusHours(30));
+        parlay(100L, closing, won);
+        Bet first = leg(3L, BetStatus.PENDING, now.minusHours(30));
+        Bet second = leg(4L, BetStatus.PENDING, now.minusHours(30));
+        Bet third = leg(5L, BetStatus.PENDING, now.minusHours(30));
+        parlay(101L, first, second, third);
+
+        List<String> ranked = planner.rank(
+                List.of("open", "closing"),
+                Map.of("open", Set.of(3L), "closing", Set.of(1L)),
+                Map.of(1L, closing, 3L, first),
+                Set.of(),
+                now);
+
+        assertEquals(List.of("closing", "open"), ranked);
+    }
+
+    @Test
+    void cachedSiblingCountsAsAvailable() {
+        Bet cached = leg(1L, BetStatus.PENDING, now.minusHours(30));
+        Bet missing = leg(2L, BetStatus.PENDING, now.minusHours(30));
+        parlay(100L, cached, missing);
+
+        double withCache = planner.value(Set.of(2L), Map.of(2L, missing), Set.of(1L), now);
+        double withoutCache = planner.value(Set.of(2L), Map.of(2L, missing), Set.of(), now);
+
+        assertEquals(2 * withoutCache, withCache, 1e-9);
+    }
+
+    @Test
+    void recentEventRanksBelowFinishedOneAndTiesKeepInputOrder() {
+        Bet recent = single(1L, now.minusHours(1));
+        Bet finishedA = single(2L, now.minusHours(20));
+        Bet finishedB = single(3L, now.minusHours(20));
+
+        List<String> ranked = planner.rank(
+                List.of("recent", "a", "b"),
+                Map.of("recent", Set.of(1L), "a", Set.of(2L), "b", Set.of(3L)),
+                Map.of(1L, recent, 2L, finishedA, 3L, finishedB),
+                Set.of(),
+                now);
+
+        assertEquals(List.of("a", "b", "recent"), ranked);
+    }
+
+    /**
+     * Odtworzenie zaległości: ten sam budżet zapytań, dotychczasowa kolejność ({@link ResolutionQueuePrioritizer})
+     * kontra ranking. Korzeń liczy się jako rozliczony, gdy wszystkie jego nogi PENDING dostały dane i ich mecz
+     * już się skończył.
+     */
+    @Test
+    void replayedBacklogSettlesMoreRootsThanPriorityQueueOrderForSameBudget() {
+        Random random = new Random(7);
+        List<Bet> roots = new ArrayList<>();
+        Map<Long, Bet> legsById = new LinkedHashMap<>();
+        Map<String, Set<Long>> queryToBetIds = new LinkedHashMap<>();
+        Map<Long, Boolean> finished = new HashMap<>();
+        long id = 1;
+        for (int r = 0; r < 80; r++) {
+            BigDecimal stake = BigDecimal.valueOf(5 + random.nextInt(200));
+            List<Bet> legs = new ArrayList<>();
+            int legCount = random.nextBoolean() ? 1 : 2 + random.nextInt(4);
+            for (int l = 0; l < legCount; l++) {
+                LocalDateTime eventDate = switch (random.nextInt(3)) {
+                    case 0 -> now.minusHours(1 + random.nextInt(2));
+                    case 1 -> null;
+                    default -> now.minusHours(4 + random.nextInt(96));
+                };
+                BetStatus status = legCount > 1 && random.nextInt(3) == 0 ? BetStatus.WON : BetStatus.PENDING;
+                Bet leg = leg(id++, status, eventDate);
+                legs.add(leg);
+                if (status == BetStatus.PENDING) {
+                    legsById.put(leg.getId(), leg);
+                    queryToBetIds.put("q" + leg.getId(), Set.of(leg.getId()));
+                    finished.put(leg.getId(), eventDate == null ? random.nextBoolean() : eventDate.isBefore(now.minusHours(3)));
+                }
+            }
+            Bet root = legCount == 1 ? legs.getFirst() : parlay(10_000L + r, legs.toArray(Bet[]::new));
+            root.setStake(stake);
+            roots.add(root);
+        }
+        List<String> queueOrder = new ResolutionQueuePrioritizer()
+                .sortByPriority(new ArrayList<>(legsById.values()), roots).stream()
+                .map(leg -> "q" + leg.getId())
+                .toList();
+        int budget = queueOrder.size() / 4;
+
+        List<String> ranked = planner.rank(queueOrder, queryToBetIds, legsById, Set.of(), now);
+
+        int baseline = settledRoots(roots, queueOrder.subList(0, budget), queryToBetIds, finished);
+        int planned = settledRoots(roots, ranked.subList(0, budget), queryToBetIds, finished);
+        assertTrue(planned > baseline, "ranking " + planned + " vs kolejka priorytetów " + baseline);
+    }
+
+    private static int settledRoots(
+            List<Bet> roots, List<String> sent, Map<String, Set<Long>> queryToBetIds, Map<Long, Boolean> finished) {
+        Set<Long> withData = new LinkedHashSet<>();
+        sent.forEach(query -> withData.addAll(queryToBetIds.get(query)));
+        int settled = 0;
+        for (Bet root : roots) {
+            List<Bet> legs = root.getChildBets() == null ? List.of(root) : new ArrayList<>(root.getChildBets());
+            boolean complete = legs.stream()
+                    .filter(leg -> leg.getStatus() == BetStatus.PENDING)
+                    .allMatch(leg -> withData.contains(leg.getId()) && finished.get(leg.getId()));
+            if (complete) {
+                settled++;
+            }
+        }
+        return settled;
+    }
+
+    private static Bet leg(long id, BetStatus status, LocalDateTime eventDate) {
+        return Bet.builder().id(id).betType(BetType.SINGLE).status(status).eventDate(eventDate).build();
+    }
+
+    private static Bet single(long id, LocalDateTime eventDate) {
+        return leg(id, BetStatus.PENDING, eventDate);
+    }
+
+    private static Bet parlay(long id, Bet... legs) {
+        Bet parlay = Bet.builder()
+                .id(id)
+                .betType(BetType.PARLAY)
+                .status(BetStatus.PENDING)
+                .childBets(new LinkedHashSet<>(List.of(legs)))
+                .build();
+        for (Bet leg : legs) {
+            leg.setParentBet(parlay);
+        }
+        return parlay;
+    }
+}
@@ -0,0 +1,64 @@
+package com.grzechuhehe.SportsBettingManagerApp.service.resolution.matching;
+
+import org.junit.jupiter.api.Test;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NameFoldingTest {
+
+    @Test
+    void shouldFoldPolishDiacriticsIncludingL() {
+        assertEquals("rakow czestochowa", NameFolding.foldToWords("Raków  Częstochowa"));
+        assertEquals("korea pld", NameFolding.foldToWords("Korea Płd."));
+        assertEquals("lodz", NameFolding.foldToWords("ŁÓDŹ"));
+    }
+
+    @Test
+    void shouldTurnBookmakerWomenMarkerIntoWord() {
+        assertEquals("polska women", NameFolding.foldToWordsWithWomenMarker("Polska (K)"));
+        assertEquals("brazylia women wlochy women",
+                NameFolding.foldToWordsWithWomenMarker("Brazylia (K) - Włochy (K)"));
+        assertEquals("polska k", NameFolding.foldToWords("Polska (K)"));
+    }
+
+    @Test
+    void shouldCompactToLettersAndDigits() {
+        assertEquals("oconnell", NameFolding.foldCompact("O'Connell"));
+        assertEquals("swiatek", NameFolding.foldCompact("Świątek"));
+    }
+
+    @Test
+    void shouldMatchRegexNormalizationOnRandomText() {
+        String alphabet = "abcXYZ09 ()kK-.,'ąćęłńóśźżĄĆĘŁŃÓŚŹŻäöüßéñçøǽ̧Kİı\t한ﬁΣς😀";
+        Random random = new Random(42);
+        for (int n = 0; n < 20_000; n++) {
+            StringBuilder sb = new StringBuilder();
+            int length = random.nextInt(20);
+            for (int i = 0; i < length; i++) {
+                sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            String text = sb.toString();
+            assertEquals(regexWords(text, true), NameFolding.foldToWordsWithWomenMarker(text), text);
+            assertEquals(regexWords(text, false), NameFolding.foldToWords(text), text);
+            assertEquals(regexWords(text, false).replace(" ", ""), NameFolding.foldCompact(text), text);
+        }
+    }
+
+    /** Dotychczasowa normalizacja na regexach — wzorzec, z którym NameFolding ma być zgodny. */
+    private static String regexWords(String text, boolean womenMarker) {
+        String lowered = Normalizer.normalize(text, Normalizer.Form.NFD)
+                .replaceAll("\\p{M}", "")
+                .toLowerCase(Locale.ROOT)
+                .replace("ł", "l");
+        if (womenMarker) {
+            lowered = lowered.replaceAll("\\(k\\)", " women ");
+        }
+        return lowered.replaceAll("[^a-z0-9 ]", " ")
+                .replaceAll("\\s+", " ")
+                .trim();
+    }
+}
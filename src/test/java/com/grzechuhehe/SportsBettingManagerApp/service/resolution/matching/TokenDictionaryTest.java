@@ -0,0 +1,78 @@
+package com.grzechuhehe.SportsBettingManagerApp.service.resolution.matching;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenDictionaryTest {
+
+    @Test
+    void shouldCountUnknownBetTokensInUnionOnly() {
+        TokenDictionary dictionary = new TokenDictionary();
+        int[] home = dictionary.assign(Set.of("legia", "warszawa"));
+        int[] away = dictionary.assign(Set.of("lech", "poznan"));
+
+        TokenDictionary.TokenIds bet = dictionary.lookup(Set.of("legia", "lech", "kolejorz"));
+
+        assertEquals(3, bet.size());
+        // |∩| = 2, |∪| = 4 + 1 nieznany
+        assertEquals(2.0 / 5.0, TokenDictionary.jaccard(bet, home, away));
+        assertTrue(bet.intersects(home));
+        assertFalse(dictionary.lookup(Set.of("kolejorz")).intersects(home));
+    }
+
+    @Test
+    void shouldReturnZeroForEmptySets() {
+        TokenDictionary dictionary = new TokenDictionary();
+        int[] none = dictionary.assign(Set.of());
+
+        assertEquals(0.0, TokenDictionary.jaccard(dictionary.lookup(Set.of()), none, none));
+    }
+
+    @Test
+    void shouldGiveSameDoubleAsSetJaccardOnRandomSets() {
+        List<String> vocabulary = List.of("a", "b", "c", "d", "e", "f", "g", "h", "i", "j", "k", "l");
+        Random random = new Random(42);
+        for (int n = 0; n < 5_000; n++) {
+            TokenDictionary dictionary = new TokenDictionary();
+            Set<String> home = randomSubset(vocabulary, random);
+            Set<String> away = randomSubset(vocabulary, random);
+            int[] homeIds = dictionary.assign(home);
+            int[] awayIds = dictionary.assign(away);
+            Set<String> bet = randomSubset(vocabulary, random);
+
+            Set<String> event = new HashSet<>(home);
+            event.addAll(away);
+            assertEquals(setJaccard(bet, event),
+                    TokenDictionary.jaccard(dictionary.lookup(bet), homeIds, awayIds),
+                    bet + " / " + event);
+        }
+    }
+
+    private static Set<String> randomSubset(List<String> vocabulary, Random random) {
+        Set<String> subset = new HashSet<>();
+        for (String token : vocabulary) {
+            if (random.nextInt(4) == 0) {
+                subset.add(token);
+            }
+        }
+        return subset;
+    }
+
+    /** Dotychczasowy Jaccard na zbiorach — wzorzec, z którym wynik ma się zgadzać co do bitu. */
+    private static double setJaccard(Set<String> a, Set<String> b) {
+        Set<String> intersection = new HashSet<>(a);
+        intersection.retainAll(b);
+        Set<String> union = new HashSet<>(a);
+        union.addAll(b);
+        if (union.isEmpty()) {
+            return 0.0;
+        }
+        return (double) intersection.size() / union.size();
+    }
+}
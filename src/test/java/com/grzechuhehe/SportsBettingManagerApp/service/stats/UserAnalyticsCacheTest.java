@@ -0,0 +1,96 @@
+package com.grzechuhehe.SportsBettingManagerApp.service.stats;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.grzechuhehe.SportsBettingManagerApp.service.stats.UserAnalyticsCache.Kind.DASHBOARD;
+import static com.grzechuhehe.SportsBettingManagerApp.service.stats.UserAnalyticsCache.Kind.HEATMAP;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UserAnalyticsCacheTest {
+
+    private final AtomicLong clock = new AtomicLong();
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void servesHitsUntilTtlExpires() {
+        UserAnalyticsCache cache = new UserAnalyticsCache(10, Duration.ofMinutes(10), clock::get);
+
+        cache.get(1L, "PLN", DASHBOARD, loads::incrementAndGet);
+        cache.get(1L, "PLN", DASHBOARD, loads::incrementAndGet);
+        cache.get(1L, "EUR", DASHBOARD, loads::incrementAndGet);
+        clock.addAndGet(Duration.ofMinutes(11).toNanos());
+        cache.get(1L, "PLN", DASHBOARD, loads::incrementAndGet);
+
+        assertThat(loads).hasValue(3);
+        assertThat(cache.metrics()).isEqualTo(new UserAnalyticsCache.Metrics(2, 10, 1, 3, 0, 1, 0));
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedEntryWhenFull() {
+        UserAnalyticsCache cache = new UserAnalyticsCache(2, Duration.ofMinutes(10), clock::get);
+
+        cache.get(1L, "PLN", DASHBOARD, () -> "a");
+        cache.get(2L, "PLN", DASHBOARD, () -> "b");
+        cache.get(1L, "PLN", DASHBOARD, () -> "a2");
+        cache.get(3L, "PLN", DASHBOARD, () -> "c");
+
+        assertThat(cache.get(1L, "PLN", DASHBOARD, () -> "a3")).isEqualTo("a");
+        assertThat(cache.get(2L, "PLN", DASHBOARD, () -> "b2")).isEqualTo("b2");
+        assertThat(cache.metrics().evictions()).isEqualTo(2);
+    }
+
+    @Test
+    void invalidateDropsOnlyThatUsersResults() {
+        UserAnalyticsCache cache = new UserAnalyticsCache(10, Duration.ofMinutes(10), clock::get);
+        cache.get(1L, "PLN", DASHBOARD, () -> "user1");
+        cache.get(1L, "PLN", HEATMAP, () -> "user1-heatmap");
+        cache.get(2L, "PLN", DASHBOARD, () -> "user2");
+
+        cache.invalidate(1L);
+
+        assertThat(cache.get(1L, "PLN", DASHBOARD, () -> "user1-fresh")).isEqualTo("user1-fresh");
+        assertThat(cache.get(2L, "PLN", DASHBOARD, () -> "user2-fresh")).isEqualTo("user2");
+        assertThat(cache.metrics().invalidations()).isEqualTo(1);
+    }
+
+    @Test
+    void resultComputedDuringInvalidationIsNotStored() {
+        UserAnalyticsCache cache = new UserAnalyticsCache(10, Duration.ofMinutes(10), clock::get);
+
+        String stale = cache.get(1L, "PLN", DASHBOARD, () -> {
+            cache.invalidate(1L); // zmiana zakładu commitowana w trakcie liczenia
+            return "stale";
+        });
+
+        assertThat(stale).isEqualTo("stale");
+        assertThat(cache.get(1L, "PLN", DASHBOARD, () -> "fresh")).isEqualTo("fresh");
+    }
+
+    @Test
+    void invalidationInsideTransactionWaitsForCommit() {
+        UserAnalyticsCache cache = new UserAnalyticsCache(10, Duration.ofMinutes(10), clock::get);
+        cache.get(1L, "PLN", DASHBOARD, () -> "before");
+        TransactionSynchronizationManager.initSynchronization();
+
+        cache.invalidate(1L);
+        String beforeCommit = cache.get(1L, "PLN", DASHBOARD, () -> "uncommitted");
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+
+        assertThat(beforeCommit).isEqualTo("before");
+        assertThat(cache.get(1L, "PLN", DASHBOARD, () -> "after")).isEqualTo("after");
+    }
+}
@@ -0,0 +1,203 @@
+package com.grzechuhehe.SportsBettingManagerApp.service.stats;
+
+import com.grzechuhehe.SportsBettingManagerApp.model.Bet;
+import com.grzechuhehe.SportsBettingManagerApp.model.User;
+import com.grzechuhehe.SportsBettingManagerApp.model.UserDailyPnl;
+import com.grzechuhehe.SportsBettingManagerApp.model.UserStats;
+import com.grzechuhehe.SportsBettingManagerApp.model.enum_model.BetStatus;
+import com.grzechuhehe.SportsBettingManagerApp.model.enum_model.BetType;
+import com.grzechuhehe.SportsBettingManagerApp.repository.BetRepository;
+import com.grzechuhehe.SportsBettingManagerApp.repository.UserDailyPnlRepository;
+import com.grzechuhehe.SportsBettingManagerApp.repository.UserRepository;
+import com.grzechuhehe.SportsBettingManagerApp.repository.UserStatsRepository;
+import com.grzechuhehe.SportsBettingManagerApp.repository.projection.BetBucketTotals;
+import com.grzechuhehe.SportsBettingManagerApp.repository.projection.CurrencyAmount;
+import com.grzechuhehe.SportsBettingManagerApp.repository.projection.DailyPnlTotals;
+import com.grzechuhehe.SportsBettingManagerApp.service.CurrencyConversionService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserStatsServiceTest {
+
+    @Mock private BetRepository betRepository;
+    @Mock private UserRepository userRepository;
+    @Mock private UserStatsRepository userStatsRepository;
+    @Mock private UserDailyPnlRepository userDailyPnlRepository;
+
+    private UserStatsService service;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        CurrencyConversionService currencies = new CurrencyConversionService(
+                BigDecimal.ONE, new BigDecimal("4.05"), new BigDecimal("4.30"), new BigDecimal("5.10"));
+        service = new UserStatsService(
+                betRepository, userRepository, userStatsRepository, userDailyPnlRepository, currencies);
+        user = new User();
+        user.setId(7L);
+        user.setStatsRebuiltAt(LocalDateTime.of(2026, 10, 1, 0, 0));
+    }
+
+    @Test
+    void record_settlement_movesBetFromPendingToWonAndAddsDailyBucket() {
+        Bet bet = pendingSingle("100.00", "Football");
+        BetStatsContribution before = service.snapshot(bet);
+        bet.setStatus(BetStatus.WON);
+        bet.setFinalProfit(new BigDecimal("85.00"));
+        bet.setSettledAt(LocalDateTime.of(2026, 10, 2, 21, 0));
+        when(userRepository.lockStatsRebuilt(7L)).thenReturn(1L);
+
+        service.record(before, bet);
+
+        verify(userStatsRepository).upsertDelta(eq(7L), eq("PLN"), eq("Football"),
+                eq(0L), eq(-1L), eq(1L), eq(0L), eq(0L), eq(0L),
+                argThat(d -> d.signum() == 0), argThat(d -> d.compareTo(new BigDecimal("85.00")) == 0), any());
+        verify(userDailyPnlRepository).upsertDelta(eq(7L), eq(LocalDate.of(2026, 10, 2)), eq("PLN"),
+                argThat(p -> p.compareTo(new BigDecimal("85.00")) == 0), any(), eq(1L));
+        verify(userStatsRepository, never()).save(any());
+        verify(userDailyPnlRepository, never()).save(any());
+    }
+
+    @Test
+    void loadDailyPnl_readsOnlyRangeAndSumsProfitBeforeIt() {
+        UserDailyPnl day = new UserDailyPnl();
+        day.setUserId(7L);
+        day.setDay(LocalDate.of(2026, 3, 2));
+        day.setCurrency("PLN");
+        day.setProfit(new BigDecimal("20.00"));
+        day.setBets(1);
+        when(userDailyPnlRepository.findByUserIdAndDayBetweenOrderByDayAsc(
+                7L, LocalDate.of(2026, 3, 1), LocalDate.of(9999, 12, 31))).thenReturn(List.of(day));
+        when(userDailyPnlRepository.sumProfitBefore(7L, LocalDate.of(2026, 3, 1))).thenReturn(List.of(
+                new CurrencyAmount("PLN", new BigDecimal("100.00")),
+                new CurrencyAmount("EUR", new BigDecimal("-5.00"))));
+
+        DailyPnlRange range = service.loadDailyPnl(user, LocalDate.of(2026, 3, 1), null);
+
+        assertThat(range.openingProfitByCurrency())
+                .containsEntry("PLN", new BigDecimal("100.00"))
+                .containsEntry("EUR", new BigDecimal("-5.00"));
+        assertThat(range.dailyProfitByCurrency()).containsOnlyKeys(LocalDate.of(2026, 3, 2));
+        verifyNoInteractions(betRepository);
+    }
+
+    @Test
+    void record_notesOnlyUpdate_touchesNothing() {
+        Bet bet = pendingSingle("50.00", "Tennis");
+        BetStatsContribution before = service.snapshot(bet);
+        bet.setNotes("zmiana notatki");
+
+        service.record(before, bet);
+
+        verifyNoInteractions(userStatsRepository, userDailyPnlRepository);
+    }
+
+    @Test
+    void record_skipsUsersWithoutBuiltAggregate() {
+        when(userRepository.lockStatsRebuilt(7L)).thenReturn(0L);
+
+        service.record(null, pendingSingle("50.00", "Tennis"));
+
+        verifyNoInteractions(userStatsRepository, userDailyPnlRepository);
+    }
+
+    @Test
+    void record_appliesDeltaWhenDatabaseIsRebuiltDespiteStaleUser() {
+        // Encja sprzed przebudowy, która zatwierdziła się w międzyczasie — decyduje wiersz w bazie
+        user.setStatsRebuiltAt(null);
+        when(userRepository.lockStatsRebuilt(7L)).thenReturn(1L);
+
+        service.record(null, pendingSingle("50.00", "Tennis"));
+
+        verify(userStatsRepository).upsertDelta(eq(7L), eq("PLN"), eq("Tennis"),
+                eq(1L), eq(1L), eq(0L), eq(0L), eq(0L), eq(0L),
+                argThat(d -> d.compareTo(new BigDecimal("50.00")) == 0), argThat(d -> d.signum() == 0), any());
+    }
+
+    @Test
+    void record_ignoresParlayLegs() {
+        Bet parlay = pendingSingle("20.00", "Multi-Sport");
+        parlay.setBetType(BetType.PARLAY);
+        Bet leg = pendingSingle(null, "Football");
+        leg.setParentBet(parlay);
+        BetStatsContribution before = service.snapshot(leg);
+        leg.setStatus(BetStatus.WON);
+
+        service.record(before, leg);
+
+        assertThat(before).isNull();
+        verifyNoInteractions(userStatsRepository, userDailyPnlRepository);
+    }
+
+    @Test
+    void verify_reportsDriftBetweenStoredAggregateAndBets() {
+        when(betRepository.sumRootBucketsByUserId(7L)).thenReturn(List.of(
+                new BetBucketTotals("PLN", "Football", BetStatus.WON, 1L, new BigDecimal("100.00"), new BigDecimal("50.00"))));
+        when(betRepository.sumRootDailyPnlByUserId(7L, BetStatus.PENDING)).thenReturn(List.of());
+        UserStats stale = new UserStats();
+        stale.setUserId(7L);
+        stale.setCurrency("PLN");
+        stale.setSport("Football");
+        stale.setTotalBets(1);
+        stale.setPendingBets(1);
+        stale.setStaked(new BigDecimal("100.00"));
+        when(userStatsRepository.findByUserId(7L)).thenReturn(List.of(stale));
+        when(userDailyPnlRepository.findByUserIdOrderByDayAsc(7L)).thenReturn(List.of());
+
+        assertThat(service.verify(7L)).containsExactly("user_stats[PLN|Football]");
+    }
+
+    @Test
+    void rebuild_normalizesGroupedRowsFromDatabase() {
+        when(betRepository.sumRootBucketsByUserId(7L)).thenReturn(List.of(
+                new BetBucketTotals(null, null, BetStatus.PENDING, 2L, new BigDecimal("30.00"), null),
+                new BetBucketTotals("PLN", null, BetStatus.LOST, 1L, new BigDecimal("10.00"), new BigDecimal("-10.00"))));
+        when(betRepository.sumRootDailyPnlByUserId(7L, BetStatus.PENDING)).thenReturn(List.of(
+                new DailyPnlTotals(LocalDate.of(2026, 10, 3), "XYZ", 1L, new BigDecimal("10.00"), new BigDecimal("-10.00"))));
+
+        UserStatsSnapshot snapshot = service.rebuild(7L);
+
+        assertThat(snapshot.buckets()).singleElement().satisfies(s -> {
+            assertThat(s.getCurrency()).isEqualTo("PLN");
+            assertThat(s.getSport()).isEqualTo(BetStatsContribution.NO_SPORT);
+            assertThat(s.getTotalBets()).isEqualTo(3);
+            assertThat(s.getPendingBets()).isEqualTo(2);
+            assertThat(s.getLostBets()).isEqualTo(1);
+            assertThat(s.getStaked()).isEqualByComparingTo("40.00");
+            assertThat(s.getProfit()).isEqualByComparingTo("-10.00");
+        });
+        assertThat(snapshot.days()).singleElement().satisfies(d -> assertThat(d.getCurrency()).isEqualTo("PLN"));
+        verify(betRepository, never()).findByUserId(anyLong());
+        InOrder order = inOrder(userRepository, betRepository);
+        order.verify(userRepository).lockById(7L);
+        order.verify(betRepository).sumRootBucketsByUserId(7L);
+        verify(userRepository).markStatsRebuilt(eq(7L), any());
+    }
+
+    private Bet pendingSingle(String stake, String sport) {
+        Bet bet = new Bet();
+        bet.setUser(user);
+        bet.setBetType(BetType.SINGLE);
+        bet.setStatus(BetStatus.PENDING);
+        bet.setStake(stake != null ? new BigDecimal(stake) : null);
+        bet.setCurrency("PLN");
+        bet.setSport(sport);
+        return bet;
+    }
+}